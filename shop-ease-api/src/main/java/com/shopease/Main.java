@@ -1,5 +1,6 @@
 package com.shopease;
 
+import com.shopease.util.ConnectionPool;
 import com.shopease.util.DatabaseConnection;
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -14,6 +15,8 @@ public class Main {
             }
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            ConnectionPool.shutdown();
         }
     }
 }
@@ -0,0 +1,147 @@
+package com.shopease.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.shopease.util.AsyncRequestExecutor.Reply;
+import com.shopease.util.EnvConfig;
+import com.shopease.util.Json;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Conditional GET for public catalog responses, backed by a cache of their
+ * serialized bytes.
+ *
+ * A response is serialized once into an Entry holding the JSON bytes and a
+ * strong ETag (a hash of those bytes). Until the entry expires or the
+ * catalog changes, repeat requests are answered from the bytes without
+ * touching the DAOs or Jackson, and clients or CDNs that send a matching
+ * If-None-Match get a 304 with no body.
+ *
+ * There is deliberately no Last-Modified / If-Modified-Since: the bodies
+ * combine products with their variants, images, reviews and ratings, and
+ * list pages change when a product leaves them, so no stored timestamp
+ * covers every change. The ETag follows the bytes and always does.
+ *
+ * Entries live for RESPONSE_CACHE_TTL_SECONDS (default 60) within
+ * RESPONSE_CACHE_MAX_BYTES (default 16 MB); RESPONSE_CACHE=false disables
+ * the byte cache but keeps validators and 304s. Responses carry
+ * "Cache-Control: public, max-age=HTTP_CACHE_MAX_AGE_SECONDS (60),
+ * s-maxage=HTTP_CACHE_SHARED_MAX_AGE_SECONDS (300)".
+ */
+public final class ResponseCache {
+
+    private static final ResponseCache INSTANCE = new ResponseCache();
+
+    private final boolean enabled = EnvConfig.getBoolean("RESPONSE_CACHE", true);
+    private final String cacheControl = "public, max-age=" + EnvConfig.getLong("HTTP_CACHE_MAX_AGE_SECONDS", 60)
+            + ", s-maxage=" + EnvConfig.getLong("HTTP_CACHE_SHARED_MAX_AGE_SECONDS", 300);
+    private final ReadThroughCache<String, Entry> entries = new ReadThroughCache<>("responses",
+            EnvConfig.getLong("RESPONSE_CACHE_TTL_SECONDS", 60) * 1000,
+            EnvConfig.getLong("RESPONSE_CACHE_MAX_BYTES", 16L * 1024 * 1024),
+            entry -> 96L + entry.body.length + 2L * entry.etag.length());
+
+    private final LongAdder notModified = new LongAdder();
+
+    private ResponseCache() {}
+
+    public static ResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    // ================= LOOKUP / STORE =================
+
+    // The cached response for key, or null on a miss
+    public Entry get(String key) {
+        return enabled ? entries.getIfPresent(key) : null;
+    }
+
+    // Take before loading the entities for key and pass to store(), so a load
+    // that overlaps a catalog write is not cached
+    public long stamp() {
+        return entries.generation();
+    }
+
+    // Serializes body once
+    public Entry store(String key, long stamp, Object body) throws JsonProcessingException {
+        Entry entry = new Entry(Json.writerFor(body.getClass()).writeValueAsBytes(body));
+        if (enabled) entries.putIfUnchanged(key, entry, stamp);
+        return entry;
+    }
+
+    // ================= CONDITIONAL GET =================
+
+    // 304 when the client already holds this entry, otherwise 200 with the cached bytes
+    public Reply reply(HttpServletRequest req, Entry entry) {
+        Reply reply;
+        if (isNotModified(req, entry)) {
+            notModified.increment();
+            reply = Reply.status(HttpServletResponse.SC_NOT_MODIFIED, null);
+        } else {
+            reply = Reply.ok(entry.body);
+        }
+        reply.header("ETag", entry.etag).header("Cache-Control", cacheControl);
+        return reply;
+    }
+
+    // Weak comparison, as RFC 9110 13.1.2 requires for If-None-Match
+    private static boolean isNotModified(HttpServletRequest req, Entry entry) {
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch == null) return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(entry.etag)) return true;
+        }
+        return false;
+    }
+
+    // ================= INVALIDATION =================
+
+    // Drops every entry whose key starts with prefix ("products", "categories")
+    public void invalidate(String prefix) {
+        entries.invalidateIf(key -> key.startsWith(prefix));
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = entries.getStats();
+        stats.put("enabled", enabled);
+        stats.put("notModified", notModified.sum());
+        return stats;
+    }
+
+    // ================= TYPES =================
+
+    public static final class Entry {
+        private final byte[] body;
+        private final String etag;
+
+        Entry(byte[] body) {
+            this.body = body;
+            this.etag = etagOf(body);
+        }
+
+        public String getEtag() { return etag; }
+    }
+
+    // Strong validator: identical bytes, identical tag
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
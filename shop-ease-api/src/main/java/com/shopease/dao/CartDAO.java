@@ -2,11 +2,18 @@ package com.shopease.dao;
 
 import com.shopease.model.Cart;
 import com.shopease.model.CartItem;
+import com.shopease.model.CartSnapshot;
 import com.shopease.util.DatabaseUtil;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,129 +22,218 @@ public class CartDAO {
 
     // Get cart by userId, create if not exists
     public Cart getCartByUserId(String userId) {
-        String sql = "SELECT * FROM cart WHERE id = ?";
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, userId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                Cart cart = new Cart();
-                cart.setCartId(rs.getString("cart_id")); // String UUID
-                cart.setUserId(rs.getString("user_id"));
-                cart.setCreatedAt(rs.getTimestamp("created_at"));
-                return cart;
-            } else {
-                String newCartId = createCartForUser(userId);
-                if (newCartId != null) {
-                    Cart newCart = new Cart();
-                    newCart.setCartId(newCartId);
-                    newCart.setUserId(userId);
-                    return newCart;
-                }
-            }
-
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            Cart cart = findCart(conn, userId);
+            return cart != null ? cart : createCartForUser(conn, userId);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error getting cart for user: " + userId, e);
         }
         return null;
     }
 
-    // Create cart for a user
-    private String createCartForUser(String userId) {
-        String sql = "INSERT INTO cart (user_id) VALUES (?)";
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            stmt.setString(1, userId);
-            int affected = stmt.executeUpdate();
-            if (affected > 0) {
-                ResultSet keys = stmt.getGeneratedKeys();
-                if (keys.next()) return keys.getString(1);
+    /**
+     * The user's cart with priced items in one query on one connection
+     * (creating an empty cart if the user has none). Unit price is the
+     * product price plus the variant's additional_price; totals are exact
+     * BigDecimal sums computed while the rows are read. Items without a
+     * variant image get the product's primary image from one batched lookup.
+     */
+    public CartSnapshot getCartSnapshot(String userId) {
+        String sql = """
+                SELECT c.cart_id, c.user_id, c.created_at,
+                       ci.cart_item_id, ci.product_id, ci.variant_id, ci.quantity,
+                       p.title, p.price, v.additional_price, v.image_url
+                FROM cart c
+                LEFT JOIN cart_items ci ON ci.cart_id = c.cart_id
+                LEFT JOIN products p ON p.id = ci.product_id
+                LEFT JOIN product_variants v ON v.variant_id = ci.variant_id
+                WHERE c.user_id = ?
+                ORDER BY ci.cart_item_id
+                """;
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            Cart cart = null;
+            List<CartItem> items = new ArrayList<>();
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, userId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (cart == null) cart = mapCart(rs);
+                        String cartItemId = rs.getString("cart_item_id");
+                        if (cartItemId == null) continue; // empty cart
+
+                        CartItem item = new CartItem(cartItemId, cart.getCartId(), rs.getString("product_id"),
+                                rs.getString("variant_id"), rs.getInt("quantity"));
+                        item.setProductName(rs.getString("title"));
+                        item.setProductPrice(rs.getBigDecimal("price"));
+                        item.setImageUrl(rs.getString("image_url"));
+                        item.setUnitPrice(unitPrice(item.getProductPrice(), rs.getBigDecimal("additional_price")));
+                        items.add(item);
+                    }
+                }
             }
+            fillProductImages(conn, items);
+
+            if (cart == null) cart = createCartForUser(conn, userId);
+            return cart != null ? CartSnapshot.of(cart, items) : null;
 
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error creating cart for user: " + userId, e);
+            LOGGER.log(Level.SEVERE, "Error getting cart snapshot for user: " + userId, e);
         }
         return null;
     }
 
-    // Get all items in a cart
-    public List<CartItem> getCartItems(String cartId) {
-        List<CartItem> items = new ArrayList<>();
-        String sql = """
-                SELECT ci.cart_item_id, ci.cart_id, ci.product_id, ci.variant_id, ci.quantity,
-                       p.product_name, p.price, p.image_url
-                FROM cart_items ci
-                JOIN products p ON ci.product_id = p.product_id
-                WHERE ci.cart_id = ?
-                """;
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    public static BigDecimal unitPrice(BigDecimal productPrice, BigDecimal additionalPrice) {
+        BigDecimal price = productPrice != null ? productPrice : BigDecimal.ZERO;
+        return additionalPrice != null ? price.add(additionalPrice) : price;
+    }
 
-            stmt.setString(1, cartId);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                CartItem item = new CartItem();
-                item.setCartItemId(rs.getString("cart_item_id")); // String
-                item.setCartId(rs.getString("cart_id"));
-                item.setProductId(rs.getString("product_id"));
-                item.setVariantId(rs.getObject("variant_id") != null ? rs.getString("variant_id") : null);
-                item.setQuantity(rs.getInt("quantity"));
-                item.setProductName(rs.getString("product_name"));
-                item.setProductPrice(rs.getBigDecimal("price"));
-                item.setImageUrl(rs.getString("image_url"));
-                items.add(item);
-            }
+    private void fillProductImages(Connection conn, List<CartItem> items) throws SQLException {
+        Set<String> productIds = new LinkedHashSet<>();
+        for (CartItem item : items) {
+            if (item.getImageUrl() == null && item.getProductId() != null) productIds.add(item.getProductId());
+        }
+        if (productIds.isEmpty()) return;
 
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error getting cart items for cartId: " + cartId, e);
+        Map<String, String> urls = ProductDAO.loadPrimaryImageUrls(conn, new ArrayList<>(productIds));
+        for (CartItem item : items) {
+            if (item.getImageUrl() == null) item.setImageUrl(urls.get(item.getProductId()));
         }
-        return items;
     }
 
-    // Add item to cart (or update quantity if exists)
-    public boolean addItemToCart(CartItem item) {
-        String checkSql = "SELECT cart_item_id, quantity FROM cart_items WHERE cart_id = ? AND product_id = ? AND (variant_id = ? OR (variant_id IS NULL AND ? IS NULL))";
-
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-
-            checkStmt.setString(1, item.getCartId());
-            checkStmt.setString(2, item.getProductId());
-
-            if (item.getVariantId() != null) {
-                checkStmt.setString(3, item.getVariantId());
-                checkStmt.setString(4, item.getVariantId());
-            } else {
-                checkStmt.setNull(3, Types.INTEGER);
-                checkStmt.setNull(4, Types.INTEGER);
+    private Cart findCart(Connection conn, String userId) throws SQLException {
+        String sql = "SELECT cart_id, user_id, created_at FROM cart WHERE user_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapCart(rs) : null;
             }
+        }
+    }
 
-            ResultSet rs = checkStmt.executeQuery();
-            if (rs.next()) {
-                String existingItemId = rs.getString("cart_item_id");
-                int existingQty = rs.getInt("quantity");
-                return updateQuantity(existingItemId, existingQty + item.getQuantity());
-            }
+    // Create cart for a user on the caller's connection
+    private Cart createCartForUser(Connection conn, String userId) throws SQLException {
+        String sql = "INSERT INTO cart (cart_id, user_id) VALUES (?, ?)";
+        String cartId = UUID.randomUUID().toString();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, cartId);
+            stmt.setString(2, userId);
+            if (stmt.executeUpdate() == 0) return null;
+        }
+        return new Cart(cartId, userId, new Timestamp(System.currentTimeMillis()));
+    }
+
+    private Cart mapCart(ResultSet rs) throws SQLException {
+        Cart cart = new Cart();
+        cart.setCartId(rs.getString("cart_id")); // String UUID
+        cart.setUserId(rs.getString("user_id"));
+        cart.setCreatedAt(rs.getTimestamp("created_at"));
+        return cart;
+    }
 
-            String insertSql = "INSERT INTO cart_items (cart_id, product_id, variant_id, quantity) VALUES (?, ?, ?, ?)";
-            try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
-                insertStmt.setString(1, item.getCartId());
-                insertStmt.setString(2, item.getProductId());
-                if (item.getVariantId() != null) insertStmt.setString(3, item.getVariantId());
-                else insertStmt.setNull(3, Types.INTEGER);
-                insertStmt.setInt(4, item.getQuantity());
-                return insertStmt.executeUpdate() > 0;
+    /**
+     * Flushes coalesced cart changes for any number of carts in one
+     * transaction. additions are quantity increments applied with one atomic
+     * upsert per line (quantity = quantity + ?), relying on the unique key over
+     * (cart_id, product_id, variant_key), so adds made through different
+     * instances all count instead of overwriting each other. lines carry
+     * absolute quantities set by the user: those > 0 overwrite the stored
+     * quantity, the rest are deleted. New lines keep the caller's cart_item_id.
+     */
+    public boolean syncCartLines(List<CartItem> lines, List<CartItem> additions) {
+        if (lines.isEmpty() && additions.isEmpty()) return true;
+
+        String addSql = """
+                INSERT INTO cart_items (cart_item_id, cart_id, product_id, variant_id, quantity)
+                VALUES (?, ?, ?, ?, ?)
+                ON DUPLICATE KEY UPDATE quantity = quantity + ?
+                """;
+        String upsertSql = """
+                INSERT INTO cart_items (cart_item_id, cart_id, product_id, variant_id, quantity)
+                VALUES (?, ?, ?, ?, ?)
+                ON DUPLICATE KEY UPDATE quantity = ?
+                """;
+        String deleteSql = "DELETE FROM cart_items WHERE cart_id = ? AND product_id = ? AND variant_key = COALESCE(?, '')";
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement add = conn.prepareStatement(addSql);
+                 PreparedStatement upsert = conn.prepareStatement(upsertSql);
+                 PreparedStatement delete = conn.prepareStatement(deleteSql)) {
+
+                for (CartItem line : additions) {
+                    add.setString(1, line.getCartItemId());
+                    add.setString(2, line.getCartId());
+                    add.setString(3, line.getProductId());
+                    if (line.getVariantId() != null) add.setString(4, line.getVariantId());
+                    else add.setNull(4, Types.VARCHAR);
+                    add.setInt(5, line.getQuantity());
+                    add.setInt(6, line.getQuantity());
+                    add.addBatch();
+                }
+                int upserts = 0;
+                int deletes = 0;
+                for (CartItem line : lines) {
+                    if (line.getQuantity() > 0) {
+                        upsert.setString(1, line.getCartItemId());
+                        upsert.setString(2, line.getCartId());
+                        upsert.setString(3, line.getProductId());
+                        if (line.getVariantId() != null) upsert.setString(4, line.getVariantId());
+                        else upsert.setNull(4, Types.VARCHAR);
+                        upsert.setInt(5, line.getQuantity());
+                        upsert.setInt(6, line.getQuantity());
+                        upsert.addBatch();
+                        upserts++;
+                    } else {
+                        delete.setString(1, line.getCartId());
+                        delete.setString(2, line.getProductId());
+                        if (line.getVariantId() != null) delete.setString(3, line.getVariantId());
+                        else delete.setNull(3, Types.VARCHAR);
+                        delete.addBatch();
+                        deletes++;
+                    }
+                }
+                if (!additions.isEmpty()) add.executeBatch();
+                if (upserts > 0) upsert.executeBatch();
+                if (deletes > 0) delete.executeBatch();
+                conn.commit();
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
 
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error adding item to cart", e);
+            LOGGER.log(Level.SEVERE, "Error syncing " + (lines.size() + additions.size()) + " cart lines", e);
         }
         return false;
     }
 
+    /**
+     * Deletes the given lines on the caller's connection (checkout transaction)
+     * in one statement and returns how many rows went. The rows stay locked
+     * until the transaction ends, so a concurrent checkout of the same cart
+     * waits here and then finds fewer rows than it expected.
+     */
+    public int deleteLines(Connection conn, List<CartItem> lines) throws SQLException {
+        if (lines.isEmpty()) return 0;
+        String tuples = String.join(" OR ", Collections.nCopies(lines.size(),
+                "(cart_id = ? AND product_id = ? AND variant_key = COALESCE(?, ''))"));
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM cart_items WHERE " + tuples)) {
+            int i = 1;
+            for (CartItem line : lines) {
+                stmt.setString(i++, line.getCartId());
+                stmt.setString(i++, line.getProductId());
+                if (line.getVariantId() != null) stmt.setString(i++, line.getVariantId());
+                else stmt.setNull(i++, Types.VARCHAR);
+            }
+            return stmt.executeUpdate();
+        }
+    }
+
     // Update cart item quantity
     public boolean updateQuantity(String cartItemId, int quantity) {
         String sql = "UPDATE cart_items SET quantity = ? WHERE cart_item_id = ?";
@@ -183,25 +279,4 @@ public class CartDAO {
         }
         return false;
     }
-
-    // Calculate cart total
-    public double getCartTotal(String cartId) {
-        String sql = """
-                SELECT SUM(ci.quantity * p.price) AS total
-                FROM cart_items ci
-                JOIN products p ON ci.product_id = p.product_id
-                WHERE ci.cart_id = ?
-                """;
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, cartId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) return rs.getDouble("total");
-
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error calculating cart total for cartId: " + cartId, e);
-        }
-        return 0.0;
-    }
 }
@@ -5,20 +5,34 @@ import com.shopease.util.DatabaseUtil;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class CategoryDAO {
     private static final Logger LOGGER = Logger.getLogger(CategoryDAO.class.getName());
 
+    private static final String COLUMNS = "id, parent_id, name, slug, description, sort_order";
+
     public boolean addCategory(Category category) {
-        String query = "INSERT INTO categories (name, description) VALUES (?, ?)";
+        String query = "INSERT INTO categories (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)";
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
 
-            stmt.setString(1, category.getName());
-            stmt.setString(2, category.getDescription());
+            category.setCategoryId(UUID.randomUUID().toString());
+            if (category.getSlug() == null || category.getSlug().isBlank()) {
+                category.setSlug(slugify(category.getName()));
+            }
+
+            stmt.setString(1, category.getCategoryId());
+            stmt.setString(2, category.getParentId());
+            stmt.setString(3, category.getName());
+            stmt.setString(4, category.getSlug());
+            stmt.setString(5, category.getDescription());
+            stmt.setInt(6, category.getSortOrder());
             return stmt.executeUpdate() > 0;
 
         } catch (SQLException e) {
@@ -29,17 +43,13 @@ public class CategoryDAO {
 
     public List<Category> getAllCategories() {
         List<Category> categories = new ArrayList<>();
-        String query = "SELECT * FROM categories";
+        String query = "SELECT " + COLUMNS + " FROM categories ORDER BY sort_order, name";
         try (Connection conn = DatabaseUtil.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
 
             while (rs.next()) {
-                Category category = new Category();
-                category.setCategoryId(rs.getInt("category_id"));
-                category.setName(rs.getString("name"));
-                category.setDescription(rs.getString("description"));
-                categories.add(category);
+                categories.add(mapCategory(rs));
             }
 
         } catch (SQLException e) {
@@ -48,19 +58,17 @@ public class CategoryDAO {
         return categories;
     }
 
-    public Category getCategoryById(int id) {
-        String query = "SELECT * FROM categories WHERE category_id = ?";
+    public Category getCategoryById(String id) {
+        String query = "SELECT " + COLUMNS + " FROM categories WHERE id = ?";
         Category category = null;
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
 
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                category = new Category();
-                category.setCategoryId(rs.getInt("category_id"));
-                category.setName(rs.getString("name"));
-                category.setDescription(rs.getString("description"));
+            stmt.setString(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    category = mapCategory(rs);
+                }
             }
 
         } catch (SQLException e) {
@@ -69,14 +77,38 @@ public class CategoryDAO {
         return category;
     }
 
+    // Active products per category_id, for the category tree
+    public Map<String, Integer> getActiveProductCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        String query = "SELECT category_id, COUNT(*) AS products FROM products "
+                + "WHERE status = 'active' AND category_id IS NOT NULL GROUP BY category_id";
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
+            while (rs.next()) {
+                counts.put(rs.getString("category_id"), rs.getInt("products"));
+            }
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error counting products per category", e);
+        }
+        return counts;
+    }
+
+    // A blank slug keeps the current one
     public boolean updateCategory(Category category) {
-        String query = "UPDATE categories SET name = ?, description = ? WHERE category_id = ?";
+        String query = "UPDATE categories SET parent_id = ?, name = ?, slug = COALESCE(NULLIF(?, ''), slug), "
+                + "description = ?, sort_order = ? WHERE id = ?";
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
 
-            stmt.setString(1, category.getName());
-            stmt.setString(2, category.getDescription());
-            stmt.setInt(3, category.getCategoryId());
+            stmt.setString(1, category.getParentId());
+            stmt.setString(2, category.getName());
+            stmt.setString(3, category.getSlug());
+            stmt.setString(4, category.getDescription());
+            stmt.setInt(5, category.getSortOrder());
+            stmt.setString(6, category.getCategoryId());
             return stmt.executeUpdate() > 0;
 
         } catch (SQLException e) {
@@ -85,12 +117,13 @@ public class CategoryDAO {
         }
     }
 
-    public boolean deleteCategory(int id) {
-        String query = "DELETE FROM categories WHERE category_id = ?";
+    // Children and products keep existing with a NULL parent/category (ON DELETE SET NULL)
+    public boolean deleteCategory(String id) {
+        String query = "DELETE FROM categories WHERE id = ?";
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
 
-            stmt.setInt(1, id);
+            stmt.setString(1, id);
             return stmt.executeUpdate() > 0;
 
         } catch (SQLException e) {
@@ -98,4 +131,20 @@ public class CategoryDAO {
             return false;
         }
     }
+
+    private Category mapCategory(ResultSet rs) throws SQLException {
+        Category category = new Category();
+        category.setCategoryId(rs.getString("id"));
+        category.setParentId(rs.getString("parent_id"));
+        category.setName(rs.getString("name"));
+        category.setSlug(rs.getString("slug"));
+        category.setDescription(rs.getString("description"));
+        category.setSortOrder(rs.getInt("sort_order"));
+        return category;
+    }
+
+    static String slugify(String name) {
+        if (name == null) return "";
+        return name.trim().toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
+    }
 }
@@ -0,0 +1,12 @@
+package com.shopease.dao;
+
+/**
+ * A failed read that callers must not mistake for "no rows", e.g. catalog
+ * reads that would otherwise cache an empty result for the whole TTL.
+ */
+public class DataAccessException extends RuntimeException {
+
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,141 @@
+package com.shopease.dao;
+
+import com.shopease.util.DatabaseUtil;
+
+import java.sql.*;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads and writes variant_inventory. Variants without an inventory row fall
+ * back to product_variants.stock and get a row on their first write.
+ */
+public class InventoryDAO {
+    private static final Logger LOGGER = Logger.getLogger(InventoryDAO.class.getName());
+
+    // On-hand quantity per variant id; unknown variants are absent from the map
+    public Map<String, Integer> getOnHand(Collection<String> variantIds) {
+        Map<String, Integer> onHand = new HashMap<>();
+        if (variantIds == null || variantIds.isEmpty()) return onHand;
+
+        String placeholders = String.join(",", Collections.nCopies(variantIds.size(), "?"));
+        String sql = """
+                SELECT v.variant_id, COALESCE(vi.quantity, v.stock, 0) AS quantity
+                FROM product_variants v
+                LEFT JOIN variant_inventory vi ON vi.variant_id = v.variant_id
+                WHERE v.variant_id IN (""" + placeholders + ")";
+
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            for (String id : variantIds) stmt.setString(i++, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) onHand.put(rs.getString("variant_id"), rs.getInt("quantity"));
+            }
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading inventory", e);
+        }
+        return onHand;
+    }
+
+    /**
+     * Adds each variant's change in reserved units, in one batched statement.
+     * deltas maps variant id to {onHand, delta}; onHand only seeds rows that
+     * do not exist yet. Deltas from several instances add up, and commute
+     * with the checkout deduction.
+     */
+    public boolean saveReserved(Map<String, int[]> deltas) {
+        if (deltas.isEmpty()) return true;
+        String sql = """
+                INSERT INTO variant_inventory (variant_id, quantity, reserved)
+                VALUES (?, ?, ?)
+                ON DUPLICATE KEY UPDATE reserved = reserved + VALUES(reserved)
+                """;
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (Map.Entry<String, int[]> e : deltas.entrySet()) {
+                stmt.setString(1, e.getKey());
+                stmt.setInt(2, e.getValue()[0]);
+                stmt.setInt(3, e.getValue()[1]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            return true;
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error saving " + deltas.size() + " inventory reservation deltas", e);
+            return false;
+        }
+    }
+
+    // Replaces the on-hand quantity (admin stock edits)
+    public boolean setOnHand(String variantId, int quantity) {
+        String sql = """
+                INSERT INTO variant_inventory (variant_id, quantity)
+                VALUES (?, ?)
+                ON DUPLICATE KEY UPDATE quantity = VALUES(quantity)
+                """;
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, variantId);
+            stmt.setInt(2, quantity);
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error setting inventory for variant: " + variantId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Deducts sold quantities on the caller's connection and transaction
+     * (checkout), and the reserved units they were sold from. Each row is
+     * guarded by quantity >= ?, so the database never goes negative; returns
+     * false if any line could not be deducted. Pass the variants in a fixed
+     * order so two checkouts lock shared rows in the same order.
+     */
+    public boolean deductSold(Connection conn, List<String> variantIds, List<Integer> quantities) throws SQLException {
+        if (variantIds.isEmpty()) return true;
+
+        // Variants still tracked only by product_variants.stock get their row first
+        String placeholders = String.join(",", Collections.nCopies(variantIds.size(), "?"));
+        String seedSql = """
+                INSERT IGNORE INTO variant_inventory (variant_id, quantity)
+                SELECT v.variant_id, COALESCE(v.stock, 0)
+                FROM product_variants v
+                WHERE v.variant_id IN (""" + placeholders + ")";
+        try (PreparedStatement seed = conn.prepareStatement(seedSql)) {
+            for (int i = 0; i < variantIds.size(); i++) seed.setString(i + 1, variantIds.get(i));
+            seed.executeUpdate();
+        }
+
+        String sql = """
+                UPDATE variant_inventory
+                SET quantity = quantity - ?, reserved = reserved - ?
+                WHERE variant_id = ? AND quantity >= ?
+                """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < variantIds.size(); i++) {
+                int qty = quantities.get(i);
+                stmt.setInt(1, qty);
+                stmt.setInt(2, qty);
+                stmt.setString(3, variantIds.get(i));
+                stmt.setInt(4, qty);
+                stmt.addBatch();
+            }
+            for (int updated : stmt.executeBatch()) {
+                if (updated == 0) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -1,39 +1,54 @@
 package com.shopease.dao;
 
 import com.shopease.model.Order;
+import com.shopease.model.OrderFilter;
 import com.shopease.model.OrderItem;
+import com.shopease.model.Page;
 import com.shopease.util.DatabaseUtil;
+import com.shopease.util.PageCursor;
+
+import java.io.IOException;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class OrderDAO {
     private static final Logger LOGGER = Logger.getLogger(OrderDAO.class.getName());
 
+    public static final int DEFAULT_PAGE_SIZE = 25;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private final OrderItemDAO orderItemDAO = new OrderItemDAO();
+
     // Add a new order
     public boolean addOrder(Order order) {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return insertOrder(conn, order);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error adding order", e);
+        }
+        return false;
+    }
+
+    // Inserts on the caller's connection (checkout transaction) and sets the generated id
+    public boolean insertOrder(Connection conn, Order order) throws SQLException {
         String query = "INSERT INTO orders (user_id, status, total_amount, created_at) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
 
-            stmt.setInt(1, order.getUserId());
+            stmt.setString(1, order.getUserId());
             stmt.setString(2, order.getStatus());
             stmt.setBigDecimal(3, order.getTotalAmount());
             stmt.setTimestamp(4, order.getCreatedAt());
-            int affected = stmt.executeUpdate();
-            if (affected > 0) {
-                ResultSet keys = stmt.getGeneratedKeys();
+            if (stmt.executeUpdate() == 0) return false;
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
                 if (keys.next()) order.setOrderId(keys.getInt(1));
-                return true;
             }
-
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error adding order", e);
+            return true;
         }
-        return false;
     }
 
     // Get order by ID
@@ -47,7 +62,7 @@ public class OrderDAO {
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
                 order = mapOrder(rs);
-                order.setItems(getOrderItems(orderId)); // fetch items
+                attachItems(conn, List.of(order)); // fetch items
             }
 
         } catch (SQLException e) {
@@ -59,17 +74,15 @@ public class OrderDAO {
     // Get orders by user ID
     public List<Order> getOrdersByUserId(String userId) {
         List<Order> orders = new ArrayList<>();
-        String query = "SELECT * FROM orders WHERE id = ? ORDER BY created_at DESC";
+        String query = "SELECT * FROM orders WHERE user_id = ? ORDER BY created_at DESC";
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
 
             stmt.setString(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Order order = mapOrder(rs);
-                order.setItems(getOrderItems(order.getOrderId()));
-                orders.add(order);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) orders.add(mapOrder(rs));
             }
+            attachItems(conn, orders);
 
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error fetching orders", e);
@@ -85,11 +98,8 @@ public class OrderDAO {
              PreparedStatement stmt = conn.prepareStatement(query);
              ResultSet rs = stmt.executeQuery()) {
 
-            while (rs.next()) {
-                Order order = mapOrder(rs);
-                order.setItems(getOrderItems(order.getOrderId())); // fetch items
-                orders.add(order);
-            }
+            while (rs.next()) orders.add(mapOrder(rs));
+            attachItems(conn, orders); // fetch items in one batch
 
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error fetching all orders", e);
@@ -97,6 +107,180 @@ public class OrderDAO {
         return orders;
     }
 
+    // ================= ADMIN LISTING =================
+
+    public static int clampPageSize(int size) {
+        if (size <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Filtered keyset page of orders, newest first. Pass the returned
+     * nextCursor back to continue; items are batch-loaded for the page only.
+     */
+    public Page<Order> getOrdersPage(OrderFilter filter, String cursor, int size) {
+        size = clampPageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        Integer afterId = null;
+        if (after != null) {
+            try {
+                afterId = Integer.valueOf(after.getId());
+            } catch (NumberFormatException e) {
+                after = null; // not an order cursor; start from the first page
+            }
+        }
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM orders o WHERE 1 = 1");
+        appendFilter(sql, params, filter, "o");
+        if (after != null) {
+            sql.append(" AND (o.created_at < ? OR (o.created_at = ? AND o.order_id < ?))");
+            params.add(after.getTimestamp());
+            params.add(after.getTimestamp());
+            params.add(afterId);
+        }
+        sql.append(" ORDER BY o.created_at DESC, o.order_id DESC LIMIT ?");
+        params.add(size + 1); // one extra row tells us whether a next page exists
+
+        List<Order> orders = new ArrayList<>();
+        boolean hasMore = false;
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            bind(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) orders.add(mapOrder(rs));
+            }
+
+            if (orders.size() > size) {
+                hasMore = true;
+                orders = new ArrayList<>(orders.subList(0, size));
+            }
+            attachItems(conn, orders);
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching order page", e);
+            return new Page<>(new ArrayList<>(), null);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = PageCursor.encode(last.getCreatedAt(), String.valueOf(last.getOrderId()));
+        }
+        return new Page<>(orders, nextCursor);
+    }
+
+    // Receives orders one at a time from streamOrders
+    @FunctionalInterface
+    public interface OrderHandler {
+        void handle(Order order) throws IOException;
+    }
+
+    /**
+     * Streams every order matching the filter, newest first, with its items.
+     *
+     * Orders and items come back from a single join over a forward-only,
+     * row-streaming ResultSet (fetch size Integer.MIN_VALUE in Connector/J),
+     * and consecutive rows are folded into one Order, so only the current
+     * order is held in memory. Returns the number of orders handled.
+     * IOExceptions from the handler (e.g. the client went away) propagate.
+     */
+    public int streamOrders(OrderFilter filter, OrderHandler handler) throws IOException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("""
+            SELECT
+                o.order_id,
+                o.user_id,
+                o.status,
+                o.total_amount,
+                o.created_at,
+                oi.order_item_id,
+                oi.product_id,
+                oi.variant_id,
+                oi.quantity,
+                oi.price
+            FROM orders o
+            LEFT JOIN order_items oi
+                ON oi.order_id = o.order_id
+            WHERE 1 = 1
+        """);
+        appendFilter(sql, params, filter, "o");
+        sql.append(" ORDER BY o.created_at DESC, o.order_id DESC, oi.order_item_id");
+
+        int count = 0;
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString(),
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            bind(stmt, params);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                Order current = null;
+                while (rs.next()) {
+                    int orderId = rs.getInt("order_id");
+                    if (current == null || current.getOrderId() != orderId) {
+                        if (current != null) {
+                            handler.handle(current);
+                            count++;
+                        }
+                        current = mapOrder(rs);
+                        current.setItems(new ArrayList<>());
+                    }
+                    int itemId = rs.getInt("order_item_id");
+                    if (!rs.wasNull()) { // null for an order without items
+                        OrderItem item = new OrderItem();
+                        item.setOrderItemId(itemId);
+                        item.setOrderId(orderId);
+                        item.setProductId(rs.getString("product_id"));
+                        item.setVariantId(rs.getString("variant_id"));
+                        item.setQuantity(rs.getInt("quantity"));
+                        item.setPrice(rs.getBigDecimal("price"));
+                        current.getItems().add(item);
+                    }
+                }
+                if (current != null) {
+                    handler.handle(current);
+                    count++;
+                }
+            }
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error streaming orders", e);
+        }
+        return count;
+    }
+
+    private static void appendFilter(StringBuilder sql, List<Object> params, OrderFilter filter, String alias) {
+        if (filter == null) return;
+        if (filter.getStatus() != null) {
+            sql.append(" AND ").append(alias).append(".status = ?");
+            params.add(filter.getStatus());
+        }
+        if (filter.getUserId() != null) {
+            sql.append(" AND ").append(alias).append(".user_id = ?");
+            params.add(filter.getUserId());
+        }
+        if (filter.getCreatedFrom() != null) {
+            sql.append(" AND ").append(alias).append(".created_at >= ?");
+            params.add(filter.getCreatedFrom());
+        }
+        if (filter.getCreatedTo() != null) {
+            sql.append(" AND ").append(alias).append(".created_at < ?");
+            params.add(filter.getCreatedTo());
+        }
+    }
+
+    private static void bind(PreparedStatement stmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            Object value = params.get(i);
+            if (value instanceof Timestamp ts) stmt.setTimestamp(i + 1, ts);
+            else if (value instanceof Integer n) stmt.setInt(i + 1, n);
+            else stmt.setString(i + 1, String.valueOf(value));
+        }
+    }
+
     // Update order status
     public boolean updateOrderStatus(int orderId, String status) {
         String query = "UPDATE orders SET status = ? WHERE order_id = ?";
@@ -113,11 +297,26 @@ public class OrderDAO {
         }
     }
 
+    // Marks an order paid once; false if it was already paid or does not exist
+    public boolean markPaid(int orderId) {
+        String query = "UPDATE orders SET status = 'PAID' WHERE order_id = ? AND status <> 'PAID'";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setInt(1, orderId);
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error marking order paid", e);
+            return false;
+        }
+    }
+
     // Map ResultSet to Order object
     private Order mapOrder(ResultSet rs) throws SQLException {
         Order order = new Order();
         order.setOrderId(rs.getInt("order_id"));
-        order.setUserId(rs.getInt("user_id"));
+        order.setUserId(rs.getString("user_id"));
         order.setStatus(rs.getString("status"));
         order.setTotalAmount(rs.getBigDecimal("total_amount"));
         order.setCreatedAt(rs.getTimestamp("created_at"));
@@ -126,26 +325,18 @@ public class OrderDAO {
 
     // Fetch order items for an order
     public List<OrderItem> getOrderItems(int orderId) {
-        List<OrderItem> items = new ArrayList<>();
-        String query = "SELECT * FROM order_items WHERE order_id = ?";
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+        return orderItemDAO.getItemsByOrderId(orderId);
+    }
 
-            stmt.setInt(1, orderId);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                OrderItem item = new OrderItem();
-                item.setOrderItemId(rs.getInt("order_item_id"));
-                item.setOrderId(rs.getInt("order_id"));
-                item.setProductId(rs.getInt("product_id"));
-                item.setQuantity(rs.getInt("quantity"));
-                item.setPrice(rs.getBigDecimal("price"));
-                items.add(item);
-            }
+    // Loads the items of every order with one IN query and sets them on each order
+    private void attachItems(Connection conn, List<Order> orders) throws SQLException {
+        if (orders.isEmpty()) return;
+        List<Integer> orderIds = new ArrayList<>(orders.size());
+        for (Order order : orders) orderIds.add(order.getOrderId());
 
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error fetching order items", e);
+        Map<Integer, List<OrderItem>> itemsByOrder = orderItemDAO.getItemsByOrderIds(conn, orderIds);
+        for (Order order : orders) {
+            order.setItems(itemsByOrder.getOrDefault(order.getOrderId(), new ArrayList<>()));
         }
-        return items;
     }
 }
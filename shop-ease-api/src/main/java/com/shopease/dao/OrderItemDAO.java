@@ -5,22 +5,27 @@ import com.shopease.util.DatabaseUtil;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class OrderItemDAO {
     private static final Logger LOGGER = Logger.getLogger(OrderItemDAO.class.getName());
+    private static final int MAX_IN_PARAMS = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_items (order_id, product_id, variant_id, quantity, price) VALUES (?, ?, ?, ?, ?)";
 
     public boolean addOrderItem(OrderItem item) {
-        String query = "INSERT INTO order_items (order_id, product_id, quantity, price) VALUES (?, ?, ?, ?)";
         try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setInt(1, item.getOrderId());
-            stmt.setInt(2, item.getProductId());
-            stmt.setInt(3, item.getQuantity());
-            stmt.setBigDecimal(4, item.getPrice());
+            bindItem(stmt, item);
             return stmt.executeUpdate() > 0;
 
         } catch (SQLException e) {
@@ -29,27 +34,85 @@ public class OrderItemDAO {
         }
     }
 
-    public List<OrderItem> getItemsByOrderId(int orderId) {
-        List<OrderItem> items = new ArrayList<>();
-        String query = "SELECT * FROM order_items WHERE order_id = ?";
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setInt(1, orderId);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                OrderItem item = new OrderItem();
-                item.setOrderItemId(rs.getInt("order_item_id"));
-                item.setOrderId(rs.getInt("order_id"));
-                item.setProductId(rs.getInt("product_id"));
-                item.setQuantity(rs.getInt("quantity"));
-                item.setPrice(rs.getBigDecimal("price"));
-                items.add(item);
+    /**
+     * Inserts all items as one JDBC batch on the caller's connection and
+     * transaction. With rewriteBatchedStatements the driver sends a single
+     * multi-row INSERT, so the cost barely grows with the number of lines.
+     */
+    public void addOrderItems(Connection conn, List<OrderItem> items) throws SQLException {
+        if (items.isEmpty()) return;
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            for (OrderItem item : items) {
+                bindItem(stmt, item);
+                stmt.addBatch();
             }
+            stmt.executeBatch();
+        }
+    }
+
+    private static void bindItem(PreparedStatement stmt, OrderItem item) throws SQLException {
+        stmt.setInt(1, item.getOrderId());
+        stmt.setString(2, item.getProductId());
+        if (item.getVariantId() != null) stmt.setString(3, item.getVariantId());
+        else stmt.setNull(3, Types.VARCHAR);
+        stmt.setInt(4, item.getQuantity());
+        stmt.setBigDecimal(5, item.getPrice());
+    }
+
+    public List<OrderItem> getItemsByOrderId(int orderId) {
+        List<OrderItem> items = getItemsByOrderIds(List.of(orderId)).get(orderId);
+        return items != null ? items : new ArrayList<>();
+    }
 
+    // ================= BATCH LOADING =================
+
+    // Items for many orders at once, grouped by order id (orders without items are absent)
+    public Map<Integer, List<OrderItem>> getItemsByOrderIds(Collection<Integer> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) return new HashMap<>();
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            return getItemsByOrderIds(conn, orderIds);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error fetching order items", e);
+            return new HashMap<>();
         }
-        return items;
+    }
+
+    /**
+     * Same as above on a caller-supplied connection, so an order listing can
+     * load its items without borrowing a second one. Ids are sent in chunks
+     * of MAX_IN_PARAMS to keep the statements small.
+     */
+    public Map<Integer, List<OrderItem>> getItemsByOrderIds(Connection conn, Collection<Integer> orderIds)
+            throws SQLException {
+        Map<Integer, List<OrderItem>> itemsByOrder = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+
+        for (int from = 0; from < ids.size(); from += MAX_IN_PARAMS) {
+            List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_PARAMS));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            String query = "SELECT * FROM order_items WHERE order_id IN (" + placeholders + ") ORDER BY order_id, order_item_id";
+
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                for (int i = 0; i < chunk.size(); i++) stmt.setInt(i + 1, chunk.get(i));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        OrderItem item = mapOrderItem(rs);
+                        itemsByOrder.computeIfAbsent(item.getOrderId(), k -> new ArrayList<>()).add(item);
+                    }
+                }
+            }
+        }
+        return itemsByOrder;
+    }
+
+    private OrderItem mapOrderItem(ResultSet rs) throws SQLException {
+        OrderItem item = new OrderItem();
+        item.setOrderItemId(rs.getInt("order_item_id"));
+        item.setOrderId(rs.getInt("order_id"));
+        item.setProductId(rs.getString("product_id"));
+        item.setVariantId(rs.getString("variant_id"));
+        item.setQuantity(rs.getInt("quantity"));
+        item.setPrice(rs.getBigDecimal("price"));
+        return item;
     }
 }
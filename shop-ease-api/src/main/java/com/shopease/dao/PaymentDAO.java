@@ -12,8 +12,15 @@ import java.util.logging.Logger;
 public class PaymentDAO {
     private static final Logger LOGGER = Logger.getLogger(PaymentDAO.class.getName());
 
-    public boolean addPayment(Payment payment) {
-        String sql = "INSERT INTO payments (order_id, payment_method, payment_status, transaction_id, amount, payment_date) VALUES (?, ?, ?, ?, ?, ?)";
+    // Inserts the payment claimed by claimedBy for leaseSeconds (database clock).
+    // Returns false if the insert failed, including when the idempotency key is already
+    // taken or the order already has a PENDING or SUCCESS payment
+    public boolean addPayment(Payment payment, String claimedBy, long leaseSeconds) {
+        String sql = """
+                INSERT INTO payments (order_id, payment_method, payment_status, transaction_id, amount, payment_date,
+                                      idempotency_key, claimed_by, claim_expires_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, TIMESTAMPADD(SECOND, ?, NOW()))
+                """;
         try (Connection conn = DatabaseUtil.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
@@ -23,14 +30,99 @@ public class PaymentDAO {
             ps.setString(4, payment.getTransactionId());
             ps.setBigDecimal(5, payment.getAmount());
             ps.setTimestamp(6, payment.getPaymentDate());
+            ps.setString(7, payment.getIdempotencyKey());
+            ps.setString(8, claimedBy);
+            ps.setLong(9, leaseSeconds);
             return ps.executeUpdate() > 0;
 
+        } catch (SQLIntegrityConstraintViolationException e) {
+            LOGGER.info("Duplicate payment for idempotency key " + payment.getIdempotencyKey()
+                    + " or order " + payment.getOrderId());
+            return false;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error adding payment", e);
             return false;
         }
     }
 
+    public Payment getPaymentByIdempotencyKey(String idempotencyKey) {
+        String sql = "SELECT * FROM payments WHERE idempotency_key = ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, idempotencyKey);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return mapPayment(rs);
+            }
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching payment by idempotency key", e);
+        }
+        return null;
+    }
+
+    /**
+     * Takes over a PENDING payment whose claim has lapsed (its charging
+     * attempt died). The conditional UPDATE lets exactly one instance win;
+     * true only if this call claimed the row.
+     */
+    public boolean claimPendingPayment(String idempotencyKey, String claimedBy, long leaseSeconds) {
+        String sql = """
+                UPDATE payments
+                SET claimed_by = ?, claim_expires_at = TIMESTAMPADD(SECOND, ?, NOW())
+                WHERE idempotency_key = ?
+                  AND payment_status = 'PENDING'
+                  AND (claim_expires_at IS NULL OR claim_expires_at < NOW())
+                """;
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, claimedBy);
+            ps.setLong(2, leaseSeconds);
+            ps.setString(3, idempotencyKey);
+            return ps.executeUpdate() == 1;
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error claiming pending payment", e);
+            return false;
+        }
+    }
+
+    // Records the gateway outcome of a pending payment
+    public boolean updatePaymentResult(String idempotencyKey, String status, String transactionId) {
+        String sql = "UPDATE payments SET payment_status = ?, transaction_id = ?, payment_date = ? WHERE idempotency_key = ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, status);
+            ps.setString(2, transactionId);
+            ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            ps.setString(4, idempotencyKey);
+            return ps.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error updating payment result", e);
+            return false;
+        }
+    }
+
+    // The order's PENDING or SUCCESS payment, if any; uq_payments_active_order allows at most one
+    public Payment getActivePaymentByOrderId(int orderId) {
+        String sql = "SELECT * FROM payments WHERE active_order_id = ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, orderId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return mapPayment(rs);
+            }
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching active payment for order", e);
+        }
+        return null;
+    }
+
     public Payment getPaymentByOrderId(int orderId) {
         String sql = "SELECT * FROM payments WHERE order_id = ?";
         Payment payment = null;
@@ -40,14 +132,7 @@ public class PaymentDAO {
             ps.setInt(1, orderId);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
-                payment = new Payment();
-                payment.setPaymentId(rs.getInt("payment_id"));
-                payment.setOrderId(rs.getInt("order_id"));
-                payment.setPaymentMethod(rs.getString("payment_method"));
-                payment.setPaymentStatus(rs.getString("payment_status"));
-                payment.setTransactionId(rs.getString("transaction_id"));
-                payment.setAmount(rs.getBigDecimal("amount"));
-                payment.setPaymentDate(rs.getTimestamp("payment_date"));
+                payment = mapPayment(rs);
             }
 
         } catch (SQLException e) {
@@ -64,15 +149,7 @@ public class PaymentDAO {
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                Payment payment = new Payment();
-                payment.setPaymentId(rs.getInt("payment_id"));
-                payment.setOrderId(rs.getInt("order_id"));
-                payment.setPaymentMethod(rs.getString("payment_method"));
-                payment.setPaymentStatus(rs.getString("payment_status"));
-                payment.setTransactionId(rs.getString("transaction_id"));
-                payment.setAmount(rs.getBigDecimal("amount"));
-                payment.setPaymentDate(rs.getTimestamp("payment_date"));
-                list.add(payment);
+                list.add(mapPayment(rs));
             }
 
         } catch (SQLException e) {
@@ -80,4 +157,17 @@ public class PaymentDAO {
         }
         return list;
     }
+
+    private Payment mapPayment(ResultSet rs) throws SQLException {
+        Payment payment = new Payment();
+        payment.setPaymentId(rs.getInt("payment_id"));
+        payment.setOrderId(rs.getInt("order_id"));
+        payment.setPaymentMethod(rs.getString("payment_method"));
+        payment.setPaymentStatus(rs.getString("payment_status"));
+        payment.setTransactionId(rs.getString("transaction_id"));
+        payment.setAmount(rs.getBigDecimal("amount"));
+        payment.setPaymentDate(rs.getTimestamp("payment_date"));
+        payment.setIdempotencyKey(rs.getString("idempotency_key"));
+        return payment;
+    }
 }
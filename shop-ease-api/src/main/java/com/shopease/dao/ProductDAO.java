@@ -1,12 +1,25 @@
 package com.shopease.dao;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopease.model.Page;
 import com.shopease.model.Product;
+import com.shopease.model.Product3DAsset;
+import com.shopease.model.ProductImage;
 import com.shopease.model.ProductVariant;
+import com.shopease.search.FacetDocument;
+import com.shopease.search.SearchDocument;
 import com.shopease.util.DatabaseConnection;
+import com.shopease.util.PageCursor;
+import com.shopease.util.Json;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -14,12 +27,16 @@ import java.util.logging.Logger;
 public class ProductDAO {
 
     private static final Logger LOGGER = Logger.getLogger(ProductDAO.class.getName());
+    private static final ObjectMapper MAPPER = Json.mapper();
+
+    public static final int DEFAULT_PAGE_SIZE = 10;
+    public static final int MAX_PAGE_SIZE = 100;
 
     // ================= GET ALL PRODUCTS =================
     public List<Product> getAllProducts(int page, int size) {
-        size = 15;
+        size = clampPageSize(size);
         List<Product> products = new ArrayList<>();
-        int offset = (page - 1) * size;
+        int offset = (Math.max(page, 1) - 1) * size;
 
         String sql = """
               SELECT 
@@ -32,19 +49,13 @@ public class ProductDAO {
                 p.featured,
                 p.metadata,
                 p.price,
-                (
-                    SELECT pi.url 
-                    FROM product_images pi 
-                    WHERE pi.product_id = p.id 
-                    ORDER BY pi.sort_order ASC 
-                    LIMIT 1
-                ) AS image_url,
                 p.created_at,
                 p.updated_at
             FROM products p
             LEFT JOIN categories c 
                 ON p.category_id = c.id
             WHERE p.status = 'active'
+            ORDER BY p.created_at DESC, p.id DESC
             LIMIT ? OFFSET ?
         """;
 
@@ -58,14 +69,163 @@ public class ProductDAO {
             while (rs.next()) {
                 products.add(mapProduct(rs));
             }
+            attachPrimaryImages(conn, products);
 
         }catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error fetching all products", e);
+            throw new DataAccessException("Error fetching all products", e);
         }
 
         return products;
     }
 
+    // ================= KEYSET PAGE =================
+    // Seeks on (created_at, id) so every page costs the same as the first;
+    // backed by idx_products_status_created (status, created_at, id).
+    public Page<Product> getProductsPage(String cursor, int size) {
+        size = clampPageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        List<Product> products = new ArrayList<>();
+
+        String sql = """
+            SELECT
+                p.id,
+                p.title,
+                p.short_description,
+                p.description,
+                c.name AS category,
+                p.status,
+                p.featured,
+                p.metadata,
+                p.price,
+                p.created_at,
+                p.updated_at
+            FROM products p
+            LEFT JOIN categories c
+                ON p.category_id = c.id
+            WHERE p.status = 'active'
+        """ + (after != null ? """
+              AND (p.created_at < ? OR (p.created_at = ? AND p.id < ?))
+        """ : "") + """
+            ORDER BY p.created_at DESC, p.id DESC
+            LIMIT ?
+        """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            if (after != null) {
+                stmt.setTimestamp(i++, after.getTimestamp());
+                stmt.setTimestamp(i++, after.getTimestamp());
+                stmt.setString(i++, after.getId());
+            }
+            stmt.setInt(i, size + 1); // one extra row tells us whether a next page exists
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapProduct(rs));
+                }
+            }
+            attachPrimaryImages(conn, products);
+
+        } catch (Exception e) {
+            throw new DataAccessException("Error fetching product page", e);
+        }
+
+        String nextCursor = null;
+        if (products.size() > size) {
+            products = new ArrayList<>(products.subList(0, size));
+            Product last = products.get(size - 1);
+            nextCursor = PageCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        return new Page<>(products, nextCursor);
+    }
+
+    public static int clampPageSize(int size) {
+        if (size <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    // ================= PRODUCT BY ID =================
+    // Primary-key lookup of an active product; variants and 3D assets are
+    // aggregated as JSON arrays in the same statement, and the gallery follows
+    // on the same connection already ordered by the (product_id, sort_order) index.
+    public Product getProductById(String productId) {
+        String sql = """
+            SELECT
+                p.id,
+                p.title,
+                p.short_description,
+                p.description,
+                c.name AS category,
+                p.status,
+                p.featured,
+                p.metadata,
+                p.price,
+                p.created_at,
+                p.updated_at,
+                (
+                    SELECT JSON_ARRAYAGG(JSON_OBJECT(
+                        'variantId', v.variant_id,
+                        'productId', v.product_id,
+                        'variantName', v.variant_name,
+                        'size', v.size,
+                        'color', v.color,
+                        'additionalPrice', v.additional_price,
+                        'stock', v.stock,
+                        'imageUrl', v.image_url))
+                    FROM product_variants v
+                    WHERE v.product_id = p.id
+                ) AS variants_json,
+                (
+                    SELECT JSON_ARRAYAGG(JSON_OBJECT(
+                        'assetId', a.id,
+                        'productId', a.product_id,
+                        'assetUrl', a.asset_url,
+                        'format', a.format,
+                        'thumbnailUrl', a.thumbnail_url))
+                    FROM product_3d_assets a
+                    WHERE a.product_id = p.id
+                ) AS assets_json
+            FROM products p
+            LEFT JOIN categories c
+                ON p.category_id = c.id
+            WHERE p.id = ?
+              AND p.status = 'active'
+        """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, productId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) return null;
+
+                Product product = mapProduct(rs);
+                product.setVariants(readJsonList(rs.getString("variants_json"),
+                        new TypeReference<List<ProductVariant>>() {}));
+
+                product.setAssets(readJsonList(rs.getString("assets_json"),
+                        new TypeReference<List<Product3DAsset>>() {}));
+
+                List<ProductImage> images = loadImages(conn, List.of(productId))
+                        .getOrDefault(productId, new ArrayList<>());
+                product.setImages(images);
+                product.setImageUrl(images.isEmpty() ? null : images.get(0).getUrl());
+                return product;
+            }
+
+        } catch (Exception e) {
+            throw new DataAccessException("Error fetching product by id: " + productId, e);
+        }
+    }
+
+    private static <T> List<T> readJsonList(String json, TypeReference<List<T>> type) throws IOException {
+        if (json == null || json.isEmpty()) return new ArrayList<>();
+        return MAPPER.readValue(json, type);
+    }
+
     public List<ProductVariant> getVariantsByProductId(String productId) {
         List<ProductVariant> variants = new ArrayList<>();
         String sql = "SELECT * FROM product_variants WHERE product_id = ?";
@@ -90,18 +250,42 @@ public class ProductDAO {
             }
 
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error fetching product variants", e);
+            throw new DataAccessException("Error fetching product variants", e);
         }
 
         return variants;
     }
 
-    // ================= RANDOM PRODUCTS =================
-    public List<Product> getRandomProducts(int limit) {
+    // ================= ACTIVE PRODUCT IDS =================
+    // Index-only scan over idx_products_status; feeds RandomProductService.
+    // Throws DataAccessException so a failed read never becomes an empty snapshot
+    public List<String> getActiveProductIds() {
+        List<String> ids = new ArrayList<>();
+        String sql = "SELECT id FROM products WHERE status = 'active'";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                ids.add(rs.getString(1));
+            }
+
+        } catch (SQLException e) {
+            throw new DataAccessException("Error fetching active product ids", e);
+        }
+
+        return ids;
+    }
+
+    // ================= PRODUCTS BY IDS =================
+    // Batch primary-key fetch; results follow the order of the given ids
+    public List<Product> getProductsByIds(List<String> productIds) {
         List<Product> products = new ArrayList<>();
+        if (productIds == null || productIds.isEmpty()) return products;
 
         String sql = """
-            SELECT 
+            SELECT
                 p.id,
                 p.title,
                 p.short_description,
@@ -111,40 +295,167 @@ public class ProductDAO {
                 p.featured,
                 p.metadata,
                 p.price,
-                (
-                    SELECT pi.url 
-                    FROM product_images pi 
-                    WHERE pi.product_id = p.id 
-                    ORDER BY pi.sort_order ASC 
-                    LIMIT 1
-                ) AS image_url,
                 p.created_at,
                 p.updated_at
             FROM products p
-            LEFT JOIN categories c 
+            LEFT JOIN categories c
                 ON p.category_id = c.id
-            WHERE p.status='active'
-            ORDER BY RAND()
-            LIMIT ?
-        """;
+            WHERE p.status = 'active'
+              AND p.id IN (%s)
+        """.formatted(placeholders(productIds.size()));
 
+        Map<String, Product> byId = new HashMap<>();
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, limit);
-            ResultSet rs = stmt.executeQuery();
+            for (int i = 0; i < productIds.size(); i++) {
+                stmt.setString(i + 1, productIds.get(i));
+            }
 
-            while (rs.next()) {
-                products.add(mapProduct(rs));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Product product = mapProduct(rs);
+                    byId.put(product.getId(), product);
+                }
             }
+            attachPrimaryImages(conn, new ArrayList<>(byId.values()));
 
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error fetching random products", e);
+            throw new DataAccessException("Error fetching products by ids", e);
         }
 
+        for (String id : productIds) {
+            Product product = byId.get(id);
+            if (product != null) products.add(product);
+        }
         return products;
     }
 
+    // ================= SEARCH DOCUMENTS =================
+    // Projection used to build the in-memory search index (ProductSearchService).
+    // Both reads throw DataAccessException on a database error, so a failed
+    // read is never taken for an empty catalog or a removed product.
+    public List<SearchDocument> getSearchDocuments() {
+        return querySearchDocuments(null);
+    }
+
+    // Returns null when the product is missing or no longer active
+    public SearchDocument getSearchDocument(String productId) {
+        List<SearchDocument> docs = querySearchDocuments(productId);
+        return docs.isEmpty() ? null : docs.get(0);
+    }
+
+    private List<SearchDocument> querySearchDocuments(String productId) {
+        List<SearchDocument> docs = new ArrayList<>();
+        // Units sold are summed once per product and joined in, not counted per row
+        String unitsSold = "SELECT oi.product_id, SUM(oi.quantity) AS units_sold FROM order_items oi"
+                + (productId != null ? " WHERE oi.product_id = ?" : "")
+                + " GROUP BY oi.product_id";
+        String sql = """
+            SELECT
+                p.id,
+                p.title,
+                p.short_description,
+                p.description,
+                c.name AS category,
+                JSON_UNQUOTE(JSON_EXTRACT(p.metadata, '$.brand')) AS brand,
+                COALESCE(sold.units_sold, 0) AS units_sold
+            FROM products p
+            LEFT JOIN categories c
+                ON p.category_id = c.id
+            LEFT JOIN (""" + unitsSold + """
+            ) sold
+                ON sold.product_id = p.id
+            WHERE p.status = 'active'
+        """ + (productId != null ? " AND p.id = ?" : "");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            if (productId != null) {
+                stmt.setString(1, productId);
+                stmt.setString(2, productId);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String brand = rs.getString("brand");
+                    docs.add(new SearchDocument(
+                            rs.getString("id"),
+                            rs.getString("title"),
+                            rs.getString("short_description"),
+                            rs.getString("description"),
+                            rs.getString("category"),
+                            "null".equals(brand) ? null : brand, // JSON null unquotes to "null"
+                            rs.getInt("units_sold")));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new DataAccessException("Error fetching search documents", e);
+        }
+
+        return docs;
+    }
+
+    // ================= FACET DOCUMENTS =================
+    // Projection used to build the facet bitmaps (ProductFacetService), newest first
+    public List<FacetDocument> getFacetDocuments() {
+        List<FacetDocument> docs = new ArrayList<>();
+        String sql = """
+            SELECT
+                p.id,
+                p.category_id,
+                JSON_UNQUOTE(JSON_EXTRACT(p.metadata, '$.brand')) AS brand,
+                p.price,
+                EXISTS (
+                    SELECT 1
+                    FROM product_variants v
+                    LEFT JOIN variant_inventory vi ON vi.variant_id = v.variant_id
+                    WHERE v.product_id = p.id
+                      AND COALESCE(vi.quantity - vi.reserved, v.stock) > 0
+                ) AS in_stock
+            FROM products p
+            WHERE p.status = 'active'
+            ORDER BY p.created_at DESC, p.id DESC
+        """;
+        String tagSql = """
+            SELECT pt.product_id, t.name
+            FROM product_tags pt
+            JOIN tags t ON t.id = pt.tag_id
+        """;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Map<String, List<String>> tagsByProduct = new HashMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement(tagSql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    tagsByProduct.computeIfAbsent(rs.getString(1), k -> new ArrayList<>()).add(rs.getString(2));
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String id = rs.getString("id");
+                    String brand = rs.getString("brand");
+                    docs.add(new FacetDocument(
+                            id,
+                            rs.getString("category_id"),
+                            "null".equals(brand) ? null : brand, // JSON null unquotes to "null"
+                            rs.getBigDecimal("price"),
+                            rs.getBoolean("in_stock"),
+                            tagsByProduct.getOrDefault(id, Collections.emptyList())));
+                }
+            }
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error fetching facet documents", e);
+        }
+
+        return docs;
+    }
+
     // ================= FEATURED PRODUCTS =================
     public List<Product> getFeaturedProducts(int limit) {
         List<Product> products = new ArrayList<>();
@@ -160,13 +471,6 @@ public class ProductDAO {
                 p.featured,
                 p.metadata,
                 p.price,
-                (
-                    SELECT pi.url 
-                    FROM product_images pi 
-                    WHERE pi.product_id = p.id 
-                    ORDER BY pi.sort_order ASC 
-                    LIMIT 1
-                ) AS image_url,
                 p.created_at,
                 p.updated_at
             FROM products p
@@ -186,14 +490,102 @@ public class ProductDAO {
             while (rs.next()) {
                 products.add(mapProduct(rs));
             }
+            attachPrimaryImages(conn, products);
 
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error fetching featured products", e);
+            throw new DataAccessException("Error fetching featured products", e);
         }
 
         return products;
     }
 
+    // ================= IMAGES =================
+    // Listing queries select product columns only; images for the whole page
+    // are then read in one statement instead of a correlated subquery per row.
+    // Both lookups are backed by idx_product_images_product_sort.
+
+    // Gallery images for each product, in sort_order; products without images are absent
+    public Map<String, List<ProductImage>> getImagesByProductIds(List<String> productIds) {
+        if (productIds == null || productIds.isEmpty()) return new HashMap<>();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return loadImages(conn, productIds);
+        } catch (Exception e) {
+            throw new DataAccessException("Error fetching product images", e);
+        }
+    }
+
+    private static Map<String, List<ProductImage>> loadImages(Connection conn, List<String> productIds) throws SQLException {
+        Map<String, List<ProductImage>> images = new HashMap<>();
+        String sql = """
+            SELECT pi.id, pi.product_id, pi.url, pi.alt, pi.sort_order
+            FROM product_images pi
+            WHERE pi.product_id IN (%s)
+            ORDER BY pi.product_id, pi.sort_order ASC, pi.id
+        """.formatted(placeholders(productIds.size()));
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < productIds.size(); i++) {
+                stmt.setString(i + 1, productIds.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String productId = rs.getString("product_id");
+                    images.computeIfAbsent(productId, k -> new ArrayList<>()).add(new ProductImage(
+                            rs.getString("id"),
+                            productId,
+                            rs.getString("url"),
+                            rs.getString("alt"),
+                            rs.getInt("sort_order")));
+                }
+            }
+        }
+        return images;
+    }
+
+    // First image by sort_order for each product, used as its listing thumbnail
+    static Map<String, String> loadPrimaryImageUrls(Connection conn, List<String> productIds) throws SQLException {
+        Map<String, String> urls = new HashMap<>();
+        if (productIds.isEmpty()) return urls;
+
+        String sql = """
+            SELECT ranked.product_id, ranked.url
+            FROM (
+                SELECT pi.product_id, pi.url,
+                       ROW_NUMBER() OVER (PARTITION BY pi.product_id ORDER BY pi.sort_order ASC, pi.id) AS rn
+                FROM product_images pi
+                WHERE pi.product_id IN (%s)
+            ) ranked
+            WHERE ranked.rn = 1
+        """.formatted(placeholders(productIds.size()));
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < productIds.size(); i++) {
+                stmt.setString(i + 1, productIds.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    urls.put(rs.getString(1), rs.getString(2));
+                }
+            }
+        }
+        return urls;
+    }
+
+    private static void attachPrimaryImages(Connection conn, List<Product> products) throws SQLException {
+        List<String> ids = new ArrayList<>(products.size());
+        for (Product product : products) ids.add(product.getId());
+
+        Map<String, String> urls = loadPrimaryImageUrls(conn, ids);
+        for (Product product : products) {
+            product.setImageUrl(urls.get(product.getId()));
+        }
+    }
+
+    static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
     // ================= MAP RESULTSET =================
     private Product mapProduct(ResultSet rs) throws SQLException {
         Product product = new Product();
@@ -207,7 +599,6 @@ public class ProductDAO {
         product.setFeatured(rs.getBoolean("featured"));
         product.setMetadata(rs.getString("metadata"));
         product.setPrice(rs.getBigDecimal("price"));
-        product.setImageUrl(rs.getString("image_url"));
         product.setCreatedAt(rs.getTimestamp("created_at"));
         product.setUpdatedAt(rs.getTimestamp("updated_at"));
 
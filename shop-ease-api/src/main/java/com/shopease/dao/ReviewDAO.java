@@ -0,0 +1,77 @@
+package com.shopease.dao;
+
+import com.shopease.model.RatingSummary;
+import com.shopease.model.Review;
+import com.shopease.util.DatabaseUtil;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Review reads for the product page. Failures throw DataAccessException
+ * rather than returning an empty list, so a page missing its reviews is
+ * never cached as if the product had none.
+ */
+public class ReviewDAO {
+
+    // Newest reviews first; served by idx_reviews_product_created
+    public List<Review> getReviewsByProductId(String productId, int limit) {
+        List<Review> reviews = new ArrayList<>();
+        String query = """
+            SELECT id, product_id, user_id, rating, title, body, is_verified_purchase, created_at
+            FROM product_reviews
+            WHERE product_id = ?
+            ORDER BY created_at DESC
+            LIMIT ?
+        """;
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setString(1, productId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Review review = new Review();
+                    review.setReviewId(rs.getString("id"));
+                    review.setProductId(rs.getString("product_id"));
+                    review.setUserId(rs.getString("user_id"));
+                    review.setRating(rs.getInt("rating"));
+                    review.setTitle(rs.getString("title"));
+                    review.setComment(rs.getString("body"));
+                    review.setVerifiedPurchase(rs.getBoolean("is_verified_purchase"));
+                    review.setCreatedAt(rs.getTimestamp("created_at"));
+                    reviews.add(review);
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new DataAccessException("Error fetching reviews for product: " + productId, e);
+        }
+        return reviews;
+    }
+
+    public RatingSummary getRatingSummary(String productId) {
+        RatingSummary summary = new RatingSummary();
+
+        String query = "SELECT COUNT(*) AS review_count, AVG(rating) AS average_rating FROM product_reviews WHERE product_id = ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setString(1, productId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    summary.setCount(rs.getInt("review_count"));
+                    BigDecimal average = rs.getBigDecimal("average_rating");
+                    summary.setAverageRating(average != null ? average.setScale(1, RoundingMode.HALF_UP) : null);
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new DataAccessException("Error fetching rating summary for product: " + productId, e);
+        }
+        return summary;
+    }
+}
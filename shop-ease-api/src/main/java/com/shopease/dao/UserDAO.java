@@ -36,6 +36,29 @@ public class UserDAO {
         return null;
     }
 
+    // Fetch user by id (profile only, no password hash)
+    public User getUserById(String userId) {
+        String sql = "SELECT id, full_name, email, phone, is_admin FROM users WHERE id=?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    User u = new User();
+                    u.setUserId(rs.getString("id"));
+                    u.setFullName(rs.getString("full_name"));
+                    u.setEmail(rs.getString("email"));
+                    u.setPhone(rs.getString("phone"));
+                    u.setAdmin(rs.getBoolean("is_admin"));
+                    return u;
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     // Register a new user (default is_admin = false)
     public boolean registerUser(User user) {
         String sql = "INSERT INTO users(id, full_name, email, password_hash, phone, is_admin) VALUES(?,?,?,?,?,?)";
@@ -104,6 +127,22 @@ public class UserDAO {
         }
     }
 
+    // Replace the stored hash, e.g. after a rehash at a new bcrypt cost
+    public boolean updatePasswordHash(String userId, String passwordHash) {
+        String sql = "UPDATE users SET password_hash=? WHERE id=?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, passwordHash);
+            ps.setString(2, userId);
+            return ps.executeUpdate() > 0;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
     // Delete user
     public boolean deleteUser(String userId) {
         String sql = "DELETE FROM users WHERE id=?";
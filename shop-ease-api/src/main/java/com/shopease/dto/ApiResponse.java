@@ -0,0 +1,26 @@
+package com.shopease.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// {"success": ..., "message": ...}; the base of every typed response body
+public class ApiResponse {
+    private final boolean success;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String message;
+
+    public ApiResponse(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+
+    public static ApiResponse ok(String message) {
+        return new ApiResponse(true, message);
+    }
+
+    public static ApiResponse error(String message) {
+        return new ApiResponse(false, message);
+    }
+
+    public boolean isSuccess() { return success; }
+    public String getMessage() { return message; }
+}
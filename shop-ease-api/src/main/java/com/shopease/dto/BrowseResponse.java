@@ -0,0 +1,31 @@
+package com.shopease.dto;
+
+import com.shopease.model.Product;
+import com.shopease.search.FacetCount;
+
+import java.util.List;
+import java.util.Map;
+
+// One page of a faceted browse: matching products, the total and per-facet value counts
+public class BrowseResponse extends ApiResponse {
+    private final List<Product> products;
+    private final int total;
+    private final int page;
+    private final int size;
+    private final Map<String, List<FacetCount>> facets;
+
+    public BrowseResponse(List<Product> products, int total, int page, int size, Map<String, List<FacetCount>> facets) {
+        super(true, null);
+        this.products = products;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+        this.facets = facets;
+    }
+
+    public List<Product> getProducts() { return products; }
+    public int getTotal() { return total; }
+    public int getPage() { return page; }
+    public int getSize() { return size; }
+    public Map<String, List<FacetCount>> getFacets() { return facets; }
+}
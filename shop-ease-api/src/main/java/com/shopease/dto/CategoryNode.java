@@ -0,0 +1,74 @@
+package com.shopease.dto;
+
+import com.shopease.model.Category;
+
+import java.util.List;
+
+// One category in the cached tree, with its breadcrumb trail, slug path and active product counts
+public class CategoryNode {
+    private final String categoryId;
+    private final String parentId;
+    private final String name;
+    private final String slug;
+    private final String description;
+    private final int sortOrder;
+    private final String path;
+    private final int depth;
+    private final int productCount;
+    private final int totalProductCount;
+    private final List<Breadcrumb> breadcrumbs;
+    private final List<CategoryNode> children;
+
+    public CategoryNode(Category category, String path, int depth, List<Breadcrumb> breadcrumbs,
+                        int productCount, List<CategoryNode> children) {
+        this.categoryId = category.getCategoryId();
+        this.parentId = category.getParentId();
+        this.name = category.getName();
+        this.slug = category.getSlug();
+        this.description = category.getDescription();
+        this.sortOrder = category.getSortOrder();
+        this.path = path;
+        this.depth = depth;
+        this.productCount = productCount;
+        this.breadcrumbs = List.copyOf(breadcrumbs);
+        this.children = List.copyOf(children);
+        int total = productCount;
+        for (CategoryNode child : children) total += child.totalProductCount;
+        this.totalProductCount = total;
+    }
+
+    public String getCategoryId() { return categoryId; }
+    public String getParentId() { return parentId; }
+    public String getName() { return name; }
+    public String getSlug() { return slug; }
+    public String getDescription() { return description; }
+    public int getSortOrder() { return sortOrder; }
+
+    // Slugs from the root down, e.g. "/clothing/t-shirts"
+    public String getPath() { return path; }
+    public int getDepth() { return depth; }
+
+    // Active products filed directly under this category / under it and its descendants
+    public int getProductCount() { return productCount; }
+    public int getTotalProductCount() { return totalProductCount; }
+
+    // Root first, this category last
+    public List<Breadcrumb> getBreadcrumbs() { return breadcrumbs; }
+    public List<CategoryNode> getChildren() { return children; }
+
+    public static class Breadcrumb {
+        private final String categoryId;
+        private final String name;
+        private final String slug;
+
+        public Breadcrumb(String categoryId, String name, String slug) {
+            this.categoryId = categoryId;
+            this.name = name;
+            this.slug = slug;
+        }
+
+        public String getCategoryId() { return categoryId; }
+        public String getName() { return name; }
+        public String getSlug() { return slug; }
+    }
+}
@@ -0,0 +1,27 @@
+package com.shopease.dto;
+
+import com.shopease.model.Order;
+import com.shopease.model.Page;
+
+import java.util.List;
+
+// One keyset page of the admin order listing; nextCursor is null on the last page
+public class OrderPageResponse extends ApiResponse {
+    private final List<Order> orders;
+    private final int size;
+    private final String nextCursor;
+    private final boolean hasMore;
+
+    public OrderPageResponse(Page<Order> page, int size) {
+        super(true, null);
+        this.orders = page.getItems();
+        this.size = size;
+        this.nextCursor = page.getNextCursor();
+        this.hasMore = page.isHasMore();
+    }
+
+    public List<Order> getOrders() { return orders; }
+    public int getSize() { return size; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isHasMore() { return hasMore; }
+}
@@ -0,0 +1,14 @@
+package com.shopease.dto;
+
+import com.shopease.model.Order;
+
+public class OrderResponse extends ApiResponse {
+    private final Order order;
+
+    public OrderResponse(Order order) {
+        super(true, null);
+        this.order = order;
+    }
+
+    public Order getOrder() { return order; }
+}
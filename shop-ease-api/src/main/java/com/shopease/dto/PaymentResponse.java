@@ -0,0 +1,24 @@
+package com.shopease.dto;
+
+import com.shopease.model.Payment;
+
+// Payment state by idempotency key; success is false only once the payment has failed
+public class PaymentResponse extends ApiResponse {
+    private final String idempotencyKey;
+    private final int orderId;
+    private final String status;
+    private final String transactionId;
+
+    public PaymentResponse(Payment payment, boolean success, String message) {
+        super(success, message);
+        this.idempotencyKey = payment.getIdempotencyKey();
+        this.orderId = payment.getOrderId();
+        this.status = payment.getPaymentStatus();
+        this.transactionId = payment.getTransactionId();
+    }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public int getOrderId() { return orderId; }
+    public String getStatus() { return status; }
+    public String getTransactionId() { return transactionId; }
+}
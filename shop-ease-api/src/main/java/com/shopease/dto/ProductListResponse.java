@@ -0,0 +1,44 @@
+package com.shopease.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.shopease.model.Page;
+import com.shopease.model.Product;
+
+import java.util.List;
+
+// Product listings: random picks, legacy offset pages or keyset pages
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductListResponse extends ApiResponse {
+    private final List<Product> products;
+    private final Integer page;
+    private final Integer size;
+    private final String nextCursor;
+    private final Boolean hasMore;
+
+    private ProductListResponse(List<Product> products, Integer page, Integer size, String nextCursor, Boolean hasMore) {
+        super(true, null);
+        this.products = products;
+        this.page = page;
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public static ProductListResponse of(List<Product> products) {
+        return new ProductListResponse(products, null, null, null, null);
+    }
+
+    public static ProductListResponse offset(List<Product> products, int page, int size) {
+        return new ProductListResponse(products, page, size, null, null);
+    }
+
+    public static ProductListResponse keyset(Page<Product> page, int size) {
+        return new ProductListResponse(page.getItems(), null, size, page.getNextCursor(), page.isHasMore());
+    }
+
+    public List<Product> getProducts() { return products; }
+    public Integer getPage() { return page; }
+    public Integer getSize() { return size; }
+    public String getNextCursor() { return nextCursor; }
+    public Boolean getHasMore() { return hasMore; }
+}
@@ -0,0 +1,25 @@
+package com.shopease.dto;
+
+import com.shopease.model.Product;
+import com.shopease.model.RatingSummary;
+import com.shopease.model.Review;
+
+import java.util.List;
+
+// Product detail page: the product with its latest reviews and rating summary
+public class ProductPageResponse extends ApiResponse {
+    private final Product product;
+    private final List<Review> reviews;
+    private final RatingSummary rating;
+
+    public ProductPageResponse(Product product, List<Review> reviews, RatingSummary rating) {
+        super(true, null);
+        this.product = product;
+        this.reviews = reviews;
+        this.rating = rating;
+    }
+
+    public Product getProduct() { return product; }
+    public List<Review> getReviews() { return reviews; }
+    public RatingSummary getRating() { return rating; }
+}
@@ -0,0 +1,53 @@
+package com.shopease.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.shopease.search.SearchDocument;
+import com.shopease.search.SearchHit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Ranked search results; on failure success is false and error is set
+public class SearchResponse extends ApiResponse {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final List<Result> results;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String error;
+
+    private SearchResponse(boolean success, List<Result> results, String error) {
+        super(success, null);
+        this.results = results;
+        this.error = error;
+    }
+
+    public static SearchResponse of(List<SearchHit> hits) {
+        List<Result> results = new ArrayList<>(hits.size());
+        for (SearchHit hit : hits) results.add(new Result(hit));
+        return new SearchResponse(true, results, null);
+    }
+
+    public static SearchResponse failed(String error) {
+        return new SearchResponse(false, null, error);
+    }
+
+    public List<Result> getResults() { return results; }
+    public String getError() { return error; }
+
+    public static class Result {
+        private final SearchDocument doc;
+        private final float score;
+
+        Result(SearchHit hit) {
+            this.doc = hit.getDocument();
+            this.score = hit.getScore();
+        }
+
+        public String getId() { return doc.getId(); }
+        public String getTitle() { return doc.getTitle(); }
+        public String getShortDescription() { return doc.getShortDescription(); }
+        public String getDescription() { return doc.getDescription(); }
+        public String getCategory() { return doc.getCategory(); }
+        public String getBrand() { return doc.getBrand() != null ? doc.getBrand() : ""; }
+        public float getScore() { return score; }
+    }
+}
@@ -0,0 +1,30 @@
+package com.shopease.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.shopease.search.SuggestionTrie;
+
+import java.util.List;
+
+public class SuggestResponse extends ApiResponse {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final List<SuggestionTrie.Suggestion> suggestions;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String error;
+
+    private SuggestResponse(boolean success, List<SuggestionTrie.Suggestion> suggestions, String error) {
+        super(success, null);
+        this.suggestions = suggestions;
+        this.error = error;
+    }
+
+    public static SuggestResponse of(List<SuggestionTrie.Suggestion> suggestions) {
+        return new SuggestResponse(true, suggestions, null);
+    }
+
+    public static SuggestResponse failed(String error) {
+        return new SuggestResponse(false, null, error);
+    }
+
+    public List<SuggestionTrie.Suggestion> getSuggestions() { return suggestions; }
+    public String getError() { return error; }
+}
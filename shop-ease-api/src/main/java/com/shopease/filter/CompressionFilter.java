@@ -0,0 +1,417 @@
+package com.shopease.filter;
+
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.EnvConfig;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Gzip-compresses text responses for clients that send Accept-Encoding: gzip.
+ *
+ * The first COMPRESSION_MIN_BYTES (default 1024) of a body are buffered;
+ * bodies that end below that, or that aren't JSON/text, go out unchanged
+ * with their Content-Length. Deflaters come from a pool of
+ * COMPRESSION_POOL_SIZE (default 16) at COMPRESSION_LEVEL (default 6)
+ * instead of being allocated per response. COMPRESSION=false turns the
+ * filter into a pass-through.
+ *
+ * Compressed responses get a weak ETag (the bytes differ from the identity
+ * encoding) and Vary: Accept-Encoding. Registered in web.xml right after
+ * CorsFilter so it wraps every servlet. Async responses are finished through
+ * AsyncRequestExecutor.RESPONSE_FINISHER just before the request completes.
+ */
+public class CompressionFilter implements Filter {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final LongAdder compressed = new LongAdder();
+    private static final LongAdder skipped = new LongAdder();
+    private static final LongAdder bytesIn = new LongAdder();
+    private static final LongAdder bytesOut = new LongAdder();
+    private static final LongAdder deflatersCreated = new LongAdder();
+
+    private final boolean enabled = EnvConfig.getBoolean("COMPRESSION", true);
+    private final int minBytes = Math.max(1, EnvConfig.getInt("COMPRESSION_MIN_BYTES", 1024));
+    private final int level = EnvConfig.getInt("COMPRESSION_LEVEL", 6);
+    private final BlockingQueue<Deflater> deflaters =
+            new ArrayBlockingQueue<>(Math.max(1, EnvConfig.getInt("COMPRESSION_POOL_SIZE", 16)));
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest req = (HttpServletRequest) request;
+        if (!enabled || "HEAD".equals(req.getMethod()) || !acceptsGzip(req.getHeader("Accept-Encoding"))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        CompressingResponse wrapped = new CompressingResponse((HttpServletResponse) response);
+        // Async replies are finished by AsyncRequestExecutor before ctx.complete()
+        req.setAttribute(AsyncRequestExecutor.RESPONSE_FINISHER, (Closeable) wrapped::finish);
+        boolean passed = false;
+        try {
+            chain.doFilter(request, wrapped);
+            passed = true;
+        } finally {
+            if (!passed) {
+                // The error page writes to the unwrapped response; just return the deflater
+                req.removeAttribute(AsyncRequestExecutor.RESPONSE_FINISHER);
+                wrapped.abandon();
+            }
+        }
+
+        if (req.isAsyncStarted()) {
+            // By onComplete the container may already have closed the response,
+            // so nothing is written here; this only returns an unused deflater
+            req.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    wrapped.abandon();
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {}
+
+                @Override
+                public void onError(AsyncEvent event) {
+                    wrapped.abandon();
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {}
+            });
+        } else {
+            req.removeAttribute(AsyncRequestExecutor.RESPONSE_FINISHER);
+            try {
+                wrapped.finish();
+            } finally {
+                wrapped.abandon(); // no-op once finish() has returned the deflater
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) deflater.end();
+    }
+
+    // gzip (or *) listed without q=0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase();
+            if (!coding.equals("gzip") && !coding.equals("*")) continue;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        if (Double.parseDouble(param.substring(2)) <= 0) return false;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long in = bytesIn.sum();
+        long out = bytesOut.sum();
+        stats.put("compressed", compressed.sum());
+        stats.put("skipped", skipped.sum());
+        stats.put("bytesIn", in);
+        stats.put("bytesOut", out);
+        stats.put("ratio", in == 0 ? 0.0 : (double) out / in);
+        stats.put("deflatersCreated", deflatersCreated.sum());
+        return stats;
+    }
+
+    // ================= DEFLATER POOL =================
+
+    private Deflater borrow() {
+        Deflater deflater = deflaters.poll();
+        if (deflater != null) return deflater;
+        deflatersCreated.increment();
+        return new Deflater(level, true); // raw deflate; the gzip framing is written here
+    }
+
+    private void release(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) deflater.end();
+    }
+
+    // ================= RESPONSE WRAPPER =================
+
+    private final class CompressingResponse extends HttpServletResponseWrapper {
+        private final HttpServletResponse target;
+        private CompressingStream stream;
+        private PrintWriter writer;
+        private long declaredLength = -1;
+
+        CompressingResponse(HttpServletResponse target) {
+            super(target);
+            this.target = target;
+            target.addHeader("Vary", "Accept-Encoding");
+        }
+
+        // Servlets set Vary: Origin for CORS; keep Accept-Encoding alongside it
+        @Override
+        public void setHeader(String name, String value) {
+            if ("Vary".equalsIgnoreCase(name) && value != null && !value.toLowerCase().contains("accept-encoding")) {
+                value = value + ", Accept-Encoding";
+            }
+            if ("Content-Length".equalsIgnoreCase(name) && value != null) {
+                try {
+                    setContentLengthLong(Long.parseLong(value.trim()));
+                } catch (NumberFormatException ignored) {}
+                return;
+            }
+            super.setHeader(name, value);
+        }
+
+        // The real length is only known once the encoding is decided
+        @Override
+        public void setContentLength(int len) {
+            declaredLength = len;
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            declaredLength = len;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) throw new IllegalStateException("getWriter() has already been called");
+            if (stream == null) stream = new CompressingStream(this);
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer != null) return writer;
+            if (stream != null) throw new IllegalStateException("getOutputStream() has already been called");
+            stream = new CompressingStream(this);
+            writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) writer.flush();
+            if (stream != null) stream.flush();
+            else super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (stream != null) stream.discardBuffered();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (stream != null) stream.discardBuffered();
+            declaredLength = -1;
+            target.addHeader("Vary", "Accept-Encoding");
+        }
+
+        boolean compressible() {
+            int status = getStatus();
+            if (status < 200 || status == SC_NO_CONTENT || status == SC_NOT_MODIFIED) return false;
+            if (containsHeader("Content-Encoding")) return false;
+            if (declaredLength >= 0 && declaredLength < minBytes) return false;
+            String type = getContentType();
+            if (type == null) return true;
+            type = type.toLowerCase();
+            return type.startsWith("application/json") || type.startsWith("text/")
+                    || type.startsWith("application/javascript") || type.startsWith("application/xml");
+        }
+
+        void startCompressing() {
+            target.setHeader("Content-Encoding", "gzip");
+            String etag = target.getHeader("ETag");
+            if (etag != null && etag.startsWith("\"")) target.setHeader("ETag", "W/" + etag);
+        }
+
+        void finish() throws IOException {
+            if (writer != null) writer.flush();
+            if (stream != null) stream.finish();
+        }
+
+        void abandon() {
+            if (stream != null) stream.abandon();
+        }
+    }
+
+    // ================= OUTPUT STREAM =================
+
+    private final class CompressingStream extends ServletOutputStream {
+        private final CompressingResponse response;
+        private byte[] buffer = new byte[Math.min(minBytes, 8192)];
+        private int count;
+        private ServletOutputStream raw;
+        private Deflater deflater;
+        private DeflaterOutputStream deflated;
+        private final CRC32 crc = new CRC32();
+        private boolean passThrough;
+        private boolean finished;
+
+        CompressingStream(CompressingResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (finished) throw new IOException("Response already finished");
+            if (deflated != null) {
+                crc.update(b, off, len);
+                deflated.write(b, off, len);
+            } else if (passThrough) {
+                raw.write(b, off, len);
+            } else if (count + len < minBytes) {
+                buffer(b, off, len);
+            } else {
+                decide();
+                write(b, off, len);
+            }
+        }
+
+        private void buffer(byte[] b, int off, int len) {
+            if (count + len > buffer.length) {
+                byte[] grown = new byte[Math.min(minBytes, Math.max(buffer.length * 2, count + len))];
+                System.arraycopy(buffer, 0, grown, 0, count);
+                buffer = grown;
+            }
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+
+        // Picks gzip or identity once the body has passed the threshold
+        private void decide() throws IOException {
+            raw = response.target.getOutputStream();
+            if (response.compressible()) {
+                response.startCompressing();
+                deflater = borrow();
+                deflated = new DeflaterOutputStream(raw, deflater, 8192, true);
+                raw.write(GZIP_HEADER);
+            } else {
+                passThrough = true;
+                if (response.declaredLength >= 0) response.target.setContentLengthLong(response.declaredLength);
+            }
+            int buffered = count;
+            count = 0;
+            if (buffered > 0) write(buffer, 0, buffered);
+            buffer = null;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Below the threshold there's nothing worth pushing out early; finish() sends it
+            if (finished || (deflated == null && !passThrough)) return;
+            if (deflated != null) deflated.flush();
+            raw.flush();
+        }
+
+        void discardBuffered() {
+            count = 0;
+        }
+
+        void finish() throws IOException {
+            if (finished) return;
+            if (deflated == null && !passThrough) {
+                // Never reached the threshold: send as-is with an exact length
+                skipped.increment();
+                raw = response.target.getOutputStream();
+                response.target.setContentLength(count);
+                raw.write(buffer, 0, count);
+                finished = true;
+                return;
+            }
+            finished = true;
+            if (deflated == null) {
+                skipped.increment();
+                return;
+            }
+            try {
+                deflated.finish();
+                writeIntLE(raw, (int) crc.getValue());
+                writeIntLE(raw, (int) deflater.getBytesRead());
+                compressed.increment();
+                bytesIn.add(deflater.getBytesRead());
+                bytesOut.add(GZIP_HEADER.length + deflater.getBytesWritten() + 8);
+            } finally {
+                release(deflater);
+                deflater = null;
+            }
+        }
+
+        // The client went away mid-response; return the deflater without writing
+        void abandon() {
+            finished = true;
+            if (deflater != null) {
+                release(deflater);
+                deflater = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            try {
+                return response.target.getOutputStream().isReady();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            try {
+                response.target.getOutputStream().setWriteListener(listener);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+        out.write((value >>> 16) & 0xff);
+        out.write((value >>> 24) & 0xff);
+    }
+}
@@ -9,7 +9,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
-@WebFilter("/*")
+@WebFilter(value = "/*", asyncSupported = true)
 public class CorsFilter implements Filter {
 
     private static final List<String> ALLOWED_ORIGINS = Arrays.asList(
@@ -0,0 +1,148 @@
+package com.shopease.filter;
+
+import com.shopease.model.User;
+import com.shopease.util.AuthTokens;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpSession;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Authenticates AUTH_MODE=token requests from a signed token instead of the
+ * container session.
+ *
+ * The token is read from "Authorization: Bearer ..." or the SE_TOKEN cookie
+ * and checked with AuthTokens (HMAC + expiry + denylist; no session store,
+ * no database). A valid token turns the request's getSession() into a
+ * request-scoped view holding the same attributes servlets already read
+ * ("user", "userId", "role"), so they work unchanged on any node.
+ * Invalidating that view (LogoutServlet) revokes the token.
+ *
+ * In AUTH_MODE=session the filter passes every request through.
+ */
+public class TokenAuthFilter implements Filter {
+
+    private final AuthTokens tokens = AuthTokens.getInstance();
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!tokens.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest req = (HttpServletRequest) request;
+        AuthTokens.Claims claims = tokens.verify(tokenOf(req));
+        chain.doFilter(claims != null ? new TokenRequest(req, claims) : request, response);
+    }
+
+    private static String tokenOf(HttpServletRequest req) {
+        String header = req.getHeader("Authorization");
+        if (header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return header.substring(7).trim();
+        }
+        Cookie[] cookies = req.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (AuthTokens.COOKIE_NAME.equals(cookie.getName())) return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    // ================= REQUEST-SCOPED SESSION =================
+
+    private static final class TokenRequest extends HttpServletRequestWrapper {
+        private final TokenSession session;
+
+        TokenRequest(HttpServletRequest request, AuthTokens.Claims claims) {
+            super(request);
+            this.session = new TokenSession(request.getServletContext(), claims);
+        }
+
+        @Override
+        public HttpSession getSession(boolean create) {
+            if (session.valid) return session;
+            return create ? super.getSession(true) : null;
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+    }
+
+    private static final class TokenSession implements HttpSession {
+        private final ServletContext context;
+        private final AuthTokens.Claims claims;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final long createdAt = System.currentTimeMillis();
+        private boolean valid = true;
+
+        TokenSession(ServletContext context, AuthTokens.Claims claims) {
+            this.context = context;
+            this.claims = claims;
+            // Only what the token carries; SessionServlet loads the rest of the profile
+            User user = new User();
+            user.setUserId(claims.getUserId());
+            user.setAdmin(claims.isAdmin());
+            attributes.put("user", user);
+            attributes.put("userId", claims.getUserId());
+            if (claims.isAdmin()) attributes.put("role", "admin");
+        }
+
+        @Override
+        public long getCreationTime() { return createdAt; }
+
+        @Override
+        public String getId() { return claims.getUserId(); }
+
+        @Override
+        public long getLastAccessedTime() { return createdAt; }
+
+        @Override
+        public ServletContext getServletContext() { return context; }
+
+        @Override
+        public void setMaxInactiveInterval(int interval) {}
+
+        @Override
+        public int getMaxInactiveInterval() {
+            return (int) Math.max(0, claims.getExpiresAt() - System.currentTimeMillis() / 1000);
+        }
+
+        @Override
+        public Object getAttribute(String name) { return attributes.get(name); }
+
+        @Override
+        public Enumeration<String> getAttributeNames() { return Collections.enumeration(attributes.keySet()); }
+
+        // Changes last for this request only; the token is the source of truth
+        @Override
+        public void setAttribute(String name, Object value) { attributes.put(name, value); }
+
+        @Override
+        public void removeAttribute(String name) { attributes.remove(name); }
+
+        @Override
+        public void invalidate() {
+            if (!valid) throw new IllegalStateException("Session already invalidated");
+            valid = false;
+            attributes.clear();
+            AuthTokens.getInstance().revoke(claims);
+        }
+
+        @Override
+        public boolean isNew() { return false; }
+    }
+}
@@ -0,0 +1,50 @@
+package com.shopease.listener;
+
+import com.shopease.service.CartService;
+import com.shopease.service.CategoryTreeService;
+import com.shopease.service.InventoryService;
+import com.shopease.service.PasswordHashingService;
+import com.shopease.service.PaymentService;
+import com.shopease.service.ProductFacetService;
+import com.shopease.service.ProductSearchService;
+import com.shopease.service.RandomProductService;
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.ConnectionPool;
+import com.shopease.util.DaoExecutor;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@WebListener
+public class AppContextListener implements ServletContextListener {
+
+    private static final Logger LOGGER = Logger.getLogger(AppContextListener.class.getName());
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        try {
+            ConnectionPool.getDataSource(); // fail fast on bad DB config
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Connection pool could not be started", e);
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        AsyncRequestExecutor.getInstance().shutdown(); // drains request work before the services below stop
+        PasswordHashingService.getInstance().shutdown(); // signups continue on DaoExecutor
+        DaoExecutor.getInstance().shutdown();
+        RandomProductService.getInstance().shutdown();
+        ProductSearchService.getInstance().shutdown();
+        CategoryTreeService.getInstance().shutdown();
+        ProductFacetService.getInstance().shutdown();
+        PaymentService.getInstance().shutdown(); // lets in-flight charges record their result
+        CartService.getInstance().shutdown(); // flushes pending cart writes; needs the pool
+        InventoryService.getInstance().shutdown();
+        ConnectionPool.shutdown();
+    }
+}
@@ -15,6 +15,10 @@ public class CartItem implements Serializable {
     private BigDecimal productPrice;
     private String imageUrl;
 
+    // Pricing: product price + variant additional_price, and that times quantity
+    private BigDecimal unitPrice;
+    private BigDecimal lineTotal;
+
     public CartItem() {}
 
     public CartItem(String cartItemId,String cartId, String productId, String variantId, Integer quantity) {
@@ -50,6 +54,12 @@ public class CartItem implements Serializable {
     public String getImageUrl() { return imageUrl; }
     public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
 
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+
+    public BigDecimal getLineTotal() { return lineTotal; }
+    public void setLineTotal(BigDecimal lineTotal) { this.lineTotal = lineTotal; }
+
     @Override
     public String toString() {
         return "CartItem{" +
@@ -61,6 +71,8 @@ public class CartItem implements Serializable {
                 ", productName='" + productName + '\'' +
                 ", productPrice=" + productPrice +
                 ", imageUrl='" + imageUrl + '\'' +
+                ", unitPrice=" + unitPrice +
+                ", lineTotal=" + lineTotal +
                 '}';
     }
 }
@@ -0,0 +1,48 @@
+package com.shopease.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+// A cart with its priced lines and exact totals, as returned by GET /api/cart
+public class CartSnapshot implements Serializable {
+    private Cart cart;
+    private List<CartItem> items;
+    private int itemCount;        // sum of quantities
+    private BigDecimal total;
+
+    public CartSnapshot() {}
+
+    public CartSnapshot(Cart cart, List<CartItem> items, int itemCount, BigDecimal total) {
+        this.cart = cart;
+        this.items = items;
+        this.itemCount = itemCount;
+        this.total = total;
+    }
+
+    // Fills each line's lineTotal from its unitPrice and sums the cart; lines without a price count as zero
+    public static CartSnapshot of(Cart cart, List<CartItem> items) {
+        BigDecimal total = BigDecimal.ZERO;
+        int count = 0;
+        for (CartItem item : items) {
+            BigDecimal unit = item.getUnitPrice() != null ? item.getUnitPrice() : BigDecimal.ZERO;
+            BigDecimal line = unit.multiply(BigDecimal.valueOf(item.getQuantity()));
+            item.setLineTotal(line);
+            total = total.add(line);
+            count += item.getQuantity();
+        }
+        return new CartSnapshot(cart, items, count, total);
+    }
+
+    public Cart getCart() { return cart; }
+    public void setCart(Cart cart) { this.cart = cart; }
+
+    public List<CartItem> getItems() { return items; }
+    public void setItems(List<CartItem> items) { this.items = items; }
+
+    public int getItemCount() { return itemCount; }
+    public void setItemCount(int itemCount) { this.itemCount = itemCount; }
+
+    public BigDecimal getTotal() { return total; }
+    public void setTotal(BigDecimal total) { this.total = total; }
+}
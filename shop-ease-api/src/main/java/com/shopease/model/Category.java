@@ -3,35 +3,53 @@ package com.shopease.model;
 import java.io.Serializable;
 
 public class Category implements Serializable {
-    private int categoryId;
+    private String categoryId;
+    private String parentId;
     private String name;
+    private String slug;
     private String description;
+    private int sortOrder;
 
     // Constructors
     public Category() {}
 
-    public Category(int categoryId, String name, String description) {
+    public Category(String categoryId, String parentId, String name, String slug, String description, int sortOrder) {
         this.categoryId = categoryId;
+        this.parentId = parentId;
         this.name = name;
+        this.slug = slug;
         this.description = description;
+        this.sortOrder = sortOrder;
     }
 
     // Getters & Setters
-    public int getCategoryId() { return categoryId; }
-    public void setCategoryId(int categoryId) { this.categoryId = categoryId; }
+    public String getCategoryId() { return categoryId; }
+    public void setCategoryId(String categoryId) { this.categoryId = categoryId; }
+
+    public String getParentId() { return parentId; }
+    public void setParentId(String parentId) { this.parentId = parentId; }
 
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
+    public String getSlug() { return slug; }
+    public void setSlug(String slug) { this.slug = slug; }
+
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
+    public int getSortOrder() { return sortOrder; }
+    public void setSortOrder(int sortOrder) { this.sortOrder = sortOrder; }
+
     @Override
     public String toString() {
         return "Category{" +
-                "categoryId=" + categoryId +
+                "categoryId='" + categoryId + '\'' +
+                ", parentId='" + parentId + '\'' +
                 ", name='" + name + '\'' +
+                ", slug='" + slug + '\'' +
                 ", description='" + description + '\'' +
+                ", sortOrder=" + sortOrder +
                 '}';
     }
 }
@@ -7,7 +7,7 @@ import java.util.List;
 
 public class Order implements Serializable {
     private int orderId;
-    private int userId;
+    private String userId;   // users.id (UUID)
     private BigDecimal totalAmount;
     private String status; // e.g., PENDING, PAID, CANCELLED
     private Timestamp createdAt;
@@ -20,8 +20,8 @@ public class Order implements Serializable {
     public int getOrderId() { return orderId; }
     public void setOrderId(int orderId) { this.orderId = orderId; }
 
-    public int getUserId() { return userId; }
-    public void setUserId(int userId) { this.userId = userId; }
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
 
     public BigDecimal getTotalAmount() { return totalAmount; }
     public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
@@ -0,0 +1,25 @@
+package com.shopease.model;
+
+import java.sql.Timestamp;
+
+// Optional criteria for admin order listings; null fields are not filtered on
+public class OrderFilter {
+    private String status;
+    private String userId;
+    private Timestamp createdFrom;   // inclusive
+    private Timestamp createdTo;     // exclusive
+
+    public OrderFilter() {}
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public Timestamp getCreatedFrom() { return createdFrom; }
+    public void setCreatedFrom(Timestamp createdFrom) { this.createdFrom = createdFrom; }
+
+    public Timestamp getCreatedTo() { return createdTo; }
+    public void setCreatedTo(Timestamp createdTo) { this.createdTo = createdTo; }
+}
@@ -6,7 +6,8 @@ import java.math.BigDecimal;
 public class OrderItem implements Serializable {
     private int orderItemId;
     private int orderId;
-    private int productId;
+    private String productId;   // products.id (UUID)
+    private String variantId;   // nullable
     private int quantity;
     private BigDecimal price;
 
@@ -23,8 +24,11 @@ public class OrderItem implements Serializable {
     public int getOrderId() { return orderId; }
     public void setOrderId(int orderId) { this.orderId = orderId; }
 
-    public int getProductId() { return productId; }
-    public void setProductId(int productId) { this.productId = productId; }
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+
+    public String getVariantId() { return variantId; }
+    public void setVariantId(String variantId) { this.variantId = variantId; }
 
     public int getQuantity() { return quantity; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
@@ -44,6 +48,7 @@ public class OrderItem implements Serializable {
                 "orderItemId=" + orderItemId +
                 ", orderId=" + orderId +
                 ", productId=" + productId +
+                ", variantId=" + variantId +
                 ", quantity=" + quantity +
                 ", price=" + price +
                 ", productName='" + productName + '\'' +
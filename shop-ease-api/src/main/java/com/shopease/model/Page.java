@@ -0,0 +1,25 @@
+package com.shopease.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+// One keyset-paginated slice of results; nextCursor is null on the last page
+public class Page<T> implements Serializable {
+    private List<T> items;
+    private String nextCursor;
+
+    public Page() {}
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return nextCursor != null; }
+}
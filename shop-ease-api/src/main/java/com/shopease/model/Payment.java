@@ -12,6 +12,7 @@ public class Payment implements Serializable {
     private String transactionId;
     private BigDecimal amount;
     private Timestamp paymentDate;
+    private String idempotencyKey; // client-supplied, unique per payment attempt
 
     public Payment() {}
 
@@ -37,6 +38,9 @@ public class Payment implements Serializable {
     public Timestamp getPaymentDate() { return paymentDate; }
     public void setPaymentDate(Timestamp paymentDate) { this.paymentDate = paymentDate; }
 
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+
     @Override
     public String toString() {
         return "Payment{" +
@@ -1,8 +1,11 @@
 package com.shopease.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.List;
 import java.util.Objects;
 
 public class Product implements Serializable {
@@ -24,6 +27,14 @@ public class Product implements Serializable {
     private Timestamp createdAt;
     private Timestamp updatedAt;
 
+    // Detail-only collections, populated by ProductDAO.getProductById
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ProductVariant> variants;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ProductImage> images;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Product3DAsset> assets;
+
     // ==================== Constructors ====================
 
     public Product() {}
@@ -160,6 +171,30 @@ public class Product implements Serializable {
         this.updatedAt = updatedAt;
     }
 
+    public List<ProductVariant> getVariants() {
+        return variants;
+    }
+
+    public void setVariants(List<ProductVariant> variants) {
+        this.variants = variants;
+    }
+
+    public List<ProductImage> getImages() {
+        return images;
+    }
+
+    public void setImages(List<ProductImage> images) {
+        this.images = images;
+    }
+
+    public List<Product3DAsset> getAssets() {
+        return assets;
+    }
+
+    public void setAssets(List<Product3DAsset> assets) {
+        this.assets = assets;
+    }
+
     // ==================== equals & hashCode ====================
 
     @Override
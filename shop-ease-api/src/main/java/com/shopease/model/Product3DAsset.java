@@ -0,0 +1,47 @@
+package com.shopease.model;
+
+import java.io.Serializable;
+
+public class Product3DAsset implements Serializable {
+    private String assetId;
+    private String productId;
+    private String assetUrl;
+    private String format; // e.g., glb, gltf, usdz
+    private String thumbnailUrl;
+
+    public Product3DAsset() {}
+
+    public Product3DAsset(String assetId, String productId, String assetUrl, String format, String thumbnailUrl) {
+        this.assetId = assetId;
+        this.productId = productId;
+        this.assetUrl = assetUrl;
+        this.format = format;
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    // Getters & Setters
+    public String getAssetId() { return assetId; }
+    public void setAssetId(String assetId) { this.assetId = assetId; }
+
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+
+    public String getAssetUrl() { return assetUrl; }
+    public void setAssetUrl(String assetUrl) { this.assetUrl = assetUrl; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+
+    @Override
+    public String toString() {
+        return "Product3DAsset{" +
+                "assetId='" + assetId + '\'' +
+                ", productId='" + productId + '\'' +
+                ", assetUrl='" + assetUrl + '\'' +
+                ", format='" + format + '\'' +
+                '}';
+    }
+}
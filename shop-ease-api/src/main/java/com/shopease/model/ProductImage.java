@@ -0,0 +1,47 @@
+package com.shopease.model;
+
+import java.io.Serializable;
+
+public class ProductImage implements Serializable {
+    private String imageId;
+    private String productId;
+    private String url;
+    private String alt;
+    private int sortOrder;
+
+    public ProductImage() {}
+
+    public ProductImage(String imageId, String productId, String url, String alt, int sortOrder) {
+        this.imageId = imageId;
+        this.productId = productId;
+        this.url = url;
+        this.alt = alt;
+        this.sortOrder = sortOrder;
+    }
+
+    // Getters & Setters
+    public String getImageId() { return imageId; }
+    public void setImageId(String imageId) { this.imageId = imageId; }
+
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public String getAlt() { return alt; }
+    public void setAlt(String alt) { this.alt = alt; }
+
+    public int getSortOrder() { return sortOrder; }
+    public void setSortOrder(int sortOrder) { this.sortOrder = sortOrder; }
+
+    @Override
+    public String toString() {
+        return "ProductImage{" +
+                "imageId='" + imageId + '\'' +
+                ", productId='" + productId + '\'' +
+                ", url='" + url + '\'' +
+                ", sortOrder=" + sortOrder +
+                '}';
+    }
+}
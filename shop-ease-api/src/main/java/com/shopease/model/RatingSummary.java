@@ -0,0 +1,23 @@
+package com.shopease.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+// Review count and average rating (null when there are no reviews) for a product
+public class RatingSummary implements Serializable {
+    private int count;
+    private BigDecimal averageRating;
+
+    public RatingSummary() {}
+
+    public RatingSummary(int count, BigDecimal averageRating) {
+        this.count = count;
+        this.averageRating = averageRating;
+    }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+
+    public BigDecimal getAverageRating() { return averageRating; }
+    public void setAverageRating(BigDecimal averageRating) { this.averageRating = averageRating; }
+}
@@ -4,16 +4,18 @@ import java.io.Serializable;
 import java.sql.Timestamp;
 
 public class Review implements Serializable {
-    private int reviewId;
-    private int productId;
-    private int userId;
+    private String reviewId;   // UUID
+    private String productId;  // UUID
+    private String userId;     // UUID
     private int rating; // 1 to 5
-    private String comment;
+    private String title;
+    private String comment;    // product_reviews.body
+    private boolean verifiedPurchase;
     private Timestamp createdAt;
 
     public Review() {}
 
-    public Review(int reviewId, int productId, int userId, int rating, String comment, Timestamp createdAt) {
+    public Review(String reviewId, String productId, String userId, int rating, String comment, Timestamp createdAt) {
         this.reviewId = reviewId;
         this.productId = productId;
         this.userId = userId;
@@ -22,21 +24,27 @@ public class Review implements Serializable {
         this.createdAt = createdAt;
     }
 
-    public int getReviewId() { return reviewId; }
-    public void setReviewId(int reviewId) { this.reviewId = reviewId; }
+    public String getReviewId() { return reviewId; }
+    public void setReviewId(String reviewId) { this.reviewId = reviewId; }
 
-    public int getProductId() { return productId; }
-    public void setProductId(int productId) { this.productId = productId; }
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
 
-    public int getUserId() { return userId; }
-    public void setUserId(int userId) { this.userId = userId; }
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
 
     public int getRating() { return rating; }
     public void setRating(int rating) { this.rating = rating; }
 
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
     public String getComment() { return comment; }
     public void setComment(String comment) { this.comment = comment; }
 
+    public boolean isVerifiedPurchase() { return verifiedPurchase; }
+    public void setVerifiedPurchase(boolean verifiedPurchase) { this.verifiedPurchase = verifiedPurchase; }
+
     public Timestamp getCreatedAt() { return createdAt; }
     public void setCreatedAt(Timestamp createdAt) { this.createdAt = createdAt; }
 
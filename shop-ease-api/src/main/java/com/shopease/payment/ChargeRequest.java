@@ -0,0 +1,25 @@
+package com.shopease.payment;
+
+import java.math.BigDecimal;
+
+public class ChargeRequest {
+    private final String idempotencyKey;
+    private final int orderId;
+    private final BigDecimal amount;
+    private final String paymentMethod;
+    private final String details;
+
+    public ChargeRequest(String idempotencyKey, int orderId, BigDecimal amount, String paymentMethod, String details) {
+        this.idempotencyKey = idempotencyKey;
+        this.orderId = orderId;
+        this.amount = amount;
+        this.paymentMethod = paymentMethod;
+        this.details = details;
+    }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public int getOrderId() { return orderId; }
+    public BigDecimal getAmount() { return amount; }
+    public String getPaymentMethod() { return paymentMethod; }
+    public String getDetails() { return details; }
+}
@@ -0,0 +1,25 @@
+package com.shopease.payment;
+
+public class ChargeResult {
+    private final boolean success;
+    private final String transactionId;
+    private final String message;
+
+    private ChargeResult(boolean success, String transactionId, String message) {
+        this.success = success;
+        this.transactionId = transactionId;
+        this.message = message;
+    }
+
+    public static ChargeResult approved(String transactionId) {
+        return new ChargeResult(true, transactionId, "Payment successful");
+    }
+
+    public static ChargeResult declined(String message) {
+        return new ChargeResult(false, null, message);
+    }
+
+    public boolean isSuccess() { return success; }
+    public String getTransactionId() { return transactionId; }
+    public String getMessage() { return message; }
+}
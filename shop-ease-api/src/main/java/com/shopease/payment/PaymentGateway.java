@@ -0,0 +1,11 @@
+package com.shopease.payment;
+
+/**
+ * A payment provider. Implementations are called from payment worker
+ * threads, may block, and must be thread-safe. The idempotency key is passed
+ * through so providers that support it can deduplicate retries on their side.
+ */
+public interface PaymentGateway {
+
+    ChargeResult charge(ChargeRequest request);
+}
@@ -0,0 +1,44 @@
+package com.shopease.payment;
+
+import com.shopease.util.EnvConfig;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for a real provider, used in development and tests.
+ * PAYMENT_SIM_LATENCY_MS (default 300) adds a delay per charge and
+ * PAYMENT_SIM_FAILURE_RATE (0.0-1.0, default 0) declines that share of charges.
+ */
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    private final long latencyMs = EnvConfig.getLong("PAYMENT_SIM_LATENCY_MS", 300);
+    private final double failureRate = parseRate(EnvConfig.getString("PAYMENT_SIM_FAILURE_RATE", "0"));
+
+    @Override
+    public ChargeResult charge(ChargeRequest request) {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return ChargeResult.declined("Payment interrupted");
+            }
+        }
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            return ChargeResult.declined("Invalid amount");
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            return ChargeResult.declined("Payment declined");
+        }
+        return ChargeResult.approved("SIM-" + UUID.randomUUID());
+    }
+
+    private static double parseRate(String value) {
+        try {
+            return Math.min(1.0, Math.max(0.0, Double.parseDouble(value)));
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+}
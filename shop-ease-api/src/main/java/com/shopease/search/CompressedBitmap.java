@@ -0,0 +1,462 @@
+package com.shopease.search;
+
+import java.util.Arrays;
+
+/**
+ * Immutable compressed set of non-negative ints, used for facet postings.
+ *
+ * Values are split into chunks of 65536 by their high 16 bits (the Roaring
+ * layout). A chunk holding at most 4096 values is a sorted char[] (2 bytes
+ * per value); a denser chunk is a 1024-word bitset (8 KB flat). So a rare
+ * brand costs a few bytes and "in stock" over a million products costs
+ * ~128 KB, and AND/OR work chunk by chunk with word operations where dense.
+ */
+public final class CompressedBitmap {
+
+    static final int ARRAY_MAX = 4096;
+    private static final int BITSET_WORDS = 1024;
+
+    private static final CompressedBitmap EMPTY = new CompressedBitmap(new char[0], new Container[0]);
+
+    private final char[] keys;            // high 16 bits, ascending
+    private final Container[] containers; // never empty
+    private final int cardinality;
+
+    private CompressedBitmap(char[] keys, Container[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+        int total = 0;
+        for (Container container : containers) total += container.cardinality;
+        this.cardinality = total;
+    }
+
+    public static CompressedBitmap empty() {
+        return EMPTY;
+    }
+
+    // Every value in [0, size)
+    public static CompressedBitmap range(int size) {
+        if (size <= 0) return EMPTY;
+        int chunks = ((size - 1) >>> 16) + 1;
+        char[] keys = new char[chunks];
+        Container[] containers = new Container[chunks];
+        for (int c = 0; c < chunks; c++) {
+            int count = Math.min(65536, size - (c << 16));
+            long[] words = new long[BITSET_WORDS];
+            Arrays.fill(words, 0, count >>> 6, -1L);
+            if ((count & 63) != 0) words[count >>> 6] = (1L << (count & 63)) - 1;
+            keys[c] = (char) c;
+            containers[c] = Container.of(words, count);
+        }
+        return new CompressedBitmap(keys, containers);
+    }
+
+    // values[0..length) must be strictly ascending
+    static CompressedBitmap of(int[] values, int length) {
+        if (length == 0) return EMPTY;
+        char[] keys = new char[length];
+        Container[] containers = new Container[length];
+        int chunks = 0;
+        int start = 0;
+        while (start < length) {
+            int high = values[start] >>> 16;
+            int end = start;
+            while (end < length && values[end] >>> 16 == high) end++;
+            int count = end - start;
+            if (count <= ARRAY_MAX) {
+                char[] lows = new char[count];
+                for (int i = 0; i < count; i++) lows[i] = (char) values[start + i];
+                containers[chunks] = new ArrayContainer(lows);
+            } else {
+                long[] words = new long[BITSET_WORDS];
+                for (int i = start; i < end; i++) {
+                    int low = values[i] & 0xFFFF;
+                    words[low >>> 6] |= 1L << low;
+                }
+                containers[chunks] = new BitsetContainer(words, count);
+            }
+            keys[chunks++] = (char) high;
+            start = end;
+        }
+        return new CompressedBitmap(Arrays.copyOf(keys, chunks), Arrays.copyOf(containers, chunks));
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public boolean contains(int value) {
+        int i = Arrays.binarySearch(keys, (char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    // ================= SET OPERATIONS =================
+
+    public CompressedBitmap and(CompressedBitmap other) {
+        if (isEmpty() || other.isEmpty()) return EMPTY;
+        int n = Math.min(keys.length, other.keys.length);
+        char[] outKeys = new char[n];
+        Container[] outContainers = new Container[n];
+        int count = 0;
+        int i = 0, j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container joined = containers[i].and(other.containers[j]);
+                if (joined != null) {
+                    outKeys[count] = keys[i];
+                    outContainers[count++] = joined;
+                }
+                i++;
+                j++;
+            }
+        }
+        if (count == 0) return EMPTY;
+        return new CompressedBitmap(Arrays.copyOf(outKeys, count), Arrays.copyOf(outContainers, count));
+    }
+
+    // Size of the intersection without building it; what facet counting runs per value
+    public int andCardinality(CompressedBitmap other) {
+        int total = 0;
+        int i = 0, j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                total += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    public CompressedBitmap or(CompressedBitmap other) {
+        if (other.isEmpty()) return this;
+        if (isEmpty()) return other;
+        char[] outKeys = new char[keys.length + other.keys.length];
+        Container[] outContainers = new Container[outKeys.length];
+        int count = 0;
+        int i = 0, j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                outKeys[count] = keys[i];
+                outContainers[count++] = containers[i++];
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                outKeys[count] = other.keys[j];
+                outContainers[count++] = other.containers[j++];
+            } else {
+                outKeys[count] = keys[i];
+                outContainers[count++] = containers[i++].or(other.containers[j++]);
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(outKeys, count), Arrays.copyOf(outContainers, count));
+    }
+
+    // Values in this bitmap but not in other
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        if (isEmpty() || other.isEmpty()) return this;
+        char[] outKeys = new char[keys.length];
+        Container[] outContainers = new Container[keys.length];
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) j++;
+            Container kept = j < other.keys.length && other.keys[j] == keys[i]
+                    ? containers[i].andNot(other.containers[j])
+                    : containers[i];
+            if (kept != null) {
+                outKeys[count] = keys[i];
+                outContainers[count++] = kept;
+            }
+        }
+        if (count == 0) return EMPTY;
+        return new CompressedBitmap(Arrays.copyOf(outKeys, count), Arrays.copyOf(outContainers, count));
+    }
+
+    // ================= ITERATION =================
+
+    // Copies the values ranked [offset, offset + out.length) into out; returns how many were copied
+    public int select(int offset, int[] out) {
+        int copied = 0;
+        for (int c = 0; c < containers.length && copied < out.length; c++) {
+            Container container = containers[c];
+            if (offset >= container.cardinality) {
+                offset -= container.cardinality;
+                continue;
+            }
+            copied = container.select(keys[c] << 16, offset, out, copied);
+            offset = 0;
+        }
+        return copied;
+    }
+
+    // Rough work to intersect this with a dense bitmap: values for sparse chunks, words for dense ones
+    long scanCost() {
+        long cost = 0;
+        for (Container container : containers) {
+            cost += container instanceof BitsetContainer ? BITSET_WORDS : container.cardinality;
+        }
+        return cost;
+    }
+
+    public long sizeInBytes() {
+        long bytes = 16 + keys.length * 2L;
+        for (Container container : containers) bytes += container.sizeInBytes();
+        return bytes;
+    }
+
+    // ================= CONTAINERS =================
+
+    private abstract static class Container {
+        final int cardinality;
+
+        Container(int cardinality) {
+            this.cardinality = cardinality;
+        }
+
+        // Picks the smaller representation for a computed bitset; null when empty
+        static Container of(long[] words, int cardinality) {
+            if (cardinality == 0) return null;
+            if (cardinality > ARRAY_MAX) return new BitsetContainer(words, cardinality);
+            char[] lows = new char[cardinality];
+            int n = 0;
+            for (int w = 0; w < BITSET_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    lows[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(lows);
+        }
+
+        abstract boolean contains(char low);
+        abstract Container and(Container other);
+        abstract int andCardinality(Container other);
+        abstract Container or(Container other);
+        abstract Container andNot(Container other);
+        abstract int select(int base, int offset, int[] out, int pos);
+        abstract long sizeInBytes();
+    }
+
+    private static final class ArrayContainer extends Container {
+        final char[] values;
+
+        ArrayContainer(char[] values) {
+            super(values.length);
+            this.values = values;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, low) >= 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] out = new char[Math.min(cardinality, other.cardinality)];
+            int n = 0;
+            if (other instanceof BitsetContainer bits) {
+                for (char v : values) if (bits.contains(v)) out[n++] = v;
+            } else {
+                char[] b = ((ArrayContainer) other).values;
+                int i = 0, j = 0;
+                while (i < values.length && j < b.length) {
+                    if (values[i] < b[j]) i++;
+                    else if (values[i] > b[j]) j++;
+                    else { out[n++] = values[i]; i++; j++; }
+                }
+            }
+            return n == 0 ? null : new ArrayContainer(n == out.length ? out : Arrays.copyOf(out, n));
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            int n = 0;
+            if (other instanceof BitsetContainer bits) {
+                for (char v : values) if (bits.contains(v)) n++;
+            } else {
+                char[] b = ((ArrayContainer) other).values;
+                int i = 0, j = 0;
+                while (i < values.length && j < b.length) {
+                    if (values[i] < b[j]) i++;
+                    else if (values[i] > b[j]) j++;
+                    else { n++; i++; j++; }
+                }
+            }
+            return n;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitsetContainer) return other.or(this);
+            char[] b = ((ArrayContainer) other).values;
+            if (values.length + b.length > ARRAY_MAX) {
+                long[] words = new long[BITSET_WORDS];
+                for (char v : values) words[v >>> 6] |= 1L << v;
+                for (char v : b) words[v >>> 6] |= 1L << v;
+                return Container.of(words, popCount(words));
+            }
+            char[] out = new char[values.length + b.length];
+            int i = 0, j = 0, n = 0;
+            while (i < values.length || j < b.length) {
+                if (j == b.length || (i < values.length && values[i] < b[j])) out[n++] = values[i++];
+                else if (i == values.length || values[i] > b[j]) out[n++] = b[j++];
+                else { out[n++] = values[i]; i++; j++; }
+            }
+            return new ArrayContainer(n == out.length ? out : Arrays.copyOf(out, n));
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] out = new char[cardinality];
+            int n = 0;
+            if (other instanceof BitsetContainer bits) {
+                for (char v : values) if (!bits.contains(v)) out[n++] = v;
+            } else {
+                char[] b = ((ArrayContainer) other).values;
+                int j = 0;
+                for (char v : values) {
+                    while (j < b.length && b[j] < v) j++;
+                    if (j == b.length || b[j] != v) out[n++] = v;
+                }
+            }
+            return n == 0 ? null : new ArrayContainer(n == out.length ? out : Arrays.copyOf(out, n));
+        }
+
+        @Override
+        int select(int base, int offset, int[] out, int pos) {
+            for (int i = offset; i < values.length && pos < out.length; i++) out[pos++] = base | values[i];
+            return pos;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16 + values.length * 2L;
+        }
+    }
+
+    private static final class BitsetContainer extends Container {
+        final long[] words;
+
+        BitsetContainer(long[] words, int cardinality) {
+            super(cardinality);
+            this.words = words;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) return other.and(this);
+            long[] b = ((BitsetContainer) other).words;
+            long[] out = new long[BITSET_WORDS];
+            int n = 0;
+            for (int w = 0; w < BITSET_WORDS; w++) {
+                out[w] = words[w] & b[w];
+                n += Long.bitCount(out[w]);
+            }
+            return Container.of(out, n);
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) return other.andCardinality(this);
+            long[] b = ((BitsetContainer) other).words;
+            int n = 0;
+            for (int w = 0; w < BITSET_WORDS; w++) n += Long.bitCount(words[w] & b[w]);
+            return n;
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] out = words.clone();
+            if (other instanceof ArrayContainer array) {
+                for (char v : array.values) out[v >>> 6] |= 1L << v;
+            } else {
+                long[] b = ((BitsetContainer) other).words;
+                for (int w = 0; w < BITSET_WORDS; w++) out[w] |= b[w];
+            }
+            return new BitsetContainer(out, popCount(out));
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] out = words.clone();
+            if (other instanceof ArrayContainer array) {
+                for (char v : array.values) out[v >>> 6] &= ~(1L << v);
+            } else {
+                long[] b = ((BitsetContainer) other).words;
+                for (int w = 0; w < BITSET_WORDS; w++) out[w] &= ~b[w];
+            }
+            return Container.of(out, popCount(out));
+        }
+
+        @Override
+        int select(int base, int offset, int[] out, int pos) {
+            for (int w = 0; w < BITSET_WORDS && pos < out.length; w++) {
+                long word = words[w];
+                int bits = Long.bitCount(word);
+                if (offset >= bits) {
+                    offset -= bits;
+                    continue;
+                }
+                while (word != 0 && pos < out.length) {
+                    if (offset > 0) {
+                        offset--;
+                    } else {
+                        out[pos++] = base | ((w << 6) + Long.numberOfTrailingZeros(word));
+                    }
+                    word &= word - 1;
+                }
+            }
+            return pos;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16 + BITSET_WORDS * 8L;
+        }
+    }
+
+    private static int popCount(long[] words) {
+        int n = 0;
+        for (long word : words) n += Long.bitCount(word);
+        return n;
+    }
+
+    // ================= BUILDER =================
+
+    // Collects values in ascending order (duplicates of the last value are ignored)
+    public static final class Builder {
+        private int[] values = new int[8];
+        private int size;
+
+        public Builder add(int value) {
+            if (size > 0 && value <= values[size - 1]) {
+                if (value == values[size - 1]) return this;
+                throw new IllegalArgumentException("Values must be added in ascending order");
+            }
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+            return this;
+        }
+
+        public CompressedBitmap build() {
+            return of(values, size);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.shopease.search;
+
+/**
+ * How many products in the current result would carry a facet value.
+ */
+public class FacetCount {
+    private final String value;
+    private final int count;
+    private final boolean selected;
+
+    public FacetCount(String value, int count, boolean selected) {
+        this.value = value;
+        this.count = count;
+        this.selected = selected;
+    }
+
+    public String getValue() { return value; }
+    public int getCount() { return count; }
+    public boolean isSelected() { return selected; }
+}
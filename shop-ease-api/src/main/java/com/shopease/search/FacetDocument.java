@@ -0,0 +1,33 @@
+package com.shopease.search;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The facet projection of an active product: just the fields customers filter on.
+ */
+public class FacetDocument {
+    private final String id;
+    private final String categoryId;
+    private final String brand;
+    private final BigDecimal price;
+    private final boolean inStock;
+    private final List<String> tags;
+
+    public FacetDocument(String id, String categoryId, String brand, BigDecimal price,
+                         boolean inStock, List<String> tags) {
+        this.id = id;
+        this.categoryId = categoryId;
+        this.brand = brand;
+        this.price = price;
+        this.inStock = inStock;
+        this.tags = tags;
+    }
+
+    public String getId() { return id; }
+    public String getCategoryId() { return categoryId; }
+    public String getBrand() { return brand; }
+    public BigDecimal getPrice() { return price; }
+    public boolean isInStock() { return inStock; }
+    public List<String> getTags() { return tags; }
+}
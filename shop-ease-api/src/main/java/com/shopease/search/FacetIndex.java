@@ -0,0 +1,319 @@
+package com.shopease.search;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable bitmap index for faceted browsing.
+ *
+ * Each product gets a dense ordinal (its position in the build list, so
+ * results come back in the build order). Every facet value maps to a
+ * CompressedBitmap of the ordinals carrying it. A query ORs the chosen
+ * values within a facet and ANDs across facets; counts for a facet are
+ * taken with every other facet's filter applied, so picking one brand still
+ * shows how many products the other brands would add.
+ *
+ * Counting picks the cheapest of three plans: walk the base once against a
+ * forward index (ordinal -> value ids), walk its complement and subtract from
+ * the unfiltered counts (worked out at build time), or intersect the base
+ * with each value's bitmap.
+ */
+public final class FacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String BRAND = "brand";
+    public static final String TAG = "tag";
+    public static final String PRICE = "price";
+    public static final String IN_STOCK = "inStock";
+
+    private static final List<String> FACETS = List.of(CATEGORY, BRAND, TAG, PRICE, IN_STOCK);
+
+    private final String[] productIds;
+    private final CompressedBitmap all;
+    private final Map<String, Facet> facets;
+
+    private FacetIndex(String[] productIds, Map<String, Facet> facets) {
+        this.productIds = productIds;
+        this.all = CompressedBitmap.range(productIds.length);
+        this.facets = facets;
+    }
+
+    public static FacetIndex empty() {
+        return build(Collections.emptyList(), Collections.emptyList());
+    }
+
+    // priceBands are the ascending upper bounds of every band but the last
+    public static FacetIndex build(List<FacetDocument> docs, List<BigDecimal> priceBands) {
+        int size = docs.size();
+        Map<String, FacetBuilder> builders = new LinkedHashMap<>();
+        for (String facet : FACETS) builders.put(facet, new FacetBuilder(size));
+
+        String[] ids = new String[size];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            FacetDocument doc = docs.get(ordinal);
+            ids[ordinal] = doc.getId();
+            builders.get(CATEGORY).add(ordinal, doc.getCategoryId());
+            builders.get(BRAND).add(ordinal, doc.getBrand());
+            if (doc.getTags() != null) {
+                for (String tag : doc.getTags()) builders.get(TAG).add(ordinal, tag);
+            }
+            builders.get(PRICE).add(ordinal, priceBand(doc.getPrice(), priceBands));
+            builders.get(IN_STOCK).add(ordinal, String.valueOf(doc.isInStock()));
+        }
+
+        Map<String, Facet> facets = new LinkedHashMap<>();
+        builders.forEach((name, builder) -> facets.put(name, builder.build()));
+        return new FacetIndex(ids, facets);
+    }
+
+    // "0-500", "500-1000", ... "10000+"; null when the product has no price
+    public static String priceBand(BigDecimal price, List<BigDecimal> bands) {
+        if (price == null) return null;
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal upper : bands) {
+            if (price.compareTo(upper) < 0) return lower.toPlainString() + "-" + upper.toPlainString();
+            lower = upper;
+        }
+        return lower.toPlainString() + "+";
+    }
+
+    // ================= QUERY =================
+
+    // filters: facet -> accepted values (empty or missing = no filter on that facet)
+    public Result query(Map<String, Set<String>> filters, int offset, int limit, int facetLimit) {
+        offset = Math.max(0, offset);
+        Map<String, CompressedBitmap> selected = new LinkedHashMap<>();
+        for (String name : FACETS) {
+            Set<String> values = filters.get(name);
+            if (values == null || values.isEmpty()) continue;
+            Facet facet = facets.get(name);
+            CompressedBitmap union = CompressedBitmap.empty();
+            for (String value : values) {
+                Integer id = facet.idOf.get(value);
+                if (id != null) union = union.or(facet.postings[id]);
+            }
+            selected.put(name, union);
+        }
+
+        CompressedBitmap matches = intersect(selected, null);
+
+        int[] page = new int[Math.max(0, Math.min(limit, matches.cardinality() - offset))];
+        int found = page.length == 0 ? 0 : matches.select(offset, page);
+        List<String> ids = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) ids.add(productIds[page[i]]);
+
+        Map<String, List<FacetCount>> counts = new LinkedHashMap<>();
+        for (String name : FACETS) {
+            // With no filter on this facet its base is just the overall result
+            CompressedBitmap base = selected.containsKey(name) ? intersect(selected, name) : matches;
+            Facet facet = facets.get(name);
+            counts.put(name, top(facet, facet.count(base, all), filters.getOrDefault(name, Collections.emptySet()), facetLimit));
+        }
+        return new Result(matches.cardinality(), ids, counts);
+    }
+
+    // AND of every selected facet except `skip`, smallest first so the working set shrinks fastest
+    private CompressedBitmap intersect(Map<String, CompressedBitmap> selected, String skip) {
+        List<CompressedBitmap> parts = new ArrayList<>(selected.size());
+        selected.forEach((name, bitmap) -> {
+            if (!name.equals(skip)) parts.add(bitmap);
+        });
+        if (parts.isEmpty()) return all;
+        parts.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+        CompressedBitmap result = parts.get(0);
+        for (int i = 1; i < parts.size() && !result.isEmpty(); i++) {
+            result = result.and(parts.get(i));
+        }
+        return result;
+    }
+
+    // Non-zero values by count, plus any selected value so the UI can still show it checked
+    private static List<FacetCount> top(Facet facet, int[] counts, Set<String> chosen, int limit) {
+        List<FacetCount> result = new ArrayList<>();
+        for (int id = 0; id < counts.length; id++) {
+            boolean isChosen = chosen.contains(facet.values[id]);
+            if (counts[id] > 0 || isChosen) result.add(new FacetCount(facet.values[id], counts[id], isChosen));
+        }
+        result.sort((a, b) -> a.getCount() != b.getCount()
+                ? Integer.compare(b.getCount(), a.getCount())
+                : a.getValue().compareTo(b.getValue()));
+        if (result.size() <= limit) return result;
+
+        List<FacetCount> kept = new ArrayList<>(result.subList(0, limit));
+        for (FacetCount count : result.subList(limit, result.size())) {
+            if (count.isSelected()) kept.add(count);
+        }
+        return kept;
+    }
+
+    // ================= STATS =================
+
+    public int size() {
+        return productIds.length;
+    }
+
+    public int valueCount() {
+        int n = 0;
+        for (Facet facet : facets.values()) n += facet.values.length;
+        return n;
+    }
+
+    public long bitmapBytes() {
+        long bytes = all.sizeInBytes();
+        for (Facet facet : facets.values()) {
+            for (CompressedBitmap bitmap : facet.postings) bytes += bitmap.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    // ================= FACETS =================
+
+    private static final class Facet {
+        private static final int WALK_BLOCK = 4096;
+
+        final String[] values;               // value id -> value
+        final Map<String, Integer> idOf;
+        final CompressedBitmap[] postings;   // value id -> ordinals
+        final int[] single;                  // forward index when each product has at most one value (-1 = none)
+        final int[] offsets;                 // otherwise ordinal -> valueIds[offsets[o]..offsets[o + 1])
+        final int[] valueIds;
+        final int[] allCounts;               // counts with no filter applied
+        final long scanCost;
+
+        Facet(String[] values, Map<String, Integer> idOf, CompressedBitmap[] postings,
+              int[] single, int[] offsets, int[] valueIds) {
+            this.values = values;
+            this.idOf = idOf;
+            this.postings = postings;
+            this.single = single;
+            this.offsets = offsets;
+            this.valueIds = valueIds;
+            this.allCounts = new int[values.length];
+            long cost = 0;
+            for (int id = 0; id < postings.length; id++) {
+                allCounts[id] = postings[id].cardinality();
+                cost += postings[id].scanCost();
+            }
+            this.scanCost = cost;
+        }
+
+        int[] count(CompressedBitmap base, CompressedBitmap all) {
+            if (base == all) return allCounts;
+            int[] counts = new int[values.length];
+            int size = all.cardinality();
+            // Costs in "values touched": walking one ordinal costs about as much as one bitmap probe
+            long walk = base.cardinality();
+            long walkComplement = (long) (size - base.cardinality()) + size / 64;
+            if (base.isEmpty()) return counts;
+
+            if (walk <= walkComplement && walk <= scanCost) {
+                walk(base, counts, 1);
+            } else if (walkComplement <= scanCost) {
+                // Most products match: subtract the few that don't
+                System.arraycopy(allCounts, 0, counts, 0, counts.length);
+                walk(all.andNot(base), counts, -1);
+            } else {
+                for (int id = 0; id < postings.length; id++) counts[id] = base.andCardinality(postings[id]);
+            }
+            return counts;
+        }
+
+        // Pulls ordinals out in blocks so the counting loops stay tight
+        private void walk(CompressedBitmap ordinals, int[] counts, int delta) {
+            int[] block = new int[Math.min(WALK_BLOCK, ordinals.cardinality())];
+            for (int done = 0; done < ordinals.cardinality(); ) {
+                int n = ordinals.select(done, block);
+                if (single != null) {
+                    for (int k = 0; k < n; k++) {
+                        int id = single[block[k]];
+                        if (id >= 0) counts[id] += delta;
+                    }
+                } else {
+                    for (int k = 0; k < n; k++) {
+                        int ordinal = block[k];
+                        for (int i = offsets[ordinal]; i < offsets[ordinal + 1]; i++) counts[valueIds[i]] += delta;
+                    }
+                }
+                done += n;
+            }
+        }
+    }
+
+    private static final class FacetBuilder {
+        private final Map<String, Integer> idOf = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<CompressedBitmap.Builder> postings = new ArrayList<>();
+        private final int[] offsets;
+        private int[] valueIds;
+        private int entries;
+        private int lastOrdinal = -1;
+        private boolean multiValued;
+
+        FacetBuilder(int size) {
+            offsets = new int[size + 1];
+            valueIds = new int[Math.max(16, size)];
+        }
+
+        // Ordinals arrive in ascending order
+        void add(int ordinal, String value) {
+            for (int o = lastOrdinal + 1; o <= ordinal; o++) offsets[o] = entries;
+            lastOrdinal = ordinal;
+            if (value == null || value.isEmpty()) return;
+
+            Integer id = idOf.get(value);
+            if (id == null) {
+                id = values.size();
+                idOf.put(value, id);
+                values.add(value);
+                postings.add(new CompressedBitmap.Builder());
+            }
+            for (int i = offsets[ordinal]; i < entries; i++) {
+                if (valueIds[i] == id) return; // the same tag twice
+            }
+            if (entries > offsets[ordinal]) multiValued = true;
+            postings.get(id).add(ordinal);
+            if (entries == valueIds.length) valueIds = Arrays.copyOf(valueIds, entries * 2);
+            valueIds[entries++] = id;
+        }
+
+        Facet build() {
+            for (int o = lastOrdinal + 1; o < offsets.length; o++) offsets[o] = entries;
+            CompressedBitmap[] bitmaps = new CompressedBitmap[postings.size()];
+            for (int id = 0; id < bitmaps.length; id++) bitmaps[id] = postings.get(id).build();
+            String[] names = values.toArray(new String[0]);
+            if (multiValued) {
+                return new Facet(names, idOf, bitmaps, null, offsets, Arrays.copyOf(valueIds, entries));
+            }
+            int[] single = new int[offsets.length - 1];
+            for (int o = 0; o < single.length; o++) {
+                single[o] = offsets[o + 1] > offsets[o] ? valueIds[offsets[o]] : -1;
+            }
+            return new Facet(names, idOf, bitmaps, single, null, null);
+        }
+    }
+
+    // ================= TYPES =================
+
+    public static final class Result {
+        private final int total;
+        private final List<String> productIds;
+        private final Map<String, List<FacetCount>> facets;
+
+        Result(int total, List<String> productIds, Map<String, List<FacetCount>> facets) {
+            this.total = total;
+            this.productIds = productIds;
+            this.facets = facets;
+        }
+
+        public int getTotal() { return total; }
+        public List<String> getProductIds() { return productIds; }
+        public Map<String, List<FacetCount>> getFacets() { return facets; }
+    }
+}
@@ -0,0 +1,271 @@
+package com.shopease.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product search documents, ranked with a
+ * field-weighted BM25 (BM25F-style: per-field boosts fold into term frequency
+ * and document length).
+ *
+ * Documents get dense ordinals. Updating a document tombstones its old
+ * ordinal and appends a new one; once tombstones exceed a quarter of the
+ * ordinals the postings are rebuilt from the live documents.
+ *
+ * The last query token is also treated as a prefix so partially typed words
+ * match, using a sorted term dictionary.
+ */
+public class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final float PREFIX_PENALTY = 0.8f;
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float BRAND_WEIGHT = 2.5f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float SHORT_DESCRIPTION_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<SearchDocument> docs = new ArrayList<>();   // null = tombstone
+    private float[] docLengths = new float[16];
+    private final Map<String, Integer> ordinalById = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final TreeSet<String> terms = new TreeSet<>();
+    private double totalLength;
+    private int deleted;
+
+    // ================= WRITES =================
+
+    public void rebuild(Collection<SearchDocument> documents) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (SearchDocument doc : documents) addInternal(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsert(SearchDocument doc) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(doc.getId());
+            addInternal(doc);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ================= READS =================
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchDocument getDocument(String id) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(id);
+            return ordinal != null ? docs.get(ordinal) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Snapshot of the live documents
+    public List<SearchDocument> documents() {
+        lock.readLock().lock();
+        try {
+            List<SearchDocument> live = new ArrayList<>(ordinalById.size());
+            for (SearchDocument doc : docs) if (doc != null) live.add(doc);
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks documents containing every query token (the last token may match
+     * as a prefix). Falls back to matching any token when nothing matches all.
+     */
+    public List<SearchHit> search(String query, int limit) {
+        // A stopword still being typed ("a" of "apple") stays in as the prefix token
+        List<String> tokens = TextAnalyzer.tokenizePrefix(query);
+        if (tokens.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            int liveDocs = ordinalById.size();
+            if (liveDocs == 0) return new ArrayList<>();
+            float avgLength = (float) (totalLength / liveDocs);
+
+            Map<Integer, float[]> scores = new HashMap<>();  // ordinal -> {score, matchedTokens}
+            for (int t = 0; t < tokens.size(); t++) {
+                String token = tokens.get(t);
+                boolean last = t == tokens.size() - 1;
+                Map<Integer, Float> tokenScores = scoreToken(token, last, liveDocs, avgLength);
+                for (Map.Entry<Integer, Float> e : tokenScores.entrySet()) {
+                    float[] acc = scores.computeIfAbsent(e.getKey(), k -> new float[2]);
+                    acc[0] += e.getValue();
+                    acc[1] += 1;
+                }
+            }
+
+            int required = tokens.size();
+            boolean anyFullMatch = scores.values().stream().anyMatch(acc -> acc[1] >= required);
+
+            PriorityQueue<SearchHit> top = new PriorityQueue<>(limit + 1,
+                    (a, b) -> Float.compare(a.getScore(), b.getScore()));
+            for (Map.Entry<Integer, float[]> e : scores.entrySet()) {
+                float[] acc = e.getValue();
+                if (anyFullMatch && acc[1] < required) continue;
+                top.offer(new SearchHit(docs.get(e.getKey()), acc[0]));
+                if (top.size() > limit) top.poll();
+            }
+
+            List<SearchHit> hits = new ArrayList<>(top);
+            hits.sort((a, b) -> Float.compare(b.getScore(), a.getScore()));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best score per document for one token across its exact and prefix terms
+    private Map<Integer, Float> scoreToken(String token, boolean prefix, int liveDocs, float avgLength) {
+        Map<Integer, Float> best = new HashMap<>();
+        scoreTerm(token, 1.0f, liveDocs, avgLength, best);
+
+        if (prefix) {
+            NavigableSet<String> expansions = terms.subSet(token, false, token + Character.MAX_VALUE, false);
+            int n = 0;
+            for (String term : expansions) {
+                if (n++ >= MAX_PREFIX_EXPANSIONS) break;
+                scoreTerm(term, PREFIX_PENALTY, liveDocs, avgLength, best);
+            }
+        }
+        return best;
+    }
+
+    private void scoreTerm(String term, float boost, int liveDocs, float avgLength, Map<Integer, Float> best) {
+        Postings list = postings.get(term);
+        if (list == null) return;
+
+        int df = Math.min(list.size, liveDocs);
+        float idf = (float) Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+        for (int i = 0; i < list.size; i++) {
+            int ordinal = list.docs[i];
+            if (docs.get(ordinal) == null) continue;
+            float tf = list.freqs[i];
+            float norm = K1 * (1 - B + B * docLengths[ordinal] / avgLength);
+            float score = boost * idf * (tf * (K1 + 1)) / (tf + norm);
+            best.merge(ordinal, score, Math::max);
+        }
+    }
+
+    // ================= INTERNALS =================
+
+    private void addInternal(SearchDocument doc) {
+        Map<String, Float> weighted = new HashMap<>();
+        float length = 0;
+        length += addField(weighted, doc.getTitle(), TITLE_WEIGHT);
+        length += addField(weighted, doc.getBrand(), BRAND_WEIGHT);
+        length += addField(weighted, doc.getCategory(), CATEGORY_WEIGHT);
+        length += addField(weighted, doc.getShortDescription(), SHORT_DESCRIPTION_WEIGHT);
+        length += addField(weighted, doc.getDescription(), DESCRIPTION_WEIGHT);
+
+        int ordinal = docs.size();
+        docs.add(doc);
+        if (ordinal >= docLengths.length) {
+            docLengths = Arrays.copyOf(docLengths, docLengths.length * 2);
+        }
+        docLengths[ordinal] = length;
+        totalLength += length;
+        ordinalById.put(doc.getId(), ordinal);
+
+        for (Map.Entry<String, Float> e : weighted.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), k -> {
+                terms.add(k);
+                return new Postings();
+            }).add(ordinal, e.getValue());
+        }
+    }
+
+    private static float addField(Map<String, Float> weighted, String text, float weight) {
+        List<String> tokens = TextAnalyzer.tokenize(text);
+        for (String token : tokens) weighted.merge(token, weight, Float::sum);
+        return tokens.size() * weight;
+    }
+
+    private void removeInternal(String id) {
+        Integer ordinal = ordinalById.remove(id);
+        if (ordinal == null) return;
+        docs.set(ordinal, null);
+        totalLength -= docLengths[ordinal];
+        deleted++;
+    }
+
+    private void compactIfNeeded() {
+        if (deleted > 64 && deleted * 4 > docs.size()) {
+            List<SearchDocument> live = new ArrayList<>(ordinalById.size());
+            for (SearchDocument doc : docs) if (doc != null) live.add(doc);
+            clear();
+            for (SearchDocument doc : live) addInternal(doc);
+        }
+    }
+
+    private void clear() {
+        docs.clear();
+        docLengths = new float[16];
+        ordinalById.clear();
+        postings.clear();
+        terms.clear();
+        totalLength = 0;
+        deleted = 0;
+    }
+
+    // Growable parallel arrays of (ordinal, weighted term frequency)
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] freqs = new float[4];
+        int size;
+
+        void add(int ordinal, float freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = ordinal;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+}
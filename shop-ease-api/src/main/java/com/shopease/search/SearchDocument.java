@@ -0,0 +1,38 @@
+package com.shopease.search;
+
+/**
+ * The searchable projection of an active product.
+ */
+public class SearchDocument {
+    private final String id;
+    private final String title;
+    private final String shortDescription;
+    private final String description;
+    private final String category;
+    private final String brand;
+    private final int popularity;   // units sold, used to rank suggestions
+
+    public SearchDocument(String id, String title, String shortDescription, String description,
+                          String category, String brand) {
+        this(id, title, shortDescription, description, category, brand, 0);
+    }
+
+    public SearchDocument(String id, String title, String shortDescription, String description,
+                          String category, String brand, int popularity) {
+        this.id = id;
+        this.title = title;
+        this.shortDescription = shortDescription;
+        this.description = description;
+        this.category = category;
+        this.brand = brand;
+        this.popularity = popularity;
+    }
+
+    public String getId() { return id; }
+    public String getTitle() { return title; }
+    public String getShortDescription() { return shortDescription; }
+    public String getDescription() { return description; }
+    public String getCategory() { return category; }
+    public String getBrand() { return brand; }
+    public int getPopularity() { return popularity; }
+}
@@ -0,0 +1,14 @@
+package com.shopease.search;
+
+public class SearchHit {
+    private final SearchDocument document;
+    private final float score;
+
+    public SearchHit(SearchDocument document, float score) {
+        this.document = document;
+        this.score = score;
+    }
+
+    public SearchDocument getDocument() { return document; }
+    public float getScore() { return score; }
+}
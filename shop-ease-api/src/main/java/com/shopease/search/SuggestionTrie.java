@@ -0,0 +1,315 @@
+package com.shopease.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Immutable radix (path-compressed) trie for type-ahead suggestions.
+ *
+ * Everything lives in primitive arrays: edge labels share one char pool,
+ * the children of a node are stored contiguously and sorted by first char
+ * (binary searched on lookup), and each node carries the maximum weight in
+ * its subtree so top-k completion is a best-first walk that stops after k
+ * results instead of visiting the whole subtree.
+ *
+ * Several keys may point at one entry (e.g. every word-suffix of a title),
+ * and one key may hold several entries ("red shirt" and "blue shirt" both
+ * have the key "shirt"); a key's entries are ranked by weight once all
+ * weights are final. An entry is returned at most once per lookup.
+ */
+public final class SuggestionTrie {
+
+    public static final byte TYPE_TITLE = 0;
+    public static final byte TYPE_BRAND = 1;
+    public static final byte TYPE_CATEGORY = 2;
+
+    private static final String[] TYPE_NAMES = {"title", "brand", "category"};
+
+    // Node arrays (node 0 is the root)
+    private final char[] labelPool;
+    private final int[] labelStart;
+    private final int[] labelLength;
+    private final int[] childStart;
+    private final int[] childCount;
+    private final int[] maxWeight;
+    private final int[] entryStart;  // node -> first slot of its entries
+    private final int[] entryCount;
+    private final int[] slotEntry;   // slot -> entry id; each node's slots run heaviest first
+
+    // Entry arrays
+    private final String[] entryText;
+    private final byte[] entryType;
+    private final int[] entryWeight;
+
+    private SuggestionTrie(Builder b, int nodes, char[] labelPool) {
+        this.labelPool = labelPool;
+        this.labelStart = Arrays.copyOf(b.labelStart, nodes);
+        this.labelLength = Arrays.copyOf(b.labelLength, nodes);
+        this.childStart = Arrays.copyOf(b.childStart, nodes);
+        this.childCount = Arrays.copyOf(b.childCount, nodes);
+        this.maxWeight = Arrays.copyOf(b.maxWeight, nodes);
+        this.entryStart = Arrays.copyOf(b.entryStart, nodes);
+        this.entryCount = Arrays.copyOf(b.entryCount, nodes);
+        this.slotEntry = Arrays.copyOf(b.slotEntry, b.slots);
+        this.entryText = b.texts.toArray(new String[0]);
+        this.entryType = new byte[b.types.size()];
+        this.entryWeight = new int[b.weights.size()];
+        for (int i = 0; i < entryType.length; i++) {
+            entryType[i] = b.types.get(i);
+            entryWeight[i] = b.weights.get(i);
+        }
+    }
+
+    public static SuggestionTrie empty() {
+        return new Builder().build();
+    }
+
+    public int nodeCount() {
+        return labelStart.length;
+    }
+
+    public int entryCount() {
+        return entryText.length;
+    }
+
+    // Top-k entries whose keys start with the (normalized) prefix, heaviest first
+    public List<Suggestion> complete(String prefix, int k) {
+        List<Suggestion> results = new ArrayList<>();
+        if (k <= 0 || nodeCount() == 0) return results;
+
+        // The last word is still being typed, so a stopword there ("a", "in") is kept
+        List<String> tokens = TextAnalyzer.tokenizePrefix(prefix);
+        if (tokens.isEmpty()) return results;
+        int node = findPrefixNode(String.join(" ", tokens));
+        if (node < 0) return results;
+
+        // Queue items: {weight, id, end}. Node ids as-is; entry slots encoded as
+        // -(slot + 1) with end = the node's last slot + 1, so only the next slot is queued
+        PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong(item -> -item[0]));
+        queue.add(new long[]{maxWeight[node], node, 0});
+        BitSet emitted = new BitSet();
+
+        while (!queue.isEmpty() && results.size() < k) {
+            long[] item = queue.poll();
+            int id = (int) item[1];
+            if (id < 0) {
+                int slot = -id - 1;
+                int entry = slotEntry[slot];
+                if (!emitted.get(entry)) {
+                    emitted.set(entry);
+                    results.add(new Suggestion(entryText[entry], TYPE_NAMES[entryType[entry]], entryWeight[entry]));
+                }
+                if (slot + 1 < item[2]) queue.add(new long[]{entryWeight[slotEntry[slot + 1]], -(slot + 2), item[2]});
+                continue;
+            }
+            if (entryCount[id] > 0) {
+                int slot = entryStart[id];
+                queue.add(new long[]{entryWeight[slotEntry[slot]], -(slot + 1), slot + entryCount[id]});
+            }
+            for (int c = childStart[id], end = c + childCount[id]; c < end; c++) {
+                queue.add(new long[]{maxWeight[c], c, 0});
+            }
+        }
+        return results;
+    }
+
+    // Returns the node whose subtree holds every key with this prefix, or -1
+    private int findPrefixNode(String prefix) {
+        int node = 0;
+        int i = 0;
+        while (i < prefix.length()) {
+            int child = findChild(node, prefix.charAt(i));
+            if (child < 0) return -1;
+            int start = labelStart[child];
+            int len = labelLength[child];
+            for (int j = 0; j < len; j++) {
+                if (i + j == prefix.length()) return child;   // prefix ends inside this edge
+                if (labelPool[start + j] != prefix.charAt(i + j)) return -1;
+            }
+            i += len;
+            node = child;
+        }
+        return node;
+    }
+
+    private int findChild(int node, char c) {
+        int lo = childStart[node];
+        int hi = lo + childCount[node] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char first = labelPool[labelStart[mid]];
+            if (first < c) lo = mid + 1;
+            else if (first > c) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    public static class Suggestion {
+        private final String text;
+        private final String type;
+        private final int weight;
+
+        public Suggestion(String text, String type, int weight) {
+            this.text = text;
+            this.type = type;
+            this.weight = weight;
+        }
+
+        public String getText() { return text; }
+        public String getType() { return type; }
+        public int getWeight() { return weight; }
+    }
+
+    /**
+     * Collects (key, entry) pairs, then builds the packed trie from the
+     * sorted keys in one pass without an intermediate object trie.
+     */
+    public static final class Builder {
+        private final Map<String, Integer> entryByText = new HashMap<>();
+        private final List<String> texts = new ArrayList<>();
+        private final List<Byte> types = new ArrayList<>();
+        private final List<Integer> weights = new ArrayList<>();
+        private final Map<String, Set<Integer>> keyToEntries = new HashMap<>();
+
+        private int[] labelStart = new int[16];
+        private int[] labelLength = new int[16];
+        private int[] childStart = new int[16];
+        private int[] childCount = new int[16];
+        private int[] maxWeight = new int[16];
+        private int[] entryStart = new int[16];
+        private int[] entryCount = new int[16];
+        private int nodes;
+        private int[] slotEntry = new int[16];
+        private int slots;
+        private final StringBuilder pool = new StringBuilder();
+
+        /**
+         * Adds weight to the suggestion for this display text, indexing the
+         * full phrase and (if wordSuffixes) every later word start as keys.
+         */
+        public Builder add(String text, byte type, int weight, boolean wordSuffixes) {
+            if (text == null || text.isBlank()) return this;
+            String display = text.trim();
+            String entryKey = type + "|" + TextAnalyzer.normalize(display);
+
+            Integer entry = entryByText.get(entryKey);
+            if (entry == null) {
+                entry = texts.size();
+                entryByText.put(entryKey, entry);
+                texts.add(display);
+                types.add(type);
+                weights.add(0);
+            }
+            weights.set(entry, weights.get(entry) + weight);
+
+            List<String> tokens = TextAnalyzer.tokenize(display);
+            if (tokens.isEmpty()) return this;
+            int starts = wordSuffixes ? tokens.size() : 1;
+            for (int s = 0; s < starts; s++) {
+                String key = String.join(" ", tokens.subList(s, tokens.size()));
+                keyToEntries.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(entry);
+            }
+            return this;
+        }
+
+        public SuggestionTrie build() {
+            String[] keys = keyToEntries.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            // Weights are final now; rank each key's entries heaviest first (ties by insertion)
+            int[][] entries = new int[keys.length][];
+            for (int i = 0; i < keys.length; i++) {
+                entries[i] = keyToEntries.get(keys[i]).stream()
+                        .sorted(Comparator.comparingInt((Integer e) -> -weights.get(e)).thenComparingInt(e -> e))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            }
+
+            int root = newNode(0, 0);
+            buildNode(root, keys, entries, 0, keys.length, 0);
+
+            char[] labels = new char[pool.length()];
+            pool.getChars(0, pool.length(), labels, 0);
+            return new SuggestionTrie(this, nodes, labels);
+        }
+
+        // Fills node for keys[lo, hi), all of which share their first depth chars
+        private void buildNode(int node, String[] keys, int[][] entries, int lo, int hi, int depth) {
+            int best = 0;
+            if (lo < hi && keys[lo].length() == depth) {
+                int[] ranked = entries[lo];
+                entryStart[node] = slots;
+                entryCount[node] = ranked.length;
+                for (int entry : ranked) addSlot(entry);
+                best = weights.get(ranked[0]);
+                lo++;
+            }
+
+            // Group the remaining keys by their next char; reserve contiguous child slots
+            List<int[]> groups = new ArrayList<>();
+            for (int a = lo; a < hi; ) {
+                char c = keys[a].charAt(depth);
+                int b = a + 1;
+                while (b < hi && keys[b].charAt(depth) == c) b++;
+                groups.add(new int[]{a, b});
+                a = b;
+            }
+
+            int first = nodes;
+            for (int g = 0; g < groups.size(); g++) newNode(0, 0);
+            childStart[node] = first;
+            childCount[node] = groups.size();
+
+            for (int g = 0; g < groups.size(); g++) {
+                int a = groups.get(g)[0];
+                int b = groups.get(g)[1];
+                int end = commonPrefixEnd(keys[a], keys[b - 1], depth);
+                int child = first + g;
+                labelStart[child] = pool.length();
+                labelLength[child] = end - depth;
+                pool.append(keys[a], depth, end);
+                buildNode(child, keys, entries, a, b, end);
+                best = Math.max(best, maxWeight[child]);
+            }
+            maxWeight[node] = best;
+        }
+
+        private static int commonPrefixEnd(String a, String b, int from) {
+            int max = Math.min(a.length(), b.length());
+            int i = from + 1; // the group shares at least the char at 'from'
+            while (i < max && a.charAt(i) == b.charAt(i)) i++;
+            return i;
+        }
+
+        private void addSlot(int entry) {
+            if (slots == slotEntry.length) slotEntry = Arrays.copyOf(slotEntry, slots * 2);
+            slotEntry[slots++] = entry;
+        }
+
+        private int newNode(int start, int length) {
+            if (nodes == labelStart.length) {
+                int cap = nodes * 2;
+                labelStart = Arrays.copyOf(labelStart, cap);
+                labelLength = Arrays.copyOf(labelLength, cap);
+                childStart = Arrays.copyOf(childStart, cap);
+                childCount = Arrays.copyOf(childCount, cap);
+                maxWeight = Arrays.copyOf(maxWeight, cap);
+                entryStart = Arrays.copyOf(entryStart, cap);
+                entryCount = Arrays.copyOf(entryCount, cap);
+            }
+            labelStart[nodes] = start;
+            labelLength[nodes] = length;
+            entryStart[nodes] = 0;
+            entryCount[nodes] = 0;
+            return nodes++;
+        }
+    }
+}
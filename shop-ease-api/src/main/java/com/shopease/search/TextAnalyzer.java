@@ -0,0 +1,66 @@
+package com.shopease.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns free text into index terms: Unicode-normalized, accent-stripped,
+ * lowercased alphanumeric runs with a small English stopword list removed.
+ */
+public final class TextAnalyzer {
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is",
+            "it", "of", "on", "or", "the", "to", "with"
+    );
+
+    private TextAnalyzer() {}
+
+    public static List<String> tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * Tokenizes text that is still being typed (search-as-you-type, suggest):
+     * unless the text ends in a separator, the last token is kept even when it
+     * is a stopword, since "a" or "in" may be the start of "apple" or "indigo".
+     */
+    public static List<String> tokenizePrefix(String text) {
+        return tokenize(text, true);
+    }
+
+    private static List<String> tokenize(String text, boolean keepPartialLast) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) return tokens;
+
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean alnum = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (alnum && start < 0) {
+                start = i;
+            } else if (!alnum && start >= 0) {
+                String token = normalized.substring(start, i);
+                boolean partial = keepPartialLast && i == normalized.length();
+                if (partial || !STOPWORDS.contains(token)) tokens.add(token);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Lowercases and strips combining marks so "Café" and "cafe" match
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,531 @@
+package com.shopease.service;
+
+import com.shopease.dao.CartDAO;
+import com.shopease.model.Cart;
+import com.shopease.model.CartItem;
+import com.shopease.model.CartSnapshot;
+import com.shopease.model.Product;
+import com.shopease.model.ProductVariant;
+import com.shopease.util.EnvConfig;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind cart store. Active carts live in memory keyed by user id,
+ * and adds are coalesced per line and flushed in one batched transaction
+ * every CART_FLUSH_INTERVAL_MS (default 2000), each as the summed increment
+ * through the atomic quantity = quantity + ? upsert, so adds made on
+ * different nodes all count. Setting a quantity, removing a line and
+ * clearing the cart write through at once as absolute values, so the last
+ * of two such changes wins in MySQL, as it would without the store.
+ *
+ * The in-memory copy is per node. With token auth (no sticky routing) a
+ * user's requests land on any node, so a clean resident cart is reloaded
+ * from MySQL once it is older than CART_RELOAD_SECONDS (default 10): a
+ * change made on another node shows up here within that time plus one
+ * flush interval. Carts with pending adds are reloaded after their flush.
+ *
+ * Lines with a variant also hold that much stock on this node
+ * (InventoryService.hold), kept in step with the line quantity; a hold that
+ * cannot be covered does not block the cart change, checkout decides.
+ *
+ * Bounds and durability:
+ * - at most CART_MAX_PENDING_LINES (default 5000) unflushed lines: a write
+ *   that finds the store full flushes inline first, and is rejected if that
+ *   flush fails (the database is unreachable)
+ * - flushCart() writes one cart synchronously (checkout calls it first)
+ * - shutdown() stops the timer and flushes everything still pending
+ * - a failed flush keeps the lines dirty and retries on the next tick
+ *
+ * Carts with nothing pending are evicted after CART_IDLE_SECONDS (default
+ * 1800). Eviction and reloads take the flush lock, so they never drop a
+ * cart whose lines a flush is still writing. CART_WRITE_BEHIND=false makes
+ * adds write through too.
+ */
+public final class CartService {
+
+    private static final Logger LOGGER = Logger.getLogger(CartService.class.getName());
+    private static final CartService INSTANCE = new CartService();
+
+    private final CartDAO cartDAO;
+    private final boolean writeBehind = EnvConfig.getBoolean("CART_WRITE_BEHIND", true);
+    private final long flushIntervalMs = EnvConfig.getLong("CART_FLUSH_INTERVAL_MS", 2000);
+    private final int maxPendingLines = EnvConfig.getInt("CART_MAX_PENDING_LINES", 5000);
+    private final long idleMillis = EnvConfig.getLong("CART_IDLE_SECONDS", 1800) * 1000;
+    private final long reloadMillis = EnvConfig.getLong("CART_RELOAD_SECONDS", 10) * 1000;
+
+    private final ConcurrentHashMap<String, CartState> carts = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingLines = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock(); // keeps flushes in order
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedLines = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong inlineFlushes = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+
+    private volatile ScheduledExecutorService scheduler;
+
+    private CartService() {
+        this(new CartDAO());
+    }
+
+    // Same store over another CartDAO; production uses the singleton
+    CartService(CartDAO cartDAO) {
+        this.cartDAO = cartDAO;
+    }
+
+    public static CartService getInstance() {
+        return INSTANCE;
+    }
+
+    // ================= READS =================
+
+    public Cart getCart(String userId) {
+        CartState state = state(userId);
+        return state != null ? state.cart : null;
+    }
+
+    public List<CartItem> getItems(String userId) {
+        CartState state = state(userId);
+        if (state == null) return new ArrayList<>();
+        synchronized (state) {
+            state.lastAccess = System.currentTimeMillis();
+            List<CartItem> items = new ArrayList<>(state.lines.size());
+            for (CartItem line : state.lines.values()) {
+                if (line.getQuantity() > 0) items.add(copy(line)); // zero = delete pending
+            }
+            return items;
+        }
+    }
+
+    // Items with line totals and the exact cart total, priced from memory
+    public CartSnapshot getSnapshot(String userId) {
+        CartState state = state(userId);
+        if (state == null) return null;
+        return CartSnapshot.of(state.cart, getItems(userId));
+    }
+
+    // ================= WRITES =================
+
+    public boolean addItem(String userId, String productId, String variantId, int quantity) {
+        if (productId == null || quantity <= 0) return false;
+        ProductCatalogService catalog = ProductCatalogService.getInstance(); // cached reads
+        Product product = catalog.getProductById(productId);
+        if (product == null) return false;
+        BigDecimal additionalPrice = null;
+        if (variantId != null) {
+            ProductVariant variant = findVariant(catalog.getVariantsByProductId(productId), variantId);
+            if (variant == null) return false;
+            additionalPrice = variant.getAdditionalPrice();
+        }
+        if (!addLine(userId, product, variantId, CartDAO.unitPrice(product.getPrice(), additionalPrice), quantity)) return false;
+        holdStock(userId, variantId);
+        return true;
+    }
+
+    // Adds an already priced line; addItem resolves the product and price first
+    boolean addLine(String userId, Product product, String variantId, BigDecimal unitPrice, int quantity) {
+        String productId = product.getId();
+        String key = lineKey(productId, variantId);
+        return mutate(userId, false, state -> {
+            CartItem line = state.lines.get(key);
+            if (line == null) {
+                line = new CartItem(UUID.randomUUID().toString(), state.cart.getCartId(), productId, variantId, 0);
+                line.setProductName(product.getTitle());
+                line.setProductPrice(product.getPrice());
+                line.setImageUrl(product.getImageUrl());
+                line.setUnitPrice(unitPrice);
+                state.lines.put(key, line);
+            }
+            // Only additions since the last flush go out as an increment
+            if (!state.dirty.contains(key) || state.additions.containsKey(key)) {
+                state.additions.merge(key, quantity, Integer::sum);
+            }
+            line.setQuantity(line.getQuantity() + quantity);
+            return key;
+        });
+    }
+
+    // A quantity of zero or less removes the line; written through at once
+    public boolean updateQuantity(String userId, String cartItemId, int quantity) {
+        String[] variantId = new String[1];
+        boolean updated = mutate(userId, true, state -> {
+            String key = findLine(state, cartItemId);
+            if (key == null) return null;
+            CartItem line = state.lines.get(key);
+            line.setQuantity(Math.max(0, quantity));
+            state.additions.remove(key);
+            variantId[0] = line.getVariantId();
+            return key;
+        });
+        if (updated) holdStock(userId, variantId[0]);
+        return updated;
+    }
+
+    public boolean removeItem(String userId, String cartItemId) {
+        return updateQuantity(userId, cartItemId, 0);
+    }
+
+    public boolean clearCart(String userId) {
+        if (!ensureCapacity()) return false;
+        while (true) {
+            CartState state = state(userId);
+            if (state == null) return false;
+            List<String> variantIds = new ArrayList<>();
+            synchronized (state) {
+                if (state.evicted) continue;
+                for (Map.Entry<String, CartItem> e : state.lines.entrySet()) {
+                    if (e.getValue().getVariantId() != null) variantIds.add(e.getValue().getVariantId());
+                    e.getValue().setQuantity(0);
+                    state.additions.remove(e.getKey());
+                    markDirty(state, e.getKey());
+                }
+                state.lastAccess = System.currentTimeMillis();
+            }
+            afterWrite(userId, true);
+            for (String variantId : variantIds) InventoryService.getInstance().hold(variantId, 0, userId);
+            return true;
+        }
+    }
+
+    /**
+     * Takes purchased quantities out of the in-memory cart after checkout
+     * deleted those lines in its own transaction. Anything added since the
+     * checkout snapshot stays, and the next flush writes it back.
+     */
+    public void checkedOut(String userId, List<CartItem> purchased) {
+        CartState state = carts.get(userId);
+        if (state == null) return;
+        synchronized (state) {
+            for (CartItem item : purchased) {
+                String key = lineKey(item.getProductId(), item.getVariantId());
+                CartItem line = state.lines.get(key);
+                if (line == null) continue;
+                int left = line.getQuantity() - item.getQuantity();
+                state.additions.remove(key);
+                if (left > 0) {
+                    line.setQuantity(left);
+                    markDirty(state, key);
+                } else {
+                    state.lines.remove(key);
+                    if (state.dirty.remove(key)) pendingLines.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    // ================= FLUSHING =================
+
+    // Writes this user's pending changes now, e.g. before checkout reads cart_items
+    public boolean flushCart(String userId) {
+        CartState state = carts.get(userId);
+        if (state == null) return true;
+        flushLock.lock();
+        try {
+            return flush(List.of(state));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public boolean flushAll() {
+        flushLock.lock();
+        try {
+            return flush(carts.values());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (!flushAll()) {
+            LOGGER.severe("Cart flush on shutdown failed; " + pendingLines.get() + " cart lines were not saved");
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("writeBehind", writeBehind);
+        stats.put("residentCarts", carts.size());
+        stats.put("pendingLines", pendingLines.get());
+        stats.put("maxPendingLines", maxPendingLines);
+        stats.put("flushes", flushes.get());
+        stats.put("flushedLines", flushedLines.get());
+        stats.put("inlineFlushes", inlineFlushes.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        stats.put("reloads", reloads.get());
+        return stats;
+    }
+
+    // ================= INTERNALS =================
+
+    @FunctionalInterface
+    private interface Mutation {
+        // Returns the key of the changed line, or null if nothing matched
+        String apply(CartState state);
+    }
+
+    private boolean mutate(String userId, boolean writeThrough, Mutation mutation) {
+        if (!ensureCapacity()) return false;
+        while (true) {
+            CartState state = state(userId);
+            if (state == null) return false;
+            String key;
+            synchronized (state) {
+                if (state.evicted) continue; // lost a race with eviction; reload
+                key = mutation.apply(state);
+                if (key == null) return false;
+                markDirty(state, key);
+                state.lastAccess = System.currentTimeMillis();
+            }
+            afterWrite(userId, writeThrough);
+            return true;
+        }
+    }
+
+    private void markDirty(CartState state, String key) {
+        if (state.dirty.add(key)) pendingLines.incrementAndGet();
+    }
+
+    // A failed write-through stays pending and is retried like any other flush
+    private void afterWrite(String userId, boolean writeThrough) {
+        if (writeThrough || !writeBehind) flushCart(userId);
+    }
+
+    // Bounds unflushed data: flush inline when full, refuse the write if that fails
+    private boolean ensureCapacity() {
+        if (pendingLines.get() < maxPendingLines) return true;
+        inlineFlushes.incrementAndGet();
+        if (flushAll()) return true;
+        LOGGER.warning("Cart store full and flush failed; rejecting cart write");
+        return false;
+    }
+
+    // Caller holds flushLock
+    private boolean flush(Iterable<CartState> states) {
+        List<CartItem> batch = new ArrayList<>();
+        List<CartItem> additions = new ArrayList<>();
+        Map<CartState, Map<String, CartItem>> taken = new LinkedHashMap<>();
+
+        for (CartState state : states) {
+            synchronized (state) {
+                if (state.dirty.isEmpty()) continue;
+                Map<String, CartItem> written = new LinkedHashMap<>();
+                for (String key : state.dirty) {
+                    CartItem line = state.lines.get(key);
+                    CartItem item = copy(line);
+                    Integer added = state.additions.remove(key);
+                    if (added != null) {
+                        item.setQuantity(added);
+                        additions.add(item);
+                    } else {
+                        batch.add(item);
+                        if (line.getQuantity() <= 0) state.lines.remove(key);
+                    }
+                    written.put(key, item);
+                }
+                state.dirty.clear();
+                pendingLines.addAndGet(-written.size());
+                taken.put(state, written);
+            }
+        }
+        if (batch.isEmpty() && additions.isEmpty()) return true;
+
+        if (cartDAO.syncCartLines(batch, additions)) {
+            flushes.incrementAndGet();
+            flushedLines.addAndGet(batch.size() + additions.size());
+            return true;
+        }
+
+        // Put the changes back; the in-memory quantity is still authoritative
+        failedFlushes.incrementAndGet();
+        Set<CartItem> increments = Collections.newSetFromMap(new IdentityHashMap<>());
+        increments.addAll(additions);
+        for (Map.Entry<CartState, Map<String, CartItem>> e : taken.entrySet()) {
+            CartState state = e.getKey();
+            synchronized (state) {
+                for (Map.Entry<String, CartItem> w : e.getValue().entrySet()) {
+                    String key = w.getKey();
+                    CartItem written = w.getValue();
+                    boolean newer = state.dirty.contains(key);
+                    if (increments.contains(written)) {
+                        // Unless the line was set since, the increment is still owed
+                        if (!newer || state.additions.containsKey(key)) {
+                            state.additions.merge(key, written.getQuantity(), Integer::sum);
+                        }
+                    } else {
+                        // An absolute write was lost, so the next write must be absolute too
+                        state.lines.putIfAbsent(key, written);
+                        state.additions.remove(key);
+                    }
+                    markDirty(state, key);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        flushLock.lock();
+        try {
+            for (CartState state : carts.values()) {
+                if (state.lastAccess < cutoff) dropIfClean(state);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a cart with nothing pending from the store. Caller holds
+     * flushLock: a flush in progress has already cleared dirty for lines it
+     * has not written yet, and puts them back into this state if it fails.
+     */
+    private boolean dropIfClean(CartState state) {
+        synchronized (state) {
+            if (!state.dirty.isEmpty()) return false;
+            state.evicted = true;
+            carts.remove(state.userId, state);
+            return true;
+        }
+    }
+
+    private CartState state(String userId) {
+        if (userId == null) return null;
+        CartState state = carts.get(userId);
+        if (state != null && (System.currentTimeMillis() - state.loadedAt < reloadMillis || !dropForReload(state))) {
+            return state;
+        }
+
+        // Load outside the map so a slow query does not block other users' carts
+        CartSnapshot snapshot = cartDAO.getCartSnapshot(userId);
+        if (snapshot == null) return null;
+        CartState loaded = new CartState(userId, snapshot.getCart());
+        for (CartItem item : snapshot.getItems()) {
+            loaded.lines.put(lineKey(item.getProductId(), item.getVariantId()), item);
+        }
+
+        state = carts.putIfAbsent(userId, loaded);
+        startScheduler();
+        return state != null ? state : loaded;
+    }
+
+    // Lets a stale clean cart be reloaded; skipped while a flush runs, the next read tries again
+    private boolean dropForReload(CartState state) {
+        if (!flushLock.tryLock()) return false;
+        try {
+            if (!dropIfClean(state)) return false;
+            reloads.incrementAndGet();
+            return true;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Sets the user's stock hold on a variant to what the cart now holds of it
+    private void holdStock(String userId, String variantId) {
+        if (variantId == null) return;
+        CartState state = carts.get(userId);
+        if (state == null) return;
+        int quantity = 0;
+        synchronized (state) {
+            for (CartItem line : state.lines.values()) {
+                if (variantId.equals(line.getVariantId())) quantity += line.getQuantity();
+            }
+        }
+        InventoryService.getInstance().hold(variantId, quantity, userId);
+    }
+
+    private static String findLine(CartState state, String cartItemId) {
+        if (cartItemId == null) return null;
+        for (Map.Entry<String, CartItem> e : state.lines.entrySet()) {
+            if (cartItemId.equals(e.getValue().getCartItemId()) && e.getValue().getQuantity() > 0) return e.getKey();
+        }
+        return null;
+    }
+
+    private static ProductVariant findVariant(List<ProductVariant> variants, String variantId) {
+        if (variants == null) return null;
+        for (ProductVariant v : variants) {
+            if (variantId.equals(v.getVariantId())) return v;
+        }
+        return null;
+    }
+
+    private static String lineKey(String productId, String variantId) {
+        return productId + "|" + (variantId != null ? variantId : "");
+    }
+
+    private static CartItem copy(CartItem line) {
+        CartItem item = new CartItem(line.getCartItemId(), line.getCartId(), line.getProductId(),
+                line.getVariantId(), line.getQuantity());
+        item.setProductName(line.getProductName());
+        item.setProductPrice(line.getProductPrice());
+        item.setImageUrl(line.getImageUrl());
+        item.setUnitPrice(line.getUnitPrice());
+        return item;
+    }
+
+    private void startScheduler() {
+        if (scheduler != null) return;
+        synchronized (this) {
+            if (scheduler != null) return;
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "cart-write-behind");
+                t.setDaemon(true);
+                return t;
+            });
+            executor.scheduleWithFixedDelay(() -> {
+                try {
+                    flushAll();
+                    evictIdle();
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Cart flush failed", e);
+                }
+            }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+            scheduler = executor;
+        }
+    }
+
+    // Lines are keyed by product|variant; dirty holds keys changed since the last flush
+    private static final class CartState {
+        final String userId;
+        final Cart cart;
+        final Map<String, CartItem> lines = new LinkedHashMap<>();
+        final Set<String> dirty = new LinkedHashSet<>();
+        final Map<String, Integer> additions = new HashMap<>(); // dirty keys flushed as increments
+        final long loadedAt = System.currentTimeMillis();
+        long lastAccess = loadedAt;
+        boolean evicted;
+
+        CartState(String userId, Cart cart) {
+            this.userId = userId;
+            this.cart = cart;
+        }
+    }
+}
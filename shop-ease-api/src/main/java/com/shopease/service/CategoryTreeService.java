@@ -0,0 +1,271 @@
+package com.shopease.service;
+
+import com.shopease.cache.ResponseCache;
+import com.shopease.dao.CategoryDAO;
+import com.shopease.dto.CategoryNode;
+import com.shopease.model.Category;
+import com.shopease.util.EnvConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Owns the in-memory category tree behind /api/categories.
+ *
+ * The tree is built from MySQL on first use (all categories plus one
+ * GROUP BY for active product counts) and then served without touching the
+ * database. Each node carries its slug path, breadcrumbs and product counts,
+ * worked out once per build.
+ *
+ * Category writes go through this service and rebuild the tree before
+ * returning, so the admin sees the change immediately. Product writes only
+ * move counts, so they schedule one coalesced background rebuild; a full
+ * rebuild also runs every CATEGORY_TREE_REFRESH_SECONDS (default 300) to pick
+ * up out-of-band edits.
+ */
+public final class CategoryTreeService {
+
+    private static final Logger LOGGER = Logger.getLogger(CategoryTreeService.class.getName());
+    private static final long INITIAL_RETRY_MILLIS = 5000;
+    private static final Tree EMPTY = build(Collections.emptyList(), Collections.emptyMap());
+    private static final CategoryTreeService INSTANCE = new CategoryTreeService();
+
+    private final CategoryDAO categoryDAO = new CategoryDAO();
+    private final long refreshSeconds = EnvConfig.getLong("CATEGORY_TREE_REFRESH_SECONDS", 300);
+
+    private final AtomicBoolean countsDirty = new AtomicBoolean();
+    private final LongAdder builds = new LongAdder();
+
+    private volatile Tree tree;
+    private volatile long lastBuildNanos;
+    private volatile ScheduledExecutorService scheduler;
+    private long nextInitialAttempt;
+
+    private CategoryTreeService() {}
+
+    public static CategoryTreeService getInstance() {
+        return INSTANCE;
+    }
+
+    // ================= READS =================
+
+    public List<CategoryNode> getRoots() {
+        return ensureLoaded().roots;
+    }
+
+    // Looks a category up by id, by slug path ("clothing/t-shirts") or by slug; null if unknown
+    public CategoryNode find(String key) {
+        Tree current = ensureLoaded();
+        CategoryNode node = current.byId.get(key);
+        if (node == null) node = current.byPath.get(key.startsWith("/") ? key : "/" + key);
+        if (node == null) node = current.bySlug.get(key);
+        return node;
+    }
+
+    // True if parentId is the category itself or one of its descendants
+    public boolean wouldCreateCycle(String categoryId, String parentId) {
+        if (categoryId == null || parentId == null) return false;
+        if (categoryId.equals(parentId)) return true;
+        CategoryNode parent = ensureLoaded().byId.get(parentId);
+        if (parent == null) return false;
+        for (CategoryNode.Breadcrumb crumb : parent.getBreadcrumbs()) {
+            if (categoryId.equals(crumb.getCategoryId())) return true;
+        }
+        return false;
+    }
+
+    // ================= WRITES =================
+
+    public boolean addCategory(Category category) {
+        boolean success = categoryDAO.addCategory(category);
+        if (success) refresh();
+        return success;
+    }
+
+    public boolean updateCategory(Category category) {
+        boolean success = categoryDAO.updateCategory(category);
+        if (success) refresh();
+        return success;
+    }
+
+    public boolean deleteCategory(String categoryId) {
+        boolean success = categoryDAO.deleteCategory(categoryId);
+        if (success) refresh();
+        return success;
+    }
+
+    // Product status or category moved; recount in the background
+    public void productsChanged() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null || !countsDirty.compareAndSet(false, true)) return;
+        executor.execute(() -> {
+            if (!countsDirty.getAndSet(false)) return; // a full rebuild got there first
+            try {
+                rebuild(false);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Category tree recount failed", e);
+            }
+        });
+    }
+
+    // ================= BUILD =================
+
+    public void refresh() {
+        if (tree == null) return; // picked up by the initial build
+        rebuild(true);
+    }
+
+    // An empty result is only trusted after a successful write or over an already
+    // empty tree; otherwise (including the first build) it's more likely a failed query
+    private synchronized void rebuild(boolean trustEmpty) {
+        long started = System.nanoTime();
+        List<Category> categories = categoryDAO.getAllCategories();
+        if (categories.isEmpty() && !trustEmpty && (tree == null || !tree.byId.isEmpty())) {
+            LOGGER.warning("Category tree rebuild returned no categories; keeping current tree");
+            return;
+        }
+        countsDirty.set(false);
+        tree = build(categories, categoryDAO.getActiveProductCounts());
+        lastBuildNanos = System.nanoTime() - started;
+        builds.increment();
+        // Published before the invalidation, so a concurrent miss either sees the new tree or loses its store
+        ResponseCache.getInstance().invalidate("categories");
+    }
+
+    // Categories arrive sorted by sort_order, name; children keep that order
+    static Tree build(List<Category> categories, Map<String, Integer> counts) {
+        Map<String, Category> byId = new HashMap<>();
+        for (Category category : categories) byId.put(category.getCategoryId(), category);
+
+        Map<String, List<Category>> childrenOf = new HashMap<>();
+        List<Category> roots = new ArrayList<>();
+        for (Category category : categories) {
+            String parentId = category.getParentId();
+            if (parentId == null || !byId.containsKey(parentId)) {
+                roots.add(category);
+            } else {
+                childrenOf.computeIfAbsent(parentId, k -> new ArrayList<>()).add(category);
+            }
+        }
+
+        Tree tree = new Tree();
+        Set<String> visited = new HashSet<>();
+        List<CategoryNode> rootNodes = new ArrayList<>();
+        for (Category root : roots) {
+            visited.add(root.getCategoryId());
+            rootNodes.add(buildNode(root, "", Collections.emptyList(), 0, childrenOf, counts, visited, tree));
+        }
+        // Whatever is left hangs off a parent_id cycle; show it at the top level rather than lose it
+        for (Category category : categories) {
+            if (visited.add(category.getCategoryId())) {
+                LOGGER.warning("Category " + category.getCategoryId() + " is part of a parent cycle; listing it as a root");
+                rootNodes.add(buildNode(category, "", Collections.emptyList(), 0, childrenOf, counts, visited, tree));
+            }
+        }
+        tree.roots = List.copyOf(rootNodes);
+        tree.builtAt = System.currentTimeMillis();
+        return tree;
+    }
+
+    private static CategoryNode buildNode(Category category, String parentPath, List<CategoryNode.Breadcrumb> parentCrumbs,
+                                          int depth, Map<String, List<Category>> childrenOf,
+                                          Map<String, Integer> counts, Set<String> visited, Tree tree) {
+        String path = parentPath + "/" + category.getSlug();
+        List<CategoryNode.Breadcrumb> crumbs = new ArrayList<>(parentCrumbs);
+        crumbs.add(new CategoryNode.Breadcrumb(category.getCategoryId(), category.getName(), category.getSlug()));
+
+        List<CategoryNode> children = new ArrayList<>();
+        for (Category child : childrenOf.getOrDefault(category.getCategoryId(), Collections.emptyList())) {
+            if (visited.add(child.getCategoryId())) {
+                children.add(buildNode(child, path, crumbs, depth + 1, childrenOf, counts, visited, tree));
+            }
+        }
+
+        CategoryNode node = new CategoryNode(category, path, depth, crumbs,
+                counts.getOrDefault(category.getCategoryId(), 0), children);
+        tree.byId.put(node.getCategoryId(), node);
+        tree.byPath.putIfAbsent(path, node);
+        if (node.getSlug() != null) tree.bySlug.putIfAbsent(node.getSlug(), node);
+        tree.maxDepth = Math.max(tree.maxDepth, depth);
+        return node;
+    }
+
+    // ================= LIFECYCLE =================
+
+    // Until a first build succeeds readers get an empty tree, and the build is retried
+    // at most every INITIAL_RETRY_MILLIS (the periodic refresh also keeps trying)
+    private Tree ensureLoaded() {
+        Tree current = tree;
+        if (current != null) return current;
+        synchronized (this) {
+            if (tree == null && System.currentTimeMillis() >= nextInitialAttempt) {
+                rebuild(false);
+                if (tree == null) nextInitialAttempt = System.currentTimeMillis() + INITIAL_RETRY_MILLIS;
+                if (scheduler == null) startScheduler();
+            }
+            return tree != null ? tree : EMPTY;
+        }
+    }
+
+    private void startScheduler() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "category-tree-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                rebuild(false);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Category tree refresh failed", e);
+            }
+        }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Tree current = tree;
+        stats.put("loaded", current != null);
+        if (current != null) {
+            stats.put("categories", current.byId.size());
+            stats.put("roots", current.roots.size());
+            stats.put("maxDepth", current.maxDepth);
+            stats.put("ageSeconds", (System.currentTimeMillis() - current.builtAt) / 1000);
+        }
+        stats.put("builds", builds.sum());
+        stats.put("lastBuildMs", lastBuildNanos / 1e6);
+        return stats;
+    }
+
+    // ================= TYPES =================
+
+    // One immutable build; readers never see a half-built tree
+    static final class Tree {
+        final Map<String, CategoryNode> byId = new HashMap<>();
+        final Map<String, CategoryNode> byPath = new HashMap<>();
+        final Map<String, CategoryNode> bySlug = new HashMap<>();
+        List<CategoryNode> roots = Collections.emptyList();
+        int maxDepth;
+        long builtAt;
+    }
+}
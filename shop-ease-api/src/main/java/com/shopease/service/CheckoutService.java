@@ -0,0 +1,160 @@
+package com.shopease.service;
+
+import com.shopease.dao.CartDAO;
+import com.shopease.dao.InventoryDAO;
+import com.shopease.dao.OrderDAO;
+import com.shopease.dao.OrderItemDAO;
+import com.shopease.model.CartItem;
+import com.shopease.model.CartSnapshot;
+import com.shopease.model.Order;
+import com.shopease.model.OrderItem;
+import com.shopease.util.DatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Turns a user's cart into an order.
+ *
+ * Stock for variant lines is reserved in memory first (InventoryService), so
+ * an oversold cart is rejected before touching MySQL. The order row, all
+ * items (one JDBC batch), the inventory deduction and the cart line deletes
+ * then run in a single transaction on one pooled connection: a constant
+ * number of statements and exactly one commit, whatever the line count.
+ *
+ * The guarded deduction runs last, in variant id order, so the row locks on
+ * hot SKUs are held only until the commit and two checkouts never wait on
+ * each other in opposite orders.
+ *
+ * The cart lines are deleted first and must all still be there; a second
+ * submit of the same cart blocks on those row locks and then rolls back
+ * with CART_CHANGED instead of placing a duplicate order.
+ */
+public final class CheckoutService {
+
+    private static final Logger LOGGER = Logger.getLogger(CheckoutService.class.getName());
+    private static final CheckoutService INSTANCE = new CheckoutService();
+
+    public enum Status { PLACED, EMPTY_CART, OUT_OF_STOCK, CART_CHANGED, FAILED }
+
+    private final OrderDAO orderDAO = new OrderDAO();
+    private final OrderItemDAO orderItemDAO = new OrderItemDAO();
+    private final InventoryDAO inventoryDAO = new InventoryDAO();
+    private final CartDAO cartDAO = new CartDAO();
+
+    private CheckoutService() {}
+
+    public static CheckoutService getInstance() {
+        return INSTANCE;
+    }
+
+    public CheckoutResult placeOrder(String userId) {
+        CartService carts = CartService.getInstance();
+        InventoryService inventory = InventoryService.getInstance();
+
+        // Pending cart writes must land first so a later flush cannot re-add purchased lines
+        if (!carts.flushCart(userId)) return new CheckoutResult(Status.FAILED, null);
+        CartSnapshot cart = carts.getSnapshot(userId);
+        if (cart == null) return new CheckoutResult(Status.FAILED, null);
+        if (cart.getItems().isEmpty()) return new CheckoutResult(Status.EMPTY_CART, null);
+
+        Map<String, Integer> variantQuantities = new LinkedHashMap<>();
+        for (CartItem item : cart.getItems()) {
+            if (item.getVariantId() != null) variantQuantities.merge(item.getVariantId(), item.getQuantity(), Integer::sum);
+        }
+        List<InventoryService.Reservation> reservations = inventory.reserveAll(variantQuantities, userId);
+        if (reservations == null) return new CheckoutResult(Status.OUT_OF_STOCK, null);
+
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setStatus("PENDING");
+        order.setTotalAmount(cart.getTotal());
+        order.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+
+        Status status = writeOrder(order, cart.getItems(), variantQuantities);
+        if (status != Status.PLACED) {
+            inventory.releaseAll(reservations);
+            // The database had less stock than the counters: reload them before the next checkout trusts them
+            if (status == Status.OUT_OF_STOCK) inventory.resync(variantQuantities.keySet());
+            return new CheckoutResult(status, null);
+        }
+
+        inventory.commit(reservations);
+        carts.checkedOut(userId, cart.getItems());
+        return new CheckoutResult(Status.PLACED, order);
+    }
+
+    private Status writeOrder(Order order, List<CartItem> lines, Map<String, Integer> variantQuantities) {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Claims the lines; fewer rows than expected means another checkout took them
+                if (cartDAO.deleteLines(conn, lines) != lines.size()) {
+                    conn.rollback();
+                    return Status.CART_CHANGED;
+                }
+
+                if (!orderDAO.insertOrder(conn, order)) {
+                    conn.rollback();
+                    return Status.FAILED;
+                }
+
+                List<OrderItem> items = new ArrayList<>(lines.size());
+                for (CartItem line : lines) {
+                    OrderItem item = new OrderItem();
+                    item.setOrderId(order.getOrderId());
+                    item.setProductId(line.getProductId());
+                    item.setVariantId(line.getVariantId());
+                    item.setQuantity(line.getQuantity());
+                    item.setPrice(line.getUnitPrice());
+                    item.setProductName(line.getProductName());
+                    item.setProductImageUrl(line.getImageUrl());
+                    items.add(item);
+                }
+                orderItemDAO.addOrderItems(conn, items);
+
+                // Guarded decrement, the cross-instance oversell check; fails if stock changed outside these counters
+                Map<String, Integer> sorted = new TreeMap<>(variantQuantities);
+                if (!inventoryDAO.deductSold(conn, new ArrayList<>(sorted.keySet()), new ArrayList<>(sorted.values()))) {
+                    conn.rollback();
+                    return Status.OUT_OF_STOCK;
+                }
+
+                conn.commit();
+                order.setItems(items);
+                return Status.PLACED;
+
+            } catch (Exception e) {
+                // Any failure, checked or not, must roll back before autocommit is restored
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Checkout failed for user: " + order.getUserId(), e);
+            return Status.FAILED;
+        }
+    }
+
+    public static final class CheckoutResult {
+        private final Status status;
+        private final Order order;
+
+        CheckoutResult(Status status, Order order) {
+            this.status = status;
+            this.order = order;
+        }
+
+        public Status getStatus() { return status; }
+        public Order getOrder() { return order; }
+    }
+}
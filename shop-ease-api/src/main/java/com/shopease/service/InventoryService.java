@@ -0,0 +1,477 @@
+package com.shopease.service;
+
+import com.shopease.dao.InventoryDAO;
+import com.shopease.util.EnvConfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stock reservations over variant_inventory, decided in memory.
+ *
+ * Each variant has atomic counters (on hand, available, reserved). A
+ * reservation is a compare-and-set on the available counter, so a hot SKU
+ * takes no locks and no row locks on the request path. Two kinds exist:
+ * holds, taken when a shopper adds a variant to the cart and released after
+ * INVENTORY_HOLD_SECONDS (default 900) without a cart change, and checkout
+ * reservations, which reserveAll builds from the shopper's holds and which
+ * are committed or released before the checkout request returns.
+ *
+ * Every change to the reserved count is written to variant_inventory as a
+ * delta (reserved = reserved + ?) in one batch every
+ * INVENTORY_FLUSH_INTERVAL_MS (default 1000), so instances add up their
+ * reservations instead of overwriting each other's, and the checkout
+ * deduction (reserved = reserved - ?) commutes with those writes.
+ *
+ * The counters are per instance: a hold here does not stop another instance
+ * from selling the same units. The on-hand counters are a cache of
+ * variant_inventory, reloaded every INVENTORY_RESYNC_SECONDS (default 60)
+ * and right after checkout's guarded deduction finds less stock than the
+ * counters claimed. That guard (UPDATE ... WHERE quantity >= ?) is the only
+ * thing that prevents overselling across instances; it runs last in the
+ * order transaction so its row locks are held only until the commit.
+ *
+ * Shutdown releases every outstanding reservation before the last flush. An
+ * instance that dies instead leaves its flushed holds counted in
+ * variant_inventory.reserved, which only the in-stock facet reads; with
+ * every instance stopped, setting reserved to 0 resets it.
+ */
+public final class InventoryService {
+
+    private static final Logger LOGGER = Logger.getLogger(InventoryService.class.getName());
+    private static final InventoryService INSTANCE = new InventoryService();
+    private static final int RESYNC_BATCH = 500;
+
+    private final InventoryDAO inventoryDAO;
+    private final long flushIntervalMs = EnvConfig.getLong("INVENTORY_FLUSH_INTERVAL_MS", 1000);
+    private final long resyncSeconds = EnvConfig.getLong("INVENTORY_RESYNC_SECONDS", 60);
+    private final long holdMillis = EnvConfig.getLong("INVENTORY_HOLD_SECONDS", 900) * 1000;
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Reservation> active = new ConcurrentHashMap<>();
+    // Cart holds by owner and variant; each is also in active
+    private final ConcurrentHashMap<String, Reservation> holds = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong corrections = new AtomicLong();
+
+    private volatile ScheduledExecutorService scheduler;
+
+    private InventoryService() {
+        this(new InventoryDAO());
+    }
+
+    // Package-private: the counters can run over any InventoryDAO, e.g. an in-memory one
+    InventoryService(InventoryDAO inventoryDAO) {
+        this.inventoryDAO = inventoryDAO;
+    }
+
+    public static InventoryService getInstance() {
+        return INSTANCE;
+    }
+
+    // ================= RESERVATIONS =================
+
+    // Holds quantity units of a variant; null if unknown or not enough stock
+    public Reservation reserve(String variantId, int quantity, String owner) {
+        if (variantId == null || quantity <= 0) return null;
+        load(List.of(variantId));
+        return reserveLoaded(variantId, quantity, owner);
+    }
+
+    /**
+     * Reserves every line (variant id -> quantity) or none of them, for a
+     * checkout. The owner's cart holds on those variants are used first and
+     * only the rest is taken from available. Returns null when any line
+     * cannot be covered; the holds are then put back.
+     */
+    public List<Reservation> reserveAll(Map<String, Integer> lines, String owner) {
+        load(lines.keySet());
+        List<Reservation> taken = new ArrayList<>(lines.size());
+        Map<String, Integer> usedHolds = new HashMap<>();
+        for (Map.Entry<String, Integer> line : lines.entrySet()) {
+            String variantId = line.getKey();
+            int held = takeHold(owner, variantId);
+            if (held > 0) usedHolds.put(variantId, held);
+            Reservation r = convert(variantId, held, line.getValue(), owner);
+            if (r == null) {
+                releaseAll(taken);
+                // Units freed here are up for grabs for a moment; a hold that loses them comes back smaller
+                for (Map.Entry<String, Integer> h : usedHolds.entrySet()) hold(h.getKey(), h.getValue(), owner);
+                return null;
+            }
+            taken.add(r);
+        }
+        return taken;
+    }
+
+    // ================= CART HOLDS =================
+
+    /**
+     * Sets the owner's hold on a variant to quantity units, the line's new
+     * total in the cart, and restarts its expiry. A smaller total gives units
+     * back; a larger one takes the difference if it is available, otherwise
+     * the hold keeps what it had and this returns false. Zero releases it.
+     */
+    public boolean hold(String variantId, int quantity, String owner) {
+        if (variantId == null || owner == null) return false;
+        String key = holdKey(owner, variantId);
+        if (quantity <= 0) {
+            Reservation r = holds.remove(key);
+            if (r != null) release(r.getId());
+            return true;
+        }
+        load(List.of(variantId));
+
+        boolean[] covered = {true};
+        holds.compute(key, (k, current) -> {
+            // Re-book the units under a new reservation; an expired hold has already given them back
+            int held = current != null && active.remove(current.getId()) != null ? current.getQuantity() : 0;
+            Counter c = counters.get(variantId);
+            if (c == null) {
+                covered[0] = false;
+                return null;
+            }
+            int target = quantity;
+            if (quantity > held && !take(c, variantId, quantity - held)) {
+                covered[0] = false;
+                target = held;
+            } else if (quantity < held) {
+                giveBack(c, variantId, held - quantity);
+            }
+            if (target == 0) return null;
+            Reservation r = new Reservation(UUID.randomUUID().toString(), variantId, target, owner,
+                    System.currentTimeMillis() + holdMillis);
+            active.put(r.getId(), r);
+            return r;
+        });
+        return covered[0];
+    }
+
+    // Releases holds that outlived INVENTORY_HOLD_SECONDS; runs on the flush tick
+    public void expireHolds() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Reservation> e : holds.entrySet()) {
+            Reservation r = e.getValue();
+            if (r.getExpiresAt() <= now && holds.remove(e.getKey(), r) && release(r.getId())) {
+                expired.incrementAndGet();
+            }
+        }
+    }
+
+    public boolean release(String reservationId) {
+        Reservation r = reservationId != null ? active.remove(reservationId) : null;
+        if (r == null) return false; // already committed or released
+        Counter c = counters.get(r.getVariantId());
+        if (c != null) giveBack(c, r.getVariantId(), r.getQuantity());
+        return true;
+    }
+
+    public void releaseAll(List<Reservation> reservations) {
+        for (Reservation r : reservations) release(r.getId());
+    }
+
+    /**
+     * Turns reservations into sales once the checkout transaction has
+     * committed. The deduction already took the units out of quantity and
+     * reserved in the database, so nothing is flushed for them. A
+     * reservation that was released meanwhile had its units returned, which
+     * the next flush writes as usual, so they are taken from available again.
+     */
+    public void commit(List<Reservation> reservations) {
+        for (Reservation r : reservations) {
+            Counter c = counters.get(r.getVariantId());
+            if (c == null) continue;
+            if (active.remove(r.getId()) != null) {
+                c.reserved.addAndGet(-r.getQuantity());
+            } else {
+                c.available.addAndGet(-r.getQuantity());
+                c.unflushed.addAndGet(r.getQuantity()); // offsets the release's delta
+                dirty.add(r.getVariantId());
+            }
+            c.onHand.addAndGet(-r.getQuantity());
+            committed.incrementAndGet();
+        }
+    }
+
+    // ================= STOCK =================
+
+    // Units that can still be reserved, or -1 for an unknown variant
+    public int getAvailable(String variantId) {
+        load(List.of(variantId));
+        Counter c = counters.get(variantId);
+        return c != null ? Math.max(0, c.available.get()) : -1;
+    }
+
+    /**
+     * Replaces the on-hand quantity (admin stock edits). Outstanding
+     * reservations stay in place, so available moves by the difference.
+     */
+    public boolean setOnHand(String variantId, int quantity) {
+        if (!inventoryDAO.setOnHand(variantId, Math.max(0, quantity))) return false;
+        Counter c = counters.get(variantId);
+        if (c != null) applyOnHand(c, Math.max(0, quantity));
+        return true;
+    }
+
+    /**
+     * Reloads on-hand quantities from variant_inventory, e.g. after the
+     * checkout deduction found less stock than the counters did.
+     * Outstanding reservations stay in place; variants that no longer exist
+     * are dropped.
+     */
+    public boolean resync(Collection<String> variantIds) {
+        List<String> tracked = new ArrayList<>();
+        for (String id : variantIds) {
+            if (id != null && counters.containsKey(id)) tracked.add(id);
+        }
+        if (tracked.isEmpty()) return true;
+
+        Map<String, Integer> onHand = inventoryDAO.getOnHand(tracked);
+        if (onHand.isEmpty()) return false; // query failed, or every variant is gone; retry next time
+        for (String id : tracked) {
+            Integer quantity = onHand.get(id);
+            if (quantity == null) {
+                forget(id);
+                continue;
+            }
+            Counter c = counters.get(id);
+            if (c != null && applyOnHand(c, Math.max(0, quantity)) != 0) corrections.incrementAndGet();
+        }
+        resyncs.incrementAndGet();
+        return true;
+    }
+
+    // Periodic full reload of every tracked variant, in bounded IN lists
+    public void resyncAll() {
+        List<String> ids = new ArrayList<>(counters.keySet());
+        for (int from = 0; from < ids.size(); from += RESYNC_BATCH) {
+            resync(ids.subList(from, Math.min(ids.size(), from + RESYNC_BATCH)));
+        }
+    }
+
+    // Drops a variant's counters, e.g. after the variant is deleted
+    public void forget(String variantId) {
+        counters.remove(variantId);
+        dirty.remove(variantId);
+    }
+
+    // ================= LIFECYCLE =================
+
+    // Writes the reserved deltas accumulated since the last flush
+    public synchronized boolean flush() {
+        if (dirty.isEmpty()) return true;
+        Map<String, int[]> deltas = new HashMap<>();
+        for (String id : dirty) {
+            dirty.remove(id);
+            Counter c = counters.get(id);
+            if (c == null) continue;
+            int delta = c.unflushed.getAndSet(0);
+            if (delta != 0) deltas.put(id, new int[]{Math.max(0, c.onHand.get()), delta});
+        }
+        if (inventoryDAO.saveReserved(deltas)) {
+            if (!deltas.isEmpty()) flushes.incrementAndGet();
+            return true;
+        }
+        // Retry on the next tick, together with anything reserved meanwhile
+        for (Map.Entry<String, int[]> e : deltas.entrySet()) {
+            Counter c = counters.get(e.getKey());
+            if (c == null) continue;
+            c.unflushed.addAndGet(e.getValue()[1]);
+            dirty.add(e.getKey());
+        }
+        return false;
+    }
+
+    // Gives back every outstanding reservation so the stored reserved counts net out
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        holds.clear();
+        for (String id : new ArrayList<>(active.keySet())) release(id);
+        flush();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedVariants", counters.size());
+        stats.put("activeReservations", active.size());
+        stats.put("reserved", reserved.get());
+        stats.put("rejected", rejected.get());
+        stats.put("committed", committed.get());
+        stats.put("holds", holds.size());
+        stats.put("expired", expired.get());
+        stats.put("pendingWrites", dirty.size());
+        stats.put("flushes", flushes.get());
+        stats.put("resyncs", resyncs.get());
+        stats.put("corrections", corrections.get());
+        return stats;
+    }
+
+    // ================= INTERNALS =================
+
+    private Reservation reserveLoaded(String variantId, int quantity, String owner) {
+        Counter c = counters.get(variantId);
+        if (c == null || quantity <= 0 || !take(c, variantId, quantity)) return null;
+        Reservation r = new Reservation(UUID.randomUUID().toString(), variantId, quantity, owner, 0);
+        active.put(r.getId(), r);
+        return r;
+    }
+
+    // A checkout reservation of quantity units, of which held are already taken by the owner's hold
+    private Reservation convert(String variantId, int held, int quantity, String owner) {
+        Counter c = counters.get(variantId);
+        if (c == null) return null;
+        if (held < quantity && !take(c, variantId, quantity - held)) {
+            if (held > 0) giveBack(c, variantId, held);
+            return null;
+        }
+        if (held > quantity) giveBack(c, variantId, held - quantity);
+        Reservation r = new Reservation(UUID.randomUUID().toString(), variantId, quantity, owner, 0);
+        active.put(r.getId(), r);
+        return r;
+    }
+
+    // Removes the owner's live hold on the variant and returns its units, still reserved
+    private int takeHold(String owner, String variantId) {
+        Reservation h = owner != null ? holds.remove(holdKey(owner, variantId)) : null;
+        return h != null && active.remove(h.getId()) != null ? h.getQuantity() : 0;
+    }
+
+    // Lock-free decrement that never takes available below zero
+    private boolean take(Counter c, String variantId, int quantity) {
+        while (true) {
+            int available = c.available.get();
+            if (available < quantity) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (c.available.compareAndSet(available, available - quantity)) break;
+        }
+        c.reserved.addAndGet(quantity);
+        c.unflushed.addAndGet(quantity);
+        dirty.add(variantId);
+        reserved.incrementAndGet();
+        return true;
+    }
+
+    private void giveBack(Counter c, String variantId, int quantity) {
+        c.reserved.addAndGet(-quantity);
+        c.available.addAndGet(quantity);
+        c.unflushed.addAndGet(-quantity);
+        dirty.add(variantId);
+    }
+
+    private static String holdKey(String owner, String variantId) {
+        return owner + '|' + variantId;
+    }
+
+    // Moves on hand and available by the same difference; returns that difference
+    private static int applyOnHand(Counter c, int quantity) {
+        int delta = quantity - c.onHand.getAndSet(quantity);
+        if (delta != 0) c.available.addAndGet(delta);
+        return delta;
+    }
+
+    // Loads counters for variants not seen yet, in one query
+    private void load(Iterable<String> variantIds) {
+        List<String> missing = new ArrayList<>();
+        for (String id : variantIds) {
+            if (id != null && !counters.containsKey(id)) missing.add(id);
+        }
+        if (missing.isEmpty()) return;
+
+        for (Map.Entry<String, Integer> e : inventoryDAO.getOnHand(missing).entrySet()) {
+            counters.putIfAbsent(e.getKey(), new Counter(e.getValue()));
+        }
+        startScheduler();
+    }
+
+    private void startScheduler() {
+        if (scheduler != null) return;
+        synchronized (this) {
+            if (scheduler != null) return;
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "inventory-flush");
+                t.setDaemon(true);
+                return t;
+            });
+            executor.scheduleWithFixedDelay(() -> {
+                try {
+                    expireHolds();
+                    flush();
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Inventory flush failed", e);
+                }
+            }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+            if (resyncSeconds > 0) {
+                executor.scheduleWithFixedDelay(() -> {
+                    try {
+                        resyncAll();
+                    } catch (Exception e) {
+                        LOGGER.log(Level.WARNING, "Inventory resync failed", e);
+                    }
+                }, resyncSeconds, resyncSeconds, TimeUnit.SECONDS);
+            }
+            scheduler = executor;
+        }
+    }
+
+    private static final class Counter {
+        final AtomicInteger onHand;
+        final AtomicInteger available;
+        final AtomicInteger reserved = new AtomicInteger();
+        // Change to reserved not yet written to variant_inventory
+        final AtomicInteger unflushed = new AtomicInteger();
+
+        Counter(int onHand) {
+            this.onHand = new AtomicInteger(onHand);
+            this.available = new AtomicInteger(onHand);
+        }
+    }
+
+    public static final class Reservation {
+        private final String id;
+        private final String variantId;
+        private final int quantity;
+        private final String owner;
+        private final long expiresAt;
+
+        Reservation(String id, String variantId, int quantity, String owner, long expiresAt) {
+            this.id = id;
+            this.variantId = variantId;
+            this.quantity = quantity;
+            this.owner = owner;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getId() { return id; }
+        public String getVariantId() { return variantId; }
+        public int getQuantity() { return quantity; }
+        public String getOwner() { return owner; }
+        // Epoch millis after which a cart hold is released; 0 for checkout reservations
+        public long getExpiresAt() { return expiresAt; }
+    }
+}
@@ -0,0 +1,189 @@
+package com.shopease.service;
+
+import com.shopease.util.EnvConfig;
+import com.shopease.util.PasswordUtil;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Runs BCrypt on its own small pool so login and signup bursts can't take
+ * request threads (and CPU) away from catalog traffic.
+ *
+ * PASSWORD_HASH_WORKERS (default the number of cores) threads work
+ * through a queue of PASSWORD_HASH_QUEUE_CAPACITY (default 64). A full queue,
+ * or a task that waited longer than PASSWORD_HASH_QUEUE_TIMEOUT_MS (default
+ * 2000) before starting, fails with RejectedExecutionException so the
+ * servlet can answer 429 instead of making the client wait.
+ *
+ * New hashes use PASSWORD_BCRYPT_COST (default 12). When a login verifies
+ * against a hash of a different cost, the result carries a fresh hash at the
+ * configured cost for the caller to store.
+ */
+public final class PasswordHashingService {
+
+    private static final Logger LOGGER = Logger.getLogger(PasswordHashingService.class.getName());
+    private static final PasswordHashingService INSTANCE = new PasswordHashingService();
+
+    private final int workers = Math.max(1, EnvConfig.getInt("PASSWORD_HASH_WORKERS",
+            Runtime.getRuntime().availableProcessors()));
+    private final int queueCapacity = Math.max(1, EnvConfig.getInt("PASSWORD_HASH_QUEUE_CAPACITY", 64));
+    private final long queueTimeoutMs = EnvConfig.getLong("PASSWORD_HASH_QUEUE_TIMEOUT_MS", 2000);
+    private final int cost = EnvConfig.getInt("PASSWORD_BCRYPT_COST", PasswordUtil.DEFAULT_COST);
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder rehashes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueTimeouts = new LongAdder();
+    private final LongAdder tasks = new LongAdder();
+    private final LongAdder workNanos = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWorkNanos = new AtomicLong();
+
+    private volatile ThreadPoolExecutor executor;
+
+    private PasswordHashingService() {}
+
+    public static PasswordHashingService getInstance() {
+        return INSTANCE;
+    }
+
+    // ================= API =================
+
+    public CompletableFuture<String> hash(String plainPassword) {
+        return submit(() -> {
+            hashes.increment();
+            return PasswordUtil.hashPassword(plainPassword, cost);
+        });
+    }
+
+    // Checks the password; on a match against a hash of another cost the result includes a rehash
+    public CompletableFuture<Verification> verify(String plainPassword, String hashedPassword) {
+        return submit(() -> {
+            verifications.increment();
+            boolean matches = PasswordUtil.checkPassword(plainPassword, hashedPassword);
+            String rehash = null;
+            if (matches && PasswordUtil.costOf(hashedPassword) != cost) {
+                rehashes.increment();
+                rehash = PasswordUtil.hashPassword(plainPassword, cost);
+            }
+            return new Verification(matches, rehash);
+        });
+    }
+
+    // ================= INTERNALS =================
+
+    private <T> CompletableFuture<T> submit(Callable<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            executor().execute(() -> {
+                long started = System.nanoTime();
+                waitNanos.add(started - queuedAt);
+                if (TimeUnit.NANOSECONDS.toMillis(started - queuedAt) > queueTimeoutMs) {
+                    // The client has probably given up; don't spend a hash on it
+                    queueTimeouts.increment();
+                    future.completeExceptionally(new RejectedExecutionException("Password hashing queue wait exceeded " + queueTimeoutMs + " ms"));
+                    return;
+                }
+                try {
+                    future.complete(work.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    long elapsed = System.nanoTime() - started;
+                    tasks.increment();
+                    workNanos.add(elapsed);
+                    maxWorkNanos.accumulateAndGet(elapsed, Math::max);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private ThreadPoolExecutor executor() {
+        ThreadPoolExecutor current = executor;
+        if (current != null) return current;
+        synchronized (this) {
+            if (executor != null) return executor;
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor created = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), r -> {
+                        Thread t = new Thread(r, "password-hasher-" + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+            created.allowCoreThreadTimeOut(true);
+            LOGGER.info("Password hashing pool started (" + workers + " workers, bcrypt cost " + cost + ")");
+            executor = created;
+            return created;
+        }
+    }
+
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) executor.shutdownNow();
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", workers);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("cost", cost);
+        ThreadPoolExecutor current = executor;
+        if (current != null) {
+            stats.put("active", current.getActiveCount());
+            stats.put("queued", current.getQueue().size());
+        }
+        long done = tasks.sum();
+        long dequeued = done + queueTimeouts.sum();
+        stats.put("hashes", hashes.sum());
+        stats.put("verifications", verifications.sum());
+        stats.put("rehashes", rehashes.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("queueTimeouts", queueTimeouts.sum());
+        stats.put("avgHashMs", done == 0 ? 0.0 : workNanos.sum() / 1e6 / done);
+        stats.put("maxHashMs", maxWorkNanos.get() / 1e6);
+        stats.put("avgQueueWaitMs", dequeued == 0 ? 0.0 : waitNanos.sum() / 1e6 / dequeued);
+        return stats;
+    }
+
+    // ================= TYPES =================
+
+    public static final class Verification {
+        private final boolean matches;
+        private final String rehash;
+
+        Verification(boolean matches, String rehash) {
+            this.matches = matches;
+            this.rehash = rehash;
+        }
+
+        public boolean matches() { return matches; }
+
+        // A hash at the configured cost to store in place of the old one, or null
+        public String getRehash() { return rehash; }
+    }
+}
@@ -0,0 +1,386 @@
+package com.shopease.service;
+
+import com.shopease.dao.OrderDAO;
+import com.shopease.dao.PaymentDAO;
+import com.shopease.model.Order;
+import com.shopease.model.Payment;
+import com.shopease.payment.ChargeRequest;
+import com.shopease.payment.ChargeResult;
+import com.shopease.payment.PaymentGateway;
+import com.shopease.payment.SimulatedPaymentGateway;
+import com.shopease.util.EnvConfig;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Charges orders off the request thread.
+ *
+ * A payment is identified by a client-supplied idempotency key. Submitting a
+ * key that is already in flight (or finished recently) returns the existing
+ * job instead of charging again; the unique key on payments.idempotency_key
+ * covers retries that arrive after a restart or on another instance. Jobs run
+ * on PAYMENT_WORKERS threads (default 4) behind a queue of
+ * PAYMENT_QUEUE_CAPACITY (default 100); a full queue rejects the submission
+ * so the caller can answer 503 instead of piling up requests.
+ *
+ * An order has at most one live payment. A submission under a new key for an
+ * order that already has a PENDING or SUCCESS payment is refused
+ * (ORDER_BUSY); the unique key on payments.active_order_id enforces the same
+ * rule for submissions that race past that check or arrive on another
+ * instance, so two keys can never both charge one order. A FAILED payment
+ * frees the order for another attempt.
+ *
+ * Only the instance holding a payment row's claim charges it. The row is
+ * inserted already claimed for PAYMENT_CLAIM_LEASE_SECONDS (default 120,
+ * longer than any gateway call); a submission that finds someone else's live
+ * claim re-checks the row every few seconds and reports its outcome, and a
+ * claim that lapsed (the charging instance died) is taken over by a
+ * conditional UPDATE that exactly one instance wins.
+ *
+ * The gateway is SimulatedPaymentGateway unless PAYMENT_GATEWAY names another
+ * PaymentGateway class with a no-arg constructor. Finished jobs stay in memory
+ * for PAYMENT_RESULT_TTL_SECONDS (default 900) for polling; after that the
+ * result is read back from the payments table.
+ */
+public final class PaymentService {
+
+    private static final Logger LOGGER = Logger.getLogger(PaymentService.class.getName());
+    private static final PaymentService INSTANCE = new PaymentService();
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_FAILED = "FAILED";
+
+    public enum Outcome { ACCEPTED, DUPLICATE, CONFLICT, ORDER_BUSY, BUSY }
+
+    private final PaymentDAO paymentDAO = new PaymentDAO();
+    private final OrderDAO orderDAO = new OrderDAO();
+    private final int workers = Math.max(1, EnvConfig.getInt("PAYMENT_WORKERS", 4));
+    private final int queueCapacity = Math.max(1, EnvConfig.getInt("PAYMENT_QUEUE_CAPACITY", 100));
+    private final long resultTtlMillis = EnvConfig.getLong("PAYMENT_RESULT_TTL_SECONDS", 900) * 1000;
+    private final long claimLeaseSeconds = Math.max(10, EnvConfig.getLong("PAYMENT_CLAIM_LEASE_SECONDS", 120));
+    private final long followUpMillis = 2000;
+    // Identifies this JVM's claims on payment rows
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ConcurrentHashMap<String, PaymentJob> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile PaymentGateway gateway = loadGateway();
+    private volatile ThreadPoolExecutor executor;
+    private volatile ScheduledExecutorService sweeper;
+
+    private PaymentService() {}
+
+    public static PaymentService getInstance() {
+        return INSTANCE;
+    }
+
+    // Swaps the payment provider, e.g. for tests
+    public void setGateway(PaymentGateway gateway) {
+        if (gateway != null) this.gateway = gateway;
+    }
+
+    // ================= SUBMIT / POLL =================
+
+    /**
+     * Queues a charge for the order under the idempotency key. A key that is
+     * already known returns its job (DUPLICATE), or CONFLICT if it was used
+     * for a different order.
+     */
+    public Submission submit(String idempotencyKey, Order order, String paymentMethod, String details) {
+        PaymentJob job = new PaymentJob(idempotencyKey, order.getOrderId(), order.getUserId(),
+                order.getTotalAmount(), paymentMethod, details);
+        PaymentJob existing = jobs.putIfAbsent(idempotencyKey, job);
+        if (existing != null) {
+            if (existing.orderId != order.getOrderId()) return new Submission(Outcome.CONFLICT, existing);
+            duplicates.incrementAndGet();
+            return new Submission(Outcome.DUPLICATE, existing);
+        }
+        if (hasLivePayment(job)) {
+            jobs.remove(idempotencyKey, job);
+            return new Submission(Outcome.ORDER_BUSY, null);
+        }
+
+        try {
+            executor().execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(idempotencyKey, job);
+            rejected.incrementAndGet();
+            return new Submission(Outcome.BUSY, null);
+        }
+        accepted.incrementAndGet();
+        return new Submission(Outcome.ACCEPTED, job);
+    }
+
+    // Another key is charging (or has charged) the job's order, here or on another instance
+    private boolean hasLivePayment(PaymentJob job) {
+        for (PaymentJob other : jobs.values()) {
+            if (other.orderId == job.orderId && !other.key.equals(job.key)
+                    && (!other.isDone() || STATUS_SUCCESS.equals(other.status))) {
+                return true;
+            }
+        }
+        Payment active = paymentDAO.getActivePaymentByOrderId(job.orderId);
+        return active != null && !job.key.equals(active.getIdempotencyKey());
+    }
+
+    // In-memory job for the key, or null once it has been swept (or never existed here)
+    public PaymentJob getJob(String idempotencyKey) {
+        return jobs.get(idempotencyKey);
+    }
+
+    // Stored payment for the key, for results that are no longer held in memory
+    public Payment findPayment(String idempotencyKey) {
+        return paymentDAO.getPaymentByIdempotencyKey(idempotencyKey);
+    }
+
+    // ================= WORKER =================
+
+    private void run(PaymentJob job) {
+        try {
+            Payment stored = paymentDAO.getPaymentByIdempotencyKey(job.key);
+            boolean claimed = false;
+            if (stored == null) {
+                // The insert winner owns the charge
+                claimed = paymentDAO.addPayment(job.snapshot(), instanceId, claimLeaseSeconds);
+                if (!claimed) {
+                    // Lost a race with another submission of the same key or order, or the insert failed
+                    stored = paymentDAO.getPaymentByIdempotencyKey(job.key);
+                    if (stored == null) {
+                        boolean orderBusy = paymentDAO.getActivePaymentByOrderId(job.orderId) != null;
+                        finish(job, STATUS_FAILED, null,
+                                orderBusy ? "A payment for this order is already in progress" : "Could not record payment");
+                        return;
+                    }
+                }
+            }
+
+            if (!claimed) {
+                if (stored.getOrderId() != job.orderId) {
+                    finish(job, STATUS_FAILED, null, "Idempotency key already used for another order");
+                    return;
+                }
+                if (!STATUS_PENDING.equals(stored.getPaymentStatus())) {
+                    // Already charged under this key; report the stored outcome
+                    finish(job, stored.getPaymentStatus(), stored.getTransactionId(), null);
+                    return;
+                }
+                // Pending: charge only if the previous attempt's claim lapsed and we won it
+                if (!paymentDAO.claimPendingPayment(job.key, instanceId, claimLeaseSeconds)) {
+                    followUp(job);
+                    return;
+                }
+            }
+
+            ChargeResult result = gateway.charge(new ChargeRequest(job.key, job.orderId, job.amount, job.method, job.details));
+            String status = result.isSuccess() ? STATUS_SUCCESS : STATUS_FAILED;
+            if (!paymentDAO.updatePaymentResult(job.key, status, result.getTransactionId())) {
+                LOGGER.warning("Failed to record payment result for key: " + job.key);
+            }
+            if (result.isSuccess() && !orderDAO.markPaid(job.orderId)) {
+                LOGGER.warning("Order " + job.orderId + " was already paid or missing after payment " + job.key);
+            }
+            finish(job, status, result.getTransactionId(), result.getMessage());
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Payment job failed for key: " + job.key, e);
+            finish(job, STATUS_FAILED, null, "Server error during payment");
+        }
+    }
+
+    // Another instance is charging this key; look at the row again shortly
+    private void followUp(PaymentJob job) {
+        ScheduledExecutorService scheduler = sweeper;
+        if (scheduler == null) return; // shutting down; the stored row has the outcome
+        scheduler.schedule(() -> {
+            try {
+                executor().execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                followUp(job);
+            }
+        }, followUpMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void finish(PaymentJob job, String status, String transactionId, String message) {
+        if (STATUS_SUCCESS.equals(status)) succeeded.incrementAndGet();
+        else failed.incrementAndGet();
+        job.complete(status, transactionId, message);
+    }
+
+    // ================= LIFECYCLE =================
+
+    private ThreadPoolExecutor executor() {
+        ThreadPoolExecutor current = executor;
+        if (current != null) return current;
+        synchronized (this) {
+            if (executor != null) return executor;
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor created = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), r -> {
+                        Thread t = new Thread(r, "payment-worker-" + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+            created.allowCoreThreadTimeOut(true);
+
+            ScheduledExecutorService sweep = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "payment-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            sweep.scheduleWithFixedDelay(this::sweep, 60, 60, TimeUnit.SECONDS);
+
+            sweeper = sweep;
+            executor = created;
+            return created;
+        }
+    }
+
+    // Drops finished jobs older than the result TTL
+    private void sweep() {
+        long cutoff = System.currentTimeMillis() - resultTtlMillis;
+        jobs.values().removeIf(job -> job.isDone() && job.finishedAt < cutoff);
+    }
+
+    /**
+     * Stops accepting payments and gives in-flight charges a few seconds to
+     * record their outcome before the pool closes.
+     */
+    public synchronized void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    LOGGER.warning("Payment workers still running at shutdown; pending rows will be retried by key");
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        ThreadPoolExecutor current = executor;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("gateway", gateway.getClass().getSimpleName());
+        stats.put("workers", workers);
+        stats.put("active", current != null ? current.getActiveCount() : 0);
+        stats.put("queued", current != null ? current.getQueue().size() : 0);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("trackedJobs", jobs.size());
+        stats.put("accepted", accepted.get());
+        stats.put("duplicates", duplicates.get());
+        stats.put("rejected", rejected.get());
+        stats.put("succeeded", succeeded.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    private static PaymentGateway loadGateway() {
+        String className = EnvConfig.get("PAYMENT_GATEWAY");
+        if (className != null) {
+            try {
+                return (PaymentGateway) Class.forName(className).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                LOGGER.log(Level.SEVERE, "Cannot load payment gateway " + className + ", using the simulator", e);
+            }
+        }
+        return new SimulatedPaymentGateway();
+    }
+
+    // ================= TYPES =================
+
+    public static final class PaymentJob {
+        private final String key;
+        private final int orderId;
+        private final String userId;
+        private final BigDecimal amount;
+        private final String method;
+        private final String details;
+        private final long submittedAt = System.currentTimeMillis();
+        private final CompletableFuture<Payment> result = new CompletableFuture<>();
+
+        private volatile String status = STATUS_PENDING;
+        private volatile String transactionId;
+        private volatile String message;
+        private volatile long finishedAt;
+
+        PaymentJob(String key, int orderId, String userId, BigDecimal amount, String method, String details) {
+            this.key = key;
+            this.orderId = orderId;
+            this.userId = userId;
+            this.amount = amount;
+            this.method = method;
+            this.details = details;
+        }
+
+        void complete(String status, String transactionId, String message) {
+            this.status = status;
+            this.transactionId = transactionId;
+            this.message = message;
+            this.finishedAt = System.currentTimeMillis();
+            result.complete(snapshot());
+        }
+
+        public boolean isDone() { return result.isDone(); }
+        public int getOrderId() { return orderId; }
+        public String getUserId() { return userId; }
+        public String getMessage() { return message; }
+        public CompletableFuture<Payment> getResult() { return result; }
+
+        // Current state as a Payment row (not persisted)
+        public Payment snapshot() {
+            Payment p = new Payment();
+            p.setOrderId(orderId);
+            p.setPaymentMethod(method);
+            p.setPaymentStatus(status);
+            p.setTransactionId(transactionId);
+            p.setAmount(amount);
+            p.setPaymentDate(new Timestamp(finishedAt > 0 ? finishedAt : submittedAt));
+            p.setIdempotencyKey(key);
+            return p;
+        }
+    }
+
+    public static final class Submission {
+        private final Outcome outcome;
+        private final PaymentJob job;
+
+        Submission(Outcome outcome, PaymentJob job) {
+            this.outcome = outcome;
+            this.job = job;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+        public PaymentJob getJob() { return job; }
+    }
+}
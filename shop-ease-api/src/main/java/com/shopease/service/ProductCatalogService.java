@@ -0,0 +1,214 @@
+package com.shopease.service;
+
+import com.shopease.cache.ReadThroughCache;
+import com.shopease.cache.ResponseCache;
+import com.shopease.dao.ProductDAO;
+import com.shopease.model.Page;
+import com.shopease.model.Product;
+import com.shopease.model.Product3DAsset;
+import com.shopease.model.ProductImage;
+import com.shopease.model.ProductVariant;
+import com.shopease.util.EnvConfig;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-through cache in front of ProductDAO for catalog reads.
+ *
+ * Entries live for PRODUCT_CACHE_TTL_SECONDS (default 300); the combined
+ * size of all catalog caches is bounded by PRODUCT_CACHE_MAX_BYTES (default
+ * 64 MB, estimated). Variant writes go through this service so the affected
+ * entries are invalidated.
+ *
+ * The API has no product write endpoints; products are edited in MySQL
+ * directly, so a product edit shows up once its entries expire (at most one
+ * TTL, plus RESPONSE_CACHE_TTL_SECONDS for cached response bytes).
+ * productChanged() is the hook a product write path would call; nothing
+ * calls it today.
+ *
+ * The DAO reads behind these caches throw DataAccessException on a database
+ * error rather than returning an empty list, so a failed load is never cached
+ * here (or by ResponseCache downstream) as an empty catalog.
+ */
+public final class ProductCatalogService {
+
+    private static final ProductCatalogService INSTANCE = new ProductCatalogService();
+
+    private final ProductDAO productDAO = new ProductDAO();
+
+    private final ReadThroughCache<String, Page<Product>> pageCache;
+    private final ReadThroughCache<String, List<Product>> listCache;
+    private final ReadThroughCache<String, Product> productCache;
+    private final ReadThroughCache<String, List<ProductVariant>> variantCache;
+
+    private ProductCatalogService() {
+        long ttlMillis = EnvConfig.getLong("PRODUCT_CACHE_TTL_SECONDS", 300) * 1000;
+        long maxBytes = EnvConfig.getLong("PRODUCT_CACHE_MAX_BYTES", 64L * 1024 * 1024);
+
+        pageCache = new ReadThroughCache<>("productPages", ttlMillis, maxBytes / 4,
+                page -> weighProducts(page.getItems()));
+        listCache = new ReadThroughCache<>("productLists", ttlMillis, maxBytes / 4,
+                ProductCatalogService::weighProducts);
+        productCache = new ReadThroughCache<>("productDetails", ttlMillis, maxBytes / 4,
+                ProductCatalogService::weighProductDetail);
+        variantCache = new ReadThroughCache<>("productVariants", ttlMillis, maxBytes / 4,
+                ProductCatalogService::weighVariants);
+    }
+
+    public static ProductCatalogService getInstance() {
+        return INSTANCE;
+    }
+
+    // ================= READS =================
+
+    public Page<Product> getProductsPage(String cursor, int size) {
+        int pageSize = ProductDAO.clampPageSize(size);
+        String key = (cursor == null ? "" : cursor) + "|" + pageSize;
+        return pageCache.get(key, k -> productDAO.getProductsPage(cursor, pageSize));
+    }
+
+    public List<Product> getAllProducts(int page, int size) {
+        int pageSize = ProductDAO.clampPageSize(size);
+        return listCache.get("offset|" + page + "|" + pageSize, k -> productDAO.getAllProducts(page, pageSize));
+    }
+
+    public List<Product> getFeaturedProducts(int limit) {
+        return listCache.get("featured|" + limit, k -> productDAO.getFeaturedProducts(limit));
+    }
+
+    public Product getProductById(String productId) {
+        return productCache.get(productId, productDAO::getProductById);
+    }
+
+    public List<ProductVariant> getVariantsByProductId(String productId) {
+        return variantCache.get(productId, productDAO::getVariantsByProductId);
+    }
+
+    // ================= WRITES =================
+
+    public boolean addVariant(ProductVariant variant) {
+        boolean success = productDAO.addVariant(variant);
+        if (success) invalidateVariantsOf(variant.getProductId());
+        return success;
+    }
+
+    // The edited stock also becomes the on-hand count used for reservations
+    public boolean updateVariant(ProductVariant variant) {
+        boolean success = productDAO.updateVariant(variant);
+        if (success) {
+            invalidateVariantsOf(variant.getProductId());
+            InventoryService.getInstance().setOnHand(variant.getVariantId(), variant.getStock());
+        }
+        return success;
+    }
+
+    public boolean deleteVariant(String variantId) {
+        boolean success = productDAO.deleteVariant(variantId);
+        if (success) {
+            invalidateVariantsOf(null);
+            InventoryService.getInstance().forget(variantId);
+        }
+        return success;
+    }
+
+    // ================= INVALIDATION =================
+
+    // Entry point for product writes (none exist yet): refreshes caches and the search index
+    public void productChanged(String productId) {
+        invalidateProduct(productId);
+        if (productId != null) ProductSearchService.getInstance().reindex(productId);
+        CategoryTreeService.getInstance().productsChanged();
+        ProductFacetService.getInstance().productsChanged();
+    }
+
+    // Drops the detail entry for a product and every list that may contain it
+    public void invalidateProduct(String productId) {
+        if (productId != null) {
+            productCache.invalidate(productId);
+            variantCache.invalidate(productId);
+        }
+        invalidateLists();
+    }
+
+    public void invalidateLists() {
+        pageCache.invalidateAll();
+        listCache.invalidateAll();
+        ResponseCache.getInstance().invalidate("products");
+    }
+
+    public void invalidateAll() {
+        invalidateLists();
+        productCache.invalidateAll();
+        variantCache.invalidateAll();
+    }
+
+    // Listing entries carry no variant data, so only detail/variant entries are affected;
+    // the facet index is rebuilt since variant stock decides "in stock"
+    private void invalidateVariantsOf(String productId) {
+        ProductFacetService.getInstance().productsChanged();
+        if (productId == null) {
+            variantCache.invalidateAll();
+            productCache.invalidateAll();
+            ResponseCache.getInstance().invalidate("products/");
+        } else {
+            variantCache.invalidate(productId);
+            productCache.invalidate(productId);
+            ResponseCache.getInstance().invalidate("products/" + productId);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pages", pageCache.getStats());
+        stats.put("lists", listCache.getStats());
+        stats.put("details", productCache.getStats());
+        stats.put("variants", variantCache.getStats());
+        return stats;
+    }
+
+    // ================= WEIGHERS (approximate heap bytes) =================
+
+    private static long weighProducts(List<Product> products) {
+        long weight = 64;
+        for (Product p : products) weight += weighProduct(p);
+        return weight;
+    }
+
+    private static long weighProductDetail(Product p) {
+        long weight = weighProduct(p);
+        if (p.getVariants() != null) weight += weighVariants(p.getVariants());
+        if (p.getImages() != null) {
+            for (ProductImage image : p.getImages()) {
+                weight += 64 + chars(image.getImageId()) + chars(image.getUrl()) + chars(image.getAlt());
+            }
+        }
+        if (p.getAssets() != null) {
+            for (Product3DAsset asset : p.getAssets()) {
+                weight += 64 + chars(asset.getAssetId()) + chars(asset.getAssetUrl())
+                        + chars(asset.getThumbnailUrl()) + chars(asset.getFormat());
+            }
+        }
+        return weight;
+    }
+
+    private static long weighProduct(Product p) {
+        return 160 + chars(p.getId()) + chars(p.getTitle()) + chars(p.getShortDescription())
+                + chars(p.getDescription()) + chars(p.getCategory()) + chars(p.getMetadata())
+                + chars(p.getImageUrl());
+    }
+
+    private static long weighVariants(List<ProductVariant> variants) {
+        long weight = 64;
+        for (ProductVariant v : variants) {
+            weight += 128 + chars(v.getVariantId()) + chars(v.getProductId()) + chars(v.getVariantName())
+                    + chars(v.getSize()) + chars(v.getColor()) + chars(v.getImageUrl());
+        }
+        return weight;
+    }
+
+    private static long chars(String s) {
+        return s == null ? 0 : 40L + 2L * s.length();
+    }
+}
@@ -0,0 +1,197 @@
+package com.shopease.service;
+
+import com.shopease.dao.ProductDAO;
+import com.shopease.dto.CategoryNode;
+import com.shopease.search.FacetDocument;
+import com.shopease.search.FacetIndex;
+import com.shopease.util.EnvConfig;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Owns the in-memory facet index behind /api/browse.
+ *
+ * The index is built from MySQL on first use and swapped whole on rebuild,
+ * so a query never sees a half-built index. Product and variant writes
+ * schedule one rebuild FACET_REBUILD_DELAY_MS (default 2000) later, so a burst
+ * of admin edits costs one rebuild; a full rebuild also runs every
+ * FACET_INDEX_REFRESH_SECONDS (default 300) to pick up stock sold through
+ * checkout and out-of-band edits.
+ *
+ * A product is in stock when any variant has unreserved stock, read from
+ * variant_inventory the way InventoryDAO reads it and falling back to
+ * product_variants.stock for variants without an inventory row.
+ *
+ * Price bands come from FACET_PRICE_BANDS (default "500,1000,2500,5000,10000",
+ * the upper bounds of each band but the last).
+ */
+public final class ProductFacetService {
+
+    private static final Logger LOGGER = Logger.getLogger(ProductFacetService.class.getName());
+    private static final ProductFacetService INSTANCE = new ProductFacetService();
+
+    private final ProductDAO productDAO = new ProductDAO();
+    private final long refreshSeconds = EnvConfig.getLong("FACET_INDEX_REFRESH_SECONDS", 300);
+    private final long rebuildDelayMs = EnvConfig.getLong("FACET_REBUILD_DELAY_MS", 2000);
+    private final int valueLimit = Math.max(1, EnvConfig.getInt("FACET_VALUE_LIMIT", 20));
+    private final List<BigDecimal> priceBands = parseBands(EnvConfig.getString("FACET_PRICE_BANDS", "500,1000,2500,5000,10000"));
+
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+
+    private volatile FacetIndex index;
+    private volatile long lastBuildNanos;
+    private volatile ScheduledExecutorService scheduler;
+
+    private ProductFacetService() {}
+
+    public static ProductFacetService getInstance() {
+        return INSTANCE;
+    }
+
+    // A category filter also matches everything filed under its subcategories
+    public FacetIndex.Result browse(Map<String, Set<String>> filters, int offset, int limit) {
+        FacetIndex current = ensureLoaded();
+        Map<String, Set<String>> expanded = new HashMap<>(filters);
+        Set<String> categories = filters.get(FacetIndex.CATEGORY);
+        if (categories != null && !categories.isEmpty()) {
+            expanded.put(FacetIndex.CATEGORY, expandCategories(categories));
+        }
+
+        long started = System.nanoTime();
+        FacetIndex.Result result = current.query(expanded, offset, limit, valueLimit);
+        queryNanos.add(System.nanoTime() - started);
+        queries.increment();
+        return result;
+    }
+
+    // Accepts ids, slugs or slug paths; unknown keys are kept as-is and simply match nothing
+    private static Set<String> expandCategories(Set<String> keys) {
+        Set<String> ids = new LinkedHashSet<>();
+        CategoryTreeService tree = CategoryTreeService.getInstance();
+        for (String key : keys) {
+            CategoryNode node = tree.find(key);
+            if (node == null) {
+                ids.add(key);
+            } else {
+                addSubtree(node, ids);
+            }
+        }
+        return ids;
+    }
+
+    private static void addSubtree(CategoryNode node, Set<String> ids) {
+        ids.add(node.getCategoryId());
+        for (CategoryNode child : node.getChildren()) addSubtree(child, ids);
+    }
+
+    // Price, stock, category or tags may have moved; rebuild once the burst settles
+    public void productsChanged() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null || !rebuildPending.compareAndSet(false, true)) return;
+        executor.schedule(() -> {
+            if (!rebuildPending.getAndSet(false)) return; // a full rebuild got there first
+            try {
+                rebuild();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Facet index rebuild failed", e);
+            }
+        }, rebuildDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        List<FacetDocument> docs = productDAO.getFacetDocuments();
+        FacetIndex current = index;
+        if (docs.isEmpty() && current != null && current.size() > 0) {
+            LOGGER.warning("Facet index rebuild returned no products; keeping current index");
+            return;
+        }
+        rebuildPending.set(false);
+        index = FacetIndex.build(docs, priceBands);
+        lastBuildNanos = System.nanoTime() - started;
+        builds.increment();
+        LOGGER.info("Facet index built with " + docs.size() + " products in " + lastBuildNanos / 1_000_000 + " ms");
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        FacetIndex current = index;
+        stats.put("loaded", current != null);
+        if (current != null) {
+            stats.put("products", current.size());
+            stats.put("facetValues", current.valueCount());
+            stats.put("bitmapBytes", current.bitmapBytes());
+        }
+        long count = queries.sum();
+        stats.put("builds", builds.sum());
+        stats.put("lastBuildMs", lastBuildNanos / 1e6);
+        stats.put("queries", count);
+        stats.put("avgQueryMicros", count == 0 ? 0.0 : queryNanos.sum() / 1e3 / count);
+        return stats;
+    }
+
+    private FacetIndex ensureLoaded() {
+        FacetIndex current = index;
+        if (current != null) return current;
+        synchronized (this) {
+            if (index == null) {
+                rebuild();
+                if (index == null) index = FacetIndex.empty();
+                startScheduler();
+            }
+            return index;
+        }
+    }
+
+    private void startScheduler() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "facet-index-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Facet index refresh failed", e);
+            }
+        }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    private static List<BigDecimal> parseBands(String spec) {
+        List<BigDecimal> bands = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            try {
+                BigDecimal bound = new BigDecimal(part.trim());
+                if (bands.isEmpty() || bound.compareTo(bands.get(bands.size() - 1)) > 0) bands.add(bound);
+            } catch (NumberFormatException e) {
+                LOGGER.warning("Ignoring invalid FACET_PRICE_BANDS entry: " + part);
+            }
+        }
+        return bands;
+    }
+}
@@ -0,0 +1,151 @@
+package com.shopease.service;
+
+import com.shopease.dao.DataAccessException;
+import com.shopease.dao.ProductDAO;
+import com.shopease.search.InvertedIndex;
+import com.shopease.search.SearchDocument;
+import com.shopease.search.SearchHit;
+import com.shopease.search.SuggestionTrie;
+import com.shopease.util.EnvConfig;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Owns the in-memory product search index.
+ *
+ * The index is built from MySQL on first use and fully rebuilt every
+ * SEARCH_INDEX_REFRESH_SECONDS (default 600). The API has no product write
+ * endpoints (products are edited in MySQL directly), so that rebuild is what
+ * picks up product edits; reindex() is there for a write path to call
+ * through ProductCatalogService.productChanged().
+ *
+ * It also owns the type-ahead trie. The trie is immutable, so it is rebuilt
+ * from the indexed documents with the index and, after single-product
+ * reindexes, at most once per pending batch on the refresh thread.
+ */
+public final class ProductSearchService {
+
+    private static final Logger LOGGER = Logger.getLogger(ProductSearchService.class.getName());
+    private static final ProductSearchService INSTANCE = new ProductSearchService();
+
+    private final ProductDAO productDAO = new ProductDAO();
+    private final InvertedIndex index = new InvertedIndex();
+    private final long refreshSeconds = EnvConfig.getLong("SEARCH_INDEX_REFRESH_SECONDS", 600);
+
+    private final AtomicBoolean suggestionsDirty = new AtomicBoolean();
+
+    private volatile boolean loaded;
+    private volatile SuggestionTrie suggestions = SuggestionTrie.empty();
+    private volatile ScheduledExecutorService scheduler;
+
+    private ProductSearchService() {}
+
+    public static ProductSearchService getInstance() {
+        return INSTANCE;
+    }
+
+    public List<SearchHit> search(String query, int limit) {
+        ensureLoaded();
+        return index.search(query, limit);
+    }
+
+    public List<SuggestionTrie.Suggestion> suggest(String prefix, int limit) {
+        ensureLoaded();
+        return suggestions.complete(prefix, limit);
+    }
+
+    // Re-reads one product; inactive or deleted products drop out of the index.
+    // A failed read leaves the product as it is until the next rebuild
+    public void reindex(String productId) {
+        if (!loaded) return; // picked up by the initial build
+        SearchDocument doc;
+        try {
+            doc = productDAO.getSearchDocument(productId);
+        } catch (DataAccessException e) {
+            LOGGER.log(Level.WARNING, "Could not reindex product " + productId, e);
+            return;
+        }
+        if (doc != null) {
+            index.upsert(doc);
+        } else {
+            index.remove(productId);
+        }
+        scheduleSuggestionRebuild();
+    }
+
+    // Throws DataAccessException if the read fails; the current index stays in place
+    public void rebuild() {
+        List<SearchDocument> docs = productDAO.getSearchDocuments();
+        index.rebuild(docs);
+        suggestionsDirty.set(false);
+        suggestions = buildSuggestions(docs);
+        LOGGER.info("Search index built with " + docs.size() + " products");
+    }
+
+    // Titles match from any word; brands and categories from their start
+    private static SuggestionTrie buildSuggestions(List<SearchDocument> docs) {
+        SuggestionTrie.Builder builder = new SuggestionTrie.Builder();
+        for (SearchDocument doc : docs) {
+            int weight = 1 + Math.max(0, doc.getPopularity());
+            builder.add(doc.getTitle(), SuggestionTrie.TYPE_TITLE, weight, true);
+            builder.add(doc.getBrand(), SuggestionTrie.TYPE_BRAND, weight, false);
+            builder.add(doc.getCategory(), SuggestionTrie.TYPE_CATEGORY, weight, false);
+        }
+        return builder.build();
+    }
+
+    private void scheduleSuggestionRebuild() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null || !suggestionsDirty.compareAndSet(false, true)) return;
+        executor.execute(() -> {
+            if (!suggestionsDirty.getAndSet(false)) return; // a full rebuild got there first
+            try {
+                suggestions = buildSuggestions(index.documents());
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Suggestion trie rebuild failed", e);
+            }
+        });
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            rebuild();
+            loaded = true;
+            startScheduler();
+        }
+    }
+
+    private void startScheduler() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "search-index-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Search index refresh failed", e);
+            }
+        }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+}
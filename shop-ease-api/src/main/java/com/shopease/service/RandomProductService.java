@@ -0,0 +1,127 @@
+package com.shopease.service;
+
+import com.shopease.dao.ProductDAO;
+import com.shopease.model.Product;
+import com.shopease.util.EnvConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves uniformly random active products without ORDER BY RAND().
+ *
+ * Keeps an in-memory snapshot of active product ids, refreshed on a fixed
+ * interval (RANDOM_PRODUCTS_REFRESH_SECONDS, default 300). Each request draws
+ * k distinct ids from the snapshot and batch-fetches only those rows, so ids
+ * of products retired since the last refresh simply return nothing.
+ *
+ * The API has no product write path, so new and retired products reach the
+ * snapshot on the next refresh. A failed refresh keeps the previous snapshot
+ * and is retried after RANDOM_PRODUCTS_RETRY_SECONDS (default 15).
+ */
+public final class RandomProductService {
+
+    private static final Logger LOGGER = Logger.getLogger(RandomProductService.class.getName());
+    private static final RandomProductService INSTANCE = new RandomProductService();
+
+    private final ProductDAO productDAO = new ProductDAO();
+    private final long refreshSeconds = EnvConfig.getLong("RANDOM_PRODUCTS_REFRESH_SECONDS", 300);
+    private final long retrySeconds = EnvConfig.getLong("RANDOM_PRODUCTS_RETRY_SECONDS", 15);
+
+    private volatile String[] activeIds;
+    private ScheduledExecutorService scheduler;
+
+    private RandomProductService() {}
+
+    public static RandomProductService getInstance() {
+        return INSTANCE;
+    }
+
+    public List<Product> getRandomProducts(int limit) {
+        String[] ids = snapshot();
+        if (ids.length == 0 || limit <= 0) return new ArrayList<>();
+
+        List<String> sample = sample(ids, Math.min(limit, ids.length));
+        return productDAO.getProductsByIds(sample);
+    }
+
+    // Reloads the id snapshot now; on a DataAccessException the current snapshot stays
+    public void refresh() {
+        List<String> ids = productDAO.getActiveProductIds();
+        activeIds = ids.toArray(new String[0]);
+        LOGGER.fine("Random product snapshot refreshed: " + ids.size() + " ids");
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private String[] snapshot() {
+        String[] ids = activeIds;
+        if (ids == null) {
+            synchronized (this) {
+                if (activeIds == null) {
+                    refresh();
+                    startScheduler();
+                }
+                ids = activeIds;
+            }
+        }
+        return ids;
+    }
+
+    private void startScheduler() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "random-products-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduleRefresh(refreshSeconds);
+    }
+
+    // Runs the next refresh after delaySeconds; a failure brings the one after forward
+    private synchronized void scheduleRefresh(long delaySeconds) {
+        if (scheduler == null) return; // shut down
+        scheduler.schedule(() -> {
+            long next = refreshSeconds;
+            try {
+                refresh();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Random product snapshot refresh failed; retrying in " + retrySeconds + "s", e);
+                next = Math.min(retrySeconds, refreshSeconds);
+            }
+            scheduleRefresh(next);
+        }, delaySeconds, TimeUnit.SECONDS);
+    }
+
+    // Floyd's algorithm: k distinct uniform indices in O(k), then shuffled
+    private static List<String> sample(String[] ids, int k) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int n = ids.length;
+        Set<Integer> picked = new HashSet<>(k * 2);
+        for (int j = n - k; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            if (!picked.add(t)) picked.add(j);
+        }
+
+        List<String> sample = new ArrayList<>(k);
+        for (int index : picked) {
+            sample.add(ids[index]);
+        }
+        Collections.shuffle(sample, random);
+        return sample;
+    }
+}
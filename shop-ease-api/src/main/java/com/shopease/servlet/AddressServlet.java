@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.shopease.dao.AddressDAO;
 import com.shopease.model.Address;
 import com.shopease.model.User;
+import com.shopease.util.Json;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -21,7 +22,7 @@ import java.util.logging.Logger;
 public class AddressServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(AddressServlet.class.getName());
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper = Json.mapper();
     private final AddressDAO addressDAO = new AddressDAO();
 
     // ===== Helper method for CORS headers =====
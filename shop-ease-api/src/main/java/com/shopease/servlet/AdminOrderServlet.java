@@ -1,22 +1,36 @@
 package com.shopease.servlet;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.shopease.dao.OrderDAO;
+import com.shopease.dto.OrderPageResponse;
 import com.shopease.model.Order;
+import com.shopease.model.OrderFilter;
+import com.shopease.model.Page;
 import com.shopease.model.User;
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.AsyncRequestExecutor.Reply;
+import com.shopease.util.Json;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.*;
 
 import java.io.IOException;
-import java.util.List;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
 
-@WebServlet("/api/admin/orders/*")
+@WebServlet(value = "/api/admin/orders/*", asyncSupported = true)
 public class AdminOrderServlet extends HttpServlet {
     private final OrderDAO orderDAO = new OrderDAO();
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Json.mapper();
+    private final AsyncRequestExecutor async = AsyncRequestExecutor.getInstance();
+    // Per-order writes during streaming; the shared mapper leaves flushing to the servlet buffer
+    private final ObjectWriter orderWriter = Json.writerFor(Order.class);
 
     // ===== Helper method for CORS headers =====
     private void setCorsHeaders(HttpServletRequest request, HttpServletResponse response) {
@@ -51,17 +65,95 @@ public class AdminOrderServlet extends HttpServlet {
         resp.setStatus(HttpServletResponse.SC_OK);
     }
 
-    // ===== GET: Get all orders (Admin only) =====
+    // ===== GET: List orders (Admin only) =====
+    // Filters: status, userId, from, to (yyyy-MM-dd or ISO date-time; a bare "to" date is inclusive).
+    // Default: keyset pages of ?size= orders, continue with ?cursor=<nextCursor>.
+    // ?stream=true: every matching order as one JSON document, written as rows are read.
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         setCorsHeaders(req, resp);
         resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
 
         User admin = getAdminFromSession(req, resp);
         if (admin == null) return;
 
-        List<Order> orders = orderDAO.getAllOrders(); // Make sure this method exists in OrderDAO
-        mapper.writeValue(resp.getOutputStream(), orders);
+        OrderFilter filter;
+        try {
+            filter = parseFilter(req);
+        } catch (IllegalArgumentException e) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            mapper.writeValue(resp.getOutputStream(), Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+            return;
+        }
+
+        if ("true".equalsIgnoreCase(req.getParameter("stream"))) {
+            streamOrders(filter, resp);
+            return;
+        }
+
+        int size = OrderDAO.DEFAULT_PAGE_SIZE;
+        String sizeParam = req.getParameter("size");
+        if (sizeParam != null) {
+            try {
+                size = Integer.parseInt(sizeParam);
+            } catch (NumberFormatException ignored) {
+                // keep the default
+            }
+        }
+        size = OrderDAO.clampPageSize(size);
+
+        int pageSize = size;
+        String cursor = req.getParameter("cursor");
+        async.execute(req, resp, "admin_orders", 15000, () -> {
+            Page<Order> page = orderDAO.getOrdersPage(filter, cursor, pageSize);
+            return Reply.ok(new OrderPageResponse(page, pageSize));
+        });
+    }
+
+    // Writes {"success":true,"orders":[...],"count":n} one order at a time
+    private void streamOrders(OrderFilter filter, HttpServletResponse resp) throws IOException {
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(resp.getOutputStream())) {
+            gen.writeStartObject();
+            gen.writeBooleanField("success", true);
+            gen.writeArrayFieldStart("orders");
+            int count = orderDAO.streamOrders(filter, order -> orderWriter.writeValue(gen, order));
+            gen.writeEndArray();
+            gen.writeNumberField("count", count);
+            gen.writeEndObject();
+        }
+    }
+
+    private OrderFilter parseFilter(HttpServletRequest req) {
+        OrderFilter filter = new OrderFilter();
+
+        String status = req.getParameter("status");
+        if (status != null && !status.isBlank()) filter.setStatus(status.trim());
+
+        String userId = req.getParameter("userId");
+        if (userId != null && !userId.isBlank()) filter.setUserId(userId.trim());
+
+        filter.setCreatedFrom(parseDate(req.getParameter("from"), false));
+        filter.setCreatedTo(parseDate(req.getParameter("to"), true));
+        return filter;
+    }
+
+    // A bare date as an upper bound means "through the end of that day"
+    private Timestamp parseDate(String value, boolean upperBound) {
+        if (value == null || value.isBlank()) return null;
+        String v = value.trim();
+        try {
+            if (v.length() == 10) {
+                LocalDate date = LocalDate.parse(v);
+                return Timestamp.valueOf((upperBound ? date.plusDays(1) : date).atStartOfDay());
+            }
+            return Timestamp.valueOf(LocalDateTime.parse(v));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + v);
+        }
     }
 
     // ===== PUT: Update order status (Admin only) =====
@@ -3,6 +3,7 @@ package com.shopease.servlet;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shopease.dao.UserDAO;
 import com.shopease.model.User;
+import com.shopease.util.Json;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -16,7 +17,7 @@ import java.util.Map;
 public class AdminUserServlet extends HttpServlet {
 
     private final UserDAO userDAO = new UserDAO();
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Json.mapper();
 
     // ===== Helper method for CORS headers =====
     private void setCorsHeaders(HttpServletRequest request, HttpServletResponse response) {
@@ -1,9 +1,10 @@
 package com.shopease.servlet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.shopease.dao.ProductDAO;
 import com.shopease.model.ProductVariant;
 import com.shopease.model.User;
+import com.shopease.service.ProductCatalogService;
+import com.shopease.util.Json;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -19,8 +20,8 @@ public class AdminVariantServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(AdminVariantServlet.class.getName());
 
-    private final ProductDAO productDAO = new ProductDAO();
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ProductCatalogService catalog = ProductCatalogService.getInstance();
+    private final ObjectMapper mapper = Json.mapper();
 
     // ================= CORS =================
     private void setCorsHeaders(HttpServletRequest request, HttpServletResponse response) {
@@ -73,7 +74,7 @@ public class AdminVariantServlet extends HttpServlet {
 
             mapper.writeValue(resp.getOutputStream(), Map.of(
                     "success", true,
-                    "variants", productDAO.getVariantsByProductId(productId)
+                    "variants", catalog.getVariantsByProductId(productId)
             ));
 
         } catch (Exception e) {
@@ -98,7 +99,7 @@ public class AdminVariantServlet extends HttpServlet {
             if (admin == null) return;
 
             ProductVariant variant = mapper.readValue(req.getInputStream(), ProductVariant.class);
-            boolean success = productDAO.addVariant(variant);
+            boolean success = catalog.addVariant(variant);
 
             resp.setStatus(success ? HttpServletResponse.SC_CREATED : HttpServletResponse.SC_BAD_REQUEST);
             mapper.writeValue(resp.getOutputStream(), Map.of(
@@ -128,7 +129,7 @@ public class AdminVariantServlet extends HttpServlet {
             if (admin == null) return;
 
             ProductVariant variant = mapper.readValue(req.getInputStream(), ProductVariant.class);
-            boolean success = productDAO.updateVariant(variant);
+            boolean success = catalog.updateVariant(variant);
 
             mapper.writeValue(resp.getOutputStream(), Map.of(
                     "success", success,
@@ -159,7 +160,7 @@ public class AdminVariantServlet extends HttpServlet {
             String variantId = extractIdFromPath(req, resp);
             if (variantId == null) return;
 
-            boolean success = productDAO.deleteVariant(variantId);
+            boolean success = catalog.deleteVariant(variantId);
 
             mapper.writeValue(resp.getOutputStream(), Map.of(
                     "success", success,
@@ -0,0 +1,116 @@
+package com.shopease.servlet;
+
+import com.shopease.dao.ProductDAO;
+import com.shopease.dto.ApiResponse;
+import com.shopease.dto.BrowseResponse;
+import com.shopease.model.Product;
+import com.shopease.search.FacetIndex;
+import com.shopease.service.ProductFacetService;
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.AsyncRequestExecutor.Reply;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Faceted product browsing:
+ * GET /api/browse?category=&brand=&tag=&price=&inStock=true&page=&size=
+ *
+ * Repeat a parameter to accept several values of one facet (brand=A&brand=B);
+ * different facets must all match. category takes an id, slug or slug path
+ * and includes subcategories; price takes a band key as returned in facets
+ * (e.g. "500-1000", "10000+").
+ */
+//@WebServlet(value = "/api/browse", asyncSupported = true)
+public class BrowseServlet extends HttpServlet {
+
+    private static final Logger LOGGER = Logger.getLogger(BrowseServlet.class.getName());
+    private static final String[] FACET_PARAMS = {
+            FacetIndex.CATEGORY, FacetIndex.BRAND, FacetIndex.TAG, FacetIndex.PRICE, FacetIndex.IN_STOCK};
+
+    private final ProductDAO productDAO = new ProductDAO();
+    private final ProductFacetService facets = ProductFacetService.getInstance();
+    private final AsyncRequestExecutor async = AsyncRequestExecutor.getInstance();
+
+    // ===== Helper method for CORS headers =====
+    private void setCorsHeaders(HttpServletRequest request, HttpServletResponse response) {
+        String[] allowedOrigins = {"http://localhost:3000", "http://localhost:8080","https://shopease-six-navy.vercel.app","https://shopease-6p3wxf3cu-rajvardhan-singh-dewdas-projects.vercel.app"};
+        String origin = request.getHeader("Origin");
+
+        if (origin != null) {
+            for (String allowedOrigin : allowedOrigins) {
+                if (allowedOrigin.equals(origin)) {
+                    response.setHeader("Access-Control-Allow-Origin", origin);
+                    break;
+                }
+            }
+        }
+
+        response.setHeader("Access-Control-Allow-Credentials", "true");
+        response.setHeader("Access-Control-Allow-Methods", "GET, OPTIONS");
+        response.setHeader("Access-Control-Allow-Headers", "Content-Type, Accept, Authorization");
+        response.setHeader("Vary", "Origin");
+    }
+
+    // ===== Handle preflight OPTIONS requests =====
+    @Override
+    protected void doOptions(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        setCorsHeaders(req, resp);
+        resp.setStatus(HttpServletResponse.SC_OK);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        setCorsHeaders(req, resp);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        Map<String, Set<String>> filters = new HashMap<>();
+        for (String facet : FACET_PARAMS) {
+            String[] values = req.getParameterValues(facet);
+            if (values == null) continue;
+            Set<String> accepted = new LinkedHashSet<>();
+            for (String value : values) {
+                if (value != null && !value.isBlank()) accepted.add(value.trim());
+            }
+            if (!accepted.isEmpty()) filters.put(facet, accepted);
+        }
+
+        int size = ProductDAO.DEFAULT_PAGE_SIZE;
+        int page = 1;
+        try {
+            String sizeParam = req.getParameter("size");
+            if (sizeParam != null) size = Integer.parseInt(sizeParam);
+            String pageParam = req.getParameter("page");
+            if (pageParam != null) page = Math.max(1, Integer.parseInt(pageParam));
+        } catch (NumberFormatException ignored) {}
+        int pageSize = ProductDAO.clampPageSize(size);
+        int pageNumber = page;
+
+        // The bitmap query is in-memory; only the page of products is read from MySQL
+        async.execute(req, resp, "browse", 5000, () -> {
+            try {
+                FacetIndex.Result result = facets.browse(filters,
+                        (int) Math.min(Integer.MAX_VALUE, (long) (pageNumber - 1) * pageSize), pageSize);
+                List<Product> products = productDAO.getProductsByIds(result.getProductIds());
+                return Reply.ok(new BrowseResponse(products, result.getTotal(), pageNumber, pageSize, result.getFacets()));
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error browsing products", e);
+                return Reply.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, ApiResponse.error("Internal server error"));
+            }
+        });
+    }
+}
@@ -1,18 +1,20 @@
 package com.shopease.servlet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.shopease.dao.CartDAO;
-import com.shopease.model.Cart;
+import com.shopease.dto.ApiResponse;
+import com.shopease.service.CartService;
 import com.shopease.model.CartItem;
+import com.shopease.model.CartSnapshot;
+import com.shopease.model.User;
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.AsyncRequestExecutor.Reply;
+import com.shopease.util.Json;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.*;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -21,12 +23,13 @@ import java.util.logging.Logger;
 public class CartServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(CartServlet.class.getName());
-    private CartDAO cartDAO;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CartService cartService;
+    private final ObjectMapper objectMapper = Json.mapper();
+    private final AsyncRequestExecutor async = AsyncRequestExecutor.getInstance();
 
     @Override
     public void init() throws ServletException {
-        cartDAO = new CartDAO();
+        cartService = CartService.getInstance();
     }
 
     // ===== Helper method for CORS headers =====
@@ -65,46 +68,23 @@ public class CartServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        try (PrintWriter out = response.getWriter()) {
-            HttpSession session = request.getSession(false);
-            if (session == null || session.getAttribute("userId") == null) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                out.print("{\"error\":\"User not logged in\"}");
-                return;
-            }
-
-            String pathInfo = request.getPathInfo(); // /1
-            if (pathInfo == null || pathInfo.equals("/")) {
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                out.print("{\"error\":\"User ID required in path\"}");
-                return;
-            }
+        HttpSession session = request.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.getWriter().print("{\"error\":\"User not logged in\"}");
+            return;
+        }
 
-            int userId;
-            try {
-                userId = Integer.parseInt(pathInfo.substring(1));
-            } catch (NumberFormatException e) {
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                out.print("{\"error\":\"Invalid user ID\"}");
-                return;
-            }
+        // Always the caller's own cart; any id in the path is ignored
+        String userId = ((User) session.getAttribute("user")).getUserId();
 
-            Cart cart = cartDAO.getCartByUserId(String.valueOf(userId));
-            if (cart != null) {
-                List<CartItem> items = cartDAO.getCartItems(cart.getCartId());
-                Map<String, Object> result = new HashMap<>();
-                result.put("cart", cart);
-                result.put("items", items);
-                out.print(objectMapper.writeValueAsString(result));
-            } else {
-                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
-                out.print("{\"error\":\"Cart not found for this user\"}");
+        async.execute(request, response, "cart", 5000, () -> {
+            CartSnapshot snapshot = cartService.getSnapshot(userId);
+            if (snapshot == null) {
+                return Reply.status(HttpServletResponse.SC_NOT_FOUND, Map.of("error", "Cart not found for this user"));
             }
-
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error fetching cart", e);
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-        }
+            return Reply.ok(snapshot);
+        });
     }
 
     @Override
@@ -115,32 +95,31 @@ public class CartServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        try (PrintWriter out = response.getWriter()) {
-            HttpSession session = request.getSession(false);
-            if (session == null || session.getAttribute("userId") == null) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                out.print("{\"error\":\"User not logged in\"}");
-                return;
-            }
+        HttpSession session = request.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.getWriter().print("{\"error\":\"User not logged in\"}");
+            return;
+        }
 
-            String path = request.getPathInfo();
-            if (path == null) {
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                out.print("{\"error\":\"Missing endpoint path\"}");
-                return;
-            }
+        String path = request.getPathInfo();
+        if (path == null) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.getWriter().print("{\"error\":\"Missing endpoint path\"}");
+            return;
+        }
+        String userId = ((User) session.getAttribute("user")).getUserId();
 
+        try {
             switch (path) {
                 case "/add": {
                     CartItem item = objectMapper.readValue(request.getInputStream(), CartItem.class);
-                    String userId = (String) session.getAttribute("userId");
-                    Cart cart = cartDAO.getCartByUserId(userId);
-                    item.setCartId(cart.getCartId());
-
-                    boolean success = cartDAO.addItemToCart(item);
-                    response.setStatus(success ? HttpServletResponse.SC_CREATED : HttpServletResponse.SC_BAD_REQUEST);
-                    out.print("{\"success\":" + success + ",\"message\":\"" +
-                            (success ? "Item added to cart" : "Failed to add item") + "\"}");
+
+                    async.execute(request, response, "cart", 5000, () -> {
+                        boolean success = cartService.addItem(userId, item.getProductId(), item.getVariantId(), item.getQuantity());
+                        return Reply.status(success ? HttpServletResponse.SC_CREATED : HttpServletResponse.SC_BAD_REQUEST,
+                                result(success, success ? "Item added to cart" : "Failed to add item"));
+                    });
                     break;
                 }
                 case "/update": {
@@ -148,15 +127,16 @@ public class CartServlet extends HttpServlet {
                     String cartItemId = ((String) data.get("cartItemId"));
                     int quantity = ((Number) data.get("quantity")).intValue();
 
-                    boolean success = cartDAO.updateQuantity(cartItemId, quantity);
-                    response.setStatus(success ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST);
-                    out.print("{\"success\":" + success + ",\"message\":\"" +
-                            (success ? "Quantity updated" : "Failed to update quantity") + "\"}");
+                    async.execute(request, response, "cart", 5000, () -> {
+                        boolean success = cartService.updateQuantity(userId, cartItemId, quantity);
+                        return Reply.status(success ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST,
+                                result(success, success ? "Quantity updated" : "Failed to update quantity"));
+                    });
                     break;
                 }
                 default:
                     response.setStatus(HttpServletResponse.SC_NOT_FOUND);
-                    out.print("{\"error\":\"Invalid endpoint\"}");
+                    response.getWriter().print("{\"error\":\"Invalid endpoint\"}");
                     break;
             }
 
@@ -174,30 +154,30 @@ public class CartServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        try (PrintWriter out = response.getWriter()) {
-            HttpSession session = request.getSession(false);
-            if (session == null || session.getAttribute("userId") == null) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                out.print("{\"error\":\"User not logged in\"}");
-                return;
-            }
+        HttpSession session = request.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.getWriter().print("{\"error\":\"User not logged in\"}");
+            return;
+        }
 
-            String pathInfo = request.getPathInfo(); // /remove/5
-            if (pathInfo == null || !pathInfo.startsWith("/remove/")) {
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                out.print("{\"error\":\"Invalid path. Use /remove/{cartItemId}\"}");
-                return;
-            }
+        String pathInfo = request.getPathInfo(); // /remove/5
+        if (pathInfo == null || !pathInfo.startsWith("/remove/")) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.getWriter().print("{\"error\":\"Invalid path. Use /remove/{cartItemId}\"}");
+            return;
+        }
 
-            String cartItemId = pathInfo.substring("/remove/".length());
-            boolean success = cartDAO.removeItem(cartItemId);
-            response.setStatus(success ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST);
-            out.print("{\"success\":" + success + ",\"message\":\"" +
-                    (success ? "Item removed" : "Failed to remove item") + "\"}");
+        String cartItemId = pathInfo.substring("/remove/".length());
+        String userId = ((User) session.getAttribute("user")).getUserId();
+        async.execute(request, response, "cart", 5000, () -> {
+            boolean success = cartService.removeItem(userId, cartItemId);
+            return Reply.status(success ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST,
+                    result(success, success ? "Item removed" : "Failed to remove item"));
+        });
+    }
 
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error removing cart item", e);
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-        }
+    private static ApiResponse result(boolean success, String message) {
+        return new ApiResponse(success, message);
     }
 }
@@ -1,8 +1,13 @@
 package com.shopease.servlet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.shopease.dao.CategoryDAO;
+import com.shopease.cache.ResponseCache;
+import com.shopease.dto.CategoryNode;
 import com.shopease.model.Category;
+import com.shopease.service.CategoryTreeService;
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.AsyncRequestExecutor.Reply;
+import com.shopease.util.Json;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -10,7 +15,7 @@ import jakarta.servlet.http.*;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,13 +23,10 @@ import java.util.logging.Logger;
 public class CategoryServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(CategoryServlet.class.getName());
-    private CategoryDAO categoryDAO;
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    @Override
-    public void init() throws ServletException {
-        categoryDAO = new CategoryDAO();
-    }
+    private final CategoryTreeService categories = CategoryTreeService.getInstance();
+    private final ObjectMapper objectMapper = Json.mapper();
+    private final AsyncRequestExecutor async = AsyncRequestExecutor.getInstance();
+    private final ResponseCache responses = ResponseCache.getInstance();
 
     // ===== Helper method for CORS headers =====
     private void setCorsHeaders(HttpServletRequest request, HttpServletResponse response) {
@@ -61,29 +63,36 @@ public class CategoryServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        try (PrintWriter out = response.getWriter()) {
-            String pathInfo = request.getPathInfo(); // /1 or null
-            if (pathInfo == null || pathInfo.equals("/")) {
-                List<Category> categories = categoryDAO.getAllCategories();
-                out.print(objectMapper.writeValueAsString(categories));
-            } else {
-                int categoryId = Integer.parseInt(pathInfo.substring(1));
-                Category category = categoryDAO.getCategoryById(categoryId);
-                if (category != null) {
-                    out.print(objectMapper.writeValueAsString(category));
-                } else {
-                    response.setStatus(HttpServletResponse.SC_NOT_FOUND);
-                    out.print("{\"error\":\"Category not found\"}");
-                }
+        // Served from the in-memory tree; only the very first request (tree not built yet) reads MySQL.
+        // Categories have no updated_at, so their responses are validated by ETag only
+        String pathInfo = request.getPathInfo(); // /{id}, /{slug}, /{slug}/{slug} or null
+        if (pathInfo == null || pathInfo.equals("/")) {
+            String key = "categories";
+            ResponseCache.Entry cached = responses.get(key);
+            if (cached != null) {
+                async.write(response, responses.reply(request, cached));
+                return;
             }
-        } catch (NumberFormatException e) {
-            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-            response.getWriter().print("{\"error\":\"Invalid category ID\"}");
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error fetching categories", e);
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            response.getWriter().print("{\"error\":\"Server error\"}");
+            long stamp = responses.stamp();
+            async.execute(request, response, "categories", 5000,
+                    () -> responses.reply(request, responses.store(key, stamp, categories.getRoots())));
+            return;
+        }
+
+        String lookup = pathInfo.substring(1);
+        String key = "categories/" + lookup;
+        ResponseCache.Entry cached = responses.get(key);
+        if (cached != null) {
+            async.write(response, responses.reply(request, cached));
+            return;
         }
+        long stamp = responses.stamp();
+        async.execute(request, response, "categories", 5000, () -> {
+            CategoryNode category = categories.find(lookup);
+            return category != null
+                    ? responses.reply(request, responses.store(key, stamp, category))
+                    : Reply.status(HttpServletResponse.SC_NOT_FOUND, Map.of("error", "Category not found"));
+        });
     }
 
     @Override
@@ -102,7 +111,7 @@ public class CategoryServlet extends HttpServlet {
             }
 
             Category category = objectMapper.readValue(request.getInputStream(), Category.class);
-            boolean success = categoryDAO.addCategory(category);
+            boolean success = categories.addCategory(category);
             response.setStatus(success ? HttpServletResponse.SC_CREATED : HttpServletResponse.SC_BAD_REQUEST);
             out.print("{\"success\":" + success + ",\"message\":\"" +
                     (success ? "Category added successfully" : "Failed to add category") + "\"}");
@@ -129,7 +138,12 @@ public class CategoryServlet extends HttpServlet {
             }
 
             Category category = objectMapper.readValue(request.getInputStream(), Category.class);
-            boolean success = categoryDAO.updateCategory(category);
+            if (categories.wouldCreateCycle(category.getCategoryId(), category.getParentId())) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                out.print("{\"error\":\"A category can't be moved under itself or its subcategories\"}");
+                return;
+            }
+            boolean success = categories.updateCategory(category);
             response.setStatus(success ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST);
             out.print("{\"success\":" + success + ",\"message\":\"" +
                     (success ? "Category updated successfully" : "Failed to update category") + "\"}");
@@ -162,14 +176,11 @@ public class CategoryServlet extends HttpServlet {
                 return;
             }
 
-            int categoryId = Integer.parseInt(pathInfo.substring(1));
-            boolean success = categoryDAO.deleteCategory(categoryId);
+            String categoryId = pathInfo.substring(1);
+            boolean success = categories.deleteCategory(categoryId);
             response.setStatus(success ? HttpServletResponse.SC_OK : HttpServletResponse.SC_NOT_FOUND);
             out.print("{\"success\":" + success + ",\"message\":\"" +
                     (success ? "Category deleted" : "Failed to delete category") + "\"}");
-        } catch (NumberFormatException e) {
-            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-            response.getWriter().print("{\"error\":\"Invalid category ID\"}");
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error deleting category", e);
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -0,0 +1,57 @@
+package com.shopease.servlet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopease.cache.ResponseCache;
+import com.shopease.filter.CompressionFilter;
+import com.shopease.service.CartService;
+import com.shopease.service.CategoryTreeService;
+import com.shopease.service.InventoryService;
+import com.shopease.service.PasswordHashingService;
+import com.shopease.service.PaymentService;
+import com.shopease.service.ProductFacetService;
+import com.shopease.service.ProductCatalogService;
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.AuthTokens;
+import com.shopease.util.ConnectionPool;
+import com.shopease.util.DaoExecutor;
+import com.shopease.util.Json;
+
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+@WebServlet("/api/health")
+public class HealthServlet extends HttpServlet {
+
+    private final ObjectMapper mapper = Json.mapper();
+
+    // ===== GET: service, connection pool, cache, cart and inventory status =====
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("pool", ConnectionPool.getStats());
+        result.put("requests", AsyncRequestExecutor.getInstance().getStats());
+        result.put("dao", DaoExecutor.getInstance().getStats());
+        result.put("productCache", ProductCatalogService.getInstance().getStats());
+        result.put("responseCache", ResponseCache.getInstance().getStats());
+        result.put("carts", CartService.getInstance().getStats());
+        result.put("inventory", InventoryService.getInstance().getStats());
+        result.put("payments", PaymentService.getInstance().getStats());
+        result.put("categories", CategoryTreeService.getInstance().getStats());
+        result.put("facets", ProductFacetService.getInstance().getStats());
+        result.put("passwords", PasswordHashingService.getInstance().getStats());
+        result.put("compression", CompressionFilter.getStats());
+        result.put("auth", AuthTokens.getInstance().getStats());
+
+        mapper.writeValue(resp.getOutputStream(), result);
+    }
+}
@@ -3,7 +3,12 @@ package com.shopease.servlet;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shopease.dao.UserDAO;
 import com.shopease.model.User;
-import com.shopease.util.PasswordUtil;
+import com.shopease.service.PasswordHashingService;
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.AuthTokens;
+import com.shopease.util.AsyncRequestExecutor.Reply;
+import com.shopease.util.DaoExecutor;
+import com.shopease.util.Json;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -12,6 +17,9 @@ import jakarta.servlet.http.*;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,7 +28,13 @@ public class LoginServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(LoginServlet.class.getName());
     private final UserDAO userDAO = new UserDAO();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final ObjectMapper objectMapper = Json.mapper();
+    private final PasswordHashingService hasher = PasswordHashingService.getInstance();
+    private final AsyncRequestExecutor async = AsyncRequestExecutor.getInstance();
+    private final DaoExecutor dao = DaoExecutor.getInstance();
+    private final AuthTokens tokens = AuthTokens.getInstance();
 
     private void setCorsHeaders(HttpServletRequest request, HttpServletResponse response) {
         String[] allowedOrigins = {
@@ -65,65 +79,101 @@ public class LoginServlet extends HttpServlet {
 
         Map<String, Object> jsonResponse = new HashMap<>();
 
+        String email;
+        String password;
+        boolean adminLogin;
         try {
             Map<String, String> requestBody = objectMapper.readValue(request.getInputStream(), Map.class);
-            String email = requestBody.get("email");
-            String password = requestBody.get("password");
-            boolean adminLogin = Boolean.parseBoolean(requestBody.getOrDefault("admin", "false")); // optional admin flag
-
-            if (email == null || password == null || email.isEmpty() || password.isEmpty()) {
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                jsonResponse.put("success", false);
-                jsonResponse.put("message", "Email and password are required");
-                objectMapper.writeValue(response.getOutputStream(), jsonResponse);
-                return;
-            }
+            email = requestBody.get("email");
+            password = requestBody.get("password");
+            adminLogin = Boolean.parseBoolean(requestBody.getOrDefault("admin", "false")); // optional admin flag
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Unreadable login request", e);
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            jsonResponse.put("success", false);
+            jsonResponse.put("message", "Invalid request body");
+            objectMapper.writeValue(response.getOutputStream(), jsonResponse);
+            return;
+        }
+
+        if (email == null || password == null || email.isEmpty() || password.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            jsonResponse.put("success", false);
+            jsonResponse.put("message", "Email and password are required");
+            objectMapper.writeValue(response.getOutputStream(), jsonResponse);
+            return;
+        }
 
-            User user = userDAO.getUserByEmail(email);
+        // User lookup runs on DaoExecutor and BCrypt on the hashing pool; no request thread waits on either
+        CompletableFuture<Reply> reply = dao.submit(() -> userDAO.getUserByEmail(email))
+                .thenCompose(user -> {
+                    if (user == null) {
+                        return CompletableFuture.completedFuture(
+                                result(HttpServletResponse.SC_UNAUTHORIZED, "Invalid email or password"));
+                    }
+                    return hasher.verify(password, user.getPassword())
+                            .thenApply(check -> completeLogin(request, user, check, adminLogin));
+                })
+                .exceptionally(LoginServlet::failure);
+
+        async.await(request, response, "login", 10000, reply, null);
+    }
 
-            if (user == null || !PasswordUtil.checkPassword(password, user.getPassword())) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                jsonResponse.put("success", false);
-                jsonResponse.put("message", "Invalid email or password");
-                objectMapper.writeValue(response.getOutputStream(), jsonResponse);
-                return;
-            }
+    private Reply completeLogin(HttpServletRequest request, User user,
+                                PasswordHashingService.Verification check, boolean adminLogin) {
+        if (!check.matches()) {
+            return result(HttpServletResponse.SC_UNAUTHORIZED, "Invalid email or password");
+        }
 
-            // ✅ Admin check
-            if (adminLogin && !user.isAdmin()) {
-                response.setStatus(HttpServletResponse.SC_FORBIDDEN);
-                jsonResponse.put("success", false);
-                jsonResponse.put("message", "You are not authorized as admin");
-                objectMapper.writeValue(response.getOutputStream(), jsonResponse);
-                return;
-            }
+        // Stored hash was made at another bcrypt cost; swap in the new one without holding up the login
+        if (check.getRehash() != null) {
+            String userId = user.getUserId();
+            dao.submit(() -> userDAO.updatePasswordHash(userId, check.getRehash()));
+        }
 
-            // Successful login
-            HttpSession session = request.getSession(true);
-            session.setMaxInactiveInterval(30 * 60);
+        // ✅ Admin check
+        if (adminLogin && !user.isAdmin()) {
+            return result(HttpServletResponse.SC_FORBIDDEN, "You are not authorized as admin");
+        }
 
-            user.setPassword(null);
-            session.setAttribute("user", user);
+        user.setPassword(null);
 
-// IMPORTANT for cross-site cookies (Vercel → Railway)
-            String sessionId = session.getId();
-            response.setHeader(
-                    "Set-Cookie",
-                    "JSESSIONID=" + sessionId + "; Path=/; HttpOnly; Secure; SameSite=None"
-            );
+        Map<String, Object> jsonResponse = new HashMap<>();
+        jsonResponse.put("success", true);
+        jsonResponse.put("message", "Login successful");
+        jsonResponse.put("user", user);
+
+        // AUTH_MODE=token: the signed token replaces the server-side session
+        if (tokens.isEnabled()) {
+            String token = tokens.issue(user);
+            jsonResponse.put("token", token);
+            return Reply.ok(jsonResponse).header("Set-Cookie", tokens.cookie(token));
+        }
 
-            jsonResponse.put("success", true);
-            jsonResponse.put("message", "Login successful");
-            jsonResponse.put("user", user);
-            response.setStatus(HttpServletResponse.SC_OK);
+        // Successful login
+        HttpSession session = request.getSession(true);
+        session.setMaxInactiveInterval(30 * 60);
+        session.setAttribute("user", user);
 
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error during login", e);
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            jsonResponse.put("success", false);
-            jsonResponse.put("message", "Server error: " + e.getMessage());
+// IMPORTANT for cross-site cookies (Vercel → Railway)
+        return Reply.ok(jsonResponse).header("Set-Cookie",
+                "JSESSIONID=" + session.getId() + "; Path=/; HttpOnly; Secure; SameSite=None");
+    }
+
+    // A full hashing queue is the client's cue to back off, not a server error
+    private static Reply failure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return result(TOO_MANY_REQUESTS, "Too many login attempts right now, please retry").header("Retry-After", "2");
         }
+        LOGGER.log(Level.SEVERE, "Error during login", cause);
+        return result(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Server error: " + cause.getMessage());
+    }
 
-        objectMapper.writeValue(response.getOutputStream(), jsonResponse);
+    private static Reply result(int status, String message) {
+        Map<String, Object> jsonResponse = new HashMap<>();
+        jsonResponse.put("success", false);
+        jsonResponse.put("message", message);
+        return Reply.status(status, jsonResponse);
     }
-}
\ No newline at end of file
+}
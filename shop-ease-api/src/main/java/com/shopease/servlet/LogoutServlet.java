@@ -13,11 +13,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopease.util.AuthTokens;
+import com.shopease.util.Json;
 
 //@WebServlet("/api/logout")
 public class LogoutServlet extends HttpServlet {
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Json.mapper();
 
     // ===== Helper method for CORS headers =====
     private void setCorsHeaders(HttpServletRequest request, HttpServletResponse response) {
@@ -59,7 +61,10 @@ public class LogoutServlet extends HttpServlet {
             HttpSession session = request.getSession(false);
 
             if (session != null) {
-                session.invalidate();
+                session.invalidate(); // in AUTH_MODE=token this revokes the token
+                if (AuthTokens.getInstance().isEnabled()) {
+                    response.setHeader("Set-Cookie", AuthTokens.getInstance().clearCookie());
+                }
                 result.put("success", true);
                 result.put("message", "Logged out successfully");
                 response.setStatus(HttpServletResponse.SC_OK);
@@ -1,18 +1,19 @@
 package com.shopease.servlet;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shopease.dao.OrderDAO;
+import com.shopease.dto.ApiResponse;
+import com.shopease.dto.OrderResponse;
 import com.shopease.model.Order;
 import com.shopease.model.User;
+import com.shopease.service.CheckoutService;
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.AsyncRequestExecutor.Reply;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.*;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.List;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 //@WebServlet("/api/orders/*")
@@ -20,7 +21,7 @@ public class OrderServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(OrderServlet.class.getName());
     private final OrderDAO orderDAO = new OrderDAO();
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final AsyncRequestExecutor async = AsyncRequestExecutor.getInstance();
 
     // ===== Helper method for CORS headers =====
     private void setCorsHeaders(HttpServletRequest request, HttpServletResponse response) {
@@ -56,46 +57,80 @@ public class OrderServlet extends HttpServlet {
         resp.setContentType("application/json");
         resp.setCharacterEncoding("UTF-8");
 
-        try (PrintWriter out = resp.getWriter()) {
-            HttpSession session = req.getSession(false);
-            if (session == null || session.getAttribute("user") == null) {
-                resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                out.print("{\"success\": false, \"message\": \"Login required\"}");
+        HttpSession session = req.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
+            resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            resp.getWriter().print("{\"success\": false, \"message\": \"Login required\"}");
+            return;
+        }
+
+        User user = (User) session.getAttribute("user");
+        String userId = user.getUserId(); // UUID as String
+
+        // Optional: fetch single order by ID
+        String pathInfo = req.getPathInfo(); // e.g., /5
+        if (pathInfo != null && !pathInfo.equals("/")) {
+            int orderId;
+            try {
+                orderId = Integer.parseInt(pathInfo.substring(1));
+            } catch (NumberFormatException e) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                resp.getWriter().print("{\"success\": false, \"message\": \"Invalid order ID\"}");
                 return;
             }
 
-            User user = (User) session.getAttribute("user");
-            String userId = user.getUserId(); // UUID as String
-
-            // Optional: fetch single order by ID
-            String pathInfo = req.getPathInfo(); // e.g., /5
-            if (pathInfo != null && !pathInfo.equals("/")) {
-                try {
-                    int orderId = Integer.parseInt(pathInfo.substring(1));
-                    Order order = orderDAO.getOrderById(orderId);
-
-                    if (order != null && userId.equals(order.getUserId())) {
-                        out.print(mapper.writeValueAsString(order));
-                    } else {
-                        resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
-                        out.print("{\"success\": false, \"message\": \"Order not found\"}");
-                    }
-                    return;
-                } catch (NumberFormatException e) {
-                    resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                    out.print("{\"success\": false, \"message\": \"Invalid order ID\"}");
-                    return;
+            async.execute(req, resp, "orders", 10000, () -> {
+                Order order = orderDAO.getOrderById(orderId);
+                if (order != null && userId.equals(order.getUserId())) {
+                    return Reply.ok(order);
                 }
-            }
+                return Reply.status(HttpServletResponse.SC_NOT_FOUND, result("Order not found"));
+            });
+            return;
+        }
+
+        // Fetch all orders for user
+        async.execute(req, resp, "orders", 10000, () -> Reply.ok(orderDAO.getOrdersByUserId(userId)));
+    }
 
-            // Fetch all orders for user
-            List<Order> orders = orderDAO.getOrdersByUserId(userId);
-            out.print(mapper.writeValueAsString(orders));
+    // ===== POST: place an order from the session user's cart =====
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        setCorsHeaders(req, resp);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
 
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error fetching orders", e);
-            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            resp.getWriter().print("{\"success\": false, \"message\": \"Server error\"}");
+        HttpSession session = req.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
+            resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            resp.getWriter().print("{\"success\": false, \"message\": \"Login required\"}");
+            return;
         }
+        User user = (User) session.getAttribute("user");
+
+        async.execute(req, resp, "checkout", 15000, () -> {
+            CheckoutService.CheckoutResult result = CheckoutService.getInstance().placeOrder(user.getUserId());
+            switch (result.getStatus()) {
+                case PLACED -> {
+                    return Reply.status(HttpServletResponse.SC_CREATED, new OrderResponse(result.getOrder()));
+                }
+                case EMPTY_CART -> {
+                    return Reply.status(HttpServletResponse.SC_BAD_REQUEST, result("Cart is empty"));
+                }
+                case OUT_OF_STOCK -> {
+                    return Reply.status(HttpServletResponse.SC_CONFLICT, result("Some items are out of stock"));
+                }
+                case CART_CHANGED -> {
+                    return Reply.status(HttpServletResponse.SC_CONFLICT, result("Cart changed or was already checked out"));
+                }
+                default -> {
+                    return Reply.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, result("Could not place order"));
+                }
+            }
+        });
+    }
+
+    private static ApiResponse result(String message) {
+        return ApiResponse.error(message);
     }
 }
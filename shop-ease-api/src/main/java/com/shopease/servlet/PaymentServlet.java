@@ -2,16 +2,22 @@ package com.shopease.servlet;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopease.dto.ApiResponse;
+import com.shopease.dto.PaymentResponse;
 import com.shopease.dao.OrderDAO;
 import com.shopease.model.Order;
+import com.shopease.model.Payment;
 import com.shopease.model.User;
+import com.shopease.service.PaymentService;
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.AsyncRequestExecutor.Reply;
+import com.shopease.util.Json;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.*;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -20,8 +26,12 @@ import java.util.logging.Logger;
 public class PaymentServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(PaymentServlet.class.getName());
-    private final ObjectMapper mapper = new ObjectMapper();
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int MAX_WAIT_SECONDS = 30;
+    private final ObjectMapper mapper = Json.mapper();
     private final OrderDAO orderDAO = new OrderDAO();
+    private final PaymentService payments = PaymentService.getInstance();
+    private final AsyncRequestExecutor async = AsyncRequestExecutor.getInstance();
 
     // ===== CORS helper =====
     private void setCorsHeaders(HttpServletRequest request, HttpServletResponse response) {
@@ -30,8 +40,8 @@ public class PaymentServlet extends HttpServlet {
             response.setHeader("Access-Control-Allow-Origin", origin);
         }
         response.setHeader("Access-Control-Allow-Credentials", "true");
-        response.setHeader("Access-Control-Allow-Methods", "POST, OPTIONS");
-        response.setHeader("Access-Control-Allow-Headers", "Content-Type, Accept, Authorization");
+        response.setHeader("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
+        response.setHeader("Access-Control-Allow-Headers", "Content-Type, Accept, Authorization, Idempotency-Key");
         response.setHeader("Vary", "Origin");
     }
 
@@ -47,12 +57,11 @@ public class PaymentServlet extends HttpServlet {
         setCorsHeaders(request, response);
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
-        PrintWriter out = response.getWriter();
 
         HttpSession session = request.getSession(false);
         if (session == null || session.getAttribute("user") == null) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            out.print("{\"success\": false, \"message\": \"Login required to make payment\"}");
+            response.getWriter().print("{\"success\": false, \"message\": \"Login required to make payment\"}");
             return;
         }
 
@@ -67,61 +76,144 @@ public class PaymentServlet extends HttpServlet {
             String orderIdStr = paymentData.get("orderId");
             String paymentMethod = paymentData.get("paymentMethod");
             String details = paymentData.get("details");
+            String keyParam = request.getHeader("Idempotency-Key");
+            if (keyParam == null || keyParam.isBlank()) keyParam = paymentData.get("idempotencyKey");
 
             if (orderIdStr == null || paymentMethod == null || details == null) {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                out.print("{\"success\": false, \"message\": \"Invalid payment data\"}");
+                response.getWriter().print("{\"success\": false, \"message\": \"Invalid payment data\"}");
                 return;
             }
+            if (keyParam == null || keyParam.isBlank() || keyParam.length() > MAX_KEY_LENGTH) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.getWriter().print("{\"success\": false, \"message\": \"Idempotency-Key header is required (max 100 characters)\"}");
+                return;
+            }
+            String idempotencyKey = keyParam.trim();
 
             int orderId;
             try {
                 orderId = Integer.parseInt(orderIdStr);
             } catch (NumberFormatException e) {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                out.print("{\"success\": false, \"message\": \"Invalid order ID\"}");
-                return;
-            }
-
-            Order order = orderDAO.getOrderById(orderId);
-            if (order == null || !user.getUserId().equals(order.getUserId())) {
-                response.setStatus(HttpServletResponse.SC_FORBIDDEN);
-                out.print("{\"success\": false, \"message\": \"Order not found or does not belong to user\"}");
+                response.getWriter().print("{\"success\": false, \"message\": \"Invalid order ID\"}");
                 return;
             }
 
-            boolean paymentSuccess = processPayment(user.getUserId(), orderId, paymentMethod, details);
-
-            if (paymentSuccess) {
-                out.print("{\"success\": true, \"message\": \"Payment successful\"}");
-            } else {
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                out.print("{\"success\": false, \"message\": \"Payment failed\"}");
-            }
+            async.execute(request, response, "payment", 10000,
+                    () -> submit(user, orderId, idempotencyKey, paymentMethod, details));
 
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Payment processing error", e);
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            out.print("{\"success\": false, \"message\": \"Server error during payment\"}");
+            response.getWriter().print("{\"success\": false, \"message\": \"Server error during payment\"}");
         }
     }
 
-    private boolean processPayment(String userId, int orderId, String method, String details) {
-        LOGGER.info("Processing payment for UserID: " + userId +
-                ", OrderID: " + orderId +
-                ", Method: " + method +
-                ", Details: " + details);
-
-        boolean paymentSuccess = true; // Simulate success
+    private Reply submit(User user, int orderId, String idempotencyKey, String paymentMethod, String details) {
+        Order order = orderDAO.getOrderById(orderId);
+        if (order == null || !user.getUserId().equals(order.getUserId())) {
+            return Reply.status(HttpServletResponse.SC_FORBIDDEN, message("Order not found or does not belong to user"));
+        }
 
-        if (paymentSuccess) {
-            boolean updated = orderDAO.updateOrderStatus(orderId, "PAID");
-            if (!updated) {
-                LOGGER.warning("Failed to update order status for orderId: " + orderId);
-                paymentSuccess = false;
+        if ("PAID".equals(order.getStatus())) {
+            // A retry of the request that paid the order gets its original result
+            PaymentService.PaymentJob job = payments.getJob(idempotencyKey);
+            Payment previous = job != null ? job.snapshot() : payments.findPayment(idempotencyKey);
+            if (previous != null && previous.getOrderId() == orderId) {
+                return Reply.ok(paymentBody(previous, null));
             }
+            return Reply.status(HttpServletResponse.SC_CONFLICT, message("Order is already paid"));
         }
 
-        return paymentSuccess;
+        PaymentService.Submission submission = payments.submit(idempotencyKey, order, paymentMethod, details);
+        switch (submission.getOutcome()) {
+            case BUSY:
+                return Reply.status(HttpServletResponse.SC_SERVICE_UNAVAILABLE, message("Payment service is busy, please retry"))
+                        .header("Retry-After", "5");
+            case CONFLICT:
+                return Reply.status(HttpServletResponse.SC_CONFLICT, message("Idempotency key already used for another order"));
+            case ORDER_BUSY:
+                return Reply.status(HttpServletResponse.SC_CONFLICT, message("A payment for this order is already in progress"));
+            default:
+                PaymentService.PaymentJob job = submission.getJob();
+                int status = job.isDone() ? HttpServletResponse.SC_OK : HttpServletResponse.SC_ACCEPTED;
+                return Reply.status(status, paymentBody(job.snapshot(), job.getMessage()));
+        }
+    }
+
+    /**
+     * Payment status by idempotency key. With wait=N (seconds, max 30) the
+     * request is parked until the payment finishes or the wait runs out;
+     * no thread is held while it waits.
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        setCorsHeaders(request, response);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        HttpSession session = request.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.getWriter().print("{\"success\": false, \"message\": \"Login required\"}");
+            return;
+        }
+
+        User user = (User) session.getAttribute("user");
+        String keyParam = request.getParameter("key");
+        if (keyParam == null || keyParam.isBlank()) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.getWriter().print("{\"success\": false, \"message\": \"Payment key is required\"}");
+            return;
+        }
+        String idempotencyKey = keyParam.trim();
+
+        int waitSeconds = 0;
+        try {
+            String wait = request.getParameter("wait");
+            if (wait != null) waitSeconds = Math.max(0, Math.min(MAX_WAIT_SECONDS, Integer.parseInt(wait)));
+        } catch (NumberFormatException ignored) {}
+
+        PaymentService.PaymentJob job = payments.getJob(idempotencyKey);
+        if (job == null) {
+            // Not held in memory any more; read the stored outcome
+            async.execute(request, response, "payment", 10000, () -> {
+                Payment payment = payments.findPayment(idempotencyKey);
+                if (payment == null || !ownsOrder(user, payment.getOrderId())) {
+                    return Reply.status(HttpServletResponse.SC_NOT_FOUND, message("Payment not found"));
+                }
+                return Reply.ok(paymentBody(payment, null));
+            });
+            return;
+        }
+
+        if (!user.getUserId().equals(job.getUserId())) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            response.getWriter().print("{\"success\": false, \"message\": \"Payment not found\"}");
+            return;
+        }
+
+        if (waitSeconds == 0 || job.isDone()) {
+            Json.write(response, paymentBody(job.snapshot(), job.getMessage()));
+            return;
+        }
+
+        async.await(request, response, "payment_wait", waitSeconds * 1000L,
+                job.getResult().thenApply(payment -> Reply.ok(paymentBody(payment, job.getMessage()))),
+                () -> Reply.ok(paymentBody(job.snapshot(), job.getMessage())));
+    }
+
+    private boolean ownsOrder(User user, int orderId) {
+        Order order = orderDAO.getOrderById(orderId);
+        return order != null && user.getUserId().equals(order.getUserId());
+    }
+
+    private static PaymentResponse paymentBody(Payment payment, String message) {
+        return new PaymentResponse(payment, !PaymentService.STATUS_FAILED.equals(payment.getPaymentStatus()), message);
+    }
+
+    private static ApiResponse message(String text) {
+        return ApiResponse.error(text);
     }
 }
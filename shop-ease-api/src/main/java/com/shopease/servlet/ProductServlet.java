@@ -1,26 +1,42 @@
 package com.shopease.servlet;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.shopease.cache.ResponseCache;
 import com.shopease.dao.ProductDAO;
+import com.shopease.dao.ReviewDAO;
+import com.shopease.dto.ApiResponse;
+import com.shopease.dto.ProductListResponse;
+import com.shopease.dto.ProductPageResponse;
+import com.shopease.model.Page;
 import com.shopease.model.Product;
+import com.shopease.model.RatingSummary;
+import com.shopease.model.Review;
+import com.shopease.service.ProductCatalogService;
+import com.shopease.service.RandomProductService;
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.AsyncRequestExecutor.Reply;
+import com.shopease.util.DaoExecutor;
 
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.*;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-@WebServlet("/api/products/*")
+@WebServlet(value = "/api/products/*", asyncSupported = true)
 public class ProductServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(ProductServlet.class.getName());
+    private static final int REVIEW_LIMIT = 10;
 
-    private final ProductDAO productDAO = new ProductDAO();
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ProductCatalogService catalog = ProductCatalogService.getInstance();
+    private final ReviewDAO reviewDAO = new ReviewDAO();
+    private final AsyncRequestExecutor async = AsyncRequestExecutor.getInstance();
+    private final DaoExecutor dao = DaoExecutor.getInstance();
+    private final ResponseCache responses = ResponseCache.getInstance();
 
     // ================= CORS =================
     private void setCorsHeaders(HttpServletRequest req, HttpServletResponse resp) {
@@ -29,7 +45,8 @@ public class ProductServlet extends HttpServlet {
             resp.setHeader("Access-Control-Allow-Origin", origin);
         }
         resp.setHeader("Access-Control-Allow-Methods", "GET, OPTIONS");
-        resp.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization");
+        resp.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization, If-None-Match");
+        resp.setHeader("Access-Control-Expose-Headers", "ETag");
         resp.setHeader("Access-Control-Allow-Credentials", "true");
         resp.setHeader("Vary", "Origin");
     }
@@ -49,69 +66,104 @@ public class ProductServlet extends HttpServlet {
         resp.setContentType("application/json");
         resp.setCharacterEncoding("UTF-8");
 
-        Map<String, Object> result = new HashMap<>();
+        String pathInfo = req.getPathInfo(); // /random OR /{id}
+        if (pathInfo != null && pathInfo.length() > 1 && !"/random".equals(pathInfo)) {
+            getProductPage(req, resp, pathInfo.substring(1));
+            return;
+        }
 
-        try {
+        // ================= 1️⃣ RANDOM PRODUCTS =================
+        // A fresh sample every call, so never cached
+        if ("/random".equals(pathInfo)) {
+            async.execute(req, resp, "products", 5000,
+                    () -> Reply.ok(ProductListResponse.of(RandomProductService.getInstance().getRandomProducts(10))));
+            return;
+        }
 
-            String pathInfo = req.getPathInfo(); // /random OR /{id}
-            String pageParam = req.getParameter("page");
+        // ================= 3️⃣ PAGINATED PRODUCTS =================
+        int size = ProductDAO.DEFAULT_PAGE_SIZE;
+        try {
             String sizeParam = req.getParameter("size");
-
-            // ================= 1️⃣ RANDOM PRODUCTS =================
-            if ("/random".equals(pathInfo)) {
-                List<Product> randomProducts = productDAO.getRandomProducts(10);
-                result.put("success", true);
-                result.put("products", randomProducts);
-            }
-
-            // ================= 2️⃣ SINGLE PRODUCT =================
-            else if (pathInfo != null && pathInfo.length() > 1) {
-                String productId = pathInfo.substring(1);
-
-                // Use DAO method to fetch all products and filter by ID
-                Product product = productDAO.getAllProducts(1, Integer.MAX_VALUE)
-                        .stream()
-                        .filter(p -> p.getId().equals(productId))
-                        .findFirst()
-                        .orElse(null);
-
-                if (product != null) {
-                    result.put("success", true);
-                    result.put("product", product);
-                } else {
-                    resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
-                    result.put("success", false);
-                    result.put("message", "Product not found");
+            if (sizeParam != null) size = Integer.parseInt(sizeParam);
+        } catch (NumberFormatException ignored) {}
+        int pageSize = ProductDAO.clampPageSize(size);
+
+        // Legacy offset paging (?page=) is kept for existing clients; otherwise keyset paging,
+        // where nextCursor is passed back as ?cursor= for the following page
+        String pageParam = req.getParameter("page");
+        int page = 1;
+        try {
+            if (pageParam != null) page = Integer.parseInt(pageParam);
+        } catch (NumberFormatException ignored) {}
+        int pageNumber = page;
+        String cursor = req.getParameter("cursor");
+
+        String key = pageParam != null
+                ? "products?page=" + pageNumber + "&size=" + pageSize
+                : "products?cursor=" + (cursor == null ? "" : cursor) + "&size=" + pageSize;
+        if (serveCached(req, resp, key)) return;
+        long stamp = responses.stamp();
+
+        // Catalog reads can hit MySQL on a cache miss, so they run off the container thread
+        async.execute(req, resp, "products", 5000, () -> {
+            try {
+                if (pageParam != null) {
+                    List<Product> products = catalog.getAllProducts(pageNumber, pageSize);
+                    return cacheable(req, key, stamp, ProductListResponse.offset(products, pageNumber, pageSize));
                 }
-            }
+                Page<Product> productPage = catalog.getProductsPage(cursor, pageSize);
+                return cacheable(req, key, stamp, ProductListResponse.keyset(productPage, pageSize));
 
-            // ================= 3️⃣ PAGINATED PRODUCTS =================
-            else {
-                int page = 1;
-                int size = 10;
-
-                try {
-                    if (pageParam != null) page = Integer.parseInt(pageParam);
-                    if (sizeParam != null) size = Integer.parseInt(sizeParam);
-                } catch (NumberFormatException ignored) {}
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error fetching products", e);
+                return Reply.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, ApiResponse.error("Internal server error"));
+            }
+        });
+    }
 
-                // Use your DAO's getAllProducts method
-                List<Product> products = productDAO.getAllProducts(page, size);
+    // ================= 2️⃣ SINGLE PRODUCT =================
+    // Product, recent reviews and the rating summary are independent reads, so
+    // they run in parallel on DaoExecutor; no thread waits while they do.
+    private void getProductPage(HttpServletRequest req, HttpServletResponse resp, String productId) throws IOException {
+        String key = "products/" + productId;
+        if (serveCached(req, resp, key)) return;
+        long stamp = responses.stamp();
+
+        CompletableFuture<Product> product = dao.submit(() -> catalog.getProductById(productId));
+        CompletableFuture<List<Review>> reviews = dao.submit(() -> reviewDAO.getReviewsByProductId(productId, REVIEW_LIMIT));
+        CompletableFuture<RatingSummary> rating = dao.submit(() -> reviewDAO.getRatingSummary(productId));
+
+        async.await(req, resp, "products", 5000,
+                CompletableFuture.allOf(product, reviews, rating).handle((done, error) -> {
+                    if (error != null) {
+                        LOGGER.log(Level.SEVERE, "Error fetching product " + productId, error);
+                        return Reply.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, ApiResponse.error("Internal server error"));
+                    }
+                    if (product.join() == null) {
+                        return Reply.status(HttpServletResponse.SC_NOT_FOUND, ApiResponse.error("Product not found"));
+                    }
+                    return cacheable(req, key, stamp,
+                            new ProductPageResponse(product.join(), reviews.join(), rating.join()));
+                }),
+                null);
+    }
 
-                result.put("success", true);
-                result.put("products", products);
-                result.put("page", page);
-                result.put("size", size);
+    // ================= HTTP CACHING =================
 
-            }
+    // Answers from the response cache (200 or 304) without touching the DAOs
+    private boolean serveCached(HttpServletRequest req, HttpServletResponse resp, String key) throws IOException {
+        ResponseCache.Entry cached = responses.get(key);
+        if (cached == null) return false;
+        async.write(resp, responses.reply(req, cached));
+        return true;
+    }
 
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error fetching products", e);
-            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            result.put("success", false);
-            result.put("message", "Internal server error");
+    private Reply cacheable(HttpServletRequest req, String key, long stamp, Object body) {
+        try {
+            return responses.reply(req, responses.store(key, stamp, body));
+        } catch (JsonProcessingException e) {
+            LOGGER.log(Level.SEVERE, "Error serializing " + key, e);
+            return Reply.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, ApiResponse.error("Internal server error"));
         }
-
-        mapper.writeValue(resp.getOutputStream(), result);
     }
-}
\ No newline at end of file
+}
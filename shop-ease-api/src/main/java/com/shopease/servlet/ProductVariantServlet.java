@@ -1,9 +1,10 @@
 package com.shopease.servlet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.shopease.dao.ProductDAO;
 import com.shopease.model.ProductVariant;
 import com.shopease.model.User;
+import com.shopease.service.ProductCatalogService;
+import com.shopease.util.Json;
 
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.*;
@@ -19,8 +20,8 @@ import java.util.logging.Logger;
 public class ProductVariantServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(ProductVariantServlet.class.getName());
-    private final ProductDAO productDAO = new ProductDAO();
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ProductCatalogService catalog = ProductCatalogService.getInstance();
+    private final ObjectMapper mapper = Json.mapper();
 
     // ===== CORS helper =====
     private void setCorsHeaders(HttpServletRequest req, HttpServletResponse resp) {
@@ -84,7 +85,7 @@ public class ProductVariantServlet extends HttpServlet {
                 result.put("message", "Invalid path. Use /product/{productId}");
             } else {
                 String productId = pathInfo.substring("/product/".length());
-                List<ProductVariant> variants = productDAO.getVariantsByProductId(productId);
+                List<ProductVariant> variants = catalog.getVariantsByProductId(productId);
                 result.put("success", true);
                 result.put("variants", variants);
             }
@@ -112,7 +113,7 @@ public class ProductVariantServlet extends HttpServlet {
 
         try {
             ProductVariant variant = mapper.readValue(req.getInputStream(), ProductVariant.class);
-            boolean success = productDAO.addVariant(variant);
+            boolean success = catalog.addVariant(variant);
             resp.setStatus(success ? HttpServletResponse.SC_CREATED : HttpServletResponse.SC_BAD_REQUEST);
             result.put("success", success);
             result.put("message", success ? "Variant added successfully" : "Failed to add variant");
@@ -140,7 +141,7 @@ public class ProductVariantServlet extends HttpServlet {
 
         try {
             ProductVariant variant = mapper.readValue(req.getInputStream(), ProductVariant.class);
-            boolean success = productDAO.updateVariant(variant);
+            boolean success = catalog.updateVariant(variant);
             resp.setStatus(success ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST);
             result.put("success", success);
             result.put("message", success ? "Variant updated successfully" : "Failed to update variant");
@@ -174,7 +175,7 @@ public class ProductVariantServlet extends HttpServlet {
                 result.put("message", "Variant ID required");
             } else {
                 String variantId = pathInfo.substring(1);
-                boolean success = productDAO.deleteVariant(variantId);
+                boolean success = catalog.deleteVariant(variantId);
                 resp.setStatus(success ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST);
                 result.put("success", success);
                 result.put("message", success ? "Variant deleted successfully" : "Failed to delete variant");
@@ -3,7 +3,12 @@ package com.shopease.servlet;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shopease.dao.UserDAO;
 import com.shopease.model.User;
-import com.shopease.util.PasswordUtil;
+import com.shopease.service.PasswordHashingService;
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.AuthTokens;
+import com.shopease.util.AsyncRequestExecutor.Reply;
+import com.shopease.util.DaoExecutor;
+import com.shopease.util.Json;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -12,6 +17,10 @@ import jakarta.servlet.http.*;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 //@WebServlet("/api/user/signup")
@@ -19,7 +28,13 @@ public class RegisterServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(RegisterServlet.class.getName());
     private final UserDAO userDAO = new UserDAO();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final ObjectMapper objectMapper = Json.mapper();
+    private final PasswordHashingService hasher = PasswordHashingService.getInstance();
+    private final AsyncRequestExecutor async = AsyncRequestExecutor.getInstance();
+    private final DaoExecutor dao = DaoExecutor.getInstance();
+    private final AuthTokens tokens = AuthTokens.getInstance();
 
     // ===== Helper method for CORS headers =====
     private void setCorsHeaders(HttpServletRequest request, HttpServletResponse response) {
@@ -65,88 +80,115 @@ public class RegisterServlet extends HttpServlet {
 
         Map<String, Object> jsonResponse = new HashMap<>();
 
+        String fullName;
+        String email;
+        String password;
+        String phone;
         try {
             // Parse JSON input
             Map<String, String> requestBody = objectMapper.readValue(request.getInputStream(), Map.class);
-            String fullName = requestBody.get("fullName");
-            String email = requestBody.get("email");
-            String password = requestBody.get("password");
-            String phone = requestBody.get("phone");
-
-            // Validate required fields
-            if (fullName == null || email == null || password == null ||
-                    fullName.isEmpty() || email.isEmpty() || password.isEmpty()) {
-
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                jsonResponse.put("success", false);
-                jsonResponse.put("message", "fullName, email, and password are required");
-                objectMapper.writeValue(response.getOutputStream(), jsonResponse);
-                return;
-            }
-
-            // Validate email format
-            if (!email.matches("^[\\w.-]+@[\\w.-]+\\.\\w+$")) {
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                jsonResponse.put("success", false);
-                jsonResponse.put("message", "Invalid email format");
-                objectMapper.writeValue(response.getOutputStream(), jsonResponse);
-                return;
-            }
+            fullName = requestBody.get("fullName");
+            email = requestBody.get("email");
+            password = requestBody.get("password");
+            phone = requestBody.get("phone");
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Unreadable registration request", e);
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            jsonResponse.put("success", false);
+            jsonResponse.put("message", "Invalid request body");
+            objectMapper.writeValue(response.getOutputStream(), jsonResponse);
+            return;
+        }
 
-            // Password length check
-            if (password.length() < 6) {
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                jsonResponse.put("success", false);
-                jsonResponse.put("message", "Password must be at least 6 characters");
-                objectMapper.writeValue(response.getOutputStream(), jsonResponse);
-                return;
-            }
+        // Validate required fields
+        if (fullName == null || email == null || password == null ||
+                fullName.isEmpty() || email.isEmpty() || password.isEmpty()) {
 
-            // Check if email already exists
-            if (userDAO.getUserByEmail(email) != null) {
-                response.setStatus(HttpServletResponse.SC_CONFLICT);
-                jsonResponse.put("success", false);
-                jsonResponse.put("message", "Email already registered");
-                objectMapper.writeValue(response.getOutputStream(), jsonResponse);
-                return;
-            }
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            jsonResponse.put("success", false);
+            jsonResponse.put("message", "fullName, email, and password are required");
+            objectMapper.writeValue(response.getOutputStream(), jsonResponse);
+            return;
+        }
 
-            // Hash password
-            String hashedPassword = PasswordUtil.hashPassword(password);
-
-            // Create User object
-            User user = new User();
-            user.setFullName(fullName);
-            user.setEmail(email);
-            user.setPassword(hashedPassword);
-            user.setPhone(phone);
-            user.setAdmin(false); // New field, default false
-
-            boolean success = userDAO.registerUser(user);
-
-            if (success) {
-                // Create session
-                HttpSession session = request.getSession(true);
-                user.setPassword(null); // hide password
-                session.setAttribute("user", user);
-
-                response.setStatus(HttpServletResponse.SC_CREATED);
-                jsonResponse.put("success", true);
-                jsonResponse.put("message", "Registration successful");
-                jsonResponse.put("user", user);
-            } else {
-                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-                jsonResponse.put("success", false);
-                jsonResponse.put("message", "Failed to register user");
-            }
+        // Validate email format
+        if (!email.matches("^[\\w.-]+@[\\w.-]+\\.\\w+$")) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            jsonResponse.put("success", false);
+            jsonResponse.put("message", "Invalid email format");
+            objectMapper.writeValue(response.getOutputStream(), jsonResponse);
+            return;
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        // Password length check
+        if (password.length() < 6) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             jsonResponse.put("success", false);
-            jsonResponse.put("message", e.toString());
+            jsonResponse.put("message", "Password must be at least 6 characters");
+            objectMapper.writeValue(response.getOutputStream(), jsonResponse);
+            return;
+        }
+
+        // Email check and insert run on DaoExecutor, the hash on the hashing pool
+        CompletableFuture<Reply> reply = dao.submit(() -> userDAO.getUserByEmail(email) != null)
+                .thenCompose(exists -> {
+                    if (exists) {
+                        return CompletableFuture.completedFuture(
+                                result(HttpServletResponse.SC_CONFLICT, "Email already registered"));
+                    }
+                    return hasher.hash(password).thenCompose(hashedPassword -> dao.submit(() -> {
+                        // Create User object
+                        User user = new User();
+                        user.setFullName(fullName);
+                        user.setEmail(email);
+                        user.setPassword(hashedPassword);
+                        user.setPhone(phone);
+                        user.setAdmin(false); // New field, default false
+
+                        if (!userDAO.registerUser(user)) {
+                            return result(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Failed to register user");
+                        }
+
+                        user.setPassword(null); // hide password
+
+                        Map<String, Object> created = new HashMap<>();
+                        created.put("success", true);
+                        created.put("message", "Registration successful");
+                        created.put("user", user);
+
+                        // AUTH_MODE=token: hand back a signed token instead of creating a session
+                        if (tokens.isEnabled()) {
+                            String token = tokens.issue(user);
+                            created.put("token", token);
+                            return Reply.status(HttpServletResponse.SC_CREATED, created)
+                                    .header("Set-Cookie", tokens.cookie(token));
+                        }
+
+                        // Create session
+                        HttpSession session = request.getSession(true);
+                        session.setAttribute("user", user);
+                        return Reply.status(HttpServletResponse.SC_CREATED, created);
+                    }));
+                })
+                .exceptionally(RegisterServlet::failure);
+
+        async.await(request, response, "register", 10000, reply, null);
+    }
+
+    // A full hashing queue is the client's cue to back off, not a server error
+    private static Reply failure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return result(TOO_MANY_REQUESTS, "Too many sign-ups right now, please retry").header("Retry-After", "2");
         }
+        LOGGER.log(Level.SEVERE, "Error during registration", cause);
+        return result(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Server error during registration");
+    }
 
-        objectMapper.writeValue(response.getOutputStream(), jsonResponse);
+    private static Reply result(int status, String message) {
+        Map<String, Object> jsonResponse = new HashMap<>();
+        jsonResponse.put("success", false);
+        jsonResponse.put("message", message);
+        return Reply.status(status, jsonResponse);
     }
-}
\ No newline at end of file
+}
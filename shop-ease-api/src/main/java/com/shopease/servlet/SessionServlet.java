@@ -1,7 +1,9 @@
 package com.shopease.servlet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopease.dao.UserDAO;
 import com.shopease.model.User;
+import com.shopease.util.Json;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -14,7 +16,8 @@ import java.util.Map;
 //@WebServlet("/api/session")
 public class SessionServlet extends HttpServlet {
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Json.mapper();
+    private final UserDAO userDAO = new UserDAO();
 
     // ===== CORS helper =====
     private void setCorsHeaders(HttpServletRequest request, HttpServletResponse response) {
@@ -66,6 +69,11 @@ public class SessionServlet extends HttpServlet {
         if (session != null && session.getAttribute("user") != null) {
 
             User user = (User) session.getAttribute("user");
+            // A token session only carries id + admin flag; load the profile for this endpoint
+            if (user.getEmail() == null) {
+                User stored = userDAO.getUserById(user.getUserId());
+                if (stored != null) user = stored;
+            }
             user.setPassword(null); // hide password
 
             result.put("success", true);
@@ -106,23 +114,49 @@ public class SessionServlet extends HttpServlet {
 
         User sessionUser = (User) session.getAttribute("user");
 
+        // A token session only lives for this request, so the change has to reach the database;
+        // it also only carries id + admin flag, so start from the stored profile
+        User user = sessionUser.getEmail() != null ? sessionUser : userDAO.getUserById(sessionUser.getUserId());
+        if (user == null) {
+
+            resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+
+            result.put("success", false);
+            result.put("message", "User not found");
+
+            mapper.writeValue(resp.getOutputStream(), result);
+            return;
+        }
+
         // Read updated data from frontend
         User updatedUser = mapper.readValue(req.getInputStream(), User.class);
 
         if (updatedUser.getFullName() != null)
-            sessionUser.setFullName(updatedUser.getFullName());
+            user.setFullName(updatedUser.getFullName());
 
         if (updatedUser.getEmail() != null)
-            sessionUser.setEmail(updatedUser.getEmail());
+            user.setEmail(updatedUser.getEmail());
 
         if (updatedUser.getPhone() != null)
-            sessionUser.setPhone(updatedUser.getPhone());
+            user.setPhone(updatedUser.getPhone());
+
+        if (!userDAO.updateUser(user)) {
+
+            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+
+            result.put("success", false);
+            result.put("message", "Could not update profile");
+
+            mapper.writeValue(resp.getOutputStream(), result);
+            return;
+        }
 
         // Update session
-        session.setAttribute("user", sessionUser);
+        session.setAttribute("user", user);
+        user.setPassword(null); // hide password
 
         result.put("success", true);
-        result.put("user", sessionUser);
+        result.put("user", user);
 
         mapper.writeValue(resp.getOutputStream(), result);
     }
@@ -0,0 +1,84 @@
+package com.shopease.servlet;
+
+import com.shopease.dto.SuggestResponse;
+import com.shopease.service.ProductSearchService;
+import com.shopease.util.Json;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Lightweight type-ahead for the search box: display text only, no product rows
+@WebServlet("/api/search/suggest")
+public class SuggestServlet extends HttpServlet {
+
+    private static final Logger LOGGER = Logger.getLogger(SuggestServlet.class.getName());
+    private static final int DEFAULT_LIMIT = 8;
+    private static final int MAX_LIMIT = 20;
+
+    private final ProductSearchService searchService = ProductSearchService.getInstance();
+
+    // Handle preflight CORS
+    @Override
+    protected void doOptions(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        setCorsHeaders(request, response);
+        response.setStatus(HttpServletResponse.SC_OK);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        setCorsHeaders(request, response);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        String query = request.getParameter("q");
+        if (query == null || query.trim().isEmpty()) {
+            Json.write(response, SuggestResponse.of(Collections.emptyList()));
+            return;
+        }
+
+        int limit = DEFAULT_LIMIT;
+        String limitParam = request.getParameter("limit");
+        if (limitParam != null) {
+            try {
+                limit = Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(limitParam)));
+            } catch (NumberFormatException ignored) {
+                // keep the default
+            }
+        }
+
+        SuggestResponse result;
+        try {
+            result = SuggestResponse.of(searchService.suggest(query, limit));
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error building suggestions", e);
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            result = SuggestResponse.failed("Suggestion error");
+        }
+
+        Json.write(response, result);
+    }
+
+    private void setCorsHeaders(HttpServletRequest request, HttpServletResponse response) {
+        String origin = request.getHeader("Origin");
+        if (origin != null && (origin.equals("http://localhost:3000") ||
+                origin.equals("http://localhost:8081") ||
+                origin.equals("https://shopease-6p3wxf3cu-rajvardhan-singh-dewdas-projects.vercel.app")
+                || origin.equals("https://shopease-six-navy.vercel.app"))) {
+            response.setHeader("Access-Control-Allow-Origin", origin);
+        }
+        response.setHeader("Access-Control-Allow-Credentials", "true");
+        response.setHeader("Access-Control-Allow-Methods", "POST, GET, OPTIONS, PUT, DELETE");
+        response.setHeader("Access-Control-Allow-Headers", "Content-Type, Accept, Authorization");
+    }
+}
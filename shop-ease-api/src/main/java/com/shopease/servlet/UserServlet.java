@@ -3,6 +3,7 @@ package com.shopease.servlet;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shopease.dao.UserDAO;
 import com.shopease.model.User;
+import com.shopease.util.Json;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -19,7 +20,7 @@ import java.util.logging.Logger;
 public class UserServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(UserServlet.class.getName());
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper = Json.mapper();
     private UserDAO userDAO;
 
     @Override
@@ -42,7 +43,7 @@ public class UserServlet extends HttpServlet {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 jsonResponse.put("success", false);
                 jsonResponse.put("message", "Invalid endpoint");
-                out.print(objectMapper.writeValueAsString(jsonResponse));
+                objectMapper.writeValue(out, jsonResponse);
                 return;
             }
 
@@ -53,7 +54,7 @@ public class UserServlet extends HttpServlet {
                     response.setStatus(HttpServletResponse.SC_NOT_FOUND);
                     jsonResponse.put("success", false);
                     jsonResponse.put("message", "Endpoint not found");
-                    out.print(objectMapper.writeValueAsString(jsonResponse));
+                    objectMapper.writeValue(out, jsonResponse);
                 }
             }
 
@@ -62,7 +63,7 @@ public class UserServlet extends HttpServlet {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             jsonResponse.put("success", false);
             jsonResponse.put("message", "Server error");
-            response.getWriter().print(objectMapper.writeValueAsString(jsonResponse));
+            objectMapper.writeValue(response.getWriter(), jsonResponse);
         }
     }
 
@@ -84,7 +85,7 @@ public class UserServlet extends HttpServlet {
             response.setStatus(success ? HttpServletResponse.SC_CREATED : HttpServletResponse.SC_BAD_REQUEST);
         }
 
-        out.print(objectMapper.writeValueAsString(jsonResponse));
+        objectMapper.writeValue(out, jsonResponse);
     }
 
     private void handleLogin(HttpServletRequest request, HttpServletResponse response,
@@ -98,7 +99,7 @@ public class UserServlet extends HttpServlet {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             jsonResponse.put("success", false);
             jsonResponse.put("message", "Email and password are required");
-            out.print(objectMapper.writeValueAsString(jsonResponse));
+            objectMapper.writeValue(out, jsonResponse);
             return;
         }
 
@@ -117,6 +118,6 @@ public class UserServlet extends HttpServlet {
             jsonResponse.put("message", "Invalid credentials");
         }
 
-        out.print(objectMapper.writeValueAsString(jsonResponse));
+        objectMapper.writeValue(out, jsonResponse);
     }
 }
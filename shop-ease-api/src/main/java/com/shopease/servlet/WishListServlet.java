@@ -4,6 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shopease.dao.WishListDAO;
 import com.shopease.model.User;
 import com.shopease.model.WishListItem;
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.AsyncRequestExecutor.Reply;
+import com.shopease.util.Json;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -21,7 +24,8 @@ import java.util.logging.Logger;
 public class WishListServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(WishListServlet.class.getName());
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper = Json.mapper();
+    private final AsyncRequestExecutor async = AsyncRequestExecutor.getInstance();
     private WishListDAO wishListDAO;
 
     @Override
@@ -37,35 +41,32 @@ public class WishListServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
-        Map<String, Object> result = new HashMap<>();
+        HttpSession session = request.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.getWriter().print("{\"success\":false,\"message\":\"Login required\"}");
+            return;
+        }
 
-        try (PrintWriter out = response.getWriter()) {
-            HttpSession session = request.getSession(false);
-            if (session == null || session.getAttribute("user") == null) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        User user = (User) session.getAttribute("user");
+        String userId = user.getUserId();
+
+        async.execute(request, response, "wishlist", 5000, () -> {
+            Map<String, Object> result = new HashMap<>();
+            try {
+                List<WishListItem> items = wishListDAO.getWishlistItemsByUserId(userId);
+                result.put("success", true);
+                result.put("userId", userId);
+                result.put("wishlist", items);
+                return Reply.ok(result);
+
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error fetching wishlist", e);
                 result.put("success", false);
-                result.put("message", "Login required");
-                out.print(objectMapper.writeValueAsString(result));
-                return;
+                result.put("message", "Server error while fetching wishlist");
+                return Reply.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, result);
             }
-
-            User user = (User) session.getAttribute("user");
-            String userId = user.getUserId();
-
-            List<WishListItem> items = wishListDAO.getWishlistItemsByUserId(userId);
-            result.put("success", true);
-            result.put("userId", userId);
-            result.put("wishlist", items);
-
-            out.print(objectMapper.writeValueAsString(result));
-
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error fetching wishlist", e);
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            result.put("success", false);
-            result.put("message", "Server error while fetching wishlist");
-            response.getWriter().print(objectMapper.writeValueAsString(result));
-        }
+        });
     }
 
     // ================== ADD item to wishlist ==================
@@ -83,7 +84,7 @@ public class WishListServlet extends HttpServlet {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 result.put("success", false);
                 result.put("message", "Login required");
-                out.print(objectMapper.writeValueAsString(result));
+                objectMapper.writeValue(out, result);
                 return;
             }
 
@@ -97,7 +98,7 @@ public class WishListServlet extends HttpServlet {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 result.put("success", false);
                 result.put("message", "Product ID required");
-                out.print(objectMapper.writeValueAsString(result));
+                objectMapper.writeValue(out, result);
                 return;
             }
 
@@ -105,14 +106,14 @@ public class WishListServlet extends HttpServlet {
             response.setStatus(success ? HttpServletResponse.SC_CREATED : HttpServletResponse.SC_BAD_REQUEST);
             result.put("success", success);
             result.put("message", success ? "Item added to wishlist" : "Failed to add item");
-            out.print(objectMapper.writeValueAsString(result));
+            objectMapper.writeValue(out, result);
 
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error adding to wishlist", e);
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             result.put("success", false);
             result.put("message", "Server error while adding item");
-            response.getWriter().print(objectMapper.writeValueAsString(result));
+            objectMapper.writeValue(response.getWriter(), result);
         }
     }
 
@@ -132,7 +133,7 @@ public class WishListServlet extends HttpServlet {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 result.put("success", false);
                 result.put("message", "Item ID required");
-                out.print(objectMapper.writeValueAsString(result));
+                objectMapper.writeValue(out, result);
                 return;
             }
 
@@ -143,7 +144,7 @@ public class WishListServlet extends HttpServlet {
                 response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                 result.put("success", false);
                 result.put("message", "Invalid item ID");
-                out.print(objectMapper.writeValueAsString(result));
+                objectMapper.writeValue(out, result);
                 return;
             }
 
@@ -151,14 +152,14 @@ public class WishListServlet extends HttpServlet {
             response.setStatus(success ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST);
             result.put("success", success);
             result.put("message", success ? "Item removed from wishlist" : "Failed to remove item");
-            out.print(objectMapper.writeValueAsString(result));
+            objectMapper.writeValue(out, result);
 
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error removing wishlist item", e);
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             result.put("success", false);
             result.put("message", "Server error while removing item");
-            response.getWriter().print(objectMapper.writeValueAsString(result));
+            objectMapper.writeValue(response.getWriter(), result);
         }
     }
 }
@@ -0,0 +1,386 @@
+package com.shopease.util;
+
+import com.shopease.dto.ApiResponse;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs servlet work off the container thread using Servlet async I/O.
+ *
+ * A servlet validates the request inline, then hands the blocking part (DAO
+ * and service calls) to execute(), which starts an AsyncContext, runs the
+ * work on a bounded pool and writes the returned Reply as JSON. The container
+ * thread goes back to accept new connections while JDBC runs.
+ *
+ * The pool has API_WORKERS threads (default twice the connection pool size)
+ * and a queue of API_QUEUE_CAPACITY (default 256); when both are full the
+ * request is answered 503 with Retry-After instead of waiting. With
+ * API_VIRTUAL_THREADS=true on JDK 21+ each request gets a virtual thread and
+ * the same worker + queue total caps how many run at once.
+ *
+ * Each endpoint has a timeout (API_TIMEOUT_<ENDPOINT>_MS overrides the value
+ * the servlet passes). A timed-out request is answered 503 (or with the
+ * caller's fallback reply); the work itself is not interrupted and its result
+ * is dropped. API_ASYNC=false, or a request without async support, runs
+ * the work inline on the container thread.
+ */
+public final class AsyncRequestExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncRequestExecutor.class.getName());
+    private static final AsyncRequestExecutor INSTANCE = new AsyncRequestExecutor();
+
+    /**
+     * Request attribute holding a Closeable that finishes a wrapped response
+     * body (CompressionFilter's gzip stream). It is closed after the reply is
+     * written and before ctx.complete(): once complete() runs, the container
+     * may finish the response before any AsyncListener.onComplete fires.
+     */
+    public static final String RESPONSE_FINISHER = AsyncRequestExecutor.class.getName() + ".responseFinisher";
+
+    private final boolean enabled = EnvConfig.getBoolean("API_ASYNC", true);
+    private final boolean virtualThreads = EnvConfig.getBoolean("API_VIRTUAL_THREADS", false);
+    private final int workers = Math.max(1, EnvConfig.getInt("API_WORKERS", ConnectionPool.getMaxPoolSize() * 2));
+    private final int queueCapacity = Math.max(1, EnvConfig.getInt("API_QUEUE_CAPACITY", 256));
+    private final Map<String, Long> timeouts = new ConcurrentHashMap<>(); // endpoint -> override, -1 if none
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile Executor executor;
+    private volatile ExecutorService service;
+    private volatile boolean virtual;
+
+    private AsyncRequestExecutor() {}
+
+    public static AsyncRequestExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    @FunctionalInterface
+    public interface Work {
+        Reply call() throws Exception;
+    }
+
+    // ================= ENTRY POINTS =================
+
+    /**
+     * Runs work on the request pool and writes its reply. The servlet must
+     * not have touched the response body before calling this.
+     */
+    public void execute(HttpServletRequest req, HttpServletResponse resp, String endpoint,
+                        long defaultTimeoutMs, Work work) throws IOException {
+        if (!enabled || !req.isAsyncSupported()) {
+            write(resp, run(work, endpoint));
+            return;
+        }
+
+        Exchange exchange = start(req, resp, endpoint, defaultTimeoutMs, null);
+        try {
+            executor().execute(() -> exchange.finish(run(work, endpoint)));
+            submitted.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            exchange.finish(busy());
+        }
+    }
+
+    /**
+     * Completes the request when result does, without holding any thread
+     * while it waits (long polling, or DAO reads fanned out on DaoExecutor).
+     * If the timeout fires first the onTimeout reply is written instead, or a
+     * 503 when onTimeout is null; a result that fails is answered 500.
+     */
+    public void await(HttpServletRequest req, HttpServletResponse resp, String endpoint, long defaultTimeoutMs,
+                      CompletionStage<Reply> result, Supplier<Reply> onTimeout) throws IOException {
+        if (!enabled || !req.isAsyncSupported()) {
+            Reply reply;
+            try {
+                reply = result.toCompletableFuture().get(timeoutFor(endpoint, defaultTimeoutMs), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                timedOut.incrementAndGet();
+                reply = onTimeout != null ? onTimeout.get() : timedOut();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                reply = onTimeout != null ? onTimeout.get() : timedOut();
+            } catch (ExecutionException | CancellationException e) {
+                LOGGER.log(Level.WARNING, "Async result failed for " + endpoint, e);
+                failed.incrementAndGet();
+                reply = serverError();
+            }
+            write(resp, reply);
+            return;
+        }
+
+        Exchange exchange = start(req, resp, endpoint, defaultTimeoutMs, onTimeout);
+        result.whenComplete((reply, error) -> {
+            if (error != null) {
+                LOGGER.log(Level.WARNING, "Async result failed for " + endpoint, error);
+                failed.incrementAndGet();
+                exchange.finish(serverError());
+            } else {
+                exchange.finish(reply);
+            }
+        });
+    }
+
+    // Effective timeout for an endpoint: API_TIMEOUT_<ENDPOINT>_MS or the servlet's default
+    public long timeoutFor(String endpoint, long defaultTimeoutMs) {
+        long override = timeouts.computeIfAbsent(endpoint,
+                e -> EnvConfig.getLong("API_TIMEOUT_" + e.toUpperCase() + "_MS", -1));
+        return override > 0 ? override : defaultTimeoutMs;
+    }
+
+    // ================= INTERNALS =================
+
+    private Exchange start(HttpServletRequest req, HttpServletResponse resp, String endpoint,
+                           long defaultTimeoutMs, Supplier<Reply> onTimeout) {
+        AsyncContext ctx = req.startAsync(req, resp);
+        ctx.setTimeout(timeoutFor(endpoint, defaultTimeoutMs));
+        Exchange exchange = new Exchange(ctx, endpoint, onTimeout);
+        ctx.addListener(exchange);
+        inFlight.incrementAndGet();
+        return exchange;
+    }
+
+    private Reply run(Work work, String endpoint) {
+        try {
+            Reply reply = work.call();
+            return reply != null ? reply : Reply.status(HttpServletResponse.SC_NO_CONTENT, null);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Request failed for " + endpoint, e);
+            failed.incrementAndGet();
+            return serverError();
+        }
+    }
+
+    /**
+     * Writes a reply on the calling thread, for answers that need no blocking
+     * work (e.g. a response cache hit). A byte[] body is sent as-is.
+     */
+    public void write(HttpServletResponse resp, Reply reply) throws IOException {
+        resp.setStatus(reply.status);
+        for (Map.Entry<String, String> header : reply.headers.entrySet()) {
+            resp.setHeader(header.getKey(), header.getValue());
+        }
+        if (reply.body instanceof byte[] bytes) {
+            if (resp.getContentType() == null) resp.setContentType("application/json");
+            resp.setContentLength(bytes.length);
+            resp.getOutputStream().write(bytes);
+        } else if (reply.body != null) {
+            Json.write(resp, reply.body);
+        }
+    }
+
+    private static Reply busy() {
+        return Reply.status(HttpServletResponse.SC_SERVICE_UNAVAILABLE, message("Server is busy, please retry"))
+                .header("Retry-After", "1");
+    }
+
+    private static Reply serverError() {
+        return Reply.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, message("Server error"));
+    }
+
+    private static Reply timedOut() {
+        return Reply.status(HttpServletResponse.SC_SERVICE_UNAVAILABLE, message("Request timed out"))
+                .header("Retry-After", "1");
+    }
+
+    private static ApiResponse message(String text) {
+        return ApiResponse.error(text);
+    }
+
+    private Executor executor() {
+        Executor current = executor;
+        if (current != null) return current;
+        synchronized (this) {
+            if (executor != null) return executor;
+            ExecutorService created = virtualThreads ? VirtualThreads.newPerTaskExecutor("api-vthread-") : null;
+            if (created != null) {
+                // Virtual threads are unbounded, so cap concurrent requests explicitly
+                Semaphore permits = new Semaphore(workers + queueCapacity);
+                ExecutorService target = created;
+                executor = task -> {
+                    if (!permits.tryAcquire()) throw new RejectedExecutionException("Request limit reached");
+                    try {
+                        target.execute(() -> {
+                            try {
+                                task.run();
+                            } finally {
+                                permits.release();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        permits.release();
+                        throw e;
+                    }
+                };
+                virtual = true;
+            } else {
+                AtomicInteger count = new AtomicInteger();
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(queueCapacity), r -> {
+                            Thread t = new Thread(r, "api-worker-" + count.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        }, new ThreadPoolExecutor.AbortPolicy());
+                pool.allowCoreThreadTimeOut(true);
+                created = pool;
+                executor = pool;
+            }
+            service = created;
+            LOGGER.info("Async request executor started (" + (virtual ? "virtual threads" : workers + " workers") + ")");
+            return executor;
+        }
+    }
+
+    public synchronized void shutdown() {
+        if (service != null) {
+            service.shutdown();
+            try {
+                if (!service.awaitTermination(5, TimeUnit.SECONDS)) service.shutdownNow();
+            } catch (InterruptedException e) {
+                service.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            service = null;
+            executor = null;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("virtualThreads", virtual);
+        stats.put("workers", workers);
+        stats.put("queueCapacity", queueCapacity);
+        ExecutorService current = service;
+        if (current instanceof ThreadPoolExecutor) {
+            stats.put("active", ((ThreadPoolExecutor) current).getActiveCount());
+            stats.put("queued", ((ThreadPoolExecutor) current).getQueue().size());
+        }
+        stats.put("inFlight", inFlight.get());
+        stats.put("submitted", submitted.get());
+        stats.put("completed", completed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    // ================= TYPES =================
+
+    /**
+     * Status, extra headers and JSON body for a response. Content type and
+     * CORS headers are left as the servlet set them.
+     */
+    public static final class Reply {
+        private final int status;
+        private final Object body;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        private Reply(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public static Reply ok(Object body) {
+            return new Reply(HttpServletResponse.SC_OK, body);
+        }
+
+        public static Reply status(int status, Object body) {
+            return new Reply(status, body);
+        }
+
+        public Reply header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+    }
+
+    // One async request: whichever of result, timeout or error arrives first answers it
+    private final class Exchange implements AsyncListener {
+        private final AsyncContext ctx;
+        private final String endpoint;
+        private final Supplier<Reply> onTimeout;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        Exchange(AsyncContext ctx, String endpoint, Supplier<Reply> onTimeout) {
+            this.ctx = ctx;
+            this.endpoint = endpoint;
+            this.onTimeout = onTimeout;
+        }
+
+        void finish(Reply reply) {
+            finish(reply, true);
+        }
+
+        // Timeouts are counted in timedOut, not completed
+        private void finish(Reply reply, boolean countCompleted) {
+            if (!done.compareAndSet(false, true)) return;
+            try {
+                write((HttpServletResponse) ctx.getResponse(), reply);
+                if (ctx.getRequest().getAttribute(RESPONSE_FINISHER) instanceof Closeable finisher) finisher.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Could not write response for " + endpoint, e);
+            } finally {
+                inFlight.decrementAndGet();
+                if (countCompleted) completed.incrementAndGet();
+                ctx.complete();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            if (done.get()) return;
+            timedOut.incrementAndGet();
+            finish(onTimeout != null ? onTimeout.get() : timedOut(), false);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // Client went away; nothing can be written
+            if (done.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                failed.incrementAndGet();
+                ctx.complete();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {}
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {}
+    }
+}
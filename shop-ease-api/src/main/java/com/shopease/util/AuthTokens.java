@@ -0,0 +1,192 @@
+package com.shopease.util;
+
+import com.shopease.model.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Stateless, HMAC-signed auth tokens: AUTH_MODE=token.
+ *
+ * A token is base64url("userId|admin|expiresAt|tokenId") + "." +
+ * base64url(HMAC-SHA256 of that payload). Any node holding the same
+ * AUTH_TOKEN_SECRET can verify it without a session lookup or a database
+ * hit, so requests no longer need sticky routing. Tokens live for
+ * AUTH_TOKEN_TTL_SECONDS (default 1800, matching the session timeout).
+ *
+ * Logout revokes a token by putting its id on an in-memory denylist until
+ * it would have expired anyway. The denylist is per node; across nodes a
+ * revoked token stays usable elsewhere until its expiry.
+ *
+ * In the default AUTH_MODE=session nothing here is used.
+ */
+public final class AuthTokens {
+
+    private static final Logger LOGGER = Logger.getLogger(AuthTokens.class.getName());
+    private static final AuthTokens INSTANCE = new AuthTokens();
+
+    public static final String COOKIE_NAME = "SE_TOKEN";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int DENYLIST_SWEEP_SIZE = 1024;
+
+    private final boolean enabled = "token".equalsIgnoreCase(EnvConfig.getString("AUTH_MODE", "session"));
+    private final long ttlSeconds = Math.max(60, EnvConfig.getLong("AUTH_TOKEN_TTL_SECONDS", 1800));
+    private final SecretKeySpec key = loadKey();
+    // Mac instances aren't thread-safe; one per thread keeps verification allocation-free
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+    private final SecureRandom random = new SecureRandom();
+
+    private final ConcurrentHashMap<String, Long> denylist = new ConcurrentHashMap<>(); // tokenId -> expiresAt
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder revoked = new LongAdder();
+
+    private AuthTokens() {}
+
+    public static AuthTokens getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    // ================= ISSUE / VERIFY =================
+
+    public String issue(User user) {
+        byte[] id = new byte[12];
+        random.nextBytes(id);
+        long expiresAt = System.currentTimeMillis() / 1000 + ttlSeconds;
+        String payload = user.getUserId() + "|" + (user.isAdmin() ? 1 : 0) + "|" + expiresAt + "|"
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        issued.increment();
+        return encode(payloadBytes) + "." + encode(macs.get().doFinal(payloadBytes));
+    }
+
+    // The token's claims, or null if it is malformed, forged, expired or revoked
+    public Claims verify(String token) {
+        if (token == null) return null;
+        Claims claims = parse(token);
+        if (claims == null || claims.expiresAt <= System.currentTimeMillis() / 1000
+                || denylist.containsKey(claims.tokenId)) {
+            rejected.increment();
+            return null;
+        }
+        verified.increment();
+        return claims;
+    }
+
+    private Claims parse(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) return null;
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, macs.get().doFinal(payload))) return null;
+
+            String[] parts = new String(payload, StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 4) return null;
+            return new Claims(parts[0], "1".equals(parts[1]), Long.parseLong(parts[2]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // ================= REVOCATION =================
+
+    public void revoke(Claims claims) {
+        denylist.put(claims.tokenId, claims.expiresAt);
+        revoked.increment();
+        if (denylist.size() > DENYLIST_SWEEP_SIZE) {
+            long now = System.currentTimeMillis() / 1000;
+            denylist.values().removeIf(expiresAt -> expiresAt <= now);
+        }
+    }
+
+    // ================= COOKIES =================
+
+    // Same attributes as the JSESSIONID cookie LoginServlet writes (cross-site: Vercel → Railway)
+    public String cookie(String token) {
+        return COOKIE_NAME + "=" + token + "; Path=/; Max-Age=" + ttlSeconds + "; HttpOnly; Secure; SameSite=None";
+    }
+
+    public String clearCookie() {
+        return COOKIE_NAME + "=; Path=/; Max-Age=0; HttpOnly; Secure; SameSite=None";
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", enabled ? "token" : "session");
+        stats.put("issued", issued.sum());
+        stats.put("verified", verified.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("revoked", revoked.sum());
+        stats.put("denylistSize", denylist.size());
+        return stats;
+    }
+
+    // ================= KEY =================
+
+    private SecretKeySpec loadKey() {
+        String secret = EnvConfig.get("AUTH_TOKEN_SECRET");
+        if (secret == null) {
+            byte[] generated = new byte[32];
+            new SecureRandom().nextBytes(generated);
+            if (enabled) {
+                LOGGER.warning("AUTH_TOKEN_SECRET is not set; using a random key, so tokens won't survive a restart or work across nodes");
+            }
+            return new SecretKeySpec(generated, ALGORITHM);
+        }
+        return new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // ================= TYPES =================
+
+    public static final class Claims {
+        private final String userId;
+        private final boolean admin;
+        private final long expiresAt;
+        private final String tokenId;
+
+        Claims(String userId, boolean admin, long expiresAt, String tokenId) {
+            this.userId = userId;
+            this.admin = admin;
+            this.expiresAt = expiresAt;
+            this.tokenId = tokenId;
+        }
+
+        public String getUserId() { return userId; }
+        public boolean isAdmin() { return admin; }
+        public long getExpiresAt() { return expiresAt; }
+    }
+}
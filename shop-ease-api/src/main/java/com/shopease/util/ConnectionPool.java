@@ -0,0 +1,128 @@
+package com.shopease.util;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Shared JDBC connection pool used by every DAO.
+ *
+ * Connection settings are read once from DB_* environment variables, falling
+ * back to the Railway-provided MYSQL* names. Pool sizing and timeouts are read
+ * from DB_POOL_* variables.
+ */
+public final class ConnectionPool {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    private static volatile HikariDataSource dataSource;
+
+    private ConnectionPool() {}
+
+    public static DataSource getDataSource() {
+        HikariDataSource ds = dataSource;
+        if (ds == null) {
+            synchronized (ConnectionPool.class) {
+                ds = dataSource;
+                if (ds == null) {
+                    ds = new HikariDataSource(buildConfig());
+                    dataSource = ds;
+                    LOGGER.info("Connection pool started: " + ds.getPoolName());
+                }
+            }
+        }
+        return ds;
+    }
+
+    public static Connection getConnection() throws SQLException {
+        return getDataSource().getConnection();
+    }
+
+    // Maximum number of connections the pool will ever hand out
+    public static int getMaxPoolSize() {
+        HikariDataSource ds = dataSource;
+        return ds != null ? ds.getMaximumPoolSize() : EnvConfig.getInt("DB_POOL_MAX_SIZE", 10);
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        HikariDataSource ds = dataSource;
+        if (ds == null || ds.isClosed()) {
+            stats.put("started", false);
+            return stats;
+        }
+
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        stats.put("started", true);
+        stats.put("poolName", ds.getPoolName());
+        stats.put("maximumPoolSize", ds.getMaximumPoolSize());
+        stats.put("minimumIdle", ds.getMinimumIdle());
+        if (pool != null) {
+            stats.put("activeConnections", pool.getActiveConnections());
+            stats.put("idleConnections", pool.getIdleConnections());
+            stats.put("totalConnections", pool.getTotalConnections());
+            stats.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+        }
+        return stats;
+    }
+
+    public static void shutdown() {
+        synchronized (ConnectionPool.class) {
+            if (dataSource != null) {
+                dataSource.close();
+                dataSource = null;
+                LOGGER.info("Connection pool closed.");
+            }
+        }
+    }
+
+    private static HikariConfig buildConfig() {
+        String host = EnvConfig.get("DB_HOST", "MYSQLHOST");
+        String port = EnvConfig.get("DB_PORT", "MYSQLPORT");
+        String database = EnvConfig.get("DB_NAME", "MYSQLDATABASE");
+        String user = EnvConfig.get("DB_USER", "MYSQLUSER");
+        String password = EnvConfig.getSecret("DB_PASSWORD", "MYSQLPASSWORD");
+
+        if (host == null || port == null || database == null || user == null || password == null) {
+            throw new IllegalStateException("One or more MySQL environment variables are missing.");
+        }
+
+        String jdbcUrl = "jdbc:mysql://" + host + ":" + port + "/" + database
+                + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("shopease-pool");
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(user);
+        config.setPassword(password);
+
+        config.setMaximumPoolSize(EnvConfig.getInt("DB_POOL_MAX_SIZE", 10));
+        config.setMinimumIdle(EnvConfig.getInt("DB_POOL_MIN_IDLE", 2));
+        config.setConnectionTimeout(EnvConfig.getLong("DB_POOL_CONNECTION_TIMEOUT_MS", 5_000));
+        config.setValidationTimeout(EnvConfig.getLong("DB_POOL_VALIDATION_TIMEOUT_MS", 3_000));
+        config.setIdleTimeout(EnvConfig.getLong("DB_POOL_IDLE_TIMEOUT_MS", 600_000));
+        config.setMaxLifetime(EnvConfig.getLong("DB_POOL_MAX_LIFETIME_MS", 1_800_000));
+        config.setKeepaliveTime(EnvConfig.getLong("DB_POOL_KEEPALIVE_MS", 300_000));
+        config.setLeakDetectionThreshold(EnvConfig.getLong("DB_POOL_LEAK_DETECTION_MS", 20_000));
+        config.setRegisterMbeans(true);
+
+        // MySQL driver tuning: server-side statement cache and batched inserts
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        config.addDataSourceProperty("tcpKeepAlive", "true");
+
+        LOGGER.info("Configuring connection pool for: " + host + ":" + port + "/" + database);
+        return config;
+    }
+}
@@ -0,0 +1,145 @@
+package com.shopease.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Runs blocking DAO calls off the caller's thread so independent reads can
+ * be fanned out in parallel.
+ *
+ * DAO_EXECUTOR selects where calls run: "virtual" (default; one virtual
+ * thread per call on JDK 21+, platform threads otherwise), "platform" (a
+ * fixed pool) or "inline" (on the caller's thread, no parallelism). However
+ * many calls are submitted, at most DAO_MAX_CONCURRENCY (default the
+ * connection pool size) run at once; the rest wait for a permit instead of
+ * piling onto HikariCP. A call that cannot get a permit within
+ * DAO_PERMIT_TIMEOUT_MS (default the pool's connection timeout) fails with
+ * RejectedExecutionException.
+ */
+public final class DaoExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(DaoExecutor.class.getName());
+    private static final DaoExecutor INSTANCE = new DaoExecutor();
+
+    private final String mode = EnvConfig.getString("DAO_EXECUTOR", "virtual").toLowerCase();
+    private final int maxConcurrency = Math.max(1, EnvConfig.getInt("DAO_MAX_CONCURRENCY", ConnectionPool.getMaxPoolSize()));
+    private final long permitTimeoutMs = EnvConfig.getLong("DAO_PERMIT_TIMEOUT_MS",
+            EnvConfig.getLong("DB_POOL_CONNECTION_TIMEOUT_MS", 5_000));
+    private final Semaphore permits = new Semaphore(maxConcurrency, true);
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong permitTimeouts = new AtomicLong();
+
+    private volatile ExecutorService executor;
+    private volatile boolean virtual;
+
+    private DaoExecutor() {}
+
+    public static DaoExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Runs the call once a database permit is free. The future completes
+     * with the call's result, or exceptionally if it throws or times out
+     * waiting for a permit.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> call) {
+        submitted.incrementAndGet();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if ("inline".equals(mode)) {
+            run(call, future);
+            return future;
+        }
+        try {
+            executor().execute(() -> run(call, future));
+        } catch (RejectedExecutionException e) {
+            failed.incrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> void run(Callable<T> call, CompletableFuture<T> future) {
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(permitTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                permitTimeouts.incrementAndGet();
+                failed.incrementAndGet();
+                future.completeExceptionally(new RejectedExecutionException("No database permit within " + permitTimeoutMs + " ms"));
+                return;
+            }
+            future.complete(call.call());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.incrementAndGet();
+            future.completeExceptionally(e);
+        } catch (Throwable t) {
+            failed.incrementAndGet();
+            future.completeExceptionally(t);
+        } finally {
+            if (acquired) permits.release();
+        }
+    }
+
+    private ExecutorService executor() {
+        ExecutorService current = executor;
+        if (current != null) return current;
+        synchronized (this) {
+            if (executor != null) return executor;
+            ExecutorService created = "virtual".equals(mode) ? VirtualThreads.newPerTaskExecutor("dao-vthread-") : null;
+            if (created != null) {
+                virtual = true;
+            } else {
+                // Threads beyond the permit count would only wait, so the pool matches it
+                AtomicInteger count = new AtomicInteger();
+                created = Executors.newFixedThreadPool(maxConcurrency, r -> {
+                    Thread t = new Thread(r, "dao-worker-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            LOGGER.info("DAO executor started (" + (virtual ? "virtual threads" : maxConcurrency + " platform threads")
+                    + ", max " + maxConcurrency + " concurrent calls)");
+            executor = created;
+            return created;
+        }
+    }
+
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) executor.shutdownNow();
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", "inline".equals(mode) ? "inline" : virtual ? "virtual" : "platform");
+        stats.put("maxConcurrency", maxConcurrency);
+        stats.put("running", maxConcurrency - permits.availablePermits());
+        stats.put("waiting", permits.getQueueLength());
+        stats.put("submitted", submitted.get());
+        stats.put("failed", failed.get());
+        stats.put("permitTimeouts", permitTimeouts.get());
+        return stats;
+    }
+}
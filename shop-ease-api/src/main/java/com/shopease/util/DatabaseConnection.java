@@ -1,35 +1,17 @@
 package com.shopease.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public final class DatabaseConnection {
 
-    static {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            System.out.println("✅ MySQL Driver loaded successfully");
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException("❌ MySQL JDBC Driver not found", e);
-        }
-    }
+    private DatabaseConnection() {}
 
+    // Borrows a connection from the shared pool; close() returns it
     public static Connection getConnection(){
         try {
-            String host = System.getenv("DB_HOST");
-            String port = System.getenv("DB_PORT");
-            String database = System.getenv("DB_NAME");
-            String user = System.getenv("DB_USER");
-            String password = System.getenv("DB_PASSWORD");
-            if (host == null || port == null || database == null || user == null || password == null) { 
-                throw new RuntimeException("❌ One or more MySQL environment variables are missing.");
-            } 
-            String url = "jdbc:mysql://" + host + ":" + port + "/" + database + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
-            System.out.println("Connecting to: " + url);
-            return DriverManager.getConnection(url, user, password);
+            return ConnectionPool.getConnection();
         } catch (SQLException e) {
-            e.printStackTrace();
             throw new RuntimeException("❌ Database connection failed", e);
         }
     }
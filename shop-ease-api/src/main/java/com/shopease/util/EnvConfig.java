@@ -0,0 +1,75 @@
+package com.shopease.util;
+
+import java.util.logging.Logger;
+
+/**
+ * Reads runtime configuration from environment variables (with JVM system
+ * properties as an override), falling back to defaults when unset.
+ */
+public final class EnvConfig {
+
+    private static final Logger LOGGER = Logger.getLogger(EnvConfig.class.getName());
+
+    private EnvConfig() {}
+
+    // Returns the first non-blank value among the given keys, trimmed, or null
+    public static String get(String... keys) {
+        for (String key : keys) {
+            String value = System.getProperty(key);
+            if (value == null || value.isBlank()) {
+                value = System.getenv(key);
+            }
+            if (value != null && !value.isBlank()) {
+                return value.trim();
+            }
+        }
+        return null;
+    }
+
+    // Like get(), but returns the value exactly as set; for passwords and
+    // secrets, where surrounding spaces may be part of the value
+    public static String getSecret(String... keys) {
+        for (String key : keys) {
+            String value = System.getProperty(key);
+            if (value == null || value.isEmpty()) {
+                value = System.getenv(key);
+            }
+            if (value != null && !value.isEmpty()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    public static String getString(String key, String defaultValue) {
+        String value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Invalid integer for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Invalid long for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
@@ -0,0 +1,61 @@
+package com.shopease.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The application's single Jackson mapper, plus ObjectWriters and
+ * ObjectReaders cached per type.
+ *
+ * A writer built for a response class resolves its serializer once, so
+ * writing a DTO skips the per-call serializer lookup. Bodies are streamed
+ * straight to the response OutputStream rather than built as a String and
+ * copied through a PrintWriter. The target stream is left open so filters
+ * wrapping it can finish their own output.
+ */
+public final class Json {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .build();
+
+    private static final ConcurrentHashMap<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    private Json() {}
+
+    // Shared and thread-safe; never reconfigure it after startup
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    public static ObjectWriter writerFor(Class<?> type) {
+        return WRITERS.computeIfAbsent(type, MAPPER::writerFor);
+    }
+
+    public static ObjectReader readerFor(Class<?> type) {
+        return READERS.computeIfAbsent(type, MAPPER::readerFor);
+    }
+
+    public static <T> T read(InputStream in, Class<T> type) throws IOException {
+        return readerFor(type).readValue(in);
+    }
+
+    // Serializes body directly into the response; the servlet sets status and headers first
+    public static void write(HttpServletResponse response, Object body) throws IOException {
+        if (response.getContentType() == null) response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        writerFor(body != null ? body.getClass() : Object.class).writeValue(response.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,44 @@
+package com.shopease.util;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * Opaque keyset-pagination cursor over a (timestamp, id) sort key.
+ * Encoded as URL-safe Base64 so clients treat it as a token, not a value.
+ */
+public final class PageCursor {
+
+    private final long timestampMillis;
+    private final String id;
+
+    public PageCursor(long timestampMillis, String id) {
+        this.timestampMillis = timestampMillis;
+        this.id = id;
+    }
+
+    public static String encode(Timestamp timestamp, String id) {
+        long millis = timestamp != null ? timestamp.getTime() : 0L;
+        String raw = millis + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null for a missing or malformed cursor (i.e. start from the first page)
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep <= 0 || sep == raw.length() - 1) return null;
+            return new PageCursor(Long.parseLong(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public Timestamp getTimestamp() { return new Timestamp(timestampMillis); }
+
+    public String getId() { return id; }
+}
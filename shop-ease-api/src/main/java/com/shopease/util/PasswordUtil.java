@@ -4,9 +4,15 @@ import org.mindrot.jbcrypt.BCrypt;
 
 public class PasswordUtil {
 
+    public static final int DEFAULT_COST = 12;
+
     // Hash a plain password
     public static String hashPassword(String plainPassword) {
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(12)); // 12 rounds for security
+        return hashPassword(plainPassword, DEFAULT_COST); // 12 rounds for security
+    }
+
+    public static String hashPassword(String plainPassword, int cost) {
+        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(cost));
     }
 
     // Check raw password against hashed password
@@ -16,4 +22,14 @@ public class PasswordUtil {
         }
         return BCrypt.checkpw(plainPassword, hashedPassword);
     }
+
+    // Log rounds encoded in a "$2a$12$..." hash, -1 if it can't be read
+    public static int costOf(String hashedPassword) {
+        if (hashedPassword == null || hashedPassword.length() < 7 || hashedPassword.charAt(6) != '$') return -1;
+        try {
+            return Integer.parseInt(hashedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
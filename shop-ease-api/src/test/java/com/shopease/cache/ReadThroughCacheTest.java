@@ -0,0 +1,225 @@
+package com.shopease.cache;
+
+import com.shopease.dao.DataAccessException;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadThroughCacheTest {
+
+    private static ReadThroughCache<String, String> cache(long ttlMillis, long maxWeight) {
+        return new ReadThroughCache<>("test", ttlMillis, maxWeight, String::length);
+    }
+
+    // ================= READ-THROUGH =================
+
+    @Test
+    void loadsOnceThenHits() {
+        ReadThroughCache<String, String> cache = cache(60_000, 1000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v:a", cache.get("a", k -> { loads.incrementAndGet(); return "v:" + k; }));
+        assertEquals("v:a", cache.get("a", k -> { loads.incrementAndGet(); return "other"; }));
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void nullIsPassedThroughButNotCached() {
+        ReadThroughCache<String, String> cache = cache(60_000, 1000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get("a", k -> { loads.incrementAndGet(); return null; }));
+        assertNull(cache.get("a", k -> { loads.incrementAndGet(); return null; }));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        ReadThroughCache<String, String> cache = cache(60_000, 1000);
+
+        assertThrows(DataAccessException.class, () -> cache.get("a", k -> {
+            throw new DataAccessException("down", new RuntimeException());
+        }));
+        assertNull(cache.getIfPresent("a"));
+        assertEquals("v", cache.get("a", k -> "v"));
+    }
+
+    @Test
+    void entriesExpireAfterTtl() throws Exception {
+        ReadThroughCache<String, String> cache = cache(20, 1000);
+        cache.put("a", "v");
+        assertEquals("v", cache.getIfPresent("a"));
+
+        Thread.sleep(40);
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(1L, cache.getStats().get("expirations"));
+    }
+
+    // ================= LRU =================
+
+    @Test
+    void evictsLeastRecentlyUsedOverWeight() {
+        ReadThroughCache<String, String> cache = cache(60_000, 10);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.getIfPresent("a"); // b is now the eldest
+        cache.put("c", "cccc");
+
+        assertEquals("aaaa", cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+        assertEquals("cccc", cache.getIfPresent("c"));
+        assertEquals(8L, cache.getStats().get("weight"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void valueHeavierThanTheCapIsNotStored() {
+        ReadThroughCache<String, String> cache = cache(60_000, 3);
+        cache.put("a", "aa");
+        cache.put("big", "bbbb");
+
+        assertNull(cache.getIfPresent("big"));
+        assertEquals("aa", cache.getIfPresent("a"));
+    }
+
+    @Test
+    void replacingAKeyKeepsTheWeightExact() {
+        ReadThroughCache<String, String> cache = cache(60_000, 100);
+        cache.put("a", "aaaa");
+        cache.put("a", "aa");
+        assertEquals(2L, cache.getStats().get("weight"));
+
+        cache.invalidate("a");
+        assertEquals(0L, cache.getStats().get("weight"));
+    }
+
+    // ================= GENERATION =================
+
+    @Test
+    void loadStartedBeforeInvalidationIsNotStored() {
+        ReadThroughCache<String, String> cache = cache(60_000, 1000);
+
+        String value = cache.get("a", k -> {
+            cache.invalidate("other"); // a writer lands while the load is running
+            return "stale";
+        });
+        assertEquals("stale", value);
+        assertNull(cache.getIfPresent("a"));
+    }
+
+    @Test
+    void putIfUnchangedChecksTheGeneration() {
+        ReadThroughCache<String, String> cache = cache(60_000, 1000);
+
+        long before = cache.generation();
+        cache.invalidateAll();
+        cache.putIfUnchanged("a", "stale", before);
+        assertNull(cache.getIfPresent("a"));
+
+        cache.putIfUnchanged("a", "fresh", cache.generation());
+        assertEquals("fresh", cache.getIfPresent("a"));
+    }
+
+    @Test
+    void invalidateIfRemovesMatchingKeysOnly() {
+        ReadThroughCache<String, String> cache = cache(60_000, 1000);
+        cache.put("products/1", "x");
+        cache.put("products/2", "y");
+        cache.put("featured", "z");
+
+        cache.invalidateIf(k -> k.startsWith("products/"));
+        assertNull(cache.getIfPresent("products/1"));
+        assertNull(cache.getIfPresent("products/2"));
+        assertEquals("z", cache.getIfPresent("featured"));
+    }
+
+    // ================= COALESCING =================
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        ReadThroughCache<String, String> cache = cache(60_000, 1000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get("a", k -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "v";
+            })));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                results.add(pool.submit(() -> cache.get("a", k -> {
+                    loads.incrementAndGet();
+                    return "second load";
+                })));
+            }
+            // Let the followers reach the in-flight load before it finishes
+            while ((long) cache.getStats().get("coalescedLoads") < callers - 1) Thread.sleep(1);
+            release.countDown();
+
+            for (Future<String> result : results) assertEquals("v", result.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void coalescedCallersSeeTheSameFailure() throws Exception {
+        ReadThroughCache<String, String> cache = cache(60_000, 1000);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        DataAccessException failure = new DataAccessException("down", new RuntimeException());
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> cache.get("a", k -> {
+                loading.countDown();
+                await(release);
+                throw failure;
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<String> follower = pool.submit(() -> cache.get("a", k -> "unused"));
+            while ((long) cache.getStats().get("coalescedLoads") < 1) Thread.sleep(1);
+            release.countDown();
+
+            for (Future<String> f : List.of(leader, follower)) {
+                Exception e = assertThrows(Exception.class, () -> f.get(5, TimeUnit.SECONDS));
+                assertSame(failure, e.getCause());
+            }
+            assertNull(cache.getIfPresent("a"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
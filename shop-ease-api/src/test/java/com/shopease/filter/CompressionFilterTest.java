@@ -0,0 +1,241 @@
+package com.shopease.filter;
+
+import com.shopease.util.AsyncRequestExecutor;
+import com.shopease.util.AsyncRequestExecutor.Reply;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.descriptor.web.FilterDef;
+import org.apache.tomcat.util.descriptor.web.FilterMap;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs CompressionFilter in an embedded Tomcat so the async paths see the
+ * container's real completion order.
+ */
+class CompressionFilterTest {
+
+    @TempDir
+    static Path baseDir;
+
+    private static Tomcat tomcat;
+    private static int port;
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void startTomcat() throws Exception {
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.toString());
+        tomcat.setPort(0);
+        tomcat.getConnector();
+
+        Context ctx = tomcat.addContext("", null);
+        addServlet(ctx, "sync", new SyncServlet(), "/api/sync");
+        addServlet(ctx, "execute", new ExecuteServlet(), "/api/execute");
+        addServlet(ctx, "await", new AwaitServlet(), "/api/await");
+        addServlet(ctx, "fail", new FailingServlet(), "/api/fail");
+
+        FilterDef def = new FilterDef();
+        def.setFilterName("compression");
+        def.setFilter(new CompressionFilter());
+        def.setAsyncSupported("true");
+        ctx.addFilterDef(def);
+        FilterMap map = new FilterMap();
+        map.setFilterName("compression");
+        map.addURLPattern("/api/*");
+        ctx.addFilterMap(map);
+
+        tomcat.start();
+        port = tomcat.getConnector().getLocalPort();
+    }
+
+    @AfterAll
+    static void stopTomcat() throws Exception {
+        tomcat.stop();
+        tomcat.destroy();
+        AsyncRequestExecutor.getInstance().shutdown();
+    }
+
+    private static void addServlet(Context ctx, String name, HttpServlet servlet, String pattern) {
+        Wrapper wrapper = Tomcat.addServlet(ctx, name, servlet);
+        wrapper.setAsyncSupported(true);
+        ctx.addServletMappingDecoded(pattern, name);
+    }
+
+    // ================= SYNC =================
+
+    @Test
+    void smallSyncBodyGoesOutUncompressed() throws Exception {
+        HttpResponse<byte[]> resp = get("/api/sync?n=10", true);
+        assertNull(resp.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals(body(10), new String(resp.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void largeSyncBodyRoundTrips() throws Exception {
+        HttpResponse<byte[]> resp = get("/api/sync?n=50000", true);
+        assertEquals("gzip", resp.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals(body(50000), gunzip(resp.body()));
+        assertTrue(resp.body().length < 50000);
+    }
+
+    @Test
+    void noAcceptEncodingMeansNoCompression() throws Exception {
+        HttpResponse<byte[]> resp = get("/api/sync?n=50000", false);
+        assertNull(resp.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals(body(50000), new String(resp.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void failedSyncRequestsReturnTheirDeflaters() throws Exception {
+        long before = ((Number) CompressionFilter.getStats().get("deflatersCreated")).longValue();
+        for (int i = 0; i < 30; i++) {
+            assertEquals(500, get("/api/fail?n=50000", true).statusCode());
+        }
+        long created = ((Number) CompressionFilter.getStats().get("deflatersCreated")).longValue() - before;
+        assertTrue(created <= 1, "deflaters leaked: " + created);
+    }
+
+    // ================= ASYNC =================
+
+    @Test
+    void smallAsyncBodyIsNotLost() throws Exception {
+        HttpResponse<byte[]> resp = get("/api/execute?n=10", true);
+        assertEquals(200, resp.statusCode());
+        assertEquals(json(10), decode(resp));
+    }
+
+    @Test
+    void largeAsyncBodyKeepsGzipTrailer() throws Exception {
+        HttpResponse<byte[]> resp = get("/api/execute?n=50000", true);
+        assertEquals("gzip", resp.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals(json(50000), gunzip(resp.body()));
+    }
+
+    @Test
+    void awaitedRepliesAreFinishedToo() throws Exception {
+        assertEquals(json(10), decode(get("/api/await?n=10", true)));
+        HttpResponse<byte[]> large = get("/api/await?n=50000", true);
+        assertEquals("gzip", large.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals(json(50000), gunzip(large.body()));
+    }
+
+    @Test
+    void repeatedAsyncRequestsReuseDeflaters() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            assertEquals(json(20000), gunzip(get("/api/execute?n=20000", true).body()));
+        }
+        long created = ((Number) CompressionFilter.getStats().get("deflatersCreated")).longValue();
+        assertTrue(created <= 16, "deflaters leaked: " + created);
+    }
+
+    // ================= ACCEPT-ENCODING =================
+
+    @Test
+    void parsesAcceptEncoding() {
+        assertTrue(CompressionFilter.acceptsGzip("gzip, deflate, br"));
+        assertTrue(CompressionFilter.acceptsGzip("br;q=1.0, gzip;q=0.8"));
+        assertTrue(CompressionFilter.acceptsGzip("*"));
+        assertFalse(CompressionFilter.acceptsGzip("gzip;q=0"));
+        assertFalse(CompressionFilter.acceptsGzip("identity"));
+        assertFalse(CompressionFilter.acceptsGzip(null));
+    }
+
+    // ================= HELPERS =================
+
+    private static HttpResponse<byte[]> get(String path, boolean gzip) throws Exception {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        if (gzip) req.header("Accept-Encoding", "gzip");
+        return CLIENT.send(req.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String decode(HttpResponse<byte[]> resp) throws IOException {
+        boolean gzipped = "gzip".equals(resp.headers().firstValue("Content-Encoding").orElse(null));
+        return gzipped ? gunzip(resp.body()) : new String(resp.body(), StandardCharsets.UTF_8);
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String body(int n) {
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) sb.append((char) ('a' + i % 26));
+        return sb.toString();
+    }
+
+    private static String json(int n) {
+        return "{\"data\":\"" + body(n) + "\"}";
+    }
+
+    private static int size(HttpServletRequest req) {
+        return Integer.parseInt(req.getParameter("n"));
+    }
+
+    static class SyncServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            resp.setContentType("text/plain");
+            resp.setCharacterEncoding("UTF-8");
+            String text = body(size(req));
+            // Several writes, so the threshold is crossed mid-body
+            for (int i = 0; i < text.length(); i += 700) {
+                resp.getWriter().write(text, i, Math.min(700, text.length() - i));
+            }
+        }
+    }
+
+    static class FailingServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            resp.setContentType("text/plain");
+            resp.getWriter().write(body(size(req))); // past the threshold, so a deflater is in use
+            throw new IllegalStateException("failed mid-body");
+        }
+    }
+
+    static class ExecuteServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            int n = size(req);
+            AsyncRequestExecutor.getInstance().execute(req, resp, "test", 5000,
+                    () -> Reply.ok(Map.of("data", body(n))));
+        }
+    }
+
+    static class AwaitServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            int n = size(req);
+            AsyncRequestExecutor.getInstance().await(req, resp, "test", 5000,
+                    CompletableFuture.supplyAsync(() -> Reply.ok(Map.of("data", body(n)))), null);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.shopease.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks every operation against java.util.BitSet on inputs that mix sparse
+ * (array) and dense (bitset) chunks across several 65536-value chunks.
+ */
+class CompressedBitmapTest {
+
+    private static final int UNIVERSE = 4 * 65536;
+
+    private static BitSet random(Random random, double density) {
+        BitSet set = new BitSet(UNIVERSE);
+        for (int chunk = 0; chunk < UNIVERSE / 65536; chunk++) {
+            // Vary density per chunk so both container kinds show up
+            double d = chunk % 2 == 0 ? density : density / 50;
+            for (int low = 0; low < 65536; low++) {
+                if (random.nextDouble() < d) set.set(chunk * 65536 + low);
+            }
+        }
+        return set;
+    }
+
+    private static CompressedBitmap bitmap(BitSet set) {
+        CompressedBitmap.Builder builder = new CompressedBitmap.Builder();
+        for (int v = set.nextSetBit(0); v >= 0; v = set.nextSetBit(v + 1)) builder.add(v);
+        return builder.build();
+    }
+
+    private static void assertSameValues(BitSet expected, CompressedBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        int[] values = new int[actual.cardinality()];
+        assertEquals(values.length, actual.select(0, values));
+        int i = 0;
+        for (int v = expected.nextSetBit(0); v >= 0; v = expected.nextSetBit(v + 1)) {
+            assertEquals(v, values[i++]);
+        }
+    }
+
+    // ================= SET OPERATIONS =================
+
+    @Test
+    void setOperationsMatchBitSet() {
+        Random random = new Random(7);
+        for (double density : new double[]{0.001, 0.05, 0.5}) {
+            BitSet a = random(random, density);
+            BitSet b = random(random, 0.1);
+            CompressedBitmap ca = bitmap(a);
+            CompressedBitmap cb = bitmap(b);
+
+            BitSet and = (BitSet) a.clone();
+            and.and(b);
+            assertSameValues(and, ca.and(cb));
+            assertEquals(and.cardinality(), ca.andCardinality(cb));
+
+            BitSet or = (BitSet) a.clone();
+            or.or(b);
+            assertSameValues(or, ca.or(cb));
+
+            BitSet andNot = (BitSet) a.clone();
+            andNot.andNot(b);
+            assertSameValues(andNot, ca.andNot(cb));
+        }
+    }
+
+    @Test
+    void containsMatchesBitSet() {
+        Random random = new Random(11);
+        BitSet set = random(random, 0.2);
+        CompressedBitmap bitmap = bitmap(set);
+        for (int i = 0; i < 10_000; i++) {
+            int v = random.nextInt(UNIVERSE + 1000);
+            assertEquals(set.get(v), bitmap.contains(v), "value " + v);
+        }
+    }
+
+    @Test
+    void denseChunkThatShrinksBelowTheArrayLimitStaysCorrect() {
+        BitSet dense = new BitSet();
+        dense.set(0, CompressedBitmap.ARRAY_MAX + 100);
+        BitSet small = new BitSet();
+        small.set(50, 150);
+
+        assertSameValues(small, bitmap(dense).and(bitmap(small)));
+        BitSet rest = (BitSet) dense.clone();
+        rest.andNot(small);
+        assertSameValues(rest, bitmap(dense).andNot(bitmap(small)));
+    }
+
+    // ================= RANGE AND SELECT =================
+
+    @Test
+    void rangeHoldsExactlyZeroToSize() {
+        for (int size : new int[]{1, 63, 64, 65, 65536, 65537, 200_000}) {
+            BitSet expected = new BitSet();
+            expected.set(0, size);
+            assertSameValues(expected, CompressedBitmap.range(size));
+        }
+        assertTrue(CompressedBitmap.range(0).isEmpty());
+    }
+
+    @Test
+    void selectPagesThroughChunks() {
+        CompressedBitmap bitmap = CompressedBitmap.range(150_000).andNot(CompressedBitmap.range(65_530));
+        int[] page = new int[10];
+        assertEquals(10, bitmap.select(0, page));
+        assertEquals(65_530, page[0]);
+        assertEquals(65_539, page[9]);
+
+        assertEquals(10, bitmap.select(3, page));
+        assertEquals(65_533, page[0]);
+        assertEquals(65_542, page[9]); // crosses into the second chunk
+
+        assertEquals(4, bitmap.select(bitmap.cardinality() - 4, page));
+        assertEquals(149_999, page[3]);
+    }
+
+    // ================= EDGES =================
+
+    @Test
+    void emptyOperands() {
+        CompressedBitmap empty = CompressedBitmap.empty();
+        CompressedBitmap some = bitmap(BitSet.valueOf(new long[]{0b1011}));
+
+        assertTrue(some.and(empty).isEmpty());
+        assertSame(some, some.or(empty));
+        assertSame(some, empty.or(some));
+        assertSame(some, some.andNot(empty));
+        assertEquals(0, empty.andCardinality(some));
+        assertFalse(empty.contains(0));
+    }
+
+    @Test
+    void builderNeedsAscendingValues() {
+        CompressedBitmap.Builder builder = new CompressedBitmap.Builder().add(3).add(3).add(5);
+        assertEquals(2, builder.build().cardinality());
+        assertThrows(IllegalArgumentException.class, () -> builder.add(4));
+    }
+
+    @Test
+    void sparseValuesCostFarLessThanDense() {
+        CompressedBitmap sparse = bitmap(BitSet.valueOf(new long[]{1, 0, 0, 1}));
+        CompressedBitmap dense = CompressedBitmap.range(65536);
+        assertTrue(sparse.sizeInBytes() < 64);
+        assertTrue(dense.sizeInBytes() >= 8192);
+    }
+}
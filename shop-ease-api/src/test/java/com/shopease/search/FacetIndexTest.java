@@ -0,0 +1,193 @@
+package com.shopease.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FacetIndexTest {
+
+    private static final List<BigDecimal> BANDS = List.of(new BigDecimal("500"), new BigDecimal("1000"));
+
+    private static FacetDocument doc(String id, String category, String brand, String price, boolean inStock,
+                                     String... tags) {
+        return new FacetDocument(id, category, brand, price != null ? new BigDecimal(price) : null, inStock, List.of(tags));
+    }
+
+    private static Map<String, Integer> counts(FacetIndex.Result result, String facet) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (FacetCount c : result.getFacets().get(facet)) counts.put(c.getValue(), c.getCount());
+        return counts;
+    }
+
+    // ================= FILTERING =================
+
+    @Test
+    void orWithinAFacetAndAcrossFacets() {
+        FacetIndex index = FacetIndex.build(List.of(
+                doc("1", "shoes", "acme", "100", true, "sale"),
+                doc("2", "shoes", "zoom", "700", false),
+                doc("3", "shirts", "acme", "1200", true, "sale", "new"),
+                doc("4", "shirts", "bolt", "300", true)), BANDS);
+
+        FacetIndex.Result result = index.query(Map.of(
+                FacetIndex.BRAND, Set.of("acme", "zoom"),
+                FacetIndex.IN_STOCK, Set.of("true")), 0, 10, 10);
+
+        assertEquals(2, result.getTotal());
+        assertEquals(List.of("1", "3"), result.getProductIds());
+    }
+
+    @Test
+    void facetCountsIgnoreTheirOwnFilter() {
+        FacetIndex index = FacetIndex.build(List.of(
+                doc("1", "shoes", "acme", "100", true),
+                doc("2", "shoes", "zoom", "700", true),
+                doc("3", "shirts", "acme", "1200", true),
+                doc("4", "shoes", "bolt", "300", false)), BANDS);
+
+        FacetIndex.Result result = index.query(Map.of(
+                FacetIndex.BRAND, Set.of("acme"),
+                FacetIndex.CATEGORY, Set.of("shoes")), 0, 10, 10);
+
+        assertEquals(List.of("1"), result.getProductIds());
+        // Brands within shoes, categories within acme
+        assertEquals(Map.of("acme", 1, "zoom", 1, "bolt", 1), counts(result, FacetIndex.BRAND));
+        assertEquals(Map.of("shoes", 1, "shirts", 1), counts(result, FacetIndex.CATEGORY));
+        assertEquals(Map.of("0-500", 1), counts(result, FacetIndex.PRICE));
+    }
+
+    @Test
+    void selectedValueIsListedEvenWithNoMatches() {
+        FacetIndex index = FacetIndex.build(List.of(
+                doc("1", "shoes", "acme", "100", true),
+                doc("2", "shirts", "zoom", "100", true)), BANDS);
+
+        FacetIndex.Result result = index.query(Map.of(
+                FacetIndex.CATEGORY, Set.of("shoes"),
+                FacetIndex.BRAND, Set.of("zoom")), 0, 10, 10);
+
+        assertEquals(0, result.getTotal());
+        FacetCount zoom = result.getFacets().get(FacetIndex.BRAND).stream()
+                .filter(c -> c.getValue().equals("zoom")).findFirst().orElseThrow();
+        assertTrue(zoom.isSelected());
+        assertEquals(0, zoom.getCount());
+    }
+
+    @Test
+    void unknownValueMatchesNothing() {
+        FacetIndex index = FacetIndex.build(List.of(doc("1", "shoes", "acme", "100", true)), BANDS);
+        assertEquals(0, index.query(Map.of(FacetIndex.BRAND, Set.of("nope")), 0, 10, 10).getTotal());
+    }
+
+    @Test
+    void pagesInBuildOrder() {
+        List<FacetDocument> docs = new ArrayList<>();
+        for (int i = 0; i < 25; i++) docs.add(doc("p" + i, "c", "b", "10", true));
+        FacetIndex index = FacetIndex.build(docs, BANDS);
+
+        FacetIndex.Result page = index.query(Map.of(), 20, 10, 10);
+        assertEquals(25, page.getTotal());
+        assertEquals(List.of("p20", "p21", "p22", "p23", "p24"), page.getProductIds());
+        assertTrue(index.query(Map.of(), 30, 10, 10).getProductIds().isEmpty());
+    }
+
+    @Test
+    void facetLimitKeepsTheTopValuesAndSelectedOnes() {
+        FacetIndex index = FacetIndex.build(List.of(
+                doc("1", "c", "a", null, true),
+                doc("2", "c", "a", null, true),
+                doc("3", "c", "b", null, true),
+                doc("4", "c", "z", null, true)), BANDS);
+
+        List<FacetCount> brands = index.query(Map.of(FacetIndex.BRAND, Set.of("z")), 0, 10, 1)
+                .getFacets().get(FacetIndex.BRAND);
+        assertEquals(List.of("a", "z"), brands.stream().map(FacetCount::getValue).toList());
+    }
+
+    @Test
+    void priceBands() {
+        assertEquals("0-500", FacetIndex.priceBand(new BigDecimal("499.99"), BANDS));
+        assertEquals("500-1000", FacetIndex.priceBand(new BigDecimal("500"), BANDS));
+        assertEquals("1000+", FacetIndex.priceBand(new BigDecimal("5000"), BANDS));
+        assertEquals(null, FacetIndex.priceBand(null, BANDS));
+    }
+
+    // ================= AGAINST A SCAN =================
+
+    // Large enough that the walk, complement and bitmap counting plans all run
+    @Test
+    void matchesABruteForceScan() {
+        Random random = new Random(3);
+        List<FacetDocument> docs = new ArrayList<>();
+        for (int i = 0; i < 70_000; i++) {
+            List<String> tags = new ArrayList<>();
+            if (random.nextInt(4) == 0) tags.add("sale");
+            if (random.nextInt(10) == 0) tags.add("new");
+            docs.add(new FacetDocument("p" + i, "c" + random.nextInt(6), random.nextInt(50) == 0 ? null : "b" + random.nextInt(40),
+                    new BigDecimal(random.nextInt(1500)), random.nextInt(10) != 0, tags));
+        }
+        FacetIndex index = FacetIndex.build(docs, BANDS);
+
+        List<Map<String, Set<String>>> queries = List.of(
+                Map.of(),
+                Map.of(FacetIndex.IN_STOCK, Set.of("true")),
+                Map.of(FacetIndex.BRAND, Set.of("b1")),
+                Map.of(FacetIndex.BRAND, Set.of("b1", "b2", "b3"), FacetIndex.TAG, Set.of("sale")),
+                Map.of(FacetIndex.CATEGORY, Set.of("c0", "c1", "c2", "c3", "c4"), FacetIndex.PRICE, Set.of("1000+")),
+                Map.of(FacetIndex.TAG, Set.of("new"), FacetIndex.IN_STOCK, Set.of("false"), FacetIndex.CATEGORY, Set.of("c5")));
+
+        for (Map<String, Set<String>> filters : queries) {
+            FacetIndex.Result result = index.query(filters, 0, 50, 1000);
+
+            List<String> expectedIds = new ArrayList<>();
+            for (FacetDocument d : docs) if (matches(d, filters, null)) expectedIds.add(d.getId());
+            assertEquals(expectedIds.size(), result.getTotal(), filters.toString());
+            assertEquals(expectedIds.subList(0, Math.min(50, expectedIds.size())), result.getProductIds());
+
+            for (String facet : List.of(FacetIndex.CATEGORY, FacetIndex.BRAND, FacetIndex.TAG, FacetIndex.PRICE, FacetIndex.IN_STOCK)) {
+                Map<String, Integer> expected = new HashMap<>();
+                for (FacetDocument d : docs) {
+                    if (!matches(d, filters, facet)) continue;
+                    for (String value : values(d, facet)) expected.merge(value, 1, Integer::sum);
+                }
+                Map<String, Integer> actual = counts(result, facet);
+                actual.values().removeIf(count -> count == 0);
+                assertEquals(expected, actual, facet + " for " + filters);
+            }
+        }
+    }
+
+    private static boolean matches(FacetDocument d, Map<String, Set<String>> filters, String skip) {
+        for (Map.Entry<String, Set<String>> f : filters.entrySet()) {
+            if (f.getKey().equals(skip)) continue;
+            Set<String> values = values(d, f.getKey());
+            values.retainAll(f.getValue());
+            if (values.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    private static Set<String> values(FacetDocument d, String facet) {
+        Set<String> values = new HashSet<>();
+        switch (facet) {
+            case FacetIndex.CATEGORY -> values.add(d.getCategoryId());
+            case FacetIndex.BRAND -> values.add(d.getBrand());
+            case FacetIndex.TAG -> values.addAll(d.getTags());
+            case FacetIndex.PRICE -> values.add(FacetIndex.priceBand(d.getPrice(), BANDS));
+            case FacetIndex.IN_STOCK -> values.add(String.valueOf(d.isInStock()));
+            default -> throw new IllegalArgumentException(facet);
+        }
+        values.remove(null);
+        return values;
+    }
+}
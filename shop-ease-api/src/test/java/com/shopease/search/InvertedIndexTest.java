@@ -0,0 +1,177 @@
+package com.shopease.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+
+    private static SearchDocument doc(String id, String title, String description, String category, String brand) {
+        return new SearchDocument(id, title, null, description, category, brand);
+    }
+
+    private static InvertedIndex index(SearchDocument... docs) {
+        InvertedIndex index = new InvertedIndex();
+        index.rebuild(List.of(docs));
+        return index;
+    }
+
+    private static List<String> ids(List<SearchHit> hits) {
+        List<String> ids = new ArrayList<>();
+        for (SearchHit hit : hits) ids.add(hit.getDocument().getId());
+        return ids;
+    }
+
+    // ================= MATCHING =================
+
+    @Test
+    void requiresEveryTokenWhenSomethingMatchesAll() {
+        InvertedIndex index = index(
+                doc("1", "Red running shoes", null, "Footwear", "Acme"),
+                doc("2", "Red cotton shirt", null, "Apparel", "Acme"),
+                doc("3", "Blue running shorts", null, "Apparel", "Zoom"));
+
+        assertEquals(List.of("1"), ids(index.search("red running", 10)));
+    }
+
+    @Test
+    void fallsBackToAnyTokenWhenNothingMatchesAll() {
+        InvertedIndex index = index(
+                doc("1", "Red shirt", null, null, null),
+                doc("2", "Blue jeans", null, null, null));
+
+        List<String> ids = ids(index.search("red jeans", 10));
+        assertEquals(2, ids.size());
+        assertTrue(ids.containsAll(List.of("1", "2")));
+    }
+
+    @Test
+    void lastTokenMatchesAsPrefix() {
+        InvertedIndex index = index(
+                doc("1", "Wireless headphones", null, null, null),
+                doc("2", "Wired keyboard", null, null, null));
+
+        assertEquals(List.of("1"), ids(index.search("wireless head", 10)));
+        assertEquals(List.of("1", "2"), ids(index.search("wir", 10)).stream().sorted().toList());
+    }
+
+    @Test
+    void partlyTypedStopwordIsKeptAsThePrefix() {
+        InvertedIndex index = index(doc("1", "Apple juice", null, null, null));
+
+        assertEquals(List.of("1"), ids(index.search("a", 10)));
+        assertEquals(List.of("1"), ids(index.search("juice a", 10)));
+    }
+
+    @Test
+    void accentsAndCaseAreIgnored() {
+        InvertedIndex index = index(doc("1", "Café Crème", null, null, null));
+        assertEquals(List.of("1"), ids(index.search("CAFE creme", 10)));
+    }
+
+    // ================= RANKING =================
+
+    @Test
+    void titleOutweighsDescription() {
+        InvertedIndex index = index(
+                doc("body", "Kettle", "Comes with a leather strap", null, null),
+                doc("title", "Leather wallet", "Slim and light", null, null));
+
+        assertEquals(List.of("title", "body"), ids(index.search("leather", 10)));
+    }
+
+    @Test
+    void rarerTermsScoreHigher() {
+        InvertedIndex index = index(
+                doc("1", "Steel bottle", null, null, null),
+                doc("2", "Steel pan", null, null, null),
+                doc("3", "Steel spoon", null, null, null),
+                doc("4", "Copper bottle", null, null, null));
+
+        // "copper" is in one document, "steel" in three
+        float copper = index.search("copper", 10).get(0).getScore();
+        float steel = index.search("steel", 10).get(0).getScore();
+        assertTrue(copper > steel);
+    }
+
+    @Test
+    void shorterDocumentWinsOnEqualTermFrequency() {
+        InvertedIndex index = index(
+                doc("long", "Lamp with brass base and linen shade and dimmer", null, null, null),
+                doc("short", "Lamp", null, null, null));
+
+        assertEquals(List.of("short", "long"), ids(index.search("lamp", 10)));
+    }
+
+    @Test
+    void exactTermBeatsPrefixExpansion() {
+        InvertedIndex index = index(
+                doc("prefix", "Bagpipe", null, null, null),
+                doc("exact", "Bag", null, null, null));
+
+        assertEquals("exact", index.search("bag", 10).get(0).getDocument().getId());
+    }
+
+    @Test
+    void limitKeepsTheBestHits() {
+        List<SearchDocument> docs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            docs.add(doc("d" + i, "Mug " + "filler ".repeat(i), null, null, null));
+        }
+        InvertedIndex index = new InvertedIndex();
+        index.rebuild(docs);
+
+        assertEquals(List.of("d0", "d1", "d2"), ids(index.search("mug", 3)));
+    }
+
+    // ================= UPDATES =================
+
+    @Test
+    void upsertReplacesTheOldVersion() {
+        InvertedIndex index = index(doc("1", "Green tea", null, null, null));
+        index.upsert(doc("1", "Black coffee", null, null, null));
+
+        assertTrue(index.search("green", 10).isEmpty());
+        assertEquals(List.of("1"), ids(index.search("coffee", 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void removeDropsTheDocument() {
+        InvertedIndex index = index(
+                doc("1", "Desk chair", null, null, null),
+                doc("2", "Desk lamp", null, null, null));
+        index.remove("1");
+
+        assertEquals(List.of("2"), ids(index.search("desk", 10)));
+        assertNull(index.getDocument("1"));
+        assertEquals(1, index.documents().size());
+    }
+
+    @Test
+    void manyUpdatesCompactWithoutLosingDocuments() {
+        InvertedIndex index = new InvertedIndex();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 100; i++) {
+                index.upsert(doc("p" + i, "Widget v" + round, null, null, null));
+            }
+        }
+
+        assertEquals(100, index.size());
+        assertEquals(100, index.search("widget", 1000).size());
+        assertTrue(index.search("v3", 10).isEmpty());
+        assertEquals(100, index.search("v4", 1000).size());
+    }
+
+    @Test
+    void emptyQueryOrIndexFindsNothing() {
+        assertTrue(new InvertedIndex().search("anything", 10).isEmpty());
+        assertTrue(index(doc("1", "Thing", null, null, null)).search("  ", 10).isEmpty());
+        assertTrue(index(doc("1", "Thing", null, null, null)).search("thing", 0).isEmpty());
+    }
+}
@@ -0,0 +1,178 @@
+package com.shopease.search;
+
+import com.shopease.search.SuggestionTrie.Suggestion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestionTrieTest {
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        List<String> texts = new ArrayList<>();
+        for (Suggestion s : suggestions) texts.add(s.getText());
+        return texts;
+    }
+
+    // ================= COMPLETION =================
+
+    @Test
+    void completesHeaviestFirst() {
+        SuggestionTrie trie = new SuggestionTrie.Builder()
+                .add("Phone case", SuggestionTrie.TYPE_TITLE, 5, false)
+                .add("Phone charger", SuggestionTrie.TYPE_TITLE, 20, false)
+                .add("Photo frame", SuggestionTrie.TYPE_TITLE, 10, false)
+                .add("Laptop stand", SuggestionTrie.TYPE_TITLE, 99, false)
+                .build();
+
+        assertEquals(List.of("Phone charger", "Photo frame", "Phone case"), texts(trie.complete("pho", 10)));
+        assertEquals(List.of("Phone charger", "Photo frame"), texts(trie.complete("pho", 2)));
+        assertEquals(List.of("Phone charger", "Phone case"), texts(trie.complete("phone", 10)));
+    }
+
+    @Test
+    void prefixMayEndInsideACompressedEdge() {
+        SuggestionTrie trie = new SuggestionTrie.Builder()
+                .add("Headphones", SuggestionTrie.TYPE_TITLE, 1, false)
+                .build();
+
+        assertEquals(List.of("Headphones"), texts(trie.complete("headp", 5)));
+        assertTrue(trie.complete("headx", 5).isEmpty());
+        assertTrue(trie.complete("headphonesx", 5).isEmpty());
+    }
+
+    @Test
+    void weightsOfTheSameTextAddUp() {
+        SuggestionTrie trie = new SuggestionTrie.Builder()
+                .add("Desk lamp", SuggestionTrie.TYPE_TITLE, 3, false)
+                .add("Desk chair", SuggestionTrie.TYPE_TITLE, 5, false)
+                .add("DESK LAMP", SuggestionTrie.TYPE_TITLE, 4, false)
+                .build();
+
+        List<Suggestion> results = trie.complete("desk", 5);
+        assertEquals(List.of("Desk lamp", "Desk chair"), texts(results));
+        assertEquals(7, results.get(0).getWeight());
+        assertEquals(2, trie.entryCount());
+    }
+
+    @Test
+    void sameTextOfAnotherTypeIsASeparateEntry() {
+        SuggestionTrie trie = new SuggestionTrie.Builder()
+                .add("Apple", SuggestionTrie.TYPE_BRAND, 2, false)
+                .add("Apple", SuggestionTrie.TYPE_CATEGORY, 1, false)
+                .build();
+
+        List<Suggestion> results = trie.complete("app", 5);
+        assertEquals(2, results.size());
+        assertEquals("brand", results.get(0).getType());
+        assertEquals("category", results.get(1).getType());
+    }
+
+    // ================= WORD SUFFIXES =================
+
+    @Test
+    void everyEntrySharingAKeyIsKept() {
+        SuggestionTrie trie = new SuggestionTrie.Builder()
+                .add("Red shirt", SuggestionTrie.TYPE_TITLE, 1, true)
+                .add("Blue shirt", SuggestionTrie.TYPE_TITLE, 3, true)
+                .add("Green shirt", SuggestionTrie.TYPE_TITLE, 2, true)
+                .build();
+
+        assertEquals(List.of("Blue shirt", "Green shirt", "Red shirt"), texts(trie.complete("shirt", 10)));
+        assertEquals(List.of("Blue shirt", "Green shirt"), texts(trie.complete("sh", 2)));
+    }
+
+    @Test
+    void entryReachedThroughSeveralKeysIsReturnedOnce() {
+        SuggestionTrie trie = new SuggestionTrie.Builder()
+                .add("Sport socks sport edition", SuggestionTrie.TYPE_TITLE, 1, true)
+                .build();
+
+        assertEquals(List.of("Sport socks sport edition"), texts(trie.complete("sport", 10)));
+    }
+
+    @Test
+    void withoutWordSuffixesOnlyTheFullPhraseMatches() {
+        SuggestionTrie trie = new SuggestionTrie.Builder()
+                .add("Running Shoes", SuggestionTrie.TYPE_CATEGORY, 1, false)
+                .build();
+
+        assertTrue(trie.complete("shoes", 5).isEmpty());
+        assertEquals(List.of("Running Shoes"), texts(trie.complete("running sh", 5)));
+    }
+
+    // ================= ANALYSIS =================
+
+    @Test
+    void partlyTypedStopwordIsKept() {
+        SuggestionTrie trie = new SuggestionTrie.Builder()
+                .add("Apple watch", SuggestionTrie.TYPE_TITLE, 1, true)
+                .add("Indigo jeans", SuggestionTrie.TYPE_TITLE, 1, true)
+                .build();
+
+        assertEquals(List.of("Apple watch"), texts(trie.complete("a", 5)));
+        assertEquals(List.of("Indigo jeans"), texts(trie.complete("in", 5)));
+    }
+
+    @Test
+    void stopwordsAndAccentsAreNormalizedAway() {
+        SuggestionTrie trie = new SuggestionTrie.Builder()
+                .add("The Café Collection", SuggestionTrie.TYPE_TITLE, 1, false)
+                .build();
+
+        assertEquals(List.of("The Café Collection"), texts(trie.complete("the cafe col", 5)));
+        assertTrue(trie.complete(" ", 5).isEmpty());
+        assertTrue(trie.complete("the ", 5).isEmpty());
+    }
+
+    @Test
+    void emptyTrieCompletesNothing() {
+        assertTrue(SuggestionTrie.empty().complete("a", 5).isEmpty());
+    }
+
+    // ================= AGAINST A SCAN =================
+
+    @Test
+    void matchesABruteForceScan() {
+        Random random = new Random(42);
+        String[] words = {"red", "blue", "cotton", "shirt", "shoe", "shorts", "sock", "silk", "scarf"};
+        SuggestionTrie.Builder builder = new SuggestionTrie.Builder();
+        List<String> phrases = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        while (phrases.size() < 200) {
+            String phrase = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                    + " " + random.nextInt(1000);
+            if (!seen.add(phrase)) continue;
+            int weight = random.nextInt(10_000);
+            builder.add(phrase, SuggestionTrie.TYPE_TITLE, weight, false);
+            phrases.add(phrase);
+            weights.add(weight);
+        }
+        SuggestionTrie trie = builder.build();
+
+        for (String prefix : List.of("s", "sh", "red s", "blue cotton", "silk scarf 9")) {
+            List<Suggestion> results = trie.complete(prefix, 7);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < phrases.size(); i++) {
+                if (phrases.get(i).startsWith(prefix)) expected.add(weights.get(i));
+            }
+            expected.sort((a, b) -> b - a);
+            expected = expected.subList(0, Math.min(7, expected.size()));
+
+            List<Integer> actual = new ArrayList<>();
+            for (Suggestion s : results) {
+                assertTrue(s.getText().startsWith(prefix), prefix + " -> " + s.getText());
+                actual.add(s.getWeight());
+            }
+            assertEquals(expected, actual, "prefix " + prefix);
+        }
+    }
+}
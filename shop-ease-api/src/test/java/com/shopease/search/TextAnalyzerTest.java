@@ -0,0 +1,27 @@
+package com.shopease.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextAnalyzerTest {
+
+    @Test
+    void dropsStopwordsAndPunctuation() {
+        assertEquals(List.of("shoes", "running"), TextAnalyzer.tokenize("Shoes, for running!"));
+    }
+
+    @Test
+    void keepsAPartlyTypedStopwordOnlyAtTheEnd() {
+        assertEquals(List.of("shoes", "a"), TextAnalyzer.tokenizePrefix("shoes a"));
+        assertEquals(List.of("shoes"), TextAnalyzer.tokenizePrefix("shoes a "));
+        assertEquals(List.of("apple", "pie"), TextAnalyzer.tokenizePrefix("the apple pie"));
+    }
+
+    @Test
+    void normalizesAccentsAndCase() {
+        assertEquals(List.of("cafe", "creme"), TextAnalyzer.tokenize("Café CRÈME"));
+    }
+}
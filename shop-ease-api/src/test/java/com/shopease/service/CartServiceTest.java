@@ -0,0 +1,351 @@
+package com.shopease.service;
+
+import com.shopease.dao.CartDAO;
+import com.shopease.model.Cart;
+import com.shopease.model.CartItem;
+import com.shopease.model.CartSnapshot;
+import com.shopease.model.Product;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartServiceTest {
+
+    private static final String USER = "u1";
+    private static final BigDecimal PRICE = new BigDecimal("10.00");
+
+    private FakeCartDAO db;
+    private final List<CartService> services = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        db = new FakeCartDAO();
+        // Flushes run only when a test calls them
+        System.setProperty("CART_FLUSH_INTERVAL_MS", "3600000");
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.failWrites = false;
+        for (CartService service : services) service.shutdown();
+        System.clearProperty("CART_FLUSH_INTERVAL_MS");
+        System.clearProperty("CART_WRITE_BEHIND");
+        System.clearProperty("CART_MAX_PENDING_LINES");
+        System.clearProperty("CART_RELOAD_SECONDS");
+    }
+
+    private CartService newService() {
+        CartService service = new CartService(db);
+        services.add(service);
+        return service;
+    }
+
+    private static Product product(String id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setTitle("Product " + id);
+        product.setPrice(PRICE);
+        return product;
+    }
+
+    private static boolean add(CartService carts, String productId, int quantity) {
+        return carts.addLine(USER, product(productId), null, PRICE, quantity);
+    }
+
+    private static String lineId(CartService carts, String productId) {
+        for (CartItem item : carts.getItems(USER)) {
+            if (item.getProductId().equals(productId)) return item.getCartItemId();
+        }
+        return null;
+    }
+
+    // ================= WRITE-BEHIND =================
+
+    @Test
+    void readsComeFromMemoryUntilTheFlush() {
+        CartService carts = newService();
+        add(carts, "p1", 2);
+
+        assertEquals(2, carts.getItems(USER).get(0).getQuantity());
+        assertEquals(new BigDecimal("20.00"), carts.getSnapshot(USER).getTotal());
+        assertNull(db.quantity("p1"));
+
+        assertTrue(carts.flushAll());
+        assertEquals(2, db.quantity("p1"));
+    }
+
+    @Test
+    void changesToALineAreCoalescedIntoOneWrite() {
+        CartService carts = newService();
+        add(carts, "p1", 1);
+        add(carts, "p1", 1);
+        add(carts, "p1", 1);
+        add(carts, "p2", 1);
+
+        assertTrue(carts.flushAll());
+        assertEquals(1, db.syncCalls.get());
+        assertEquals(2, db.rowsWritten.get());
+        assertEquals(3, db.quantity("p1"));
+        assertEquals(0, carts.getStats().get("pendingLines"));
+    }
+
+    @Test
+    void addsFromTwoInstancesBothCount() {
+        db.put("p1", 1);
+        CartService a = newService();
+        CartService b = newService();
+        a.getItems(USER);
+        b.getItems(USER);
+
+        add(a, "p1", 2);
+        add(b, "p1", 3);
+        assertTrue(a.flushAll());
+        assertTrue(b.flushAll());
+
+        assertEquals(6, db.quantity("p1"));
+    }
+
+    @Test
+    void settingAQuantityWritesItAbsolutely() {
+        db.put("p1", 5);
+        CartService carts = newService();
+
+        assertTrue(carts.updateQuantity(USER, lineId(carts, "p1"), 2));
+        assertEquals(2, db.quantity("p1")); // written through, not held for the flush
+
+        add(carts, "p1", 1);
+        assertTrue(carts.flushAll());
+        assertEquals(3, db.quantity("p1"));
+    }
+
+    @Test
+    void lastSetFromTwoInstancesWins() {
+        db.put("p1", 5);
+        CartService a = newService();
+        CartService b = newService();
+        String line = lineId(a, "p1");
+        lineId(b, "p1");
+
+        assertTrue(a.updateQuantity(USER, line, 2));
+        assertTrue(b.updateQuantity(USER, line, 4));
+        assertTrue(a.flushAll());
+
+        assertEquals(4, db.quantity("p1"));
+    }
+
+    @Test
+    void staleCleanCartIsReloaded() {
+        System.setProperty("CART_RELOAD_SECONDS", "0");
+        db.put("p1", 1);
+        CartService carts = newService();
+        assertEquals(1, carts.getItems(USER).get(0).getQuantity());
+
+        db.put("p1", 3); // changed on another node
+        assertEquals(3, carts.getItems(USER).get(0).getQuantity());
+        assertEquals(1L, carts.getStats().get("reloads"));
+    }
+
+    @Test
+    void pendingAddsAreNotDroppedByAReload() {
+        System.setProperty("CART_RELOAD_SECONDS", "0");
+        CartService carts = newService();
+        add(carts, "p1", 2);
+
+        assertEquals(2, carts.getItems(USER).get(0).getQuantity());
+        assertTrue(carts.flushAll());
+        assertEquals(2, db.quantity("p1"));
+    }
+
+    @Test
+    void removeAndClearDeleteTheRows() {
+        db.put("p1", 1);
+        db.put("p2", 1);
+        CartService carts = newService();
+
+        assertTrue(carts.removeItem(USER, lineId(carts, "p1")));
+        assertTrue(carts.flushAll());
+        assertNull(db.quantity("p1"));
+        assertEquals(1, carts.getItems(USER).size());
+
+        assertTrue(carts.clearCart(USER));
+        assertTrue(carts.getItems(USER).isEmpty());
+        assertTrue(carts.flushAll());
+        assertTrue(db.rows.isEmpty());
+    }
+
+    // ================= FAILED FLUSHES =================
+
+    @Test
+    void failedFlushKeepsThePendingIncrement() {
+        CartService carts = newService();
+        add(carts, "p1", 2);
+
+        db.failWrites = true;
+        assertFalse(carts.flushAll());
+        assertEquals(1, carts.getStats().get("pendingLines"));
+
+        add(carts, "p1", 1);
+        db.failWrites = false;
+        assertTrue(carts.flushAll());
+        assertEquals(3, db.quantity("p1"));
+        assertEquals(1L, carts.getStats().get("failedFlushes"));
+    }
+
+    @Test
+    void lostAbsoluteWriteMakesTheNextWriteAbsolute() {
+        db.put("p1", 5);
+        CartService carts = newService();
+        String line = lineId(carts, "p1");
+
+        db.failWrites = true;
+        assertTrue(carts.updateQuantity(USER, line, 1)); // kept pending
+        assertFalse(carts.flushAll());
+        db.failWrites = false;
+
+        add(carts, "p1", 2);
+        assertTrue(carts.flushAll());
+        assertEquals(3, db.quantity("p1"));
+    }
+
+    @Test
+    void lostDeleteIsRetried() {
+        db.put("p1", 4);
+        CartService carts = newService();
+        String line = lineId(carts, "p1");
+
+        db.failWrites = true;
+        assertTrue(carts.removeItem(USER, line));
+        assertFalse(carts.flushAll());
+        db.failWrites = false;
+
+        assertTrue(carts.flushAll());
+        assertNull(db.quantity("p1"));
+    }
+
+    // ================= BOUNDS AND MODES =================
+
+    @Test
+    void fullStoreFlushesInline() {
+        System.setProperty("CART_MAX_PENDING_LINES", "2");
+        CartService carts = newService();
+        add(carts, "p1", 1);
+        add(carts, "p2", 1);
+
+        assertTrue(add(carts, "p3", 1));
+        assertEquals(1L, carts.getStats().get("inlineFlushes"));
+        assertEquals(1, db.quantity("p1"));
+    }
+
+    @Test
+    void fullStoreRejectsWritesWhileTheDatabaseIsDown() {
+        System.setProperty("CART_MAX_PENDING_LINES", "1");
+        CartService carts = newService();
+        add(carts, "p1", 1);
+
+        db.failWrites = true;
+        assertFalse(add(carts, "p2", 1));
+        assertEquals(1, carts.getItems(USER).size());
+    }
+
+    @Test
+    void writeThroughWhenWriteBehindIsOff() {
+        System.setProperty("CART_WRITE_BEHIND", "false");
+        CartService carts = newService();
+
+        add(carts, "p1", 2);
+        assertEquals(2, db.quantity("p1"));
+    }
+
+    @Test
+    void checkedOutLinesLeaveMemoryAndLaterAddsStay() {
+        CartService carts = newService();
+        add(carts, "p1", 2);
+        add(carts, "p2", 1);
+        assertTrue(carts.flushCart(USER));
+        List<CartItem> purchased = carts.getItems(USER);
+
+        add(carts, "p1", 1); // added while checkout ran
+        db.rows.clear();     // checkout deleted the purchased rows
+        carts.checkedOut(USER, purchased);
+
+        List<CartItem> left = carts.getItems(USER);
+        assertEquals(1, left.size());
+        assertEquals(1, left.get(0).getQuantity());
+        assertTrue(carts.flushAll());
+        assertEquals(1, db.quantity("p1"));
+        assertNull(db.quantity("p2"));
+    }
+
+    // In-memory stand-in for cart and cart_items, keyed like uq (cart_id, product_id, variant_key)
+    private static final class FakeCartDAO extends CartDAO {
+        final Map<String, CartItem> rows = new ConcurrentHashMap<>();
+        final AtomicInteger syncCalls = new AtomicInteger();
+        final AtomicInteger rowsWritten = new AtomicInteger();
+        volatile boolean failWrites;
+
+        void put(String productId, int quantity) {
+            CartItem row = new CartItem("id-" + productId, "cart-" + USER, productId, null, quantity);
+            row.setUnitPrice(PRICE);
+            rows.put(key(row), row);
+        }
+
+        Integer quantity(String productId) {
+            CartItem row = rows.get("cart-" + USER + "|" + productId + "|");
+            return row != null ? row.getQuantity() : null;
+        }
+
+        @Override
+        public CartSnapshot getCartSnapshot(String userId) {
+            List<CartItem> items = new ArrayList<>();
+            for (CartItem row : rows.values()) {
+                CartItem item = new CartItem(row.getCartItemId(), row.getCartId(), row.getProductId(),
+                        row.getVariantId(), row.getQuantity());
+                item.setUnitPrice(row.getUnitPrice());
+                items.add(item);
+            }
+            return CartSnapshot.of(new Cart("cart-" + userId, userId, new Timestamp(0)), items);
+        }
+
+        @Override
+        public synchronized boolean syncCartLines(List<CartItem> lines, List<CartItem> additions) {
+            if (failWrites) return false;
+            syncCalls.incrementAndGet();
+            rowsWritten.addAndGet(lines.size() + additions.size());
+            for (CartItem add : additions) {
+                rows.merge(key(add), add, (old, inc) -> {
+                    old.setQuantity(old.getQuantity() + inc.getQuantity());
+                    return old;
+                });
+            }
+            for (CartItem line : lines) {
+                if (line.getQuantity() > 0) {
+                    rows.merge(key(line), line, (old, set) -> {
+                        old.setQuantity(set.getQuantity());
+                        return old;
+                    });
+                } else {
+                    rows.remove(key(line));
+                }
+            }
+            return true;
+        }
+
+        private static String key(CartItem item) {
+            return item.getCartId() + "|" + item.getProductId() + "|" + (item.getVariantId() != null ? item.getVariantId() : "");
+        }
+    }
+}
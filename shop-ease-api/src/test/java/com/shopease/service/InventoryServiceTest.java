@@ -0,0 +1,383 @@
+package com.shopease.service;
+
+import com.shopease.dao.InventoryDAO;
+import com.shopease.service.InventoryService.Reservation;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryServiceTest {
+
+    private FakeInventoryDAO db;
+    private InventoryService inventory;
+
+    @BeforeAll
+    static void manualFlushes() {
+        // Flushes and resyncs run only when a test calls them
+        System.setProperty("INVENTORY_FLUSH_INTERVAL_MS", "3600000");
+        System.setProperty("INVENTORY_RESYNC_SECONDS", "0");
+    }
+
+    @AfterAll
+    static void clearProperties() {
+        System.clearProperty("INVENTORY_FLUSH_INTERVAL_MS");
+        System.clearProperty("INVENTORY_RESYNC_SECONDS");
+    }
+
+    @BeforeEach
+    void setUp() {
+        db = new FakeInventoryDAO();
+        inventory = new InventoryService(db);
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventory.shutdown();
+    }
+
+    // ================= RESERVATIONS =================
+
+    @Test
+    void reservesUpToWhatIsOnHand() {
+        db.onHand.put("v1", 3);
+
+        assertNotNull(inventory.reserve("v1", 2, "u1"));
+        assertNull(inventory.reserve("v1", 2, "u2"));
+        assertNotNull(inventory.reserve("v1", 1, "u2"));
+        assertEquals(0, inventory.getAvailable("v1"));
+    }
+
+    @Test
+    void unknownVariantCannotBeReserved() {
+        assertNull(inventory.reserve("missing", 1, "u1"));
+        assertEquals(-1, inventory.getAvailable("missing"));
+    }
+
+    @Test
+    void reserveAllIsAllOrNothing() {
+        db.onHand.put("a", 5);
+        db.onHand.put("b", 1);
+
+        Map<String, Integer> lines = new LinkedHashMap<>();
+        lines.put("a", 2);
+        lines.put("b", 2);
+        assertNull(inventory.reserveAll(lines, "u1"));
+        assertEquals(5, inventory.getAvailable("a"));
+        assertEquals(1, inventory.getAvailable("b"));
+
+        lines.put("b", 1);
+        assertEquals(2, inventory.reserveAll(lines, "u1").size());
+        assertEquals(3, inventory.getAvailable("a"));
+        assertEquals(0, inventory.getAvailable("b"));
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        db.onHand.put("hot", 100);
+        inventory.getAvailable("hot"); // load once, outside the race
+
+        int threads = 16;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 20; i++) {
+                        if (inventory.reserve("hot", 1, "u") != null) granted.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(100, granted.get());
+        assertEquals(0, inventory.getAvailable("hot"));
+        assertEquals(100L, inventory.getStats().get("reserved"));
+        assertEquals(220L, inventory.getStats().get("rejected"));
+    }
+
+    @Test
+    void releaseReturnsUnitsOnce() {
+        db.onHand.put("v1", 2);
+        Reservation r = inventory.reserve("v1", 2, "u1");
+
+        assertTrue(inventory.release(r.getId()));
+        assertFalse(inventory.release(r.getId()));
+        assertEquals(2, inventory.getAvailable("v1"));
+    }
+
+    // ================= COMMIT AND FLUSH =================
+
+    @Test
+    void commitTurnsReservationsIntoSales() {
+        db.onHand.put("v1", 5);
+        List<Reservation> taken = inventory.reserveAll(Map.of("v1", 2), "u1");
+        assertTrue(inventory.flush());
+        assertEquals(2, db.reserved("v1"));
+
+        inventory.commit(taken);
+        assertEquals(3, inventory.getAvailable("v1"));
+        // The checkout deduction takes the sold units out of reserved, not the flush
+        assertEquals(0, inventory.getStats().get("pendingWrites"));
+        assertTrue(inventory.flush());
+        assertEquals(2, db.reserved("v1"));
+    }
+
+    @Test
+    void flushWritesDeltasThatAddUpAcrossInstances() {
+        db.onHand.put("v1", 10);
+        InventoryService other = new InventoryService(db);
+        try {
+            inventory.reserve("v1", 3, "u1");
+            Reservation r = other.reserve("v1", 2, "u2");
+            assertTrue(inventory.flush());
+            assertTrue(other.flush());
+            assertEquals(5, db.reserved("v1"));
+
+            other.release(r.getId());
+            assertTrue(other.flush());
+            assertEquals(3, db.reserved("v1"));
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    void releaseAndReserveBetweenFlushesNetOut() {
+        db.onHand.put("v1", 5);
+        Reservation r = inventory.reserve("v1", 2, "u1");
+        inventory.release(r.getId());
+
+        assertTrue(inventory.flush());
+        assertEquals(0, db.writes.get());
+    }
+
+    @Test
+    void commitAfterReleaseTakesFromAvailable() {
+        db.onHand.put("v1", 5);
+        List<Reservation> taken = inventory.reserveAll(Map.of("v1", 2), "u1");
+        inventory.releaseAll(taken);
+
+        inventory.commit(taken);
+        assertEquals(3, inventory.getAvailable("v1"));
+    }
+
+    @Test
+    void failedFlushIsRetried() {
+        db.onHand.put("v1", 5);
+        inventory.reserve("v1", 1, "u1");
+
+        db.failWrites = true;
+        assertFalse(inventory.flush());
+        assertEquals(1, inventory.getStats().get("pendingWrites"));
+
+        inventory.reserve("v1", 1, "u2");
+        db.failWrites = false;
+        assertTrue(inventory.flush());
+        assertEquals(2, db.reserved("v1"));
+    }
+
+    @Test
+    void shutdownGivesBackOutstandingReservations() {
+        db.onHand.put("v1", 5);
+        inventory.reserve("v1", 2, "u1");
+        inventory.hold("v1", 1, "u2");
+        assertTrue(inventory.flush());
+
+        inventory.shutdown();
+        assertEquals(0, db.reserved("v1"));
+    }
+
+    // ================= CART HOLDS =================
+
+    @Test
+    void holdFollowsTheLineQuantity() {
+        db.onHand.put("v1", 5);
+
+        assertTrue(inventory.hold("v1", 2, "u1"));
+        assertEquals(3, inventory.getAvailable("v1"));
+        assertTrue(inventory.hold("v1", 4, "u1"));
+        assertEquals(1, inventory.getAvailable("v1"));
+        assertTrue(inventory.hold("v1", 1, "u1"));
+        assertEquals(4, inventory.getAvailable("v1"));
+        assertTrue(inventory.hold("v1", 0, "u1"));
+        assertEquals(5, inventory.getAvailable("v1"));
+        assertEquals(0, inventory.getStats().get("holds"));
+    }
+
+    @Test
+    void holdThatCannotGrowKeepsWhatItHad() {
+        db.onHand.put("v1", 3);
+        inventory.hold("v1", 2, "u1");
+
+        assertFalse(inventory.hold("v1", 5, "u1"));
+        assertEquals(1, inventory.getAvailable("v1"));
+        assertNull(inventory.reserveAll(Map.of("v1", 3), "u2"));
+    }
+
+    @Test
+    void checkoutUsesTheOwnersHold() {
+        db.onHand.put("v1", 3);
+        inventory.hold("v1", 2, "u1");
+        inventory.hold("v1", 1, "u2");
+
+        List<Reservation> taken = inventory.reserveAll(Map.of("v1", 2), "u1");
+        assertNotNull(taken);
+        assertEquals(0, inventory.getAvailable("v1"));
+        inventory.commit(taken);
+        assertEquals(1, inventory.getStats().get("holds"));
+        assertEquals(1, inventory.getStats().get("activeReservations"));
+    }
+
+    @Test
+    void failedCheckoutPutsTheHoldsBack() {
+        db.onHand.put("a", 3);
+        db.onHand.put("b", 1);
+        inventory.hold("a", 2, "u1");
+
+        Map<String, Integer> lines = new LinkedHashMap<>();
+        lines.put("a", 2);
+        lines.put("b", 2);
+        assertNull(inventory.reserveAll(lines, "u1"));
+        assertEquals(1, inventory.getAvailable("a"));
+        assertEquals(1, inventory.getStats().get("holds"));
+    }
+
+    @Test
+    void expiredHoldsAreReleased() {
+        System.setProperty("INVENTORY_HOLD_SECONDS", "0");
+        InventoryService expiring = new InventoryService(db);
+        try {
+            db.onHand.put("v1", 2);
+            expiring.hold("v1", 2, "u1");
+            assertEquals(0, expiring.getAvailable("v1"));
+
+            expiring.expireHolds();
+            assertEquals(2, expiring.getAvailable("v1"));
+            assertEquals(1L, expiring.getStats().get("expired"));
+            // The owner's next change takes fresh units
+            assertTrue(expiring.hold("v1", 1, "u1"));
+            assertEquals(1, expiring.getAvailable("v1"));
+        } finally {
+            System.clearProperty("INVENTORY_HOLD_SECONDS");
+            expiring.shutdown();
+        }
+    }
+
+    // ================= RESYNC =================
+
+    @Test
+    void resyncKeepsOutstandingReservations() {
+        db.onHand.put("v1", 10);
+        inventory.reserve("v1", 2, "u1");
+
+        db.onHand.put("v1", 3); // sold elsewhere
+        assertTrue(inventory.resync(List.of("v1")));
+        assertEquals(1, inventory.getAvailable("v1"));
+        assertEquals(1L, inventory.getStats().get("corrections"));
+    }
+
+    @Test
+    void resyncDropsDeletedVariants() {
+        db.onHand.put("v1", 4);
+        db.onHand.put("v2", 4);
+        inventory.getAvailable("v1");
+        inventory.getAvailable("v2");
+
+        db.onHand.remove("v2");
+        inventory.resyncAll();
+        assertEquals(4, inventory.getAvailable("v1"));
+        assertEquals(-1, inventory.getAvailable("v2"));
+        assertEquals(1, inventory.getStats().get("trackedVariants"));
+    }
+
+    @Test
+    void failedResyncKeepsTheCounters() {
+        db.onHand.put("v1", 4);
+        inventory.getAvailable("v1");
+
+        db.failReads = true;
+        assertFalse(inventory.resync(List.of("v1")));
+        db.failReads = false;
+        assertEquals(4, inventory.getAvailable("v1"));
+    }
+
+    @Test
+    void setOnHandMovesAvailableByTheDifference() {
+        db.onHand.put("v1", 5);
+        inventory.reserve("v1", 2, "u1");
+
+        assertTrue(inventory.setOnHand("v1", 8));
+        assertEquals(6, inventory.getAvailable("v1"));
+        assertEquals(8, db.onHand.get("v1"));
+    }
+
+    // In-memory stand-in for variant_inventory
+    private static final class FakeInventoryDAO extends InventoryDAO {
+        final Map<String, Integer> onHand = new ConcurrentHashMap<>();
+        final Map<String, Integer> reservedTotals = new ConcurrentHashMap<>();
+        final AtomicInteger writes = new AtomicInteger();
+        volatile boolean failReads;
+        volatile boolean failWrites;
+
+        @Override
+        public Map<String, Integer> getOnHand(Collection<String> variantIds) {
+            Map<String, Integer> found = new HashMap<>();
+            if (failReads) return found;
+            for (String id : variantIds) {
+                Integer quantity = onHand.get(id);
+                if (quantity != null) found.put(id, quantity);
+            }
+            return found;
+        }
+
+        int reserved(String variantId) {
+            return reservedTotals.getOrDefault(variantId, 0);
+        }
+
+        @Override
+        public boolean saveReserved(Map<String, int[]> deltas) {
+            if (failWrites) return false;
+            for (Map.Entry<String, int[]> e : deltas.entrySet()) {
+                reservedTotals.merge(e.getKey(), e.getValue()[1], Integer::sum);
+                writes.incrementAndGet();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean setOnHand(String variantId, int quantity) {
+            if (failWrites) return false;
+            onHand.put(variantId, quantity);
+            return true;
+        }
+    }
+}